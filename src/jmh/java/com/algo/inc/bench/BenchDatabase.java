@@ -0,0 +1,94 @@
+package com.algo.inc.bench;
+
+import com.algo.inc.database.DatabaseManager;
+import com.algo.inc.metrics.LatencyHistogram;
+import com.algo.inc.model.ErrorClass;
+import com.algo.inc.model.LinkEdge;
+import com.algo.inc.model.LinkRecord;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stands in for PostgreSQL in end-to-end benchmarks: sessions get an ID and every link
+ * record is folded into counters and a latency histogram instead of being written
+ */
+public class BenchDatabase extends DatabaseManager {
+    
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final LatencyHistogram fetchLatency = new LatencyHistogram();
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder edges = new LongAdder();
+    
+    @Override
+    public int insertWebsite(String websiteName, String downloadStartDateTime) {
+        return nextId.incrementAndGet();
+    }
+    
+    @Override
+    public void updateWebsite(int websiteId, String downloadEndDateTime, 
+                              long totalElapsedTime, double totalDownloadedKilobytes) {
+    }
+    
+    @Override
+    public void insertLink(LinkRecord link) {
+        files.increment();
+        retries.add(link.getRetries());
+        if (link.getErrorClass() != ErrorClass.NONE && link.getErrorClass() != ErrorClass.FILTERED) {
+            failures.increment();
+        } else if (link.getContentType() != null && link.getContentType().contains("html")) {
+            pages.increment();
+        }
+        fetchLatency.record(link.getTotalElapsedTime() * 1_000_000);
+    }
+    
+    @Override
+    public void insertLinks(List<LinkRecord> links) {
+        for (LinkRecord link : links) {
+            insertLink(link);
+        }
+    }
+    
+    @Override
+    public void insertEdges(List<LinkEdge> batch) {
+        edges.add(batch.size());
+    }
+    
+    @Override
+    public Map<String, Instant> getLastSuccessfulFetches(String websiteName) {
+        return Collections.emptyMap();
+    }
+    
+    @Override
+    public Map<String, Long> getKnownSizes(String websiteName) {
+        return Collections.emptyMap();
+    }
+    
+    @Override
+    public Map<String, LinkRecord> getCacheValidators(String websiteName) {
+        return Collections.emptyMap();
+    }
+    
+    @Override
+    public Map<String, List<LinkEdge>> getLinkGraph(String websiteName) {
+        return Collections.emptyMap();
+    }
+    
+    /**
+     * Total time per fetch, retries and backoff included
+     */
+    public LatencyHistogram fetchLatency() { return fetchLatency; }
+    
+    public long getPages() { return pages.sum(); }
+    public long getFiles() { return files.sum(); }
+    public long getFailures() { return failures.sum(); }
+    public long getRetries() { return retries.sum(); }
+    public long getEdges() { return edges.sum(); }
+}
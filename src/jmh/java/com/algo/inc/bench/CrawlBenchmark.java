@@ -0,0 +1,160 @@
+package com.algo.inc.bench;
+
+import com.algo.inc.downloader.CrawlOptions;
+import com.algo.inc.downloader.CrawlSession;
+import com.algo.inc.downloader.WebsiteDownloader;
+import com.algo.inc.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end crawl benchmark against SyntheticSiteServer: the real WebsiteDownloader
+ * fetching, parsing and saving a generated site over loopback, with the database
+ * replaced by BenchDatabase.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.algo.inc.bench.CrawlBenchmark [--pages n] [--runs n] [scenario...]
+ * </pre>
+ *
+ * Prints pages/s, MB/s and p50/p99 fetch latency per scenario, best of the runs after one
+ * warm-up crawl. Scenarios sharing a host share its breaker and timeout history, so the
+ * flaky scenario runs last.
+ */
+public class CrawlBenchmark {
+    
+    private static final String[] SCENARIOS = {"baseline", "latency", "bandwidth", "redirects", "large", "flaky"};
+    
+    public static void main(String[] args) throws Exception {
+        int pages = 500;
+        int runs = 3;
+        List<String> scenarios = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--pages":
+                    pages = Integer.parseInt(args[++i]);
+                    break;
+                case "--runs":
+                    runs = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    scenarios.add(args[i]);
+                    break;
+            }
+        }
+        if (scenarios.isEmpty()) {
+            scenarios.addAll(List.of(SCENARIOS));
+        }
+        
+        System.out.printf("%-10s %6s %6s %6s %7s %9s %9s %8s %8s %8s%n",
+            "Scenario", "Pages", "Files", "Failed", "Retries", "Time", "Pages/s", "MB/s", "p50 ms", "p99 ms");
+        for (String scenario : scenarios) {
+            Result best = null;
+            for (int run = 0; run <= runs; run++) {
+                Result result = crawl(scenario, pages);
+                // The first crawl only warms up the JIT and the connection pool
+                if (run > 0 && (best == null || result.millis < best.millis)) {
+                    best = result;
+                }
+            }
+            best.print();
+        }
+    }
+    
+    /**
+     * Serve one scenario's site and crawl all of it
+     */
+    static Result crawl(String scenario, int pages) throws Exception {
+        try (SyntheticSiteServer server = new SyntheticSiteServer()) {
+            server.setPages(pages);
+            configure(scenario, server);
+            server.start();
+            
+            BenchDatabase database = new BenchDatabase();
+            CrawlOptions options = new CrawlOptions();
+            options.setQuiet(true);
+            options.setMaxDepth(Integer.MAX_VALUE);
+            WebsiteDownloader downloader = new WebsiteDownloader(database, options);
+            
+            Path output = Files.createTempDirectory("crawl-bench");
+            try {
+                long start = System.nanoTime();
+                CrawlSession session = downloader.downloadWebsite(server.getBaseUrl(), output.toString());
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                return new Result(scenario, database, session.getStats().snapshot().getBytes(), millis);
+            } finally {
+                deleteTree(output);
+            }
+        }
+    }
+    
+    private static void configure(String scenario, SyntheticSiteServer server) {
+        switch (scenario) {
+            case "baseline":
+                break;
+            case "latency":
+                server.setLatencyMillis(20);
+                break;
+            case "bandwidth":
+                server.setBandwidth(2L * 1024 * 1024);
+                break;
+            case "redirects":
+                server.setRedirectEvery(3);
+                break;
+            case "large":
+                server.setImagesPerPage(2);
+                server.setAssetBytes(4 * 1024 * 1024);
+                break;
+            case "flaky":
+                server.setErrorRate(0.03);
+                server.setThrottleRate(0.01);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown scenario: " + scenario 
+                    + " (use " + String.join(", ", SCENARIOS) + ")");
+        }
+    }
+    
+    private static void deleteTree(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    /**
+     * Measurements of one crawl
+     */
+    static final class Result {
+        final String scenario;
+        final long pages;
+        final long files;
+        final long failures;
+        final long retries;
+        final long bytes;
+        final long millis;
+        final LatencyHistogram.Snapshot latency;
+        
+        Result(String scenario, BenchDatabase database, long bytes, long millis) {
+            this.scenario = scenario;
+            this.pages = database.getPages();
+            this.files = database.getFiles();
+            this.failures = database.getFailures();
+            this.retries = database.getRetries();
+            this.bytes = bytes;
+            this.millis = Math.max(1, millis);
+            this.latency = database.fetchLatency().snapshot();
+        }
+        
+        void print() {
+            System.out.printf("%-10s %6d %6d %6d %7d %8.2fs %9.1f %8.1f %8d %8d%n",
+                scenario, pages, files, failures, retries, millis / 1000.0,
+                pages * 1000.0 / millis, bytes / 1048576.0 * 1000.0 / millis,
+                latency.percentile(0.50) / 1_000_000, latency.percentile(0.99) / 1_000_000);
+        }
+    }
+}
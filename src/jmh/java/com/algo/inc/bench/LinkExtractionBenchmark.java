@@ -0,0 +1,91 @@
+package com.algo.inc.bench;
+
+import com.algo.inc.model.CanonicalUrl;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-page work of a crawl: parsing, selecting resources and page links, resolving them
+ * against the page and serialising the document for disk, on pages of 20 to 2000 links
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LinkExtractionBenchmark {
+    
+    @Param({"20", "200", "2000"})
+    public int links;
+    
+    private byte[] body;
+    private Document document;
+    private CanonicalUrl pageUrl;
+    private CanonicalUrl baseUrl;
+    
+    @Setup
+    public void setUp() throws IOException {
+        body = SyntheticSite.page(links, 42).getBytes(StandardCharsets.UTF_8);
+        pageUrl = CanonicalUrl.parse(SyntheticSite.BASE + "docs/guide/index.html");
+        baseUrl = CanonicalUrl.parse(SyntheticSite.BASE);
+        document = parse();
+    }
+    
+    private Document parse() throws IOException {
+        return Jsoup.parse(new ByteArrayInputStream(body), null, pageUrl.toString());
+    }
+    
+    @Benchmark
+    public Document parsePage() throws IOException {
+        return parse();
+    }
+    
+    @Benchmark
+    public void selectResources(Blackhole blackhole) {
+        blackhole.consume(document.select("link[rel=stylesheet]"));
+        blackhole.consume(document.select("script[src]"));
+        blackhole.consume(document.select("img[src]"));
+    }
+    
+    @Benchmark
+    public Set<CanonicalUrl> extractPageLinks() {
+        Set<CanonicalUrl> pages = new LinkedHashSet<>();
+        for (Element anchor : document.select("a[href]")) {
+            String href = anchor.attr("href");
+            if (href.isEmpty() || href.startsWith("#")) {
+                continue;
+            }
+            CanonicalUrl target = pageUrl.resolve(href);
+            if (target != null && target.isSameHost(baseUrl)) {
+                pages.add(target);
+            }
+        }
+        return pages;
+    }
+    
+    @Benchmark
+    public byte[] serializePage() {
+        return document.html().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,237 @@
+package com.algo.inc.bench;
+
+import com.algo.inc.database.DatabaseManager;
+import com.algo.inc.metrics.LatencyHistogram;
+import com.algo.inc.model.ErrorClass;
+import com.algo.inc.model.LinkRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Load generator for the persistence write path: worker threads each record crawl sessions
+ * through insertWebsite, insertLink or insertLinks and updateWebsite, as fast as the
+ * database takes them.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.algo.inc.bench.PersistenceBenchmark
+ *      [--db-url jdbc:postgresql://host/db --db-user u --db-password p | --memory]
+ *      [--threads 1,4,16] [--batch 1,50] [--rows 20000] [--connections shared|per-thread]
+ * </pre>
+ *
+ * Every combination of threads and batch size is one run, printing rows/s, write latency
+ * percentiles (one INSERT, or one batch) and connection wait. With shared connections the
+ * workers take turns on one connection as the batch runner and daemon do, so the wait is what
+ * a one-connection pool would add; per-thread gives each worker its own connection.
+ * Runs write real rows to sessions named {@value #SITE}; point it at a scratch database.
+ */
+public class PersistenceBenchmark {
+    
+    static final String SITE = "loadgen.invalid";
+    
+    public static void main(String[] args) throws Exception {
+        String dbUrl = null;
+        String dbUser = null;
+        String dbPassword = null;
+        boolean memory = false;
+        boolean shared = true;
+        int rows = 20000;
+        int[] threadCounts = {1, 4, 16};
+        int[] batchSizes = {1, 50};
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--db-url":
+                    dbUrl = args[++i];
+                    break;
+                case "--db-user":
+                    dbUser = args[++i];
+                    break;
+                case "--db-password":
+                    dbPassword = args[++i];
+                    break;
+                case "--memory":
+                    memory = true;
+                    break;
+                case "--connections":
+                    shared = !args[++i].equals("per-thread");
+                    break;
+                case "--rows":
+                    rows = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threadCounts = parseList(args[++i]);
+                    break;
+                case "--batch":
+                    batchSizes = parseList(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        
+        System.out.printf("Backend: %s, %s connection%n", memory ? "in memory" : dbUrl != null ? dbUrl : "-Ddb.* properties",
+                          shared ? "one shared" : "one per thread");
+        System.out.printf("%7s %6s %9s %10s %9s %9s %9s %10s %10s%n",
+            "Threads", "Batch", "Rows", "Rows/s", "p50 ms", "p99 ms", "max ms", "wait p50", "wait p99");
+        for (int threads : threadCounts) {
+            for (int batch : batchSizes) {
+                Run run = new Run(threads, batch, rows / threads);
+                run.execute(memory, shared, dbUrl, dbUser, dbPassword);
+                run.print();
+            }
+        }
+    }
+    
+    private static int[] parseList(String value) {
+        String[] parts = value.split(",");
+        int[] numbers = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            numbers[i] = Integer.parseInt(parts[i].trim());
+        }
+        return numbers;
+    }
+    
+    /**
+     * One combination of thread count and batch size
+     */
+    static final class Run {
+        final int threads;
+        final int batch;
+        final int rowsPerThread;
+        final LatencyHistogram writeLatency = new LatencyHistogram();
+        final LatencyHistogram connectionWait = new LatencyHistogram();
+        long elapsedNanos;
+        
+        Run(int threads, int batch, int rowsPerThread) {
+            this.threads = threads;
+            this.batch = batch;
+            this.rowsPerThread = Math.max(batch, rowsPerThread);
+        }
+        
+        void execute(boolean memory, boolean shared, String dbUrl, String dbUser, String dbPassword) throws Exception {
+            List<DatabaseManager> databases = new ArrayList<>();
+            for (int i = 0; i < (shared ? 1 : threads); i++) {
+                DatabaseManager database = memory ? new BenchDatabase() : new DatabaseManager(dbUrl, dbUser, dbPassword);
+                if (!memory) {
+                    database.initializeDatabase();
+                    if (!database.isConnected()) {
+                        throw new IllegalStateException("No database at " + (dbUrl != null ? dbUrl : "the -Ddb.* address"));
+                    }
+                }
+                databases.add(database);
+            }
+            ReentrantLock turn = new ReentrantLock(true);
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(threads);
+            AtomicReference<Exception> failure = new AtomicReference<>();
+            
+            for (int t = 0; t < threads; t++) {
+                DatabaseManager database = databases.get(shared ? 0 : t);
+                Thread worker = new Thread(() -> {
+                    try {
+                        start.await();
+                        work(database, shared ? turn : null);
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }, "loadgen-" + t);
+                worker.start();
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            done.await();
+            elapsedNanos = System.nanoTime() - begin;
+            for (DatabaseManager database : databases) {
+                database.close();
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+        }
+        
+        /**
+         * One worker: a session of rowsPerThread links, written batch rows at a time
+         * @param turn held while using a shared connection, or null for a connection of its own
+         */
+        private void work(DatabaseManager database, ReentrantLock turn) throws Exception {
+            int websiteId = write(database, turn, () -> database.insertWebsite(SITE, "2026-01-01 00:00:00"));
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            List<LinkRecord> pending = new ArrayList<>(batch);
+            for (int i = 0; i < rowsPerThread; i++) {
+                pending.add(link(websiteId, i, random));
+                if (pending.size() == batch) {
+                    List<LinkRecord> links = new ArrayList<>(pending);
+                    write(database, turn, () -> {
+                        if (batch == 1) {
+                            database.insertLink(links.get(0));
+                        } else {
+                            database.insertLinks(links);
+                        }
+                        return 0;
+                    });
+                    pending.clear();
+                }
+            }
+            write(database, turn, () -> {
+                database.updateWebsite(websiteId, "2026-01-01 00:01:00", 60000, rowsPerThread * 24.0);
+                return 0;
+            });
+        }
+        
+        private int write(DatabaseManager database, ReentrantLock turn, Write write) throws Exception {
+            long asked = System.nanoTime();
+            if (turn != null) {
+                turn.lock();
+            }
+            try {
+                long started = System.nanoTime();
+                connectionWait.record(started - asked);
+                int result = write.run();
+                writeLatency.recordSince(started);
+                return result;
+            } finally {
+                if (turn != null) {
+                    turn.unlock();
+                }
+            }
+        }
+        
+        private static LinkRecord link(int websiteId, int i, ThreadLocalRandom random) {
+            LinkRecord link = new LinkRecord("http://" + SITE + SyntheticSite.pagePath(i), websiteId);
+            link.setTotalElapsedTime(random.nextInt(5, 800));
+            link.setTotalDownloadedKilobytes(random.nextDouble(1, 200));
+            link.setDnsTime(random.nextInt(0, 5));
+            link.setConnectTime(random.nextInt(1, 40));
+            link.setTimeToFirstByte(random.nextInt(5, 300));
+            link.setTransferTime(random.nextInt(1, 400));
+            link.setStatusCode(200);
+            link.setContentType("text/html; charset=utf-8");
+            link.setWireBytes(random.nextInt(1024, 200 * 1024));
+            link.setErrorClass(ErrorClass.NONE);
+            return link;
+        }
+        
+        void print() {
+            long totalRows = (long) threads * (rowsPerThread / batch * batch);
+            LatencyHistogram.Snapshot writes = writeLatency.snapshot();
+            LatencyHistogram.Snapshot waits = connectionWait.snapshot();
+            System.out.printf("%7d %6d %9d %10.0f %9.2f %9.2f %9.2f %10.2f %10.2f%n",
+                threads, batch, totalRows, totalRows * 1e9 / elapsedNanos,
+                writes.percentile(0.50) / 1e6, writes.percentile(0.99) / 1e6, writes.getMax() / 1e6,
+                waits.percentile(0.50) / 1e6, waits.percentile(0.99) / 1e6);
+        }
+    }
+    
+    /**
+     * One call into the DatabaseManager
+     */
+    private interface Write {
+        int run() throws Exception;
+    }
+}
@@ -0,0 +1,137 @@
+package com.algo.inc.bench;
+
+import java.util.Random;
+
+/**
+ * Deterministic HTML pages shaped like real sites, for benchmarks.
+ *
+ * A page has a head with stylesheets and scripts and a body of paragraphs, images and anchors.
+ * About two thirds of the anchors are same-site links in the usual spellings (relative, root
+ * relative, absolute, with dot segments, queries and fragments); the rest are external,
+ * mailto: or javascript: links the crawler has to skip. The same seed always gives the same page.
+ */
+public final class SyntheticSite {
+    
+    public static final String HOST = "bench.example.com";
+    public static final String BASE = "https://" + HOST + "/";
+    
+    private static final String[] WORDS = {
+        "crawler", "frontier", "latency", "socket", "parser", "mirror", "archive", "index",
+        "resource", "stylesheet", "throughput", "request", "document", "origin", "buffer", "cache"
+    };
+    private static final String[] SECTIONS = {"docs", "blog", "news", "products", "about", "help"};
+    
+    private SyntheticSite() {
+    }
+    
+    /**
+     * A page with the given number of anchors and roughly one asset per ten of them
+     */
+    public static String page(int links, long seed) {
+        Random random = new Random(seed);
+        StringBuilder html = new StringBuilder(256 + links * 160);
+        html.append("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<meta charset=\"utf-8\">\n")
+            .append("<title>").append(sentence(random, 4)).append("</title>\n");
+        int assets = Math.max(1, links / 10);
+        for (int i = 0; i < assets; i++) {
+            html.append("<link rel=\"stylesheet\" href=\"/static/css/").append(word(random)).append(i).append(".css?v=")
+                .append(random.nextInt(100)).append("\">\n");
+            html.append("<script src=\"../js/").append(word(random)).append(i).append(".js\"></script>\n");
+        }
+        html.append("</head>\n<body>\n<nav>\n");
+        
+        for (int i = 0; i < links; i++) {
+            if (i % 8 == 0) {
+                html.append("<p>").append(sentence(random, 20 + random.nextInt(40))).append("</p>\n");
+            }
+            if (i % 10 == 5) {
+                html.append("<img src=\"/images/").append(word(random)).append(i).append(".png\" alt=\"")
+                    .append(word(random)).append("\">\n");
+            }
+            html.append("<a href=\"").append(href(random, i)).append("\">").append(sentence(random, 3)).append("</a>\n");
+        }
+        return html.append("</nav>\n</body>\n</html>\n").toString();
+    }
+    
+    /**
+     * Page of a closed site of the given size, as served by SyntheticSiteServer. Page i links to
+     * pages i * fanOut + 1 .. i * fanOut + fanOut, so every page is reachable from page 0, plus
+     * a few pages chosen at random; the body is padded with paragraphs to about pageBytes.
+     * @param redirectEvery every n-th link goes through a redirect, or 0 for none
+     */
+    public static String sitePage(int index, int pages, int fanOut, int images, int imageCount,
+                                  int pageBytes, int redirectEvery) {
+        Random random = new Random(index);
+        StringBuilder html = new StringBuilder(pageBytes + 1024);
+        html.append("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<meta charset=\"utf-8\">\n")
+            .append("<title>Page ").append(index).append("</title>\n")
+            .append("<link rel=\"stylesheet\" href=\"/assets/site.css\">\n")
+            .append("<script src=\"/assets/app.js\"></script>\n")
+            .append("</head>\n<body>\n<nav>\n");
+        
+        int links = 0;
+        for (int k = 1; k <= fanOut + 2; k++) {
+            int target = k <= fanOut ? index * fanOut + k : random.nextInt(pages);
+            if (target >= pages) {
+                continue;
+            }
+            links++;
+            String href = redirectEvery > 0 && links % redirectEvery == 0 ? "/go/" + target : pagePath(target);
+            html.append("<a href=\"").append(href).append("\">").append(sentence(random, 3)).append("</a>\n");
+        }
+        html.append("</nav>\n");
+        for (int k = 0; k < images && imageCount > 0; k++) {
+            html.append("<img src=\"/assets/img-").append((index * images + k) % imageCount).append(".png\" alt=\"\">\n");
+        }
+        while (html.length() < pageBytes) {
+            html.append("<p>").append(sentence(random, 40)).append("</p>\n");
+        }
+        return html.append("</body>\n</html>\n").toString();
+    }
+    
+    /**
+     * Path of the i-th page linked from a page; the same i always names the same page
+     */
+    public static String pagePath(int i) {
+        return "/" + SECTIONS[i % SECTIONS.length] + "/page-" + i + ".html";
+    }
+    
+    private static String href(Random random, int i) {
+        String path = pagePath(random.nextInt(Math.max(1, i * 2 + 1)));
+        switch (random.nextInt(12)) {
+            case 0:
+                return "https://external" + random.nextInt(50) + ".example.org" + path;
+            case 1:
+                return "mailto:team@" + HOST;
+            case 2:
+                return "javascript:void(0)";
+            case 3:
+                return "#" + word(random);
+            case 4:
+                return BASE + path.substring(1);
+            case 5:
+                return "." + path + "?ref=" + word(random) + "&page=" + random.nextInt(10);
+            case 6:
+                return "../" + path.substring(1) + "#section-" + random.nextInt(5);
+            case 7:
+                return path.substring(path.indexOf('/', 1) + 1);
+            default:
+                return path;
+        }
+    }
+    
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+    
+    private static String sentence(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(word(random));
+        }
+        return text.toString();
+    }
+}
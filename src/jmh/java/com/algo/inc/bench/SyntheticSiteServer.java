@@ -0,0 +1,312 @@
+package com.algo.inc.bench;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A generated website served from memory on a loopback port, so crawls can be measured
+ * offline and repeated exactly.
+ *
+ * The site has "/" (page 0) and pages under {@link SyntheticSite#pagePath}, each linking to
+ * fanOut further pages and a few images, plus a shared stylesheet and script under /assets/.
+ * Links through /go/n answer with a 301 to page n. Set the knobs before {@link #start()}:
+ * latency before every response, per-connection bandwidth, the share of requests answered
+ * with 500 or 429, gzip for clients that ask for it, ETag revalidation and single Range requests.
+ */
+public class SyntheticSiteServer implements AutoCloseable {
+    
+    private static final Pattern PAGE = Pattern.compile("/[a-z]+/page-(\\d+)\\.html");
+    private static final Pattern IMAGE = Pattern.compile("/assets/img-(\\d+)\\.png");
+    private static final Pattern REDIRECT = Pattern.compile("/go/(\\d+)");
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    
+    static {
+        // Headers and body go out in separate writes; without this every response stalls ~40 ms
+        // on Nagle's algorithm meeting the client's delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+    
+    private int pages = 200;
+    private int fanOut = 8;
+    private int imagesPerPage = 4;
+    private int pageBytes = 16 * 1024;
+    private int assetBytes = 32 * 1024;
+    private int latencyMillis;
+    private long bandwidth;
+    private double errorRate;
+    private double throttleRate;
+    private int redirectEvery;
+    private boolean gzip = true;
+    private boolean etags = true;
+    private boolean ranges = true;
+    private int threads = 32;
+    
+    private final ConcurrentHashMap<Integer, byte[]> pageCache = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private byte[] asset;
+    private HttpServer server;
+    private ExecutorService executor;
+    
+    /**
+     * Bind to a free loopback port and start serving
+     */
+    public void start() throws IOException {
+        asset = new byte[assetBytes];
+        for (int i = 0; i < asset.length; i++) {
+            // Compressible but not trivially so, like most real assets
+            asset[i] = (byte) ("abcdefghijklmnop".charAt((i * 7 + i / 64) % 16));
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 128);
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "synthetic-site");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+    
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * URL of the start page, e.g. http://127.0.0.1:41234/
+     */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getAddress().getHostAddress() + ":" + server.getAddress().getPort() + "/";
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requests.increment();
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < errorRate) {
+                send(exchange, 500, "text/plain", "Synthetic failure".getBytes(StandardCharsets.UTF_8), null);
+                return;
+            }
+            if (roll < errorRate + throttleRate) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 429, "text/plain", "Slow down".getBytes(StandardCharsets.UTF_8), null);
+                return;
+            }
+            
+            String path = exchange.getRequestURI().getPath();
+            Matcher matcher;
+            if (path.equals("/")) {
+                send(exchange, 200, "text/html; charset=utf-8", page(0), "p0");
+            } else if ((matcher = PAGE.matcher(path)).matches() && index(matcher) < pages 
+                       && path.equals(SyntheticSite.pagePath(index(matcher)))) {
+                send(exchange, 200, "text/html; charset=utf-8", page(index(matcher)), "p" + index(matcher));
+            } else if ((matcher = REDIRECT.matcher(path)).matches() && index(matcher) < pages) {
+                exchange.getResponseHeaders().set("Location", SyntheticSite.pagePath(index(matcher)));
+                send(exchange, 301, "text/plain", new byte[0], null);
+            } else if ((matcher = IMAGE.matcher(path)).matches()) {
+                send(exchange, 200, "image/png", asset, "i" + assetBytes);
+            } else if (path.equals("/assets/site.css")) {
+                send(exchange, 200, "text/css", asset, "c" + assetBytes);
+            } else if (path.equals("/assets/app.js")) {
+                send(exchange, 200, "application/javascript", asset, "j" + assetBytes);
+            } else {
+                send(exchange, 404, "text/plain", "Not found".getBytes(StandardCharsets.UTF_8), null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private static int index(Matcher matcher) {
+        try {
+            return Integer.parseInt(matcher.group(1));
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+    
+    private byte[] page(int index) {
+        return pageCache.computeIfAbsent(index, i -> SyntheticSite.sitePage(i, pages, fanOut, imagesPerPage,
+            Math.max(1, pages * imagesPerPage / 2), pageBytes, redirectEvery).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Answer with the body, honouring If-None-Match, Range and Accept-Encoding as configured
+     * @param tag stable name of the representation, or null for error responses
+     */
+    private void send(HttpExchange exchange, int status, String contentType, byte[] body, String tag)
+            throws IOException, InterruptedException {
+        Headers request = exchange.getRequestHeaders();
+        Headers response = exchange.getResponseHeaders();
+        response.set("Content-Type", contentType);
+        
+        if (etags && tag != null) {
+            String etag = "\"" + tag + "-" + body.length + "\"";
+            response.set("ETag", etag);
+            if (etag.equals(request.getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+        }
+        if (ranges && tag != null) {
+            response.set("Accept-Ranges", "bytes");
+            String range = request.getFirst("Range");
+            if (status == 200 && range != null) {
+                Matcher matcher = RANGE.matcher(range.trim());
+                long start = -1;
+                long end = body.length - 1;
+                if (matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                    if (matcher.group(1).isEmpty()) {
+                        start = Math.max(0, body.length - Long.parseLong(matcher.group(2)));
+                    } else {
+                        start = Long.parseLong(matcher.group(1));
+                        if (!matcher.group(2).isEmpty()) {
+                            end = Math.min(end, Long.parseLong(matcher.group(2)));
+                        }
+                    }
+                }
+                if (start < 0 || start > end) {
+                    response.set("Content-Range", "bytes */" + body.length);
+                    exchange.sendResponseHeaders(416, -1);
+                    return;
+                }
+                response.set("Content-Range", "bytes " + start + "-" + end + "/" + body.length);
+                status = 206;
+                body = Arrays.copyOfRange(body, (int) start, (int) end + 1);
+            }
+        }
+        String acceptEncoding = request.getFirst("Accept-Encoding");
+        if (gzip && status == 200 && !contentType.startsWith("image/") 
+            && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 3 + 64);
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(body);
+            }
+            body = compressed.toByteArray();
+            response.set("Content-Encoding", "gzip");
+            response.set("Vary", "Accept-Encoding");
+        }
+        
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                write(out, body);
+            }
+        }
+    }
+    
+    /**
+     * Write the body, pacing it to the configured bandwidth per connection
+     */
+    private void write(OutputStream out, byte[] body) throws IOException, InterruptedException {
+        if (bandwidth <= 0) {
+            out.write(body);
+            bytesSent.add(body.length);
+            return;
+        }
+        int chunk = (int) Math.max(1024, Math.min(64 * 1024, bandwidth / 20));
+        long start = System.nanoTime();
+        for (int offset = 0; offset < body.length; offset += chunk) {
+            int length = Math.min(chunk, body.length - offset);
+            out.write(body, offset, length);
+            out.flush();
+            bytesSent.add(length);
+            long due = start + (offset + length) * 1_000_000_000L / bandwidth;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+            }
+        }
+    }
+    
+    /**
+     * Requests answered since start, including errors and redirects
+     */
+    public long getRequests() { return requests.sum(); }
+    
+    /**
+     * Body bytes written since start
+     */
+    public long getBytesSent() { return bytesSent.sum(); }
+    
+    // Settings, read when requests arrive; change them before start()
+    public int getPages() { return pages; }
+    public void setPages(int pages) { this.pages = pages; }
+    
+    public int getFanOut() { return fanOut; }
+    public void setFanOut(int fanOut) { this.fanOut = fanOut; }
+    
+    public int getImagesPerPage() { return imagesPerPage; }
+    public void setImagesPerPage(int imagesPerPage) { this.imagesPerPage = imagesPerPage; }
+    
+    public int getPageBytes() { return pageBytes; }
+    public void setPageBytes(int pageBytes) { this.pageBytes = pageBytes; }
+    
+    public int getAssetBytes() { return assetBytes; }
+    public void setAssetBytes(int assetBytes) { this.assetBytes = assetBytes; }
+    
+    public int getLatencyMillis() { return latencyMillis; }
+    public void setLatencyMillis(int latencyMillis) { this.latencyMillis = latencyMillis; }
+    
+    /**
+     * Bytes per second per connection, or 0 for as fast as loopback goes
+     */
+    public long getBandwidth() { return bandwidth; }
+    public void setBandwidth(long bandwidth) { this.bandwidth = bandwidth; }
+    
+    /**
+     * Share of requests answered with 500, from 0 to 1
+     */
+    public double getErrorRate() { return errorRate; }
+    public void setErrorRate(double errorRate) { this.errorRate = errorRate; }
+    
+    /**
+     * Share of requests answered with 429 and Retry-After: 1
+     */
+    public double getThrottleRate() { return throttleRate; }
+    public void setThrottleRate(double throttleRate) { this.throttleRate = throttleRate; }
+    
+    /**
+     * Every n-th link on a page goes through a 301 redirect, or 0 for none
+     */
+    public int getRedirectEvery() { return redirectEvery; }
+    public void setRedirectEvery(int redirectEvery) { this.redirectEvery = redirectEvery; }
+    
+    public boolean isGzip() { return gzip; }
+    public void setGzip(boolean gzip) { this.gzip = gzip; }
+    
+    public boolean isEtags() { return etags; }
+    public void setEtags(boolean etags) { this.etags = etags; }
+    
+    public boolean isRanges() { return ranges; }
+    public void setRanges(boolean ranges) { this.ranges = ranges; }
+    
+    public int getThreads() { return threads; }
+    public void setThreads(int threads) { this.threads = threads; }
+}
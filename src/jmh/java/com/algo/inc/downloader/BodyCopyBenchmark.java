@@ -0,0 +1,81 @@
+package com.algo.inc.downloader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The body loops of WebsiteDownloader with the network and disk taken out: streaming a
+ * resource through a buffer with the throughput guard, and reading a page into memory
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BodyCopyBenchmark {
+    
+    @Param({"65536", "4194304"})
+    public int bodySize;
+    
+    @Param({"8192", "65536"})
+    public int bufferSize;
+    
+    private byte[] body;
+    
+    @Setup
+    public void setUp() {
+        body = new byte[bodySize];
+        new Random(7).nextBytes(body);
+    }
+    
+    @Benchmark
+    public long streamResource() throws IOException {
+        long start = System.nanoTime();
+        ThroughputGuard guard = new ThroughputGuard(1024, 30000, start);
+        long bytes = 0;
+        try (InputStream in = new ByteArrayInputStream(body);
+             OutputStream out = OutputStream.nullOutputStream()) {
+            byte[] buffer = new byte[bufferSize];
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) != -1) {
+                out.write(buffer, 0, bytesRead);
+                bytes += bytesRead;
+                guard.update(bytes, System.nanoTime());
+            }
+        }
+        return bytes;
+    }
+    
+    @Benchmark
+    public byte[] readPage() throws IOException {
+        ThroughputGuard guard = new ThroughputGuard(1024, 30000, System.nanoTime());
+        ByteArrayOutputStream page = new ByteArrayOutputStream(Math.min(Math.max(body.length, 8192), 4 << 20));
+        try (InputStream in = new ByteArrayInputStream(body)) {
+            byte[] buffer = new byte[bufferSize];
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) != -1) {
+                page.write(buffer, 0, bytesRead);
+                guard.update(page.size(), System.nanoTime());
+            }
+        }
+        return page.toByteArray();
+    }
+}
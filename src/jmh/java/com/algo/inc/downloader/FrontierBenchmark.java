@@ -0,0 +1,66 @@
+package com.algo.inc.downloader;
+
+import com.algo.inc.bench.SyntheticSite;
+import com.algo.inc.model.CanonicalUrl;
+import com.algo.inc.model.FrontierEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The seen set and priority queue of a local frontier: offering URLs, half of them already
+ * seen as on a real site, then draining it in claim batches
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FrontierBenchmark {
+    
+    @Param({"1000", "100000"})
+    public int urls;
+    
+    private CanonicalUrl[] offers;
+    private final FetchPriority priority = FetchPriority.defaults();
+    
+    @Setup
+    public void setUp() {
+        CanonicalUrl base = CanonicalUrl.parse(SyntheticSite.BASE);
+        offers = new CanonicalUrl[urls];
+        for (int i = 0; i < urls; i++) {
+            // Every URL is offered twice, as links to popular pages are found again and again
+            offers[i] = base.resolve(SyntheticSite.pagePath(i / 2));
+        }
+    }
+    
+    @Benchmark
+    public int offerAndDrain() {
+        LocalFrontier frontier = new LocalFrontier();
+        for (int i = 0; i < offers.length; i++) {
+            String kind = i % 4 == 0 ? "IMG" : "HTML";
+            frontier.offer(offers[i], kind, i % 5, priority.rank(kind, i % 5, -1));
+        }
+        int drained = 0;
+        List<FrontierEntry> batch;
+        while (!(batch = frontier.claim(16)).isEmpty()) {
+            for (FrontierEntry entry : batch) {
+                frontier.complete(entry, true);
+            }
+            drained += batch.size();
+        }
+        return drained;
+    }
+}
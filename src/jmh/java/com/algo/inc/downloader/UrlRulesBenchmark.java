@@ -0,0 +1,64 @@
+package com.algo.inc.downloader;
+
+import com.algo.inc.bench.SyntheticSite;
+import com.algo.inc.model.CanonicalUrl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks every discovered URL goes through before it is queued: robots.txt rules and the
+ * session's URL filter
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UrlRulesBenchmark {
+    
+    private static final String ROBOTS = String.join("\n",
+        "User-agent: *",
+        "Disallow: /admin/",
+        "Disallow: /search",
+        "Disallow: /*.pdf$",
+        "Disallow: /*?sessionid=",
+        "Allow: /docs/public/",
+        "Disallow: /docs/",
+        "Crawl-delay: 1");
+    
+    private RobotsRules robots;
+    private UrlFilter filter;
+    private CanonicalUrl url;
+    
+    @Setup
+    public void setUp() {
+        CanonicalUrl base = CanonicalUrl.parse(SyntheticSite.BASE);
+        robots = RobotsRules.parse(ROBOTS, base.resolve("/robots.txt"));
+        filter = new UrlFilter(Arrays.asList("/blog/**", "/news/**", "re:^/products/[a-z]+/"),
+            Arrays.asList("**/archive/**", "/tag/*"), Arrays.asList("mp4", "zip", "iso"),
+            Arrays.asList("sessionid=", "utm_[a-z]+="), 6);
+        url = base.resolve("/blog/2024/05/page-17.html?ref=home");
+    }
+    
+    @Benchmark
+    public boolean robotsAllowed() {
+        return robots.isAllowed(url);
+    }
+    
+    @Benchmark
+    public boolean filterAccepts() {
+        return filter.accepts(url, "HTML");
+    }
+}
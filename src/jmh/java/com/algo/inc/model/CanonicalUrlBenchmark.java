@@ -0,0 +1,68 @@
+package com.algo.inc.model;
+
+import com.algo.inc.bench.SyntheticSite;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing, resolving and comparing URLs, done for every link found on every page
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CanonicalUrlBenchmark {
+    
+    private static final String ABSOLUTE = "HTTPS://Bench.Example.com:443/docs/./a/../page-7.html?b=2&a=1#top";
+    
+    private CanonicalUrl page;
+    private CanonicalUrl other;
+    
+    @Setup
+    public void setUp() {
+        page = CanonicalUrl.parse(SyntheticSite.BASE + "docs/guide/index.html");
+        other = CanonicalUrl.parse("https://external.example.org/docs/page-7.html");
+    }
+    
+    @Benchmark
+    public CanonicalUrl parseAbsolute() {
+        return CanonicalUrl.parse(ABSOLUTE);
+    }
+    
+    @Benchmark
+    public CanonicalUrl resolveRelative() {
+        return page.resolve("../blog/page-12.html?ref=index#comments");
+    }
+    
+    @Benchmark
+    public CanonicalUrl resolveRootRelative() {
+        return page.resolve("/static/css/site.css?v=3");
+    }
+    
+    @Benchmark
+    public CanonicalUrl sortQuery() {
+        return page.resolve("?z=1&b=2&a=3&m=4").withSortedQuery();
+    }
+    
+    @Benchmark
+    public boolean sameHost() {
+        return page.isSameHost(other);
+    }
+    
+    @Benchmark
+    public int hashFresh() {
+        return page.resolve("page-99.html").hashCode();
+    }
+}
@@ -0,0 +1,38 @@
+package com.algo.inc.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting done for every dashboard row on every frame
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TerminalUIBenchmark {
+    
+    public double bytes = 7_654_321;
+    public long millis = 3_723_456;
+    
+    @Benchmark
+    public String formatBytes() {
+        return TerminalUI.formatBytes(bytes);
+    }
+    
+    @Benchmark
+    public String formatDuration() {
+        return TerminalUI.formatDuration(millis);
+    }
+}
@@ -1,13 +1,30 @@
 package com.algo.inc;
 
+import com.algo.inc.batch.BatchOptions;
+import com.algo.inc.batch.BatchRunner;
+import com.algo.inc.daemon.DaemonOptions;
+import com.algo.inc.daemon.DownloadDaemon;
 import com.algo.inc.database.DatabaseManager;
+import com.algo.inc.downloader.CrawlOptions;
 import com.algo.inc.downloader.WebsiteDownloader;
+import com.algo.inc.metrics.PrometheusExporter;
+import com.algo.inc.model.AnalyticsReport;
+import com.algo.inc.model.ContentTypeTotal;
 import com.algo.inc.model.DownloadReport;
 import com.algo.inc.model.LinkRecord;
+import com.algo.inc.model.ResourceChange;
+import com.algo.inc.model.SessionAnalytics;
+import com.algo.inc.model.SessionDiff;
+import com.algo.inc.model.ThroughputBucket;
 import com.algo.inc.model.WebsiteReport;
+import com.algo.inc.profiling.SessionRecording;
+import com.algo.inc.search.MirrorIndex;
 import com.algo.inc.util.TerminalUI;
 import com.algo.inc.util.URLValidator;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Scanner;
 
@@ -19,14 +36,37 @@ public class WebDownloadManager {
     
     private static final Scanner scanner = new Scanner(System.in);
     private static final DatabaseManager dbManager = new DatabaseManager();
+    private static final int MAX_DIFF_ROWS = 200;
+    private static final int SEARCH_RESULTS = 20;
     
     public static void main(String[] args) {
+        SessionRecording recording = startRecording(args);
+        
+        // Headless batch run when a URL list is given
+        if (BatchOptions.isBatchMode(args)) {
+            int exitCode = BatchRunner.run(args);
+            stopRecording(recording);
+            System.exit(exitCode);
+        }
+        
+        // Long-running service with a job queue and HTTP control API
+        if (DaemonOptions.isDaemonMode(args)) {
+            int exitCode = DownloadDaemon.run(args);
+            stopRecording(recording);
+            if (exitCode != 0) {
+                System.exit(exitCode);
+            }
+            return;
+        }
+        
         TerminalUI.printBanner();
         
         // Initialize database
         // TerminalUI.info("Initializing database connection...");
         dbManager.initializeDatabase();
         
+        PrometheusExporter exporter = startMetricsExporter();
+        
         boolean running = true;
         while (running) {
             TerminalUI.printMenu();
@@ -43,6 +83,15 @@ public class WebDownloadManager {
                     viewWebsiteReport();
                     break;
                 case 4:
+                    viewPerformanceAnalytics();
+                    break;
+                case 5:
+                    compareSessions();
+                    break;
+                case 6:
+                    searchMirror();
+                    break;
+                case 7:
                     running = false;
                     TerminalUI.success("Session terminated");
                     System.out.println();
@@ -53,7 +102,52 @@ public class WebDownloadManager {
         }
         
         scanner.close();
+        if (exporter != null) {
+            exporter.stop();
+        }
         dbManager.close();
+        stopRecording(recording);
+    }
+    
+    /**
+     * Start a Flight Recorder recording when --jfr or --jfr=&lt;file&gt; is given
+     */
+    private static SessionRecording startRecording(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--jfr") || arg.startsWith("--jfr=")) {
+                String file = arg.startsWith("--jfr=") ? arg.substring("--jfr=".length()) : null;
+                try {
+                    return SessionRecording.start(file);
+                } catch (Exception e) {
+                    TerminalUI.warning("Flight recording not started: " + e.getMessage());
+                }
+            }
+        }
+        return null;
+    }
+    
+    private static void stopRecording(SessionRecording recording) {
+        if (recording != null) {
+            recording.stop();
+            TerminalUI.info("Flight recording saved to " + recording.getDestination().toAbsolutePath());
+        }
+    }
+    
+    /**
+     * Start the Prometheus endpoint when -Dmetrics.port is set
+     */
+    private static PrometheusExporter startMetricsExporter() {
+        try {
+            PrometheusExporter exporter = PrometheusExporter.startIfConfigured();
+            if (exporter != null) {
+                TerminalUI.status("  Metrics", "http://localhost:" + exporter.getPort() + "/metrics", 
+                                 TerminalUI.BRIGHT_CYAN);
+            }
+            return exporter;
+        } catch (Exception e) {
+            TerminalUI.warning("Metrics endpoint not started: " + e.getMessage());
+            return null;
+        }
     }
     
     private static int getChoice() {
@@ -97,8 +191,10 @@ public class WebDownloadManager {
         
         System.out.println();
         
-        // Start download
-        WebsiteDownloader downloader = new WebsiteDownloader(dbManager);
+        // Start download, indexing pages for Search Mirror
+        CrawlOptions crawlOptions = new CrawlOptions();
+        crawlOptions.setSearchIndex(true);
+        WebsiteDownloader downloader = new WebsiteDownloader(dbManager, crawlOptions);
         try {
             downloader.downloadWebsite(url, downloadDir);
             System.out.println();
@@ -205,13 +301,18 @@ public class WebDownloadManager {
         if (report.getLinks().isEmpty()) {
             TerminalUI.warning("  No resources downloaded");
         } else {
-            TerminalUI.tableHeader("Resource", "Duration", "Size");
+            TerminalUI.tableHeader("Resource", "Status", "Duration", "TTFB", "Size");
             
             for (LinkRecord link : report.getLinks()) {
                 String resource = TerminalUI.color(
                     truncate(link.getLinkName(), 45), 
                     TerminalUI.WHITE
                 );
+                String status = link.isSuccess() 
+                    ? TerminalUI.color(String.valueOf(link.getStatusCode()), TerminalUI.BRIGHT_GREEN) 
+                    : TerminalUI.color(link.getStatusCode() > 0 ? String.valueOf(link.getStatusCode()) 
+                                       : link.getErrorClass().name(), TerminalUI.BRIGHT_RED);
+                String ttfb = TerminalUI.dim(TerminalUI.formatDuration(link.getTimeToFirstByte()));
                 String duration = TerminalUI.color(
                     TerminalUI.formatDuration(link.getTotalElapsedTime()), 
                     TerminalUI.BRIGHT_YELLOW
@@ -221,17 +322,328 @@ public class WebDownloadManager {
                     TerminalUI.BRIGHT_GREEN
                 );
                 
-                TerminalUI.tableRow(resource, duration, size);
+                TerminalUI.tableRow(resource, status, duration, ttfb, size);
             }
             
             System.out.println();
-            TerminalUI.tableFooter(3, new int[]{45, 10, 10});
+            TerminalUI.tableFooter(5, new int[]{45, 6, 10, 6, 10});
+        }
+        
+        System.out.println();
+        TerminalUI.sectionFooter();
+    }
+    
+    private static void viewPerformanceAnalytics() {
+        TerminalUI.sectionHeader("PERFORMANCE ANALYTICS");
+        
+        System.out.print(TerminalUI.color("│  Website ID/Name", TerminalUI.DIM) + " " + 
+                         TerminalUI.color("→", TerminalUI.BRIGHT_YELLOW) + " ");
+        String input = scanner.nextLine().trim();
+        
+        Integer websiteId = resolveWebsiteId(input);
+        AnalyticsReport report = websiteId != null ? dbManager.getAnalyticsReport(websiteId) : null;
+        
+        if (report == null) {
+            TerminalUI.error("Website not found in database");
+            TerminalUI.sectionFooter();
+            return;
+        }
+        
+        SessionAnalytics session = report.getSession();
+        
+        // Latency percentiles
+        System.out.println();
+        System.out.println(TerminalUI.color("┌─ " + TerminalUI.bold("FETCH LATENCY"), TerminalUI.BRIGHT_CYAN));
+        System.out.println(TerminalUI.color("│", TerminalUI.BRIGHT_CYAN));
+        TerminalUI.status("│  Website", session.getWebsiteName() + " (#" + session.getWebsiteId() + ")", 
+                         TerminalUI.BRIGHT_WHITE);
+        TerminalUI.status("│  Links", String.valueOf(session.getLinkCount()), TerminalUI.BRIGHT_MAGENTA);
+        TerminalUI.status("│  p50", TerminalUI.formatDuration(Math.round(session.getP50Latency())), 
+                         TerminalUI.BRIGHT_GREEN);
+        TerminalUI.status("│  p95", TerminalUI.formatDuration(Math.round(session.getP95Latency())), 
+                         TerminalUI.BRIGHT_YELLOW);
+        TerminalUI.status("│  p99", TerminalUI.formatDuration(Math.round(session.getP99Latency())), 
+                         TerminalUI.BRIGHT_RED);
+        TerminalUI.status("│  Max", TerminalUI.formatDuration(session.getMaxLatency()), TerminalUI.BRIGHT_RED);
+        TerminalUI.status("│  Throughput", String.format("%.2f KB/s", session.getKilobytesPerSecond()), 
+                         TerminalUI.BRIGHT_CYAN);
+        
+        // Throughput over time
+        System.out.println(TerminalUI.color("│", TerminalUI.BRIGHT_CYAN));
+        System.out.println(TerminalUI.color("├─ " + TerminalUI.bold("THROUGHPUT OVER TIME"), TerminalUI.BRIGHT_CYAN));
+        System.out.println();
+        if (report.getThroughput().isEmpty()) {
+            TerminalUI.warning("  No fetches recorded");
+        } else {
+            double peak = 0;
+            for (ThroughputBucket bucket : report.getThroughput()) {
+                peak = Math.max(peak, bucket.getKilobytesPerSecond());
+            }
+            for (ThroughputBucket bucket : report.getThroughput()) {
+                int width = peak > 0 ? (int) Math.round(30 * bucket.getKilobytesPerSecond() / peak) : 0;
+                System.out.println("  " + 
+                    TerminalUI.dim(String.format("+%5ds", bucket.getOffsetSeconds())) + " " + 
+                    TerminalUI.color("█".repeat(width), TerminalUI.BRIGHT_GREEN) + 
+                    TerminalUI.dim("·".repeat(30 - width)) + " " + 
+                    TerminalUI.color(String.format("%10.2f KB/s", bucket.getKilobytesPerSecond()), TerminalUI.BRIGHT_CYAN) + " " + 
+                    TerminalUI.dim(bucket.getFetchCount() + " fetches"));
+            }
+        }
+        
+        // Slowest and largest resources
+        System.out.println();
+        System.out.println(TerminalUI.color("├─ " + TerminalUI.bold("SLOWEST RESOURCES"), TerminalUI.BRIGHT_CYAN));
+        System.out.println();
+        printLinkTable(report.getSlowestLinks());
+        
+        System.out.println();
+        System.out.println(TerminalUI.color("├─ " + TerminalUI.bold("LARGEST RESOURCES"), TerminalUI.BRIGHT_CYAN));
+        System.out.println();
+        printLinkTable(report.getLargestLinks());
+        
+        // Per content type totals
+        System.out.println();
+        System.out.println(TerminalUI.color("├─ " + TerminalUI.bold("BY CONTENT TYPE"), TerminalUI.BRIGHT_CYAN));
+        System.out.println();
+        if (!report.getContentTypes().isEmpty()) {
+            TerminalUI.tableHeader("Type      ", "Count", "Size      ", "Avg Time");
+            for (ContentTypeTotal total : report.getContentTypes()) {
+                TerminalUI.tableRow(
+                    TerminalUI.color(String.format("%-10s", truncate(total.getContentType(), 10)), TerminalUI.WHITE),
+                    TerminalUI.color(String.format("%5d", total.getLinkCount()), TerminalUI.BRIGHT_MAGENTA),
+                    TerminalUI.color(String.format("%10s", 
+                        TerminalUI.formatBytes(total.getTotalDownloadedKilobytes() * 1024)), TerminalUI.BRIGHT_GREEN),
+                    TerminalUI.color(String.format("%8s", 
+                        TerminalUI.formatDuration(Math.round(total.getAverageElapsedTime()))), TerminalUI.BRIGHT_YELLOW)
+                );
+            }
+            TerminalUI.tableFooter(4, new int[]{10, 5, 10, 8});
         }
         
+        // Comparison with other sessions of the same website
+        System.out.println();
+        System.out.println(TerminalUI.color("├─ " + TerminalUI.bold("SESSION COMPARISON"), TerminalUI.BRIGHT_CYAN));
+        System.out.println();
+        TerminalUI.tableHeader("ID  ", "Start Time         ", "Links", "p50     ", "p95     ", "p99     ", "KB/s      ");
+        List<SessionAnalytics> history = report.getHistory();
+        for (int i = 0; i < history.size(); i++) {
+            SessionAnalytics row = history.get(i);
+            // Highlight p95 regressions against the previous (older) session
+            SessionAnalytics older = i + 1 < history.size() ? history.get(i + 1) : null;
+            String p95Color = older != null && row.getP95Latency() > older.getP95Latency() * 1.2 
+                ? TerminalUI.BRIGHT_RED : TerminalUI.BRIGHT_YELLOW;
+            String idColor = row.getWebsiteId() == session.getWebsiteId() ? TerminalUI.BRIGHT_GREEN : TerminalUI.BRIGHT_CYAN;
+            
+            TerminalUI.tableRow(
+                TerminalUI.color(String.format("%-4d", row.getWebsiteId()), idColor),
+                TerminalUI.dim(String.format("%-19s", truncate(row.getDownloadStartDateTime(), 19))),
+                TerminalUI.color(String.format("%5d", row.getLinkCount()), TerminalUI.BRIGHT_MAGENTA),
+                TerminalUI.color(String.format("%8s", TerminalUI.formatDuration(Math.round(row.getP50Latency()))), 
+                                 TerminalUI.BRIGHT_GREEN),
+                TerminalUI.color(String.format("%8s", TerminalUI.formatDuration(Math.round(row.getP95Latency()))), 
+                                 p95Color),
+                TerminalUI.color(String.format("%8s", TerminalUI.formatDuration(Math.round(row.getP99Latency()))), 
+                                 TerminalUI.BRIGHT_RED),
+                TerminalUI.color(String.format("%10.2f", row.getKilobytesPerSecond()), TerminalUI.BRIGHT_CYAN)
+            );
+        }
+        TerminalUI.tableFooter(7, new int[]{4, 19, 5, 8, 8, 8, 10});
+        
         System.out.println();
         TerminalUI.sectionFooter();
     }
     
+    private static void compareSessions() {
+        TerminalUI.sectionHeader("COMPARE SESSIONS");
+        
+        System.out.print(TerminalUI.color("│  Website Name", TerminalUI.DIM) + " " + 
+                         TerminalUI.color("→", TerminalUI.BRIGHT_YELLOW) + " ");
+        String websiteName = scanner.nextLine().trim();
+        
+        List<Integer> sessions = dbManager.findWebsiteIds(websiteName);
+        if (sessions.size() < 2) {
+            TerminalUI.error(sessions.isEmpty() ? "Website not found in database" 
+                             : "Website has only one session");
+            TerminalUI.sectionFooter();
+            return;
+        }
+        
+        // Enter compares the latest session with the one before it
+        Integer newId = promptSessionId("Newer ID", sessions, sessions.get(0));
+        if (newId == null) {
+            return;
+        }
+        int newIndex = sessions.indexOf(newId);
+        Integer oldId = promptSessionId("Older ID", sessions, 
+                                        newIndex + 1 < sessions.size() ? sessions.get(newIndex + 1) : null);
+        if (oldId == null) {
+            return;
+        }
+        
+        SessionDiff diff = dbManager.getSessionDiff(websiteName, oldId, newId);
+        if (diff == null) {
+            TerminalUI.error("Sessions could not be compared");
+            TerminalUI.sectionFooter();
+            return;
+        }
+        
+        System.out.println();
+        System.out.println(TerminalUI.color("┌─ " + TerminalUI.bold("SESSION DIFF"), TerminalUI.BRIGHT_CYAN));
+        System.out.println(TerminalUI.color("│", TerminalUI.BRIGHT_CYAN));
+        TerminalUI.status("│  Website", websiteName + " (#" + oldId + " → #" + newId + ")", TerminalUI.BRIGHT_WHITE);
+        TerminalUI.status("│  Added", String.valueOf(diff.count(ResourceChange.Change.ADDED)), TerminalUI.BRIGHT_GREEN);
+        TerminalUI.status("│  Removed", String.valueOf(diff.count(ResourceChange.Change.REMOVED)), TerminalUI.BRIGHT_RED);
+        TerminalUI.status("│  Changed", String.valueOf(diff.count(ResourceChange.Change.CHANGED)), TerminalUI.BRIGHT_YELLOW);
+        TerminalUI.status("│  Unchanged", String.valueOf(diff.getUnchangedCount()), TerminalUI.DIM);
+        System.out.println(TerminalUI.color("│", TerminalUI.BRIGHT_CYAN));
+        System.out.println(TerminalUI.color("├─ " + TerminalUI.bold("CHANGED RESOURCES"), TerminalUI.BRIGHT_CYAN));
+        System.out.println();
+        
+        if (diff.getChanges().isEmpty()) {
+            TerminalUI.success("  Nothing changed");
+        } else {
+            TerminalUI.tableHeader("Change  ", "Resource", "Status   ", "Size");
+            int shown = Math.min(diff.getChanges().size(), MAX_DIFF_ROWS);
+            for (ResourceChange change : diff.getChanges().subList(0, shown)) {
+                String changeColor = change.getChange() == ResourceChange.Change.ADDED ? TerminalUI.BRIGHT_GREEN
+                    : change.getChange() == ResourceChange.Change.REMOVED ? TerminalUI.BRIGHT_RED 
+                    : TerminalUI.BRIGHT_YELLOW;
+                TerminalUI.tableRow(
+                    TerminalUI.color(String.format("%-8s", change.getChange().name()), changeColor),
+                    TerminalUI.color(truncate(change.getUrl(), 45), TerminalUI.WHITE),
+                    TerminalUI.dim(String.format("%-9s", 
+                        describeStatus(change.getOldStatusCode()) + "→" + describeStatus(change.getNewStatusCode()))),
+                    TerminalUI.color(TerminalUI.formatBytes(change.getOldBytes()) + " → " 
+                        + TerminalUI.formatBytes(change.getNewBytes()), TerminalUI.BRIGHT_CYAN)
+                );
+            }
+            TerminalUI.tableFooter(4, new int[]{8, 45, 9, 20});
+            if (shown < diff.getChanges().size()) {
+                TerminalUI.info("... and " + (diff.getChanges().size() - shown) + " more");
+            }
+        }
+        
+        System.out.println();
+        TerminalUI.sectionFooter();
+    }
+    
+    private static void searchMirror() {
+        TerminalUI.sectionHeader("SEARCH MIRROR");
+        
+        System.out.print(TerminalUI.color("│  Directory", TerminalUI.DIM) + " " + 
+                         TerminalUI.color("→", TerminalUI.BRIGHT_YELLOW) + " ");
+        String input = scanner.nextLine().trim();
+        Path mirrorDir = input.isEmpty() ? Paths.get(System.getProperty("user.dir"), "downloads") : Paths.get(input);
+        
+        MirrorIndex index;
+        try {
+            index = MirrorIndex.open(mirrorDir);
+        } catch (IOException e) {
+            TerminalUI.error("Search index could not be read: " + e.getMessage());
+            TerminalUI.sectionFooter();
+            return;
+        }
+        if (index == null) {
+            TerminalUI.error("No search index in " + mirrorDir);
+            TerminalUI.info("Pages are indexed when a website is downloaded from this menu or with --index");
+            TerminalUI.sectionFooter();
+            return;
+        }
+        TerminalUI.status("  Pages", index.getDocumentCount() + " in " + index.getSegmentCount() + " segment(s)", 
+                         TerminalUI.BRIGHT_CYAN);
+        TerminalUI.info("Words must all match; quote \"exact phrases\". Empty query returns to the menu.");
+        
+        while (true) {
+            System.out.print(TerminalUI.color("│  Query", TerminalUI.DIM) + " " + 
+                             TerminalUI.color("→", TerminalUI.BRIGHT_YELLOW) + " ");
+            String query = scanner.nextLine().trim();
+            if (query.isEmpty()) {
+                break;
+            }
+            
+            long start = System.nanoTime();
+            MirrorIndex.Results results = index.search(query, SEARCH_RESULTS);
+            long elapsedMicros = (System.nanoTime() - start) / 1000;
+            
+            System.out.println();
+            TerminalUI.status("  Matches", String.format("%d in %.2f ms", results.getTotalMatches(), elapsedMicros / 1000.0), 
+                             TerminalUI.BRIGHT_GREEN);
+            if (!results.getHits().isEmpty()) {
+                TerminalUI.tableHeader("Score ", String.format("%-35s", "Title"), String.format("%-40s", "File"));
+                for (MirrorIndex.Hit hit : results.getHits()) {
+                    String title = hit.getTitle().isEmpty() ? hit.getUrl() : hit.getTitle();
+                    TerminalUI.tableRow(
+                        TerminalUI.color(String.format("%6.2f", hit.getScore()), TerminalUI.BRIGHT_YELLOW),
+                        TerminalUI.color(String.format("%-35s", truncate(title, 35)), TerminalUI.WHITE),
+                        TerminalUI.dim(String.format("%-40s", truncate(hit.getPath(), 40)))
+                    );
+                }
+                TerminalUI.tableFooter(3, new int[]{6, 35, 40});
+            }
+            System.out.println();
+        }
+        
+        TerminalUI.sectionFooter();
+    }
+    
+    /**
+     * Ask for a session of the website being compared
+     * @param fallback used when the input is empty
+     * @return the session ID, or null after reporting invalid input
+     */
+    private static Integer promptSessionId(String label, List<Integer> sessions, Integer fallback) {
+        System.out.print(TerminalUI.color("│  " + label, TerminalUI.DIM) + " " + 
+                         TerminalUI.dim(fallback != null ? "[" + fallback + "] " : "") + 
+                         TerminalUI.color("→", TerminalUI.BRIGHT_YELLOW) + " ");
+        String input = scanner.nextLine().trim();
+        Integer id = fallback;
+        if (!input.isEmpty()) {
+            try {
+                id = Integer.parseInt(input);
+            } catch (NumberFormatException e) {
+                id = null;
+            }
+        }
+        if (id == null || !sessions.contains(id)) {
+            TerminalUI.error("Not a session of this website");
+            TerminalUI.sectionFooter();
+            return null;
+        }
+        return id;
+    }
+    
+    private static String describeStatus(int statusCode) {
+        return statusCode > 0 ? String.valueOf(statusCode) : "-";
+    }
+    
+    private static void printLinkTable(List<LinkRecord> links) {
+        if (links.isEmpty()) {
+            TerminalUI.warning("  No resources downloaded");
+            return;
+        }
+        
+        TerminalUI.tableHeader("Resource", "Duration", "Size");
+        for (LinkRecord link : links) {
+            TerminalUI.tableRow(
+                TerminalUI.color(truncate(link.getLinkName(), 45), TerminalUI.WHITE),
+                TerminalUI.color(TerminalUI.formatDuration(link.getTotalElapsedTime()), TerminalUI.BRIGHT_YELLOW),
+                TerminalUI.color(String.format("%.2f KB", link.getTotalDownloadedKilobytes()), TerminalUI.BRIGHT_GREEN)
+            );
+        }
+        TerminalUI.tableFooter(3, new int[]{45, 10, 10});
+    }
+    
+    /**
+     * Resolve user input to a website ID - either a numeric ID or the latest session of a website name
+     */
+    private static Integer resolveWebsiteId(String input) {
+        try {
+            return Integer.parseInt(input);
+        } catch (NumberFormatException e) {
+            return dbManager.findLatestWebsiteId(input);
+        }
+    }
+    
     private static String truncate(String str, int maxLength) {
         if (str == null || str.length() <= maxLength) {
             return str != null ? str : "";
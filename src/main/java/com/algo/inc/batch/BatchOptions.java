@@ -0,0 +1,541 @@
+package com.algo.inc.batch;
+
+import com.algo.inc.downloader.Durability;
+import com.algo.inc.downloader.FetchPriority;
+import com.algo.inc.downloader.UrlFilter;
+import com.algo.inc.export.ExportFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BatchOptions - Command line options for a headless batch run
+ */
+public class BatchOptions {
+    
+    public static final String USAGE = String.join("\n",
+        "Usage: java -jar link-local.jar --input <file|-> [options]",
+        "       java -jar link-local.jar --join <session-id> [options]",
+        "       java -jar link-local.jar --diff <website> [--from <id>] [--to <id>] [options]",
+        "       java -jar link-local.jar --export <website> [--session <id>] [--format <format>] [options]",
+        "",
+        "  --input <file|->        URL list, one per line; '-' reads stdin. Blank lines and # comments are skipped",
+        "  --output <dir>          Root directory; each site goes to <dir>/<host> (default ./downloads)",
+        "  --concurrency <n>       Sites downloaded at the same time (default 4)",
+        "  --depth <n>             Levels of same-site page links to follow (default 0, start page only)",
+        "  --summary <file|->      Where to write the NDJSON summary, diff or export (default '-', stdout)",
+        "  --distributed           Keep each session's frontier in the database so other nodes can --join it",
+        "  --join <session-id>     Help crawl a distributed session started elsewhere, instead of --input",
+        "  --diff <website>        Write what changed between two sessions of a site as NDJSON, instead of --input",
+        "  --from <session-id>     Older session for --diff (default the one before --to)",
+        "  --to <session-id>       Newer session for --diff (default the latest)",
+        "  --export <website>      Write a site's recorded sessions and links, instead of --input",
+        "  --session <session-id>  Only export this session (default every session of the site)",
+        "  --format <format>       Export format: csv, ndjson or columnar (default ndjson)",
+        "  --sort-query            Treat URLs that differ only in query parameter order as one URL",
+        "  --sitemaps              Also queue every page listed in the site's sitemaps",
+        "  --sitemap-urls <n>      Most sitemap pages to queue; 0 for no limit (default 0)",
+        "  --incremental           Revalidate what earlier sessions saved and skip what is unchanged",
+        "  --index                 Index saved pages so the mirror can be searched from the menu",
+        "  --ignore-robots         Fetch URLs robots.txt disallows and ignore its Crawl-delay",
+        "  --include <pattern>     Only follow pages whose path matches; repeatable. Globs (* ** ?) or re:<regex>",
+        "  --exclude <pattern>     Never fetch URLs whose path matches; repeatable",
+        "  --exclude-ext <list>    Never fetch these file extensions, e.g. mp4,zip,iso",
+        "  --exclude-query <regex> Never fetch URLs whose query string matches; repeatable",
+        "  --max-path-depth <n>    Skip pages more than n path segments deep",
+        "  --max-size <size>       Abort responses larger than this, e.g. 500k, 20M, 1G",
+        "  --accept-type <list>    Only keep responses of these content types, e.g. text/html,image/*",
+        "  --priority <rules>      Fetch order: shallow, pages, critical, small, or fifo (default shallow,critical)",
+        "  --large-transfer <size> Stream bodies this large on a separate lane; 0 turns it off (default 8M)",
+        "  --disk-threads <n>      Threads saving downloaded files (default 4)",
+        "  --durability <mode>     Force saved files to disk: none, batch or sync (default none)",
+        "  --timeout <seconds>     Longest connect or read wait per request (default 30)",
+        "  --retries <n>           Retries after a timeout, reset, 5xx or 429 (default 3)",
+        "  --min-speed <size>      Abort bodies slower than this per second over the speed window; 0 turns it off (default 1k)",
+        "  --speed-window <sec>    How long a body may stay below --min-speed (default 30)",
+        "  --db-url <jdbc-url>     Database to record sessions in (default from -Ddb.* properties)",
+        "  --db-user <user>",
+        "  --db-password <password>",
+        "  --metrics-port <port>   Serve Prometheus metrics while the batch runs",
+        "  --jfr[=<file>]          Record the run with JDK Flight Recorder",
+        "",
+        "Exit status: 0 all sites downloaded, 1 one or more sites failed, 2 bad arguments or no database");
+    
+    private String input;
+    private String outputDir;
+    private int concurrency;
+    private int depth;
+    private String summary;
+    private String dbUrl;
+    private String dbUser;
+    private String dbPassword;
+    private int metricsPort;
+    private boolean distributed;
+    private int joinSessionId;
+    private String diffWebsite;
+    private int diffFrom;
+    private int diffTo;
+    private String exportWebsite;
+    private int exportSession;
+    private ExportFormat exportFormat;
+    private boolean sortQuery;
+    private boolean sitemaps;
+    private int sitemapUrls;
+    private boolean incremental;
+    private boolean index;
+    private boolean ignoreRobots;
+    private List<String> includes = new ArrayList<>();
+    private List<String> excludes = new ArrayList<>();
+    private List<String> excludedExtensions = new ArrayList<>();
+    private List<String> excludedQueries = new ArrayList<>();
+    private int maxPathDepth;
+    private long maxSize;
+    private List<String> acceptedTypes = new ArrayList<>();
+    private UrlFilter urlFilter;
+    private FetchPriority priority;
+    private long largeTransfer;
+    private int diskThreads;
+    private Durability durability;
+    private int timeout;
+    private int retries;
+    private long minSpeed;
+    private int speedWindow;
+    
+    public BatchOptions() {
+        this.outputDir = System.getProperty("user.dir") + "/downloads";
+        this.concurrency = 4;
+        this.depth = 0;
+        this.summary = "-";
+        this.exportFormat = ExportFormat.NDJSON;
+        this.metricsPort = -1;
+        this.maxPathDepth = -1;
+        this.maxSize = -1;
+        this.urlFilter = UrlFilter.acceptAll();
+        this.priority = FetchPriority.defaults();
+        this.largeTransfer = 8L * 1024 * 1024;
+        this.diskThreads = 4;
+        this.durability = Durability.NONE;
+        this.timeout = 30;
+        this.retries = 3;
+        this.minSpeed = 1024;
+        this.speedWindow = 30;
+    }
+    
+    /**
+     * Whether the arguments ask for batch mode rather than the interactive menu
+     */
+    public static boolean isBatchMode(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--input") || arg.startsWith("--input=") 
+                || arg.equals("--join") || arg.startsWith("--join=") 
+                || arg.equals("--diff") || arg.startsWith("--diff=") 
+                || arg.equals("--export") || arg.startsWith("--export=") || arg.equals("--help")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Parse command line arguments; both "--name value" and "--name=value" are accepted
+     * @throws IllegalArgumentException with a message suitable for the user
+     */
+    public static BatchOptions parse(String[] args) {
+        BatchOptions options = new BatchOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            String name = arg;
+            String value = null;
+            int equals = arg.indexOf('=');
+            if (arg.startsWith("--") && equals > 0) {
+                name = arg.substring(0, equals);
+                value = arg.substring(equals + 1);
+            }
+            
+            switch (name) {
+                case "--jfr":
+                    // Handled by WebDownloadManager before the batch starts
+                    continue;
+                case "--help":
+                    throw new IllegalArgumentException(USAGE);
+                case "--distributed":
+                    options.distributed = true;
+                    continue;
+                case "--sort-query":
+                    options.sortQuery = true;
+                    continue;
+                case "--sitemaps":
+                    options.sitemaps = true;
+                    continue;
+                case "--incremental":
+                    options.incremental = true;
+                    continue;
+                case "--index":
+                    options.index = true;
+                    continue;
+                case "--ignore-robots":
+                    options.ignoreRobots = true;
+                    continue;
+                case "--input":
+                case "--join":
+                case "--diff":
+                case "--from":
+                case "--to":
+                case "--export":
+                case "--session":
+                case "--format":
+                case "--output":
+                case "--concurrency":
+                case "--depth":
+                case "--summary":
+                case "--db-url":
+                case "--db-user":
+                case "--db-password":
+                case "--metrics-port":
+                case "--include":
+                case "--exclude":
+                case "--exclude-ext":
+                case "--exclude-query":
+                case "--max-path-depth":
+                case "--max-size":
+                case "--accept-type":
+                case "--priority":
+                case "--large-transfer":
+                case "--disk-threads":
+                case "--durability":
+                case "--timeout":
+                case "--retries":
+                case "--min-speed":
+                case "--speed-window":
+                case "--sitemap-urls":
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+            
+            if (value == null) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + name);
+                }
+                value = args[++i];
+            }
+            
+            switch (name) {
+                case "--input":
+                    options.input = value;
+                    break;
+                case "--output":
+                    options.outputDir = value;
+                    break;
+                case "--concurrency":
+                    options.concurrency = parseInt(name, value, 1);
+                    break;
+                case "--depth":
+                    options.depth = parseInt(name, value, 0);
+                    break;
+                case "--summary":
+                    options.summary = value;
+                    break;
+                case "--join":
+                    options.joinSessionId = parseInt(name, value, 1);
+                    break;
+                case "--diff":
+                    options.diffWebsite = value;
+                    break;
+                case "--from":
+                    options.diffFrom = parseInt(name, value, 1);
+                    break;
+                case "--to":
+                    options.diffTo = parseInt(name, value, 1);
+                    break;
+                case "--export":
+                    options.exportWebsite = value;
+                    break;
+                case "--session":
+                    options.exportSession = parseInt(name, value, 1);
+                    break;
+                case "--format":
+                    options.exportFormat = ExportFormat.parse(value);
+                    break;
+                case "--db-url":
+                    options.dbUrl = value;
+                    break;
+                case "--db-user":
+                    options.dbUser = value;
+                    break;
+                case "--db-password":
+                    options.dbPassword = value;
+                    break;
+                case "--metrics-port":
+                    options.metricsPort = parseInt(name, value, 0);
+                    break;
+                case "--include":
+                    options.includes.add(value);
+                    break;
+                case "--exclude":
+                    options.excludes.add(value);
+                    break;
+                case "--exclude-ext":
+                    options.excludedExtensions.addAll(splitList(value));
+                    break;
+                case "--exclude-query":
+                    options.excludedQueries.add(value);
+                    break;
+                case "--max-path-depth":
+                    options.maxPathDepth = parseInt(name, value, 0);
+                    break;
+                case "--max-size":
+                    options.maxSize = parseSize(name, value);
+                    break;
+                case "--accept-type":
+                    options.acceptedTypes.addAll(splitList(value.toLowerCase()));
+                    break;
+                case "--priority":
+                    options.priority = FetchPriority.parse(value);
+                    break;
+                case "--large-transfer":
+                    options.largeTransfer = parseSize(name, value);
+                    break;
+                case "--disk-threads":
+                    options.diskThreads = parseInt(name, value, 1);
+                    break;
+                case "--durability":
+                    options.durability = Durability.parse(value);
+                    break;
+                case "--timeout":
+                    options.timeout = parseInt(name, value, 1);
+                    break;
+                case "--retries":
+                    options.retries = parseInt(name, value, 0);
+                    break;
+                case "--min-speed":
+                    options.minSpeed = parseSize(name, value);
+                    break;
+                case "--speed-window":
+                    options.speedWindow = parseInt(name, value, 1);
+                    break;
+                case "--sitemap-urls":
+                    options.sitemapUrls = parseInt(name, value, 0);
+                    break;
+                default:
+                    break;
+            }
+        }
+        
+        int modes = (options.input != null ? 1 : 0) + (options.joinSessionId > 0 ? 1 : 0) 
+            + (options.diffWebsite != null ? 1 : 0) + (options.exportWebsite != null ? 1 : 0);
+        if (modes != 1) {
+            throw new IllegalArgumentException("Give one of --input, --join, --diff or --export");
+        }
+        if (options.diffWebsite == null && (options.diffFrom > 0 || options.diffTo > 0)) {
+            throw new IllegalArgumentException("--from and --to need --diff");
+        }
+        if (options.exportWebsite == null && options.exportSession > 0) {
+            throw new IllegalArgumentException("--session needs --export");
+        }
+        try {
+            options.urlFilter = new UrlFilter(options.includes, options.excludes, options.excludedExtensions,
+                                              options.excludedQueries, options.maxPathDepth);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid filter pattern: " + e.getMessage());
+        }
+        return options;
+    }
+    
+    private static int parseInt(String name, String value, int min) {
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed < min) {
+                throw new IllegalArgumentException(name + " must be at least " + min);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " expects a number, got: " + value);
+        }
+    }
+    
+    private static List<String> splitList(String value) {
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.trim().isEmpty()) {
+                items.add(item.trim());
+            }
+        }
+        return items;
+    }
+    
+    /**
+     * Parse a byte count with an optional k, M or G suffix (powers of 1024)
+     */
+    static long parseSize(String name, String value) {
+        String trimmed = value.trim().toLowerCase();
+        long unit = 1;
+        if (trimmed.endsWith("b")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        if (trimmed.endsWith("k")) {
+            unit = 1024L;
+        } else if (trimmed.endsWith("m")) {
+            unit = 1024L * 1024;
+        } else if (trimmed.endsWith("g")) {
+            unit = 1024L * 1024 * 1024;
+        }
+        if (unit > 1) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        try {
+            long parsed = Long.parseLong(trimmed.trim());
+            if (parsed < 0) {
+                throw new IllegalArgumentException(name + " must not be negative");
+            }
+            return parsed * unit;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " expects a size like 500k or 20M, got: " + value);
+        }
+    }
+    
+    // Getters and Setters
+    public String getInput() { return input; }
+    public void setInput(String input) { this.input = input; }
+    
+    public String getOutputDir() { return outputDir; }
+    public void setOutputDir(String outputDir) { this.outputDir = outputDir; }
+    
+    public int getConcurrency() { return concurrency; }
+    public void setConcurrency(int concurrency) { this.concurrency = concurrency; }
+    
+    public int getDepth() { return depth; }
+    public void setDepth(int depth) { this.depth = depth; }
+    
+    public String getSummary() { return summary; }
+    public void setSummary(String summary) { this.summary = summary; }
+    
+    public String getDbUrl() { return dbUrl; }
+    public void setDbUrl(String dbUrl) { this.dbUrl = dbUrl; }
+    
+    public String getDbUser() { return dbUser; }
+    public void setDbUser(String dbUser) { this.dbUser = dbUser; }
+    
+    public String getDbPassword() { return dbPassword; }
+    public void setDbPassword(String dbPassword) { this.dbPassword = dbPassword; }
+    
+    /**
+     * Port for the Prometheus endpoint, or -1 when not requested
+     */
+    public int getMetricsPort() { return metricsPort; }
+    public void setMetricsPort(int metricsPort) { this.metricsPort = metricsPort; }
+    
+    public boolean isDistributed() { return distributed; }
+    public void setDistributed(boolean distributed) { this.distributed = distributed; }
+    
+    /**
+     * Session to join, or 0 when downloading from --input
+     */
+    public int getJoinSessionId() { return joinSessionId; }
+    public void setJoinSessionId(int joinSessionId) { this.joinSessionId = joinSessionId; }
+    
+    /**
+     * Website whose sessions to compare, or null when downloading
+     */
+    public String getDiffWebsite() { return diffWebsite; }
+    public void setDiffWebsite(String diffWebsite) { this.diffWebsite = diffWebsite; }
+    
+    /**
+     * Older session to compare, or 0 for the one before the newer session
+     */
+    public int getDiffFrom() { return diffFrom; }
+    public void setDiffFrom(int diffFrom) { this.diffFrom = diffFrom; }
+    
+    /**
+     * Newer session to compare, or 0 for the latest
+     */
+    public int getDiffTo() { return diffTo; }
+    public void setDiffTo(int diffTo) { this.diffTo = diffTo; }
+    
+    /**
+     * Website whose sessions to export, or null when downloading
+     */
+    public String getExportWebsite() { return exportWebsite; }
+    public void setExportWebsite(String exportWebsite) { this.exportWebsite = exportWebsite; }
+    
+    /**
+     * Session to export, or 0 for every session of the website
+     */
+    public int getExportSession() { return exportSession; }
+    public void setExportSession(int exportSession) { this.exportSession = exportSession; }
+    
+    public ExportFormat getExportFormat() { return exportFormat; }
+    public void setExportFormat(ExportFormat exportFormat) { this.exportFormat = exportFormat; }
+    
+    public boolean isSortQuery() { return sortQuery; }
+    public void setSortQuery(boolean sortQuery) { this.sortQuery = sortQuery; }
+    
+    public boolean isSitemaps() { return sitemaps; }
+    public void setSitemaps(boolean sitemaps) { this.sitemaps = sitemaps; }
+    
+    public int getSitemapUrls() { return sitemapUrls; }
+    public void setSitemapUrls(int sitemapUrls) { this.sitemapUrls = sitemapUrls; }
+    
+    public boolean isIncremental() { return incremental; }
+    public void setIncremental(boolean incremental) { this.incremental = incremental; }
+    
+    public boolean isIndex() { return index; }
+    public void setIndex(boolean index) { this.index = index; }
+    
+    public boolean isIgnoreRobots() { return ignoreRobots; }
+    public void setIgnoreRobots(boolean ignoreRobots) { this.ignoreRobots = ignoreRobots; }
+    
+    /**
+     * Compiled from --include, --exclude, --exclude-ext, --exclude-query and --max-path-depth
+     */
+    public UrlFilter getUrlFilter() { return urlFilter; }
+    public void setUrlFilter(UrlFilter urlFilter) { this.urlFilter = urlFilter; }
+    
+    /**
+     * Largest response kept, in bytes, or -1 for no limit
+     */
+    public long getMaxSize() { return maxSize; }
+    public void setMaxSize(long maxSize) { this.maxSize = maxSize; }
+    
+    public List<String> getAcceptedTypes() { return acceptedTypes; }
+    public void setAcceptedTypes(List<String> acceptedTypes) { this.acceptedTypes = acceptedTypes; }
+    
+    public FetchPriority getPriority() { return priority; }
+    public void setPriority(FetchPriority priority) { this.priority = priority; }
+    
+    /**
+     * Smallest body streamed on the large-transfer lane, in bytes, or 0 for no lane
+     */
+    public long getLargeTransfer() { return largeTransfer; }
+    public void setLargeTransfer(long largeTransfer) { this.largeTransfer = largeTransfer; }
+    
+    public int getDiskThreads() { return diskThreads; }
+    public void setDiskThreads(int diskThreads) { this.diskThreads = diskThreads; }
+    
+    /**
+     * Whether saved files are forced to disk before they are recorded
+     */
+    public Durability getDurability() { return durability; }
+    public void setDurability(Durability durability) { this.durability = durability; }
+    
+    /**
+     * Connect and read timeout in seconds
+     */
+    public int getTimeout() { return timeout; }
+    public void setTimeout(int timeout) { this.timeout = timeout; }
+    
+    public int getRetries() { return retries; }
+    public void setRetries(int retries) { this.retries = retries; }
+    
+    /**
+     * Slowest acceptable body transfer in bytes per second, or 0 for no limit
+     */
+    public long getMinSpeed() { return minSpeed; }
+    public void setMinSpeed(long minSpeed) { this.minSpeed = minSpeed; }
+    
+    /**
+     * Seconds a transfer may stay below the minimum speed
+     */
+    public int getSpeedWindow() { return speedWindow; }
+    public void setSpeedWindow(int speedWindow) { this.speedWindow = speedWindow; }
+}
@@ -0,0 +1,438 @@
+package com.algo.inc.batch;
+
+import com.algo.inc.database.DatabaseManager;
+import com.algo.inc.downloader.CrawlOptions;
+import com.algo.inc.downloader.CrawlSession;
+import com.algo.inc.downloader.SessionStats;
+import com.algo.inc.downloader.WebsiteDownloader;
+import com.algo.inc.export.ReportExporter;
+import com.algo.inc.metrics.PrometheusExporter;
+import com.algo.inc.model.ResourceChange;
+import com.algo.inc.model.SessionDiff;
+import com.algo.inc.model.WebsiteReport;
+import com.algo.inc.util.Json;
+import com.algo.inc.util.TerminalUI;
+import com.algo.inc.util.URLValidator;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless mode: downloads every site in a URL list, several at a time, and writes one
+ * NDJSON summary line per site followed by a totals line. With --diff it instead writes
+ * what changed between two recorded sessions of a site, and with --export the recorded
+ * sessions and links of a site.
+ *
+ * Stdout is reserved for the summary; everything else the application prints goes to stderr.
+ */
+public class BatchRunner {
+    
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILURES = 1;
+    public static final int EXIT_USAGE = 2;
+    
+    private final BatchOptions options;
+    private final DatabaseManager dbManager;
+    
+    public BatchRunner(BatchOptions options, DatabaseManager dbManager) {
+        this.options = options;
+        this.dbManager = dbManager;
+    }
+    
+    /**
+     * Parse the arguments, run the batch and return the process exit status
+     */
+    public static int run(String[] args) {
+        // Keep stdout clean for the summary, whatever the downloader or database print
+        PrintStream stdout = System.out;
+        System.setOut(System.err);
+        
+        BatchOptions options;
+        try {
+            options = BatchOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            if (!e.getMessage().equals(BatchOptions.USAGE)) {
+                System.err.println("Run with --help for the list of options");
+            }
+            return EXIT_USAGE;
+        }
+        
+        List<String> urls = new ArrayList<>();
+        try {
+            if (options.getInput() != null) {
+                urls = readUrls(options.getInput());
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot read URL list: " + e.getMessage());
+            return EXIT_USAGE;
+        }
+        
+        DatabaseManager dbManager = new DatabaseManager(options.getDbUrl(), options.getDbUser(), options.getDbPassword());
+        dbManager.initializeDatabase();
+        if (!dbManager.isConnected()) {
+            return EXIT_USAGE;
+        }
+        
+        PrometheusExporter exporter = null;
+        try {
+            exporter = options.getMetricsPort() >= 0
+                ? PrometheusExporter.start(options.getMetricsPort())
+                : PrometheusExporter.startIfConfigured();
+        } catch (Exception e) {
+            TerminalUI.warning("Metrics endpoint not started: " + e.getMessage());
+        }
+        
+        try (PrintStream summary = openSummary(options.getSummary(), stdout)) {
+            BatchRunner runner = new BatchRunner(options, dbManager);
+            if (options.getDiffWebsite() != null) {
+                return runner.diff(options.getDiffWebsite(), options.getDiffFrom(), options.getDiffTo(), summary);
+            }
+            if (options.getExportWebsite() != null) {
+                return runner.export(options.getExportWebsite(), options.getExportSession(), summary);
+            }
+            return options.getJoinSessionId() > 0 
+                ? runner.join(options.getJoinSessionId(), summary) 
+                : runner.execute(urls, summary);
+        } catch (IOException e) {
+            System.err.println("Cannot write summary: " + e.getMessage());
+            return EXIT_USAGE;
+        } finally {
+            if (exporter != null) {
+                exporter.stop();
+            }
+            dbManager.close();
+        }
+    }
+    
+    /**
+     * Download all sites with at most the configured number running at once
+     * @return the process exit status
+     */
+    public int execute(List<String> urls, PrintStream summary) {
+        List<Callable<SiteResult>> tasks = new ArrayList<>();
+        for (String url : urls) {
+            tasks.add(() -> downloadSite(url));
+        }
+        return runAll(tasks, summary);
+    }
+    
+    /**
+     * Work on a distributed session with --concurrency workers until its frontier is drained
+     * @return the process exit status
+     */
+    public int join(int sessionId, PrintStream summary) {
+        List<Callable<SiteResult>> tasks = new ArrayList<>();
+        for (int i = 0; i < options.getConcurrency(); i++) {
+            tasks.add(() -> joinSite(sessionId));
+        }
+        return runAll(tasks, summary);
+    }
+    
+    /**
+     * Write one line per added, removed or changed URL between two sessions of a site,
+     * followed by a totals line
+     * @param fromId older session, or 0 for the one before the newer session
+     * @param toId newer session, or 0 for the latest
+     * @return the process exit status
+     */
+    public int diff(String websiteName, int fromId, int toId, PrintStream summary) {
+        List<Integer> sessions = dbManager.findWebsiteIds(websiteName);
+        int newId = toId > 0 ? toId : (sessions.isEmpty() ? 0 : sessions.get(0));
+        int newIndex = sessions.indexOf(newId);
+        int oldId = fromId > 0 ? fromId : (newIndex >= 0 && newIndex + 1 < sessions.size() ? sessions.get(newIndex + 1) : 0);
+        if (newIndex < 0 || !sessions.contains(oldId)) {
+            System.err.println("Need two sessions of " + websiteName + " to compare; it has " + sessions);
+            return EXIT_USAGE;
+        }
+        
+        SessionDiff diff = dbManager.getSessionDiff(websiteName, oldId, newId);
+        if (diff == null) {
+            return EXIT_FAILURES;
+        }
+        for (ResourceChange change : diff.getChanges()) {
+            summary.println("{\"type\":\"change\",\"change\":" + Json.quote(change.getChange().name().toLowerCase())
+                + ",\"url\":" + Json.quote(change.getUrl())
+                + ",\"old_status\":" + Json.number(change.getOldStatusCode() > 0 ? change.getOldStatusCode() : null)
+                + ",\"new_status\":" + Json.number(change.getNewStatusCode() > 0 ? change.getNewStatusCode() : null)
+                + ",\"old_bytes\":" + change.getOldBytes()
+                + ",\"new_bytes\":" + change.getNewBytes()
+                + ",\"old_hash\":" + Json.quote(change.getOldHash())
+                + ",\"new_hash\":" + Json.quote(change.getNewHash()) + "}");
+        }
+        summary.println("{\"type\":\"total\",\"website\":" + Json.quote(websiteName)
+            + ",\"from\":" + oldId + ",\"to\":" + newId
+            + ",\"added\":" + diff.count(ResourceChange.Change.ADDED)
+            + ",\"removed\":" + diff.count(ResourceChange.Change.REMOVED)
+            + ",\"changed\":" + diff.count(ResourceChange.Change.CHANGED)
+            + ",\"unchanged\":" + diff.getUnchangedCount() + "}");
+        summary.flush();
+        return EXIT_OK;
+    }
+    
+    /**
+     * Write the recorded sessions of a site and their links in the export format
+     * @param sessionId the session to export, or 0 for all of them
+     * @return the process exit status
+     */
+    public int export(String websiteName, int sessionId, OutputStream out) {
+        long start = System.nanoTime();
+        ReportExporter exporter = new ReportExporter(dbManager);
+        try {
+            List<WebsiteReport> sessions = exporter.export(websiteName, sessionId, options.getExportFormat(), out);
+            System.err.println("Exported " + exporter.getLinkCount() + " links of " + sessions.size() + " sessions in "
+                + TerminalUI.formatDuration((System.nanoTime() - start) / 1_000_000));
+            return EXIT_OK;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return EXIT_USAGE;
+        } catch (SQLException | IOException e) {
+            System.err.println("Export failed: " + e.getMessage());
+            return EXIT_FAILURES;
+        }
+    }
+    
+    private int runAll(List<Callable<SiteResult>> tasks, PrintStream summary) {
+        long batchStart = System.currentTimeMillis();
+        int workers = Math.max(1, Math.min(options.getConcurrency(), tasks.size()));
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "batch-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<SiteResult> completion = new ExecutorCompletionService<>(pool);
+        for (Callable<SiteResult> task : tasks) {
+            completion.submit(task);
+        }
+        
+        int ok = 0;
+        int partial = 0;
+        int failed = 0;
+        long bytes = 0;
+        try {
+            // Report sites in the order they finish
+            for (int i = 1; i <= tasks.size(); i++) {
+                SiteResult result = completion.take().get();
+                summary.println(result.toJson());
+                summary.flush();
+                System.err.println(String.format("[%d/%d] %-7s %s  %d/%d files  %s  %s",
+                    i, tasks.size(), result.status, result.url, result.files - result.failedFiles, result.files,
+                    TerminalUI.formatBytes(result.bytes), TerminalUI.formatDuration(result.elapsedMs)));
+                
+                bytes += result.bytes;
+                switch (result.status) {
+                    case "ok":
+                        ok++;
+                        break;
+                    case "partial":
+                        partial++;
+                        break;
+                    default:
+                        failed++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed = tasks.size() - ok - partial;
+        } catch (ExecutionException e) {
+            // Tasks catch everything, so this only happens on an Error
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        summary.println("{\"type\":\"total\",\"sites\":" + tasks.size()
+            + ",\"ok\":" + ok + ",\"partial\":" + partial + ",\"failed\":" + failed
+            + ",\"bytes\":" + bytes + ",\"elapsed_ms\":" + (System.currentTimeMillis() - batchStart) + "}");
+        summary.flush();
+        return failed > 0 ? EXIT_FAILURES : EXIT_OK;
+    }
+    
+    /**
+     * Crawl options for one session from the command line, the same for starting and joining sessions
+     */
+    private CrawlOptions crawlOptions(boolean distributed) {
+        CrawlOptions crawlOptions = new CrawlOptions();
+        crawlOptions.setMaxDepth(options.getDepth());
+        crawlOptions.setQuiet(true);
+        crawlOptions.setDistributed(distributed);
+        crawlOptions.setSortQuery(options.isSortQuery());
+        crawlOptions.setRespectRobots(!options.isIgnoreRobots());
+        crawlOptions.setUrlFilter(options.getUrlFilter());
+        crawlOptions.setMaxContentLength(options.getMaxSize());
+        crawlOptions.setAcceptedContentTypes(options.getAcceptedTypes());
+        crawlOptions.setFetchPriority(options.getPriority());
+        crawlOptions.setLargeTransferBytes(options.getLargeTransfer());
+        crawlOptions.setDiskThreads(options.getDiskThreads());
+        crawlOptions.setDurability(options.getDurability());
+        crawlOptions.setTimeoutMillis(options.getTimeout() * 1000);
+        crawlOptions.setMaxRetries(options.getRetries());
+        crawlOptions.setMinThroughput(options.getMinSpeed());
+        crawlOptions.setThroughputWindowMillis(options.getSpeedWindow() * 1000L);
+        crawlOptions.setSitemaps(options.isSitemaps());
+        crawlOptions.setMaxSitemapUrls(options.getSitemapUrls());
+        crawlOptions.setIncremental(options.isIncremental());
+        crawlOptions.setSearchIndex(options.isIndex());
+        return crawlOptions;
+    }
+    
+    /**
+     * Run one session into &lt;output&gt;/&lt;host&gt;; never throws
+     */
+    private SiteResult downloadSite(String url) {
+        SiteResult result = new SiteResult(url);
+        if (!URLValidator.isValid(url)) {
+            result.status = "invalid";
+            result.error = "Invalid URL";
+            return result;
+        }
+        
+        WebsiteDownloader downloader = new WebsiteDownloader(dbManager, crawlOptions(options.isDistributed()));
+        CrawlSession session = new CrawlSession();
+        
+        long start = System.currentTimeMillis();
+        try {
+            String host = new URL(url).getHost();
+            if (options.isDistributed()) {
+                System.err.println("Session for " + url + " starting; other nodes can help with --join <session_id>");
+            }
+            downloader.downloadWebsite(session, url, Paths.get(options.getOutputDir(), host).toString());
+            if (session.isStartPageFailed()) {
+                result.status = "failed";
+                result.error = "Start page could not be downloaded";
+            } else {
+                result.status = session.getStats().snapshot().getFailedFiles() > 0 ? "partial" : "ok";
+            }
+        } catch (Exception e) {
+            result.status = "failed";
+            result.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+        result.elapsedMs = System.currentTimeMillis() - start;
+        SessionStats.Snapshot stats = session.getStats().snapshot();
+        result.websiteId = session.getWebsiteId();
+        result.sitemapTruncated = session.isSitemapTruncated();
+        result.files = (int) stats.getFiles();
+        result.failedFiles = (int) stats.getFailedFiles();
+        result.bytes = stats.getBytes();
+        return result;
+    }
+    
+    /**
+     * Crawl part of a distributed session as one worker; never throws
+     */
+    private SiteResult joinSite(int sessionId) {
+        SiteResult result = new SiteResult("session:" + sessionId);
+        WebsiteDownloader downloader = new WebsiteDownloader(dbManager, crawlOptions(true));
+        CrawlSession session = new CrawlSession();
+        
+        long start = System.currentTimeMillis();
+        try {
+            String startUrl = dbManager.getFrontierRoot(sessionId);
+            if (startUrl == null) {
+                throw new IllegalArgumentException("Session " + sessionId + " has no shared frontier to join");
+            }
+            result.url = startUrl;
+            downloader.joinSession(session, sessionId, Paths.get(options.getOutputDir(), new URL(startUrl).getHost()).toString());
+            result.status = session.getStats().snapshot().getFailedFiles() > 0 ? "partial" : "ok";
+        } catch (Exception e) {
+            result.status = "failed";
+            result.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+        result.elapsedMs = System.currentTimeMillis() - start;
+        SessionStats.Snapshot stats = session.getStats().snapshot();
+        result.websiteId = sessionId;
+        result.files = (int) stats.getCompletedFiles();
+        result.failedFiles = (int) stats.getFailedFiles();
+        result.bytes = stats.getBytes();
+        return result;
+    }
+    
+    /**
+     * Read the URL list, normalizing entries and dropping blanks, comments and duplicates
+     */
+    static List<String> readUrls(String input) throws IOException {
+        BufferedReader reader = input.equals("-")
+            ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+            : Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8);
+        Set<String> urls = new LinkedHashSet<>();
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    urls.add(URLValidator.normalize(line));
+                }
+            }
+        } finally {
+            if (!input.equals("-")) {
+                reader.close();
+            }
+        }
+        return new ArrayList<>(urls);
+    }
+    
+    private static PrintStream openSummary(String summary, PrintStream stdout) throws IOException {
+        if (summary.equals("-")) {
+            // Closing the wrapper must not close the real stdout
+            return new PrintStream(stdout, false, StandardCharsets.UTF_8) {
+                @Override
+                public void close() {
+                    flush();
+                }
+            };
+        }
+        return new PrintStream(new FileOutputStream(summary), false, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Outcome of one site in the batch
+     */
+    static class SiteResult {
+        private String url;
+        private String status;
+        private String error;
+        private int websiteId;
+        private int files;
+        private int failedFiles;
+        private boolean sitemapTruncated;
+        private long bytes;
+        private long elapsedMs;
+        
+        SiteResult(String url) {
+            this.url = url;
+        }
+        
+        String toJson() {
+            return "{\"type\":\"site\",\"url\":" + Json.quote(url)
+                + ",\"status\":" + Json.quote(status)
+                + ",\"session_id\":" + Json.number(websiteId > 0 ? websiteId : null)
+                + ",\"files\":" + files
+                + ",\"failed_files\":" + failedFiles
+                + ",\"sitemap_truncated\":" + sitemapTruncated
+                + ",\"bytes\":" + bytes
+                + ",\"elapsed_ms\":" + elapsedMs
+                + ",\"error\":" + Json.quote(error) + "}";
+        }
+    }
+}
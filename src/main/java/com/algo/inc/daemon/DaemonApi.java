@@ -0,0 +1,281 @@
+package com.algo.inc.daemon;
+
+import com.algo.inc.downloader.CrawlSession;
+import com.algo.inc.downloader.SessionStats;
+import com.algo.inc.model.Job;
+import com.algo.inc.util.Json;
+import com.algo.inc.util.URLValidator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP control API of the daemon, bound to localhost only.
+ *
+ * <pre>
+ * GET  /jobs                    recent jobs, newest first
+ * POST /jobs?url=...&amp;depth=n    queue a download (parameters may also be sent form-encoded)
+ * GET  /jobs/{id}               one job, with live counters while it runs
+ * POST /jobs/{id}/cancel|pause|resume
+ * GET  /jobs/{id}/progress      one JSON line per second until the job is over
+ * </pre>
+ */
+public class DaemonApi {
+    
+    private static final int JOB_LIST_LIMIT = 50;
+    private static final long PROGRESS_INTERVAL_MS = 1000;
+    private static final String JSON = "application/json; charset=utf-8";
+    
+    private final DownloadDaemon daemon;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    
+    private DaemonApi(DownloadDaemon daemon, int port) throws IOException {
+        this.daemon = daemon;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext("/jobs", this::handle);
+        // Progress streams hold a thread each for as long as they are open
+        this.handlers = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "daemon-api");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(handlers);
+    }
+    
+    public static DaemonApi start(DownloadDaemon daemon, int port) throws IOException {
+        DaemonApi api = new DaemonApi(daemon, port);
+        api.server.start();
+        return api;
+    }
+    
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    public void stop() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().replaceAll("/+$", "").split("/");
+            // path[0] is empty and path[1] is "jobs"
+            
+            if (path.length == 2) {
+                if (method.equals("GET")) {
+                    listJobs(exchange);
+                } else if (method.equals("POST")) {
+                    submitJob(exchange);
+                } else {
+                    send(exchange, 405, error("Use GET or POST"));
+                }
+                return;
+            }
+            
+            int jobId;
+            try {
+                jobId = Integer.parseInt(path[2]);
+            } catch (NumberFormatException e) {
+                send(exchange, 404, error("No such job"));
+                return;
+            }
+            
+            if (path.length == 3 && method.equals("GET")) {
+                Job job = daemon.getJob(jobId);
+                if (job == null) {
+                    send(exchange, 404, error("No such job"));
+                } else {
+                    send(exchange, 200, toJson(job));
+                }
+            } else if (path.length == 4 && path[3].equals("progress") && method.equals("GET")) {
+                streamProgress(exchange, jobId);
+            } else if (path.length == 4 && method.equals("POST")) {
+                controlJob(exchange, jobId, path[3]);
+            } else {
+                send(exchange, 404, error("Unknown endpoint"));
+            }
+        } catch (SQLException e) {
+            send(exchange, 500, error("Database error: " + e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private void listJobs(HttpExchange exchange) throws IOException {
+        List<Job> jobs = daemon.getJobs(JOB_LIST_LIMIT);
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < jobs.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append(toJson(jobs.get(i)));
+        }
+        send(exchange, 200, body.append(']').toString());
+    }
+    
+    private void submitJob(HttpExchange exchange) throws IOException, SQLException {
+        Map<String, String> params = parameters(exchange);
+        String url = URLValidator.normalize(params.get("url"));
+        if (!URLValidator.isValid(url)) {
+            send(exchange, 400, error("Missing or invalid url"));
+            return;
+        }
+        int depth;
+        try {
+            depth = Integer.parseInt(params.getOrDefault("depth", "0"));
+        } catch (NumberFormatException e) {
+            send(exchange, 400, error("depth must be a number"));
+            return;
+        }
+        if (depth < 0) {
+            send(exchange, 400, error("depth must not be negative"));
+            return;
+        }
+        
+        int jobId = daemon.submit(url, depth);
+        exchange.getResponseHeaders().set("Location", "/jobs/" + jobId);
+        send(exchange, 201, toJson(daemon.getJob(jobId)));
+    }
+    
+    private void controlJob(HttpExchange exchange, int jobId, String action) throws IOException, SQLException {
+        boolean changed;
+        switch (action) {
+            case "cancel":
+                changed = daemon.cancel(jobId);
+                break;
+            case "pause":
+                changed = daemon.pause(jobId);
+                break;
+            case "resume":
+                changed = daemon.resume(jobId);
+                break;
+            default:
+                send(exchange, 404, error("Unknown action: " + action));
+                return;
+        }
+        
+        Job job = daemon.getJob(jobId);
+        if (job == null) {
+            send(exchange, 404, error("No such job"));
+        } else if (!changed) {
+            send(exchange, 409, error("Cannot " + action + " a job that is " + job.getStatus()));
+        } else {
+            send(exchange, 200, toJson(job));
+        }
+    }
+    
+    /**
+     * Chunked NDJSON: the job's state once a second, ending with its final state
+     */
+    private void streamProgress(HttpExchange exchange, int jobId) throws IOException {
+        Job job = daemon.getJob(jobId);
+        if (job == null) {
+            send(exchange, 404, error("No such job"));
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            while (true) {
+                out.write((toJson(job) + "\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                if (job.getStatus().isFinal()) {
+                    return;
+                }
+                Thread.sleep(PROGRESS_INTERVAL_MS);
+                job = daemon.getJob(jobId);
+                if (job == null) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+    
+    private String toJson(Job job) {
+        StringBuilder json = new StringBuilder(256)
+            .append("{\"id\":").append(job.getId())
+            .append(",\"url\":").append(Json.quote(job.getUrl()))
+            .append(",\"status\":").append(Json.quote(job.getStatus().name()))
+            .append(",\"depth\":").append(job.getMaxDepth())
+            .append(",\"output_dir\":").append(Json.quote(job.getOutputDir()))
+            .append(",\"session_id\":").append(Json.number(job.getWebsiteId()))
+            .append(",\"error\":").append(Json.quote(job.getError()))
+            .append(",\"created_at\":").append(Json.quote(job.getCreatedAt()))
+            .append(",\"started_at\":").append(Json.quote(job.getStartedAt()))
+            .append(",\"finished_at\":").append(Json.quote(job.getFinishedAt()));
+            
+        CrawlSession session = daemon.getRunningSession(job.getId());
+        if (session != null) {
+            SessionStats.Snapshot stats = session.getStats().snapshot();
+            json.append(",\"progress\":{\"session_id\":").append(session.getWebsiteId())
+                .append(",\"files\":").append(stats.getFiles())
+                .append(",\"completed\":").append(stats.getCompletedFiles())
+                .append(",\"failed\":").append(stats.getFailedFiles())
+                .append(",\"bytes\":").append(stats.getBytes())
+                .append(",\"retries\":").append(stats.getRetries())
+                .append(",\"fetch_p99_ms\":").append(stats.getFetchLatency().percentile(0.99) / 1_000_000)
+                .append('}');
+        }
+        return json.append('}').toString();
+    }
+    
+    private static String error(String message) {
+        return "{\"error\":" + Json.quote(message) + "}";
+    }
+    
+    /**
+     * Query string parameters, plus form-encoded body parameters on POST
+     */
+    private static Map<String, String> parameters(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null && contentType.startsWith("application/x-www-form-urlencoded")) {
+            try (InputStream in = exchange.getRequestBody()) {
+                parseForm(new String(in.readAllBytes(), StandardCharsets.UTF_8), params);
+            }
+        }
+        return params;
+    }
+    
+    private static void parseForm(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals >= 0 ? pair.substring(0, equals) : pair;
+            String value = equals >= 0 ? pair.substring(equals + 1) : "";
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+    
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
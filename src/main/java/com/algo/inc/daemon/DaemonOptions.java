@@ -0,0 +1,153 @@
+package com.algo.inc.daemon;
+
+/**
+ * DaemonOptions - Command line options for the long-running download service
+ */
+public class DaemonOptions {
+    
+    public static final String USAGE = String.join("\n",
+        "Usage: java -jar link-local.jar --daemon [options]",
+        "",
+        "  --port <port>           Port of the control API on localhost (default 8700)",
+        "  --workers <n>           Jobs downloaded at the same time (default 2)",
+        "  --output <dir>          Root directory; each job goes to <dir>/<host> (default ./downloads)",
+        "  --db-url <jdbc-url>     Database holding the job queue (default from -Ddb.* properties)",
+        "  --db-user <user>",
+        "  --db-password <password>",
+        "  --metrics-port <port>   Serve Prometheus metrics",
+        "  --jfr[=<file>]          Record the daemon with JDK Flight Recorder");
+    
+    private int port;
+    private int workers;
+    private String outputDir;
+    private String dbUrl;
+    private String dbUser;
+    private String dbPassword;
+    private int metricsPort;
+    
+    public DaemonOptions() {
+        this.port = 8700;
+        this.workers = 2;
+        this.outputDir = System.getProperty("user.dir") + "/downloads";
+        this.metricsPort = -1;
+    }
+    
+    /**
+     * Whether the arguments ask for daemon mode
+     */
+    public static boolean isDaemonMode(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--daemon")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Parse command line arguments; both "--name value" and "--name=value" are accepted
+     * @throws IllegalArgumentException with a message suitable for the user
+     */
+    public static DaemonOptions parse(String[] args) {
+        DaemonOptions options = new DaemonOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            String name = arg;
+            String value = null;
+            int equals = arg.indexOf('=');
+            if (arg.startsWith("--") && equals > 0) {
+                name = arg.substring(0, equals);
+                value = arg.substring(equals + 1);
+            }
+            
+            switch (name) {
+                case "--daemon":
+                case "--jfr":
+                    continue;
+                case "--help":
+                    throw new IllegalArgumentException(USAGE);
+                case "--port":
+                case "--workers":
+                case "--output":
+                case "--db-url":
+                case "--db-user":
+                case "--db-password":
+                case "--metrics-port":
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+            
+            if (value == null) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + name);
+                }
+                value = args[++i];
+            }
+            
+            switch (name) {
+                case "--port":
+                    options.port = parseInt(name, value, 0);
+                    break;
+                case "--workers":
+                    options.workers = parseInt(name, value, 1);
+                    break;
+                case "--output":
+                    options.outputDir = value;
+                    break;
+                case "--db-url":
+                    options.dbUrl = value;
+                    break;
+                case "--db-user":
+                    options.dbUser = value;
+                    break;
+                case "--db-password":
+                    options.dbPassword = value;
+                    break;
+                case "--metrics-port":
+                    options.metricsPort = parseInt(name, value, 0);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return options;
+    }
+    
+    private static int parseInt(String name, String value, int min) {
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed < min) {
+                throw new IllegalArgumentException(name + " must be at least " + min);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " expects a number, got: " + value);
+        }
+    }
+    
+    // Getters and Setters
+    public int getPort() { return port; }
+    public void setPort(int port) { this.port = port; }
+    
+    public int getWorkers() { return workers; }
+    public void setWorkers(int workers) { this.workers = workers; }
+    
+    public String getOutputDir() { return outputDir; }
+    public void setOutputDir(String outputDir) { this.outputDir = outputDir; }
+    
+    public String getDbUrl() { return dbUrl; }
+    public void setDbUrl(String dbUrl) { this.dbUrl = dbUrl; }
+    
+    public String getDbUser() { return dbUser; }
+    public void setDbUser(String dbUser) { this.dbUser = dbUser; }
+    
+    public String getDbPassword() { return dbPassword; }
+    public void setDbPassword(String dbPassword) { this.dbPassword = dbPassword; }
+    
+    /**
+     * Port for the Prometheus endpoint, or -1 when not requested
+     */
+    public int getMetricsPort() { return metricsPort; }
+    public void setMetricsPort(int metricsPort) { this.metricsPort = metricsPort; }
+}
@@ -0,0 +1,325 @@
+package com.algo.inc.daemon;
+
+import com.algo.inc.database.DatabaseManager;
+import com.algo.inc.downloader.CrawlOptions;
+import com.algo.inc.downloader.CrawlSession;
+import com.algo.inc.downloader.WebsiteDownloader;
+import com.algo.inc.metrics.PrometheusExporter;
+import com.algo.inc.model.Job;
+import com.algo.inc.model.JobStatus;
+import com.algo.inc.util.TerminalUI;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-running download service.
+ *
+ * Jobs live in the database's jobs table, so they survive restarts and several daemons
+ * can share one queue. Each daemon marks the jobs it claims with its own ID and sends a
+ * heartbeat for them; a running job is only requeued once its daemon's heartbeats stop.
+ * A fixed pool of workers claims and runs them one session at a time,
+ * and {@link DaemonApi} exposes submit, cancel, pause, resume and progress over HTTP.
+ * The JVM, JIT-compiled code, DNS cache and keep-alive connections stay warm across jobs.
+ */
+public class DownloadDaemon {
+    
+    // How often idle workers look for jobs queued by other daemons
+    private static final long POLL_INTERVAL_MS = 2000;
+    private static final long HEARTBEAT_INTERVAL_MS = 15000;
+    // A running job whose daemon has been silent this long is requeued
+    private static final int STALE_JOB_SECONDS = 90;
+    
+    private final DatabaseManager dbManager;
+    private final DaemonOptions options;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService heartbeat;
+    private final String daemonId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+    private final ConcurrentHashMap<Integer, CrawlSession> running = new ConcurrentHashMap<>();
+    private final Object wakeup = new Object();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile boolean stopping;
+    
+    public DownloadDaemon(DatabaseManager dbManager, DaemonOptions options) {
+        this.dbManager = dbManager;
+        this.options = options;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(options.getWorkers(), r -> {
+            Thread thread = new Thread(r, "daemon-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "daemon-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Run the daemon until the process is told to stop
+     * @return the process exit status
+     */
+    public static int run(String[] args) {
+        DaemonOptions options;
+        try {
+            options = DaemonOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return 2;
+        }
+        
+        DatabaseManager dbManager = new DatabaseManager(options.getDbUrl(), options.getDbUser(), options.getDbPassword());
+        dbManager.initializeDatabase();
+        if (!dbManager.isConnected()) {
+            return 2;
+        }
+        
+        PrometheusExporter exporter = null;
+        DaemonApi api = null;
+        DownloadDaemon daemon = new DownloadDaemon(dbManager, options);
+        try {
+            exporter = options.getMetricsPort() >= 0
+                ? PrometheusExporter.start(options.getMetricsPort())
+                : PrometheusExporter.startIfConfigured();
+            api = DaemonApi.start(daemon, options.getPort());
+            daemon.start();
+            TerminalUI.success("Daemon listening on http://localhost:" + api.getPort() + "/jobs with "
+                + options.getWorkers() + " worker(s)");
+            
+            // Ctrl+C or SIGTERM: stop taking jobs, then let this thread finish cleaning up
+            Thread mainThread = Thread.currentThread();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                daemon.stop();
+                try {
+                    mainThread.join(TimeUnit.SECONDS.toMillis(30));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "daemon-shutdown"));
+            
+            daemon.awaitStop();
+            return 0;
+        } catch (IOException e) {
+            TerminalUI.error("Daemon failed to start: " + e.getMessage());
+            return 1;
+        } finally {
+            if (api != null) {
+                api.stop();
+            }
+            daemon.stop();
+            if (exporter != null) {
+                exporter.stop();
+            }
+            dbManager.close();
+            TerminalUI.info("Daemon stopped");
+        }
+    }
+    
+    /**
+     * Start the worker pool, and the heartbeat that keeps this daemon's jobs its own and
+     * requeues those of daemons that died
+     */
+    public void start() {
+        heartbeat.scheduleWithFixedDelay(this::beat, 0, HEARTBEAT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < options.getWorkers(); i++) {
+            workers.submit(this::workerLoop);
+        }
+    }
+    
+    private void beat() {
+        try {
+            dbManager.heartbeatJobs(daemonId);
+            int requeued = dbManager.requeueInterruptedJobs(STALE_JOB_SECONDS);
+            if (requeued > 0) {
+                TerminalUI.info("Requeued " + requeued + " interrupted job(s)");
+                synchronized (wakeup) {
+                    wakeup.notifyAll();
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error sending job heartbeat: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Stop claiming jobs and put running ones back in the queue; returns once the workers are idle
+     */
+    public void stop() {
+        if (stopping) {
+            return;
+        }
+        stopping = true;
+        for (CrawlSession session : running.values()) {
+            session.getControl().cancel();
+        }
+        synchronized (wakeup) {
+            wakeup.notifyAll();
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(20, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        heartbeat.shutdownNow();
+        stopped.countDown();
+    }
+    
+    private void awaitStop() {
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Queue a download; it is saved under the output directory in a folder named after the host
+     * @return the new job's ID
+     */
+    public int submit(String url, int maxDepth) throws SQLException, IOException {
+        String host = new URL(url).getHost();
+        int jobId = dbManager.insertJob(url, Paths.get(options.getOutputDir(), host).toString(), maxDepth);
+        synchronized (wakeup) {
+            wakeup.notify();
+        }
+        return jobId;
+    }
+    
+    /**
+     * Cancel a queued, paused or running job
+     * @return false if the job is unknown or already finished
+     */
+    public boolean cancel(int jobId) throws SQLException {
+        CrawlSession session = running.get(jobId);
+        if (session != null) {
+            // The worker records the final status once the session winds down
+            session.getControl().cancel();
+            return true;
+        }
+        return dbManager.transitionJob(jobId, JobStatus.CANCELLED, JobStatus.QUEUED, JobStatus.PAUSED);
+    }
+    
+    /**
+     * Hold a queued job back, or suspend a running one after its current fetch
+     */
+    public boolean pause(int jobId) throws SQLException {
+        if (dbManager.transitionJob(jobId, JobStatus.PAUSED, JobStatus.QUEUED)) {
+            return true;
+        }
+        CrawlSession session = running.get(jobId);
+        if (session != null && dbManager.transitionJob(jobId, JobStatus.PAUSED, JobStatus.RUNNING)) {
+            session.getControl().pause();
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Continue a paused job, or return it to the queue if it was paused before starting
+     */
+    public boolean resume(int jobId) throws SQLException {
+        CrawlSession session = running.get(jobId);
+        if (session != null && dbManager.transitionJob(jobId, JobStatus.RUNNING, JobStatus.PAUSED)) {
+            session.getControl().resume();
+            return true;
+        }
+        if (dbManager.transitionJob(jobId, JobStatus.QUEUED, JobStatus.PAUSED)) {
+            synchronized (wakeup) {
+                wakeup.notify();
+            }
+            return true;
+        }
+        return false;
+    }
+    
+    public Job getJob(int jobId) {
+        return dbManager.getJob(jobId);
+    }
+    
+    public List<Job> getJobs(int limit) {
+        return dbManager.getJobs(limit);
+    }
+    
+    /**
+     * The session of a job running in this daemon, for live progress; null otherwise
+     */
+    public CrawlSession getRunningSession(int jobId) {
+        return running.get(jobId);
+    }
+    
+    private void workerLoop() {
+        while (!stopping) {
+            Job job = null;
+            try {
+                job = dbManager.claimNextJob(daemonId);
+            } catch (SQLException e) {
+                System.err.println("Error claiming job: " + e.getMessage());
+            }
+            
+            if (job == null) {
+                synchronized (wakeup) {
+                    if (!stopping) {
+                        try {
+                            wakeup.wait(POLL_INTERVAL_MS);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+                continue;
+            }
+            execute(job);
+        }
+    }
+    
+    private void execute(Job job) {
+        CrawlOptions crawlOptions = new CrawlOptions();
+        crawlOptions.setMaxDepth(job.getMaxDepth());
+        crawlOptions.setQuiet(true);
+        WebsiteDownloader downloader = new WebsiteDownloader(dbManager, crawlOptions);
+        CrawlSession session = new CrawlSession();
+        running.put(job.getId(), session);
+        
+        JobStatus status = JobStatus.DONE;
+        String error = null;
+        try {
+            downloader.downloadWebsite(session, job.getUrl(), job.getOutputDir());
+            if (session.isStartPageFailed() && !session.getControl().isCancelled()) {
+                status = JobStatus.FAILED;
+                error = "Start page could not be downloaded";
+            }
+        } catch (Exception e) {
+            status = JobStatus.FAILED;
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        } finally {
+            running.remove(job.getId());
+        }
+        
+        Integer websiteId = session.getWebsiteId() > 0 ? session.getWebsiteId() : null;
+        try {
+            if (session.getControl().isCancelled() && stopping) {
+                // Shut down mid-job: run it again from the start next time
+                dbManager.transitionJob(job.getId(), JobStatus.QUEUED, JobStatus.RUNNING, JobStatus.PAUSED);
+            } else {
+                dbManager.finishJob(job.getId(),
+                    session.getControl().isCancelled() ? JobStatus.CANCELLED : status, websiteId, error);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error recording job " + job.getId() + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,13 +1,31 @@
 package com.algo.inc.database;
 
+import com.algo.inc.metrics.MetricsRegistry;
+import com.algo.inc.model.AnalyticsReport;
+import com.algo.inc.model.CanonicalUrl;
+import com.algo.inc.model.ContentTypeTotal;
 import com.algo.inc.model.DownloadReport;
+import com.algo.inc.model.ErrorClass;
+import com.algo.inc.model.FrontierEntry;
+import com.algo.inc.model.Job;
+import com.algo.inc.model.JobStatus;
+import com.algo.inc.model.LinkEdge;
 import com.algo.inc.model.LinkRecord;
+import com.algo.inc.model.ResourceChange;
+import com.algo.inc.model.SessionAnalytics;
+import com.algo.inc.model.SessionDiff;
+import com.algo.inc.model.ThroughputBucket;
 import com.algo.inc.model.WebsiteReport;
+import com.algo.inc.profiling.DbWriteEvent;
 import com.algo.inc.util.TerminalUI;
 
+import java.io.IOException;
 import java.sql.*;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class DatabaseManager {
     
@@ -19,24 +37,81 @@ public class DatabaseManager {
     private static final String DB_PASSWORD = System.getProperty("db.password", "121402pr0732021");
     private static final String DB_URL = String.format("jdbc:postgresql://%s:%s/%s", DB_HOST, DB_PORT, DB_NAME);
     
+    // Analytics report sizing
+    private static final int THROUGHPUT_BUCKETS = 20;
+    private static final int TOP_LINKS_LIMIT = 10;
+    private static final int HISTORY_LIMIT = 10;
+    
+    private static final String SESSION_ANALYTICS_SELECT = "SELECT w.id, w.website_name, w.download_start_datetime, " +
+        "w.total_elapsed_time, w.total_downloaded_kilobytes, COUNT(l.id) AS link_count, " +
+        "PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY l.total_elapsed_time) AS p50, " +
+        "PERCENTILE_CONT(0.95) WITHIN GROUP (ORDER BY l.total_elapsed_time) AS p95, " +
+        "PERCENTILE_CONT(0.99) WITHIN GROUP (ORDER BY l.total_elapsed_time) AS p99, " +
+        "MAX(l.total_elapsed_time) AS max_latency " +
+        "FROM websites w LEFT JOIN links l ON l.website_id = w.id ";
+    private static final String SESSION_ANALYTICS_GROUP_BY = "GROUP BY w.id, w.website_name, w.download_start_datetime, " +
+        "w.total_elapsed_time, w.total_downloaded_kilobytes ";
+    
+    // Media type from the Content-Type header, falling back to the file extension of the
+    // last path segment for rows recorded before it was stored, e.g. https://host/a/style.css?v=2 -> css
+    private static final String CONTENT_TYPE_EXPRESSION = "COALESCE(" +
+        "NULLIF(LOWER(TRIM(SPLIT_PART(content_type, ';', 1))), ''), " +
+        "LOWER(SUBSTRING(link_name FROM " +
+        "'^[^:]+://[^/?#]+/(?:[^?#]*/)?[^/?#]*\\.([A-Za-z0-9]{1,8})(?:[?#].*)?$')), '(none)')";
+    
+    private static final String INSERT_LINK_SQL = "INSERT INTO links (link_name, website_id, total_elapsed_time, " +
+        "total_downloaded_kilobytes, dns_time, connect_time, tls_time, ttfb_time, transfer_time, " +
+        "status_code, content_type, wire_bytes, error_class, retries, etag, last_modified, final_url, content_hash) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    // Rows a streaming query fetches per round trip
+    private static final int STREAM_FETCH_SIZE = 5000;
+    
+    private static final String INSERT_EDGE_SQL = "INSERT INTO link_edges (website_id, source_url, target_url, kind) " +
+        "VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING";
+    
+    private final MetricsRegistry metrics = MetricsRegistry.get();
+    private final String url;
+    private final String user;
+    private final String password;
     private Connection connection;
     
+    public DatabaseManager() {
+        this(DB_URL, DB_USER, DB_PASSWORD);
+    }
+    
+    /**
+     * Use an explicit JDBC URL and credentials; any null argument falls back to the db.* system properties
+     */
+    public DatabaseManager(String url, String user, String password) {
+        this.url = url != null ? url : DB_URL;
+        this.user = user != null ? user : DB_USER;
+        this.password = password != null ? password : DB_PASSWORD;
+    }
+    
     /**
      * Initialize the database and create tables if they don't exist
      */
     public void initializeDatabase() {
         try {
             // TerminalUI.status("  Connecting", DB_HOST + ":" + DB_PORT + "/" + DB_NAME, TerminalUI.BRIGHT_CYAN);
-            connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+            connection = DriverManager.getConnection(url, user, password);
             createTables();
             // TerminalUI.success("Database connection established");
         } catch (SQLException e) {
             TerminalUI.error("Database connection failed: " + e.getMessage());
-            TerminalUI.warning("Connection URL: " + DB_URL);
+            TerminalUI.warning("Connection URL: " + url);
             e.printStackTrace();
         }
     }
     
+    /**
+     * Whether initializeDatabase managed to connect
+     */
+    public boolean isConnected() {
+        return connection != null;
+    }
+    
     /**
      * Create database tables if they don't exist
      */
@@ -63,6 +138,74 @@ public class DatabaseManager {
         try (Statement stmt = connection.createStatement()) {
             stmt.execute(createWebsitesTable);
             stmt.execute(createLinksTable);
+            
+            // Columns and indexes added after the first release
+            stmt.execute("ALTER TABLE links ADD COLUMN IF NOT EXISTS fetched_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP");
+            stmt.execute("ALTER TABLE links ADD COLUMN IF NOT EXISTS dns_time BIGINT");
+            stmt.execute("ALTER TABLE links ADD COLUMN IF NOT EXISTS connect_time BIGINT");
+            stmt.execute("ALTER TABLE links ADD COLUMN IF NOT EXISTS tls_time BIGINT");
+            stmt.execute("ALTER TABLE links ADD COLUMN IF NOT EXISTS ttfb_time BIGINT");
+            stmt.execute("ALTER TABLE links ADD COLUMN IF NOT EXISTS transfer_time BIGINT");
+            stmt.execute("ALTER TABLE links ADD COLUMN IF NOT EXISTS status_code INTEGER");
+            stmt.execute("ALTER TABLE links ADD COLUMN IF NOT EXISTS content_type TEXT");
+            stmt.execute("ALTER TABLE links ADD COLUMN IF NOT EXISTS wire_bytes BIGINT");
+            stmt.execute("ALTER TABLE links ADD COLUMN IF NOT EXISTS error_class VARCHAR(32)");
+            stmt.execute("ALTER TABLE links ADD COLUMN IF NOT EXISTS retries INTEGER DEFAULT 0");
+            stmt.execute("ALTER TABLE links ADD COLUMN IF NOT EXISTS etag TEXT");
+            stmt.execute("ALTER TABLE links ADD COLUMN IF NOT EXISTS last_modified TEXT");
+            stmt.execute("ALTER TABLE links ADD COLUMN IF NOT EXISTS final_url TEXT");
+            stmt.execute("ALTER TABLE links ADD COLUMN IF NOT EXISTS content_hash CHAR(64)");
+            // Header values are as long as the server makes them; widening VARCHAR to TEXT does not rewrite the table
+            stmt.execute("ALTER TABLE links ALTER COLUMN content_type TYPE TEXT");
+            stmt.execute("ALTER TABLE links ALTER COLUMN last_modified TYPE TEXT");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_links_website_id ON links (website_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_websites_name ON websites (website_name)");
+            
+            // Daemon job queue
+            stmt.execute("CREATE TABLE IF NOT EXISTS jobs (" +
+                "id SERIAL PRIMARY KEY, " +
+                "url TEXT NOT NULL, " +
+                "output_dir TEXT NOT NULL, " +
+                "max_depth INTEGER NOT NULL DEFAULT 0, " +
+                "status VARCHAR(16) NOT NULL, " +
+                "website_id INTEGER REFERENCES websites(id) ON DELETE SET NULL, " +
+                "error TEXT, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "started_at TIMESTAMP, " +
+                "finished_at TIMESTAMP" +
+                ")");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_jobs_status ON jobs (status, id)");
+            stmt.execute("ALTER TABLE jobs ADD COLUMN IF NOT EXISTS claimed_by TEXT");
+            stmt.execute("ALTER TABLE jobs ADD COLUMN IF NOT EXISTS heartbeat_at TIMESTAMP");
+            
+            // Shared crawl frontier for sessions spread over several nodes
+            stmt.execute("CREATE TABLE IF NOT EXISTS frontier (" +
+                "id BIGSERIAL PRIMARY KEY, " +
+                "website_id INTEGER NOT NULL REFERENCES websites(id) ON DELETE CASCADE, " +
+                "fingerprint BIGINT NOT NULL, " +
+                "url TEXT NOT NULL, " +
+                "kind VARCHAR(8) NOT NULL, " +
+                "depth INTEGER NOT NULL, " +
+                "state VARCHAR(8) NOT NULL DEFAULT 'PENDING', " +
+                "lease_owner VARCHAR(128), " +
+                "lease_expires TIMESTAMP, " +
+                "attempts INTEGER NOT NULL DEFAULT 0, " +
+                "UNIQUE (website_id, fingerprint)" +
+                ")");
+            stmt.execute("ALTER TABLE frontier ADD COLUMN IF NOT EXISTS priority BIGINT NOT NULL DEFAULT 0");
+            // Owners are pid@host plus a per-worker UUID, longer than the column first allowed
+            stmt.execute("ALTER TABLE frontier ALTER COLUMN lease_owner TYPE TEXT");
+            stmt.execute("DROP INDEX IF EXISTS idx_frontier_claim");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_frontier_priority ON frontier (website_id, state, priority, id)");
+            
+            // Which page referenced which page or resource, one row per distinct reference in a session
+            stmt.execute("CREATE TABLE IF NOT EXISTS link_edges (" +
+                "website_id INTEGER NOT NULL REFERENCES websites(id) ON DELETE CASCADE, " +
+                "source_url TEXT NOT NULL, " +
+                "target_url TEXT NOT NULL, " +
+                "kind VARCHAR(8) NOT NULL, " +
+                "PRIMARY KEY (website_id, source_url, target_url)" +
+                ")");
             // TerminalUI.status("  Tables", "websites, links", TerminalUI.BRIGHT_GREEN);
         }
     }
@@ -76,7 +219,7 @@ public class DatabaseManager {
         try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, websiteName);
             pstmt.setString(2, downloadStartDateTime);
-            pstmt.executeUpdate();
+            executeWrite(pstmt, "insertWebsite");
             
             ResultSet rs = pstmt.getGeneratedKeys();
             if (rs.next()) {
@@ -97,7 +240,7 @@ public class DatabaseManager {
             pstmt.setLong(2, totalElapsedTime);
             pstmt.setDouble(3, totalDownloadedKilobytes);
             pstmt.setInt(4, websiteId);
-            pstmt.executeUpdate();
+            executeWrite(pstmt, "updateWebsite");
         }
     }
     
@@ -112,10 +255,565 @@ public class DatabaseManager {
             pstmt.setInt(2, websiteId);
             pstmt.setLong(3, totalElapsedTime);
             pstmt.setDouble(4, totalDownloadedKilobytes);
-            pstmt.executeUpdate();
+            executeWrite(pstmt, "insertLink");
+        }
+    }
+    
+    /**
+     * Insert a link record together with its fetch timing breakdown
+     */
+    public void insertLink(LinkRecord link) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(INSERT_LINK_SQL)) {
+            bindLink(pstmt, link);
+            executeWrite(pstmt, "insertLink");
+        }
+    }
+    
+    /**
+     * Insert several link records in one JDBC batch, so they share a round trip to the server.
+     * With reWriteBatchedInserts=true on the JDBC URL the driver also folds them into multi-row INSERTs.
+     */
+    public void insertLinks(List<LinkRecord> links) throws SQLException {
+        if (links.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement pstmt = connection.prepareStatement(INSERT_LINK_SQL)) {
+            for (LinkRecord link : links) {
+                bindLink(pstmt, link);
+                pstmt.addBatch();
+            }
+            executeBatchWrite(pstmt, "insertLinks", links.size());
+        }
+    }
+    
+    private static void bindLink(PreparedStatement pstmt, LinkRecord link) throws SQLException {
+        pstmt.setString(1, link.getLinkName());
+        pstmt.setInt(2, link.getWebsiteId());
+        pstmt.setLong(3, link.getTotalElapsedTime());
+        pstmt.setDouble(4, link.getTotalDownloadedKilobytes());
+        pstmt.setLong(5, link.getDnsTime());
+        pstmt.setLong(6, link.getConnectTime());
+        pstmt.setLong(7, link.getTlsTime());
+        pstmt.setLong(8, link.getTimeToFirstByte());
+        pstmt.setLong(9, link.getTransferTime());
+        pstmt.setInt(10, link.getStatusCode());
+        pstmt.setString(11, link.getContentType());
+        pstmt.setLong(12, link.getWireBytes());
+        pstmt.setString(13, link.getErrorClass().name());
+        pstmt.setInt(14, link.getRetries());
+        pstmt.setString(15, link.getEtag());
+        pstmt.setString(16, link.getLastModified());
+        pstmt.setString(17, link.getFinalUrl());
+        pstmt.setString(18, link.getContentHash());
+    }
+    
+    /**
+     * Insert link graph edges in one JDBC batch; edges a session already has are skipped
+     */
+    public void insertEdges(List<LinkEdge> edges) throws SQLException {
+        if (edges.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement pstmt = connection.prepareStatement(INSERT_EDGE_SQL)) {
+            for (LinkEdge edge : edges) {
+                pstmt.setInt(1, edge.getWebsiteId());
+                pstmt.setString(2, edge.getSourceUrl());
+                pstmt.setString(3, edge.getTargetUrl());
+                pstmt.setString(4, edge.getKind());
+                pstmt.addBatch();
+            }
+            executeBatchWrite(pstmt, "insertEdges", edges.size());
+        }
+    }
+    
+    /**
+     * Execute an INSERT/UPDATE, recording its latency and outcome in the metrics registry
+     * and as a Flight Recorder event
+     */
+    private int executeWrite(PreparedStatement pstmt, String operation) throws SQLException {
+        long start = System.nanoTime();
+        metrics.dbPendingWrites().increment();
+        DbWriteEvent event = new DbWriteEvent();
+        event.begin();
+        try {
+            int rows = pstmt.executeUpdate();
+            metrics.dbWrites().increment();
+            event.rows = rows;
+            event.succeeded = true;
+            return rows;
+        } catch (SQLException e) {
+            metrics.dbErrors().increment();
+            throw e;
+        } finally {
+            metrics.dbPendingWrites().decrement();
+            metrics.dbFlushLatency().recordSince(start);
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.commit();
+            }
         }
     }
     
+    /**
+     * Execute a JDBC batch, recorded like executeWrite as one write of the given number of rows
+     */
+    private void executeBatchWrite(PreparedStatement pstmt, String operation, int rows) throws SQLException {
+        long start = System.nanoTime();
+        metrics.dbPendingWrites().add(rows);
+        DbWriteEvent event = new DbWriteEvent();
+        event.begin();
+        try {
+            pstmt.executeBatch();
+            metrics.dbWrites().add(rows);
+            event.rows = rows;
+            event.succeeded = true;
+        } catch (SQLException e) {
+            metrics.dbErrors().increment();
+            throw e;
+        } finally {
+            metrics.dbPendingWrites().add(-rows);
+            metrics.dbFlushLatency().recordSince(start);
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.commit();
+            }
+        }
+    }
+    
+    /**
+     * Queue a download job
+     * @return the generated job ID
+     */
+    public int insertJob(String url, String outputDir, int maxDepth) throws SQLException {
+        String sql = "INSERT INTO jobs (url, output_dir, max_depth, status) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setString(1, url);
+            pstmt.setString(2, outputDir);
+            pstmt.setInt(3, maxDepth);
+            pstmt.setString(4, JobStatus.QUEUED.name());
+            executeWrite(pstmt, "insertJob");
+            
+            ResultSet rs = pstmt.getGeneratedKeys();
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+            throw new SQLException("Failed to get generated job ID");
+        }
+    }
+    
+    /**
+     * Take the oldest queued job and mark it running. SKIP LOCKED lets several workers,
+     * or several daemons sharing the database, claim concurrently without handing out a job twice.
+     * @param owner the claiming daemon, whose heartbeats keep the job from being requeued
+     * @return the claimed job, or null if the queue is empty
+     */
+    public Job claimNextJob(String owner) throws SQLException {
+        String sql = "UPDATE jobs SET status = ?, started_at = CURRENT_TIMESTAMP, claimed_by = ?, " +
+            "heartbeat_at = CURRENT_TIMESTAMP WHERE id = (" +
+            "SELECT id FROM jobs WHERE status = ? ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+            "RETURNING *";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, JobStatus.RUNNING.name());
+            pstmt.setString(2, owner);
+            pstmt.setString(3, JobStatus.QUEUED.name());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? mapJob(rs) : null;
+            }
+        }
+    }
+    
+    /**
+     * Move a job to a new status, but only if it is currently in one of the expected states
+     * @return true if the job was updated
+     */
+    public boolean transitionJob(int jobId, JobStatus to, JobStatus... from) throws SQLException {
+        String[] expected = new String[from.length];
+        for (int i = 0; i < from.length; i++) {
+            expected[i] = from[i].name();
+        }
+        String sql = "UPDATE jobs SET status = ? WHERE id = ? AND status = ANY (?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, to.name());
+            pstmt.setInt(2, jobId);
+            pstmt.setArray(3, connection.createArrayOf("varchar", expected));
+            return executeWrite(pstmt, "transitionJob") > 0;
+        }
+    }
+    
+    /**
+     * Record how a job ended
+     */
+    public void finishJob(int jobId, JobStatus status, Integer websiteId, String error) throws SQLException {
+        String sql = "UPDATE jobs SET status = ?, website_id = ?, error = ?, finished_at = CURRENT_TIMESTAMP WHERE id = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, status.name());
+            if (websiteId != null) {
+                pstmt.setInt(2, websiteId);
+            } else {
+                pstmt.setNull(2, Types.INTEGER);
+            }
+            pstmt.setString(3, error);
+            pstmt.setInt(4, jobId);
+            executeWrite(pstmt, "finishJob");
+        }
+    }
+    
+    /**
+     * Show that a daemon is still working on the jobs it claimed, running or paused
+     */
+    public void heartbeatJobs(String owner) throws SQLException {
+        String sql = "UPDATE jobs SET heartbeat_at = CURRENT_TIMESTAMP WHERE claimed_by = ? AND status IN (?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, owner);
+            pstmt.setString(2, JobStatus.RUNNING.name());
+            pstmt.setString(3, JobStatus.PAUSED.name());
+            executeWrite(pstmt, "heartbeatJobs");
+        }
+    }
+    
+    /**
+     * Put jobs left running by a daemon that stopped without shutting down cleanly back in the
+     * queue. A job counts as left behind once its daemon has not sent a heartbeat for staleSeconds,
+     * so jobs of daemons still running are never taken from them.
+     * @return number of jobs requeued
+     */
+    public int requeueInterruptedJobs(int staleSeconds) throws SQLException {
+        String sql = "UPDATE jobs SET status = ?, started_at = NULL, claimed_by = NULL, heartbeat_at = NULL " +
+            "WHERE status = ? AND (heartbeat_at IS NULL " +
+            "OR heartbeat_at < CURRENT_TIMESTAMP - make_interval(secs => ?))";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, JobStatus.QUEUED.name());
+            pstmt.setString(2, JobStatus.RUNNING.name());
+            pstmt.setInt(3, staleSeconds);
+            return executeWrite(pstmt, "requeueInterruptedJobs");
+        }
+    }
+    
+    /**
+     * Get a job by ID
+     * @return the job, or null if not found
+     */
+    public Job getJob(int jobId) {
+        String sql = "SELECT * FROM jobs WHERE id = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, jobId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? mapJob(rs) : null;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error retrieving job: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+    
+    /**
+     * Get the most recent jobs, newest first
+     */
+    public List<Job> getJobs(int limit) {
+        List<Job> jobs = new ArrayList<>();
+        String sql = "SELECT * FROM jobs ORDER BY id DESC LIMIT ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    jobs.add(mapJob(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error retrieving jobs: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return jobs;
+    }
+    
+    private Job mapJob(ResultSet rs) throws SQLException {
+        Job job = new Job(
+            rs.getInt("id"),
+            rs.getString("url"),
+            rs.getString("output_dir"),
+            rs.getInt("max_depth"),
+            JobStatus.valueOf(rs.getString("status"))
+        );
+        int websiteId = rs.getInt("website_id");
+        job.setWebsiteId(rs.wasNull() ? null : websiteId);
+        job.setError(rs.getString("error"));
+        job.setCreatedAt(rs.getString("created_at"));
+        job.setStartedAt(rs.getString("started_at"));
+        job.setFinishedAt(rs.getString("finished_at"));
+        return job;
+    }
+    
+    /**
+     * Add a URL to a session's shared frontier; the unique fingerprint makes concurrent offers of the same URL safe
+     * @return true if the URL was not in the frontier yet
+     */
+    public boolean insertFrontierEntry(int websiteId, long fingerprint, String url, String kind, 
+                                       int depth, long priority) throws SQLException {
+        String sql = "INSERT INTO frontier (website_id, fingerprint, url, kind, depth, priority) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (website_id, fingerprint) DO NOTHING";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, websiteId);
+            pstmt.setLong(2, fingerprint);
+            pstmt.setString(3, url);
+            pstmt.setString(4, kind);
+            pstmt.setInt(5, depth);
+            pstmt.setLong(6, priority);
+            return executeWrite(pstmt, "insertFrontierEntry") > 0;
+        }
+    }
+    
+    /**
+     * Lease a batch of frontier entries to one node, lowest priority value first. Entries whose lease ran out
+     * are handed out again, unless they have used up their attempts, in which case they are marked failed.
+     */
+    public List<FrontierEntry> claimFrontierEntries(int websiteId, String owner, int max, 
+                                                    int leaseSeconds, int maxAttempts) throws SQLException {
+        String abandonSql = "UPDATE frontier SET state = 'FAILED' WHERE website_id = ? AND state = 'LEASED' " +
+            "AND lease_expires < CURRENT_TIMESTAMP AND attempts >= ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(abandonSql)) {
+            pstmt.setInt(1, websiteId);
+            pstmt.setInt(2, maxAttempts);
+            executeWrite(pstmt, "abandonFrontierEntries");
+        }
+        
+        String sql = "UPDATE frontier f SET state = 'LEASED', lease_owner = ?, " +
+            "lease_expires = CURRENT_TIMESTAMP + make_interval(secs => ?), attempts = f.attempts + 1 " +
+            "WHERE f.id IN (SELECT id FROM frontier WHERE website_id = ? AND (state = 'PENDING' " +
+            "OR (state = 'LEASED' AND lease_expires < CURRENT_TIMESTAMP)) " +
+            "ORDER BY priority, id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING f.id, f.url, f.kind, f.depth, f.priority";
+        List<FrontierEntry> entries = new ArrayList<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, owner);
+            pstmt.setInt(2, leaseSeconds);
+            pstmt.setInt(3, websiteId);
+            pstmt.setInt(4, max);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    FrontierEntry entry = new FrontierEntry(rs.getLong("id"), CanonicalUrl.parse(rs.getString("url")), 
+                                                            rs.getString("kind"), rs.getInt("depth"));
+                    entry.setPriority(rs.getLong("priority"));
+                    entries.add(entry);
+                }
+            }
+        }
+        // RETURNING does not keep the subquery's order
+        entries.sort(FrontierEntry.FETCH_ORDER);
+        return entries;
+    }
+    
+    /**
+     * Extend a leased entry's lease from now
+     * @return false if the entry is no longer leased to the owner
+     */
+    public boolean renewFrontierEntry(long entryId, String owner, int leaseSeconds) throws SQLException {
+        String sql = "UPDATE frontier SET lease_expires = CURRENT_TIMESTAMP + make_interval(secs => ?) " +
+            "WHERE id = ? AND lease_owner = ? AND state = 'LEASED'";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, leaseSeconds);
+            pstmt.setLong(2, entryId);
+            pstmt.setString(3, owner);
+            return executeWrite(pstmt, "renewFrontierEntry") > 0;
+        }
+    }
+    
+    /**
+     * Extend the leases of several entries at once; entries no longer leased to the owner are left alone
+     */
+    public void renewFrontierEntries(List<Long> entryIds, String owner, int leaseSeconds) throws SQLException {
+        String sql = "UPDATE frontier SET lease_expires = CURRENT_TIMESTAMP + make_interval(secs => ?) " +
+            "WHERE id = ANY (?) AND lease_owner = ? AND state = 'LEASED'";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, leaseSeconds);
+            pstmt.setArray(2, connection.createArrayOf("bigint", entryIds.toArray()));
+            pstmt.setString(3, owner);
+            executeWrite(pstmt, "renewFrontierEntries");
+        }
+    }
+    
+    /**
+     * Mark a leased entry as fetched; ignored if the lease has since passed to another node
+     */
+    public void completeFrontierEntry(long entryId, String owner, boolean success) throws SQLException {
+        String sql = "UPDATE frontier SET state = ?, lease_expires = NULL WHERE id = ? AND lease_owner = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, success ? "DONE" : "FAILED");
+            pstmt.setLong(2, entryId);
+            pstmt.setString(3, owner);
+            executeWrite(pstmt, "completeFrontierEntry");
+        }
+    }
+    
+    /**
+     * Return a leased entry to the frontier without counting the attempt
+     */
+    public void releaseFrontierEntry(long entryId, String owner) throws SQLException {
+        String sql = "UPDATE frontier SET state = 'PENDING', lease_owner = NULL, lease_expires = NULL, " +
+            "attempts = GREATEST(attempts - 1, 0) WHERE id = ? AND lease_owner = ? AND state = 'LEASED'";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, entryId);
+            pstmt.setString(2, owner);
+            executeWrite(pstmt, "releaseFrontierEntry");
+        }
+    }
+    
+    /**
+     * Number of entries of a session still waiting or leased
+     */
+    public int countOpenFrontierEntries(int websiteId) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM frontier WHERE website_id = ? AND state IN ('PENDING', 'LEASED')";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, websiteId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+    
+    /**
+     * The start URL of a distributed session
+     * @return the URL, or null if the session has no frontier
+     */
+    public String getFrontierRoot(int websiteId) throws SQLException {
+        String sql = "SELECT url FROM frontier WHERE website_id = ? ORDER BY id LIMIT 1";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, websiteId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+    
+    /**
+     * Total kilobytes recorded for a session by all nodes
+     */
+    public double sumLinkKilobytes(int websiteId) throws SQLException {
+        String sql = "SELECT COALESCE(SUM(total_downloaded_kilobytes), 0) FROM links WHERE website_id = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, websiteId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getDouble(1) : 0;
+            }
+        }
+    }
+    
+    /**
+     * When each URL of a site was last downloaded or found not modified, over all its sessions
+     * @return link name to fetch time; empty if the site was never downloaded
+     */
+    public Map<String, Instant> getLastSuccessfulFetches(String websiteName) {
+        Map<String, Instant> fetches = new HashMap<>();
+        String sql = "SELECT l.link_name, MAX(l.fetched_at) AS fetched_at FROM links l " +
+            "JOIN websites w ON w.id = l.website_id " +
+            "WHERE w.website_name = ? AND (l.status_code BETWEEN 200 AND 299 OR l.status_code = 304) " +
+            "GROUP BY l.link_name";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, websiteName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp fetchedAt = rs.getTimestamp("fetched_at");
+                    if (fetchedAt != null) {
+                        fetches.put(rs.getString("link_name"), fetchedAt.toInstant());
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading previous downloads: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return fetches;
+    }
+    
+    /**
+     * ETag and Last-Modified from the latest successful fetch of each URL of a site that had them
+     * @return link name to a record carrying the validators and content hash; empty if there are none
+     */
+    public Map<String, LinkRecord> getCacheValidators(String websiteName) {
+        Map<String, LinkRecord> validators = new HashMap<>();
+        String sql = "SELECT DISTINCT ON (l.link_name) l.link_name, l.website_id, l.etag, l.last_modified, l.content_hash " +
+            "FROM links l JOIN websites w ON w.id = l.website_id " +
+            "WHERE w.website_name = ? AND (l.status_code BETWEEN 200 AND 299 OR l.status_code = 304) " +
+            "ORDER BY l.link_name, l.fetched_at DESC";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, websiteName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    LinkRecord link = new LinkRecord(rs.getString("link_name"), rs.getInt("website_id"));
+                    link.setEtag(rs.getString("etag"));
+                    link.setLastModified(rs.getString("last_modified"));
+                    link.setContentHash(rs.getString("content_hash"));
+                    if (link.hasValidators()) {
+                        validators.put(link.getLinkName(), link);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading cache validators: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return validators;
+    }
+    
+    /**
+     * Link graph of a site's latest session that recorded one, with each target replaced by
+     * where it redirected to in that session
+     * @return source page to its edges; empty if no session of the site recorded a graph
+     */
+    public Map<String, List<LinkEdge>> getLinkGraph(String websiteName) {
+        Map<String, List<LinkEdge>> graph = new HashMap<>();
+        String sql = "SELECT DISTINCT e.website_id, e.source_url, COALESCE(l.final_url, e.target_url) AS target_url, e.kind " +
+            "FROM link_edges e " +
+            "LEFT JOIN links l ON l.website_id = e.website_id AND l.link_name = e.target_url AND l.final_url IS NOT NULL " +
+            "WHERE e.website_id = (SELECT MAX(g.website_id) FROM link_edges g " +
+            "JOIN websites w ON w.id = g.website_id WHERE w.website_name = ?)";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, websiteName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    LinkEdge edge = new LinkEdge(rs.getInt("website_id"), rs.getString("source_url"),
+                        rs.getString("target_url"), rs.getString("kind"));
+                    graph.computeIfAbsent(edge.getSourceUrl(), k -> new ArrayList<>()).add(edge);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading link graph: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return graph;
+    }
+    
+    /**
+     * Largest body seen for each URL of a site in earlier sessions, as size hints for scheduling
+     * @return link name to bytes; empty if the site was never downloaded
+     */
+    public Map<String, Long> getKnownSizes(String websiteName) {
+        Map<String, Long> sizes = new HashMap<>();
+        String sql = "SELECT l.link_name, MAX(l.wire_bytes) AS wire_bytes FROM links l " +
+            "JOIN websites w ON w.id = l.website_id " +
+            "WHERE w.website_name = ? AND l.wire_bytes IS NOT NULL GROUP BY l.link_name";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, websiteName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    sizes.put(rs.getString("link_name"), rs.getLong("wire_bytes"));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading known sizes: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return sizes;
+    }
+    
     /**
      * Get all websites from the database
      * @return list of WebsiteReport objects
@@ -213,6 +911,203 @@ public class DatabaseManager {
         return null;
     }
     
+    /**
+     * Find the most recent session of a website
+     * @param websiteName the website name
+     * @return the website ID or null if not found
+     */
+    public Integer findLatestWebsiteId(String websiteName) {
+        String sql = "SELECT id FROM websites WHERE website_name = ? ORDER BY id DESC LIMIT 1";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, websiteName);
+            ResultSet rs = pstmt.executeQuery();
+            
+            if (rs.next()) {
+                return rs.getInt("id");
+            }
+        } catch (SQLException e) {
+            System.err.println("Error finding website: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * All sessions of a website, newest first
+     * @return website IDs; empty if the site was never downloaded
+     */
+    public List<Integer> findWebsiteIds(String websiteName) {
+        List<Integer> ids = new ArrayList<>();
+        String sql = "SELECT id FROM websites WHERE website_name = ? ORDER BY id DESC";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, websiteName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt("id"));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error finding sessions: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return ids;
+    }
+    
+    /**
+     * Compare the latest fetch of every URL in two sessions of a website. The database joins the
+     * sessions and returns only the URLs that differ, so no saved file is read. A URL the newer
+     * session carried over from its link graph without fetching counts as unchanged.
+     * @param oldWebsiteId the older session
+     * @param newWebsiteId the newer session
+     * @return the differences, or null if the sessions could not be read or are not both sessions of the website
+     */
+    public SessionDiff getSessionDiff(String websiteName, int oldWebsiteId, int newWebsiteId) {
+        String latest = "SELECT DISTINCT ON (link_name) link_name, status_code, wire_bytes, content_hash " +
+            "FROM links WHERE website_id = ? ORDER BY link_name, id DESC";
+        // URLs in the newer session's link graph, collected once and anti-joined: probing link_edges
+        // per removed URL could only use its website_id prefix
+        String carried = "SELECT target_url AS url FROM link_edges WHERE website_id = ? " +
+            "UNION SELECT source_url FROM link_edges WHERE website_id = ?";
+        String sql = "WITH o AS (" + latest + "), n AS (" + latest + "), c AS (" + carried + ") " +
+            "SELECT o.link_name AS old_name, n.link_name AS new_name, " +
+            "o.status_code AS old_status, n.status_code AS new_status, o.wire_bytes AS old_bytes, " +
+            "n.wire_bytes AS new_bytes, o.content_hash AS old_hash, n.content_hash AS new_hash " +
+            "FROM o FULL OUTER JOIN n ON n.link_name = o.link_name LEFT JOIN c ON c.url = o.link_name " +
+            "WHERE (o.link_name IS NULL OR n.link_name IS NULL " +
+            "OR o.status_code IS DISTINCT FROM n.status_code OR o.content_hash IS DISTINCT FROM n.content_hash " +
+            "OR o.wire_bytes IS DISTINCT FROM n.wire_bytes) " +
+            "AND NOT (n.link_name IS NULL AND c.url IS NOT NULL) " +
+            "ORDER BY COALESCE(n.link_name, o.link_name)";
+        String countSql = "SELECT COUNT(DISTINCT link_name) FROM links WHERE website_id = ?";
+        String ownerSql = "SELECT COUNT(*) FROM websites WHERE website_name = ? AND id IN (?, ?)";
+        
+        List<ResourceChange> changes = new ArrayList<>();
+        try (PreparedStatement owner = connection.prepareStatement(ownerSql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            owner.setString(1, websiteName);
+            owner.setInt(2, oldWebsiteId);
+            owner.setInt(3, newWebsiteId);
+            try (ResultSet rs = owner.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != (oldWebsiteId == newWebsiteId ? 1 : 2)) {
+                    System.err.println("Sessions " + oldWebsiteId + " and " + newWebsiteId + " are not both sessions of " 
+                                       + websiteName);
+                    return null;
+                }
+            }
+            
+            pstmt.setInt(1, oldWebsiteId);
+            pstmt.setInt(2, newWebsiteId);
+            pstmt.setInt(3, newWebsiteId);
+            pstmt.setInt(4, newWebsiteId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String oldName = rs.getString("old_name");
+                    String newName = rs.getString("new_name");
+                    int oldStatus = rs.getInt("old_status");
+                    int newStatus = rs.getInt("new_status");
+                    long oldBytes = rs.getLong("old_bytes");
+                    long newBytes = rs.getLong("new_bytes");
+                    String oldHash = rs.getString("old_hash");
+                    String newHash = rs.getString("new_hash");
+                    ResourceChange.Change change = ResourceChange.classify(oldName != null, newName != null,
+                        oldStatus, newStatus, oldBytes, newBytes, oldHash, newHash);
+                    // The query also returns differences the comparison forgives, such as a 304 for a 200
+                    if (change != null) {
+                        changes.add(new ResourceChange(newName != null ? newName : oldName, change,
+                            oldStatus, newStatus, oldBytes, newBytes, oldHash, newHash));
+                    }
+                }
+            }
+            
+            int oldCount;
+            try (PreparedStatement count = connection.prepareStatement(countSql)) {
+                count.setInt(1, oldWebsiteId);
+                try (ResultSet rs = count.executeQuery()) {
+                    oldCount = rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+            int unchanged = oldCount;
+            for (ResourceChange change : changes) {
+                if (change.getChange() != ResourceChange.Change.ADDED) {
+                    unchanged--;
+                }
+            }
+            return new SessionDiff(websiteName, oldWebsiteId, newWebsiteId, changes, unchanged);
+        } catch (SQLException e) {
+            System.err.println("Error comparing sessions: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+    
+    /**
+     * All sessions of a website, oldest first, without their links
+     * @return the sessions; empty if the site was never downloaded
+     */
+    public List<WebsiteReport> getSessions(String websiteName) {
+        List<WebsiteReport> sessions = new ArrayList<>();
+        String sql = "SELECT * FROM websites WHERE website_name = ? ORDER BY id";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, websiteName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    sessions.add(new WebsiteReport(
+                        rs.getInt("id"),
+                        rs.getString("website_name"),
+                        rs.getString("download_start_datetime"),
+                        rs.getString("download_end_datetime"),
+                        rs.getLong("total_elapsed_time"),
+                        rs.getDouble("total_downloaded_kilobytes")
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting sessions: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return sessions;
+    }
+    
+    /**
+     * Receives the rows of a streaming query one at a time
+     */
+    public interface RowHandler<T> {
+        void handle(T row) throws IOException;
+    }
+    
+    /**
+     * Hand every link of a session to the handler in the order they were recorded, without
+     * holding the session in memory. The rows come through a cursor STREAM_FETCH_SIZE at a time,
+     * which the driver only does inside a transaction, so the query runs on a connection of its
+     * own and the shared one stays in autocommit for other threads.
+     * @throws IOException if the handler fails; the query is abandoned
+     */
+    public void streamLinks(int websiteId, RowHandler<LinkRecord> handler) throws SQLException, IOException {
+        String sql = "SELECT * FROM links WHERE website_id = ? ORDER BY id";
+        try (Connection cursor = DriverManager.getConnection(url, user, password)) {
+            cursor.setAutoCommit(false);
+            cursor.setReadOnly(true);
+            try (PreparedStatement pstmt = cursor.prepareStatement(sql)) {
+                pstmt.setFetchSize(STREAM_FETCH_SIZE);
+                pstmt.setInt(1, websiteId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        handler.handle(mapLinkRecord(rs));
+                    }
+                }
+            } finally {
+                // Nothing was written; ending the transaction closes the cursor
+                cursor.rollback();
+            }
+        }
+    }
+    
     /**
      * Get all links for a specific website
      * @param websiteId the website ID
@@ -227,20 +1122,205 @@ public class DatabaseManager {
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
-                LinkRecord link = new LinkRecord(
-                    rs.getInt("id"),
-                    rs.getString("link_name"),
-                    rs.getInt("website_id"),
-                    rs.getLong("total_elapsed_time"),
-                    rs.getDouble("total_downloaded_kilobytes")
-                );
-                links.add(link);
+                links.add(mapLinkRecord(rs));
             }
         }
         
         return links;
     }
     
+    private LinkRecord mapLinkRecord(ResultSet rs) throws SQLException {
+        LinkRecord link = new LinkRecord(
+            rs.getInt("id"),
+            rs.getString("link_name"),
+            rs.getInt("website_id"),
+            rs.getLong("total_elapsed_time"),
+            rs.getDouble("total_downloaded_kilobytes")
+        );
+        link.setDnsTime(rs.getLong("dns_time"));
+        link.setConnectTime(rs.getLong("connect_time"));
+        link.setTlsTime(rs.getLong("tls_time"));
+        link.setTimeToFirstByte(rs.getLong("ttfb_time"));
+        link.setTransferTime(rs.getLong("transfer_time"));
+        link.setStatusCode(rs.getInt("status_code"));
+        link.setContentType(rs.getString("content_type"));
+        link.setWireBytes(rs.getLong("wire_bytes"));
+        link.setErrorClass(ErrorClass.fromString(rs.getString("error_class")));
+        link.setRetries(rs.getInt("retries"));
+        link.setEtag(rs.getString("etag"));
+        link.setLastModified(rs.getString("last_modified"));
+        link.setFinalUrl(rs.getString("final_url"));
+        link.setContentHash(rs.getString("content_hash"));
+        return link;
+    }
+    
+    /**
+     * Build the aggregate performance report for a download session.
+     * All aggregation happens inside the database; only the summarised rows are read.
+     * @param websiteId the website ID
+     * @return AnalyticsReport object or null if not found
+     */
+    public AnalyticsReport getAnalyticsReport(int websiteId) {
+        try {
+            SessionAnalytics session = getSessionAnalytics(websiteId);
+            if (session == null) {
+                return null;
+            }
+            
+            // Aim for roughly THROUGHPUT_BUCKETS slices across the session
+            long sessionSeconds = (session.getTotalElapsedTime() + 999) / 1000;
+            int bucketSeconds = (int) Math.max(1, (sessionSeconds + THROUGHPUT_BUCKETS - 1) / THROUGHPUT_BUCKETS);
+            
+            return new AnalyticsReport(
+                session,
+                getThroughputBuckets(websiteId, bucketSeconds),
+                getTopLinks(websiteId, "total_elapsed_time", TOP_LINKS_LIMIT),
+                getTopLinks(websiteId, "total_downloaded_kilobytes", TOP_LINKS_LIMIT),
+                getContentTypeTotals(websiteId),
+                getSessionHistory(session.getWebsiteName(), HISTORY_LIMIT)
+            );
+        } catch (SQLException e) {
+            System.err.println("Error getting analytics report: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Get the latency percentiles and totals of a single session
+     */
+    private SessionAnalytics getSessionAnalytics(int websiteId) throws SQLException {
+        String sql = SESSION_ANALYTICS_SELECT + "WHERE w.id = ? " + SESSION_ANALYTICS_GROUP_BY;
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, websiteId);
+            ResultSet rs = pstmt.executeQuery();
+            
+            if (rs.next()) {
+                return mapSessionAnalytics(rs);
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Get the most recent sessions of a website, so runs can be compared with each other
+     */
+    private List<SessionAnalytics> getSessionHistory(String websiteName, int limit) throws SQLException {
+        List<SessionAnalytics> sessions = new ArrayList<>();
+        String sql = SESSION_ANALYTICS_SELECT + "WHERE w.website_name = ? " + SESSION_ANALYTICS_GROUP_BY +
+            "ORDER BY w.id DESC LIMIT ?";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, websiteName);
+            pstmt.setInt(2, limit);
+            ResultSet rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                sessions.add(mapSessionAnalytics(rs));
+            }
+        }
+        
+        return sessions;
+    }
+    
+    private SessionAnalytics mapSessionAnalytics(ResultSet rs) throws SQLException {
+        return new SessionAnalytics(
+            rs.getInt("id"),
+            rs.getString("website_name"),
+            rs.getString("download_start_datetime"),
+            rs.getLong("total_elapsed_time"),
+            rs.getDouble("total_downloaded_kilobytes"),
+            rs.getInt("link_count"),
+            rs.getDouble("p50"),
+            rs.getDouble("p95"),
+            rs.getDouble("p99"),
+            rs.getLong("max_latency")
+        );
+    }
+    
+    /**
+     * Get fetch counts and downloaded kilobytes per time slice, measured from the first fetch of the session
+     */
+    private List<ThroughputBucket> getThroughputBuckets(int websiteId, int bucketSeconds) throws SQLException {
+        List<ThroughputBucket> buckets = new ArrayList<>();
+        String sql = "SELECT CAST(FLOOR(EXTRACT(EPOCH FROM l.fetched_at - s.first_fetch) / ?) AS BIGINT) AS bucket, " +
+            "COUNT(*) AS fetch_count, SUM(l.total_downloaded_kilobytes) AS kilobytes " +
+            "FROM links l, (SELECT MIN(fetched_at) AS first_fetch FROM links WHERE website_id = ?) s " +
+            "WHERE l.website_id = ? " +
+            "GROUP BY bucket ORDER BY bucket";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, bucketSeconds);
+            pstmt.setInt(2, websiteId);
+            pstmt.setInt(3, websiteId);
+            ResultSet rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                buckets.add(new ThroughputBucket(
+                    rs.getLong("bucket") * bucketSeconds,
+                    bucketSeconds,
+                    rs.getInt("fetch_count"),
+                    rs.getDouble("kilobytes")
+                ));
+            }
+        }
+        
+        return buckets;
+    }
+    
+    /**
+     * Get the top links of a session ordered by the given column, largest first
+     */
+    private List<LinkRecord> getTopLinks(int websiteId, String orderColumn, int limit) throws SQLException {
+        List<LinkRecord> links = new ArrayList<>();
+        String sql = "SELECT * FROM links WHERE website_id = ? ORDER BY " + orderColumn + " DESC NULLS LAST LIMIT ?";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, websiteId);
+            pstmt.setInt(2, limit);
+            ResultSet rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                links.add(mapLinkRecord(rs));
+            }
+        }
+        
+        return links;
+    }
+    
+    /**
+     * Get per-content-type totals of a session
+     */
+    private List<ContentTypeTotal> getContentTypeTotals(int websiteId) throws SQLException {
+        List<ContentTypeTotal> totals = new ArrayList<>();
+        // Not aliased content_type: GROUP BY would take the column of that name over the alias
+        String sql = "SELECT " + CONTENT_TYPE_EXPRESSION + " AS mime_type, " +
+            "COUNT(*) AS link_count, SUM(total_downloaded_kilobytes) AS kilobytes, " +
+            "SUM(total_elapsed_time) AS elapsed, AVG(total_elapsed_time) AS average_elapsed " +
+            "FROM links WHERE website_id = ? " +
+            "GROUP BY mime_type ORDER BY kilobytes DESC";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, websiteId);
+            ResultSet rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                totals.add(new ContentTypeTotal(
+                    rs.getString("mime_type"),
+                    rs.getInt("link_count"),
+                    rs.getDouble("kilobytes"),
+                    rs.getLong("elapsed"),
+                    rs.getDouble("average_elapsed")
+                ));
+            }
+        }
+        
+        return totals;
+    }
+    
     /**
      * Close the database connection
      */
@@ -0,0 +1,71 @@
+package com.algo.inc.downloader;
+
+/**
+ * Lets another thread pause, resume or cancel a running session.
+ *
+ * The downloader checks in before every fetch, so a pause takes effect once the
+ * current file is done and a cancel also aborts a transfer in progress.
+ */
+public class CrawlControl {
+    
+    private volatile boolean paused;
+    private volatile boolean cancelled;
+    
+    public synchronized void pause() {
+        paused = true;
+    }
+    
+    public synchronized void resume() {
+        paused = false;
+        notifyAll();
+    }
+    
+    /**
+     * Stop the session after the current fetch; also releases a paused session
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        notifyAll();
+    }
+    
+    public boolean isPaused() {
+        return paused;
+    }
+    
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    /**
+     * Block while paused
+     * @return false if the session has been cancelled and should stop
+     */
+    boolean proceed() {
+        if (!paused) {
+            return !cancelled;
+        }
+        synchronized (this) {
+            while (paused && !cancelled) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    cancelled = true;
+                }
+            }
+        }
+        return !cancelled;
+    }
+    
+    /**
+     * Wait up to the given time, returning early if the session is cancelled
+     */
+    synchronized void sleep(long millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + millis;
+        long remaining = millis;
+        while (remaining > 0 && !cancelled) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.algo.inc.downloader;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * CrawlOptions - Settings for one download session
+ */
+public class CrawlOptions {
+    private int maxDepth;
+    private boolean quiet;
+    private boolean distributed;
+    private boolean sortQuery;
+    private boolean respectRobots;
+    private boolean sitemaps;
+    private int maxSitemapUrls;
+    private boolean incremental;
+    private boolean searchIndex;
+    private UrlFilter urlFilter;
+    private long maxContentLength;
+    private List<String> acceptedContentTypes;
+    private FetchPriority fetchPriority;
+    private long largeTransferBytes;
+    private int diskThreads;
+    private Durability durability;
+    private int timeoutMillis;
+    private int maxRetries;
+    private long hostGiveUpMillis;
+    private long minThroughput;
+    private long throughputWindowMillis;
+    
+    public CrawlOptions() {
+        this.maxDepth = 0;
+        this.quiet = false;
+        this.distributed = false;
+        this.sortQuery = false;
+        this.respectRobots = true;
+        this.sitemaps = false;
+        this.maxSitemapUrls = 0;
+        this.incremental = false;
+        this.searchIndex = false;
+        this.urlFilter = UrlFilter.acceptAll();
+        this.maxContentLength = -1;
+        this.acceptedContentTypes = Collections.emptyList();
+        this.fetchPriority = FetchPriority.defaults();
+        this.largeTransferBytes = 8L * 1024 * 1024;
+        this.diskThreads = 4;
+        this.durability = Durability.NONE;
+        this.timeoutMillis = 30000;
+        this.maxRetries = 3;
+        this.hostGiveUpMillis = 5 * 60 * 1000;
+        this.minThroughput = 1024;
+        this.throughputWindowMillis = 30000;
+    }
+    
+    // Getters and Setters
+    
+    /**
+     * How many levels of same-site page links to follow from the start page; 0 fetches only the start page
+     */
+    public int getMaxDepth() { return maxDepth; }
+    public void setMaxDepth(int maxDepth) { this.maxDepth = maxDepth; }
+    
+    /**
+     * When set the session prints nothing and the progress dashboard is not drawn
+     */
+    public boolean isQuiet() { return quiet; }
+    public void setQuiet(boolean quiet) { this.quiet = quiet; }
+    
+    /**
+     * Keep the frontier in the shared database table so other nodes can join the session
+     */
+    public boolean isDistributed() { return distributed; }
+    public void setDistributed(boolean distributed) { this.distributed = distributed; }
+    
+    /**
+     * Sort query parameters when comparing URLs, so ?a=1&b=2 and ?b=2&a=1 are fetched once
+     */
+    public boolean isSortQuery() { return sortQuery; }
+    public void setSortQuery(boolean sortQuery) { this.sortQuery = sortQuery; }
+    
+    /**
+     * Skip URLs robots.txt disallows and wait its Crawl-delay between requests
+     */
+    public boolean isRespectRobots() { return respectRobots; }
+    public void setRespectRobots(boolean respectRobots) { this.respectRobots = respectRobots; }
+    
+    /**
+     * Queue every page listed in the site's sitemaps up front, alongside the start page
+     */
+    public boolean isSitemaps() { return sitemaps; }
+    public void setSitemaps(boolean sitemaps) { this.sitemaps = sitemaps; }
+    
+    /**
+     * Most sitemap pages to queue, or 0 for every page the sitemaps list
+     */
+    public int getMaxSitemapUrls() { return maxSitemapUrls; }
+    public void setMaxSitemapUrls(int maxSitemapUrls) { this.maxSitemapUrls = maxSitemapUrls; }
+    
+    /**
+     * Skip sitemap pages whose lastmod is older than their last successful download of this site
+     */
+    public boolean isIncremental() { return incremental; }
+    public void setIncremental(boolean incremental) { this.incremental = incremental; }
+    
+    /**
+     * Index the text of saved pages so the mirror can be searched; the index is kept in
+     * the download directory and an incremental session only indexes pages it downloads again
+     */
+    public boolean isSearchIndex() { return searchIndex; }
+    public void setSearchIndex(boolean searchIndex) { this.searchIndex = searchIndex; }
+    
+    /**
+     * Which discovered URLs are queued; the start page is always fetched
+     */
+    public UrlFilter getUrlFilter() { return urlFilter; }
+    public void setUrlFilter(UrlFilter urlFilter) { this.urlFilter = urlFilter; }
+    
+    /**
+     * Largest response body downloaded, in bytes, or -1 for no limit
+     */
+    public long getMaxContentLength() { return maxContentLength; }
+    public void setMaxContentLength(long maxContentLength) { this.maxContentLength = maxContentLength; }
+    
+    /**
+     * Content types downloaded, e.g. "text/html" or "image/*"; empty accepts all
+     */
+    public List<String> getAcceptedContentTypes() { return acceptedContentTypes; }
+    public void setAcceptedContentTypes(List<String> acceptedContentTypes) { this.acceptedContentTypes = acceptedContentTypes; }
+    
+    /**
+     * Order in which queued URLs are fetched
+     */
+    public FetchPriority getFetchPriority() { return fetchPriority; }
+    public void setFetchPriority(FetchPriority fetchPriority) { this.fetchPriority = fetchPriority; }
+    
+    /**
+     * Bodies at least this large are streamed on a separate lane so smaller files keep moving;
+     * 0 turns the lane off
+     */
+    public long getLargeTransferBytes() { return largeTransferBytes; }
+    public void setLargeTransferBytes(long largeTransferBytes) { this.largeTransferBytes = largeTransferBytes; }
+    
+    /**
+     * Threads that save downloaded files, so fetches never wait on a slow or network disk
+     */
+    public int getDiskThreads() { return diskThreads; }
+    public void setDiskThreads(int diskThreads) { this.diskThreads = diskThreads; }
+    
+    /**
+     * Whether saved files are forced to disk before they are recorded as saved
+     */
+    public Durability getDurability() { return durability; }
+    public void setDurability(Durability durability) { this.durability = durability; }
+    
+    /**
+     * Longest connect or read wait; hosts that have shown they answer faster get less
+     */
+    public int getTimeoutMillis() { return timeoutMillis; }
+    public void setTimeoutMillis(int timeoutMillis) { this.timeoutMillis = timeoutMillis; }
+    
+    /**
+     * How often a fetch that failed with a timeout, reset, 5xx or 429 is tried again
+     */
+    public int getMaxRetries() { return maxRetries; }
+    public void setMaxRetries(int maxRetries) { this.maxRetries = maxRetries; }
+    
+    /**
+     * How long a host may keep failing before its remaining URLs stop waiting for it
+     */
+    public long getHostGiveUpMillis() { return hostGiveUpMillis; }
+    public void setHostGiveUpMillis(long hostGiveUpMillis) { this.hostGiveUpMillis = hostGiveUpMillis; }
+    
+    /**
+     * Slowest acceptable body transfer in bytes per second, held over the throughput window; 0 turns the check off
+     */
+    public long getMinThroughput() { return minThroughput; }
+    public void setMinThroughput(long minThroughput) { this.minThroughput = minThroughput; }
+    
+    public long getThroughputWindowMillis() { return throughputWindowMillis; }
+    public void setThroughputWindowMillis(long throughputWindowMillis) { this.throughputWindowMillis = throughputWindowMillis; }
+}
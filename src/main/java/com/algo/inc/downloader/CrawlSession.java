@@ -0,0 +1,109 @@
+package com.algo.inc.downloader;
+
+import com.algo.inc.model.CanonicalUrl;
+import com.algo.inc.model.LinkEdge;
+import com.algo.inc.model.LinkRecord;
+import com.algo.inc.search.SegmentWriter;
+import com.algo.inc.util.DashboardRenderer;
+import com.algo.inc.util.UrlDictionary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Everything one download session changes while it runs, so a WebsiteDownloader holds only
+ * its configuration and can run any number of sessions at once.
+ *
+ * Create the session before handing it to the downloader when another thread needs its
+ * control or statistics while it runs. A session runs once.
+ */
+public class CrawlSession {
+    
+    private final CrawlControl control = new CrawlControl();
+    private final SessionStats stats = new SessionStats();
+    private volatile int websiteId;
+    private volatile boolean startPageFailed;
+    private volatile boolean sitemapTruncated;
+    private boolean started;
+    // The first error a fetch finishing on another thread could not handle
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    
+    // Crawl state, used by the session's crawl thread and handed to its large-transfer lane
+    CanonicalUrl baseUrl;
+    Frontier frontier;
+    RobotsRules robots = RobotsRules.allowAll();
+    // Sitemap pages left out as unchanged, front-coded since a large site can list millions
+    final UrlDictionary unchanged = new UrlDictionary();
+    Map<String, Long> sizeHints = Collections.emptyMap();
+    Map<String, LinkRecord> validators = Collections.emptyMap();
+    Map<String, List<LinkEdge>> previousGraph = Collections.emptyMap();
+    // Written by the crawl thread only, since only pages have links
+    final List<LinkEdge> pendingEdges = new ArrayList<>();
+    // Null unless the session indexes pages; written by the crawl thread only
+    SegmentWriter searchIndex;
+    ThreadPoolExecutor largeLane;
+    DiskWriter diskWriter;
+    DashboardRenderer renderer;
+    long lastFetchAt;
+    
+    /**
+     * Claim the session for a run
+     * @throws IllegalStateException if it has run before
+     */
+    synchronized void start(CanonicalUrl baseUrl) {
+        if (started) {
+            throw new IllegalStateException("Session " + websiteId + " has already run");
+        }
+        started = true;
+        this.baseUrl = baseUrl;
+    }
+    
+    void setWebsiteId(int websiteId) {
+        this.websiteId = websiteId;
+    }
+    
+    void markStartPageFailed() {
+        startPageFailed = true;
+    }
+    
+    void markSitemapTruncated() {
+        sitemapTruncated = true;
+    }
+    
+    /**
+     * End the session with an error raised on the large-transfer lane or the disk stage;
+     * the crawl thread throws it the next time it checks
+     */
+    void fail(Exception e) {
+        failure.compareAndSet(null, e);
+    }
+    
+    /**
+     * Throw the error another thread ended the session with, if any
+     */
+    void checkFailure() throws Exception {
+        Exception e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+    
+    /**
+     * Pause, resume or cancel the session from another thread
+     */
+    public CrawlControl getControl() { return control; }
+    
+    // Getters, safe to poll while the session runs
+    public SessionStats getStats() { return stats; }
+    public int getWebsiteId() { return websiteId; }
+    public boolean isStartPageFailed() { return startPageFailed; }
+    
+    /**
+     * Whether sitemap seeding stopped at the URL limit, so not every listed page was queued
+     */
+    public boolean isSitemapTruncated() { return sitemapTruncated; }
+}
@@ -0,0 +1,261 @@
+package com.algo.inc.downloader;
+
+import com.algo.inc.profiling.FileWriteEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The disk stage of a session. Fetch threads hand it the bodies they have read into memory
+ * and go on with the next URL; its own threads create the directories, write the files and,
+ * as the session's durability mode asks, force them to disk, then report each file back.
+ *
+ * Directories once created are remembered, so a directory costs one call per session rather
+ * than one per file. With BATCH durability, files written while more writes are queued are
+ * held open and forced together, up to SYNC_BATCH at a time, and their directories once per
+ * group. Bodies waiting for the disk are limited to MAX_PENDING_BYTES; a fetch thread only
+ * waits when the disk has fallen that far behind.
+ */
+class DiskWriter {
+    
+    /**
+     * Bodies up to this size are read into memory and saved here; larger ones are streamed to disk as they arrive
+     */
+    static final int MAX_BODY_BYTES = 1024 * 1024;
+    
+    static final int MAX_PENDING_BYTES = 64 * 1024 * 1024;
+    private static final int SYNC_BATCH = 64;
+    private static final int LOCK_STRIPES = 64;
+    
+    /**
+     * Told when a file is saved, on a thread of the disk stage
+     */
+    interface Callback {
+        /**
+         * @param failure null if the file was written, and forced when the durability mode asks for it
+         */
+        void saved(IOException failure);
+    }
+    
+    private final Durability durability;
+    private final ThreadPoolExecutor pool;
+    private final Set<Path> directories = ConcurrentHashMap.newKeySet();
+    // Permits are kilobytes of queued bodies
+    private final Semaphore pendingKilobytes = new Semaphore(MAX_PENDING_BYTES / 1024);
+    // Two URLs that differ only in their query share a file; their writes must not interleave
+    private final Object[] fileLocks = new Object[LOCK_STRIPES];
+    // Written but not yet forced, with BATCH durability; guarded by itself
+    private final List<HeldFile> unsynced = new ArrayList<>();
+    
+    DiskWriter(int threads, Durability durability) {
+        this.durability = durability;
+        AtomicInteger count = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "disk-writer-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < fileLocks.length; i++) {
+            fileLocks[i] = new Object();
+        }
+    }
+    
+    /**
+     * Create a directory and its parents unless this writer has done so already
+     */
+    void createDirectories(Path dir) throws IOException {
+        if (!directories.contains(dir)) {
+            Files.createDirectories(dir);
+            directories.add(dir);
+        }
+    }
+    
+    /**
+     * Queue a body to be saved as a file, replacing what the file held
+     * @param url what the body was downloaded from, for the file write event
+     * @throws InterruptedException if interrupted while waiting for the disk to catch up
+     */
+    void write(Path file, byte[] body, String url, Callback callback) throws InterruptedException {
+        int permits = Math.min(body.length / 1024 + 1, MAX_PENDING_BYTES / 1024);
+        pendingKilobytes.acquire(permits);
+        try {
+            pool.execute(() -> save(file, body, url, permits, callback));
+        } catch (RejectedExecutionException e) {
+            pendingKilobytes.release(permits);
+            throw e;
+        }
+    }
+    
+    private void save(Path file, byte[] body, String url, int permits, Callback callback) {
+        FileChannel channel = null;
+        IOException failure = null;
+        FileWriteEvent writeEvent = new FileWriteEvent();
+        writeEvent.begin();
+        try {
+            createDirectories(file.getParent());
+            long writeStart = System.nanoTime();
+            synchronized (fileLocks[Math.floorMod(file.hashCode(), LOCK_STRIPES)]) {
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                           StandardOpenOption.TRUNCATE_EXISTING);
+                ByteBuffer buffer = ByteBuffer.wrap(body);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            if (durability == Durability.SYNC) {
+                channel.force(true);
+                forceDirectory(file.getParent());
+            }
+            writeEvent.diskTime = System.nanoTime() - writeStart;
+        } catch (IOException e) {
+            closeQuietly(channel);
+            failure = e;
+        } finally {
+            pendingKilobytes.release(permits);
+            if (writeEvent.shouldCommit()) {
+                writeEvent.url = url;
+                writeEvent.path = file.toString();
+                writeEvent.bytes = body.length;
+                writeEvent.commit();
+            }
+        }
+        
+        if (failure != null) {
+            if (durability == Durability.BATCH) {
+                // This may have been the write the held files were waiting for
+                forceHeld();
+            }
+            callback.saved(failure);
+            return;
+        }
+        if (durability == Durability.BATCH) {
+            hold(new HeldFile(file, channel, callback));
+            return;
+        }
+        try {
+            channel.close();
+            callback.saved(null);
+        } catch (IOException e) {
+            callback.saved(e);
+        }
+    }
+    
+    /**
+     * Keep a written file open until its group is forced
+     */
+    private void hold(HeldFile file) {
+        synchronized (unsynced) {
+            unsynced.add(file);
+        }
+        forceHeld();
+    }
+    
+    /**
+     * Force the held files as a group once there are SYNC_BATCH of them or no write is queued
+     * behind the one that just ended, so a lone file is never held back. Every write ends with
+     * this, failed ones included, so the last write of a burst always forces what is held.
+     */
+    private void forceHeld() {
+        List<HeldFile> group = null;
+        synchronized (unsynced) {
+            if (!unsynced.isEmpty() && (unsynced.size() >= SYNC_BATCH || pool.getQueue().isEmpty())) {
+                group = new ArrayList<>(unsynced);
+                unsynced.clear();
+            }
+        }
+        if (group != null) {
+            forceGroup(group);
+        }
+    }
+    
+    /**
+     * Force every file of a group, then each of their directories once, and only then report them saved
+     */
+    private static void forceGroup(List<HeldFile> group) {
+        Set<Path> dirs = new LinkedHashSet<>();
+        IOException[] failures = new IOException[group.size()];
+        for (int i = 0; i < group.size(); i++) {
+            HeldFile held = group.get(i);
+            try {
+                held.channel.force(true);
+                held.channel.close();
+                dirs.add(held.file.getParent());
+            } catch (IOException e) {
+                closeQuietly(held.channel);
+                failures[i] = e;
+            }
+        }
+        for (Path dir : dirs) {
+            forceDirectory(dir);
+        }
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).callback.saved(failures[i]);
+        }
+    }
+    
+    /**
+     * Make a directory's new entries durable. Not every platform can open a directory; there
+     * the file system is left to it.
+     */
+    private static void forceDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened for reading on Windows
+        }
+    }
+    
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // The write already failed
+            }
+        }
+    }
+    
+    /**
+     * Wait until every queued file is saved and reported, then stop the stage's threads
+     */
+    void finish() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        List<HeldFile> group;
+        synchronized (unsynced) {
+            group = new ArrayList<>(unsynced);
+            unsynced.clear();
+        }
+        forceGroup(group);
+    }
+    
+    /**
+     * A written file whose channel stays open until its group is forced
+     */
+    private static final class HeldFile {
+        final Path file;
+        final FileChannel channel;
+        final Callback callback;
+        
+        HeldFile(Path file, FileChannel channel, Callback callback) {
+            this.file = file;
+            this.channel = channel;
+            this.callback = callback;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.algo.inc.downloader;
+
+/**
+ * How far a session makes sure saved files survive a crash before it records them as saved.
+ *
+ * <pre>
+ * none   files are left to the operating system to write out (the default)
+ * batch  files are forced to disk in groups; each is recorded once its group is on disk
+ * sync   each file is forced to disk on its own before it is recorded
+ * </pre>
+ *
+ * Forcing a file also forces its directory, so a new file's name survives with its content.
+ */
+public enum Durability {
+    NONE,
+    BATCH,
+    SYNC;
+    
+    /**
+     * @param name "none", "batch" or "sync", in any case
+     * @throws IllegalArgumentException for any other name
+     */
+    public static Durability parse(String name) {
+        for (Durability durability : values()) {
+            if (durability.name().equalsIgnoreCase(name.trim())) {
+                return durability;
+            }
+        }
+        throw new IllegalArgumentException("Unknown durability mode: " + name + " (use none, batch or sync)");
+    }
+}
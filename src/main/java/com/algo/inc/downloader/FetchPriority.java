@@ -0,0 +1,110 @@
+package com.algo.inc.downloader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Order in which a session's frontier hands out URLs, as a list of rules applied in turn.
+ *
+ * <pre>
+ * shallow   fewer page links from the start page first
+ * pages     pages before all assets
+ * critical  pages, stylesheets and scripts before images
+ * small     smaller files first, by their size in earlier sessions of the site
+ * </pre>
+ *
+ * The rules are folded into one number per URL when it is queued, so both frontiers just
+ * hand out the lowest rank first, oldest first among equals. "fifo" uses no rules.
+ */
+public class FetchPriority {
+    
+    public static final String DEFAULT_RULES = "shallow,critical";
+    
+    private enum Rule {
+        SHALLOW(8),
+        PAGES(1),
+        CRITICAL(2),
+        SMALL(6);
+        
+        final int bits;
+        
+        Rule(int bits) {
+            this.bits = bits;
+        }
+    }
+    
+    private final List<Rule> rules;
+    
+    private FetchPriority(List<Rule> rules) {
+        this.rules = rules;
+    }
+    
+    public static FetchPriority defaults() {
+        return parse(DEFAULT_RULES);
+    }
+    
+    /**
+     * Parse a comma-separated rule list such as "pages,small", or "fifo"
+     * @throws IllegalArgumentException naming an unknown rule
+     */
+    public static FetchPriority parse(String spec) {
+        List<Rule> rules = new ArrayList<>();
+        for (String name : spec.split(",")) {
+            String trimmed = name.trim().toLowerCase();
+            if (trimmed.isEmpty() || trimmed.equals("fifo")) {
+                continue;
+            }
+            Rule rule;
+            try {
+                rule = Rule.valueOf(trimmed.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown priority rule: " + trimmed
+                    + " (use shallow, pages, critical, small or fifo)");
+            }
+            if (!rules.contains(rule)) {
+                rules.add(rule);
+            }
+        }
+        return new FetchPriority(Collections.unmodifiableList(rules));
+    }
+    
+    /**
+     * Whether ranks depend on size hints, which are worth loading only then
+     */
+    public boolean usesSize() {
+        return rules.contains(Rule.SMALL);
+    }
+    
+    /**
+     * Rank of a URL; lower is fetched earlier
+     * @param sizeHint expected size in bytes, or -1 if unknown
+     */
+    public long rank(String kind, int depth, long sizeHint) {
+        long rank = 0;
+        for (Rule rule : rules) {
+            long value;
+            switch (rule) {
+                case SHALLOW:
+                    value = Math.min(depth, 255);
+                    break;
+                case PAGES:
+                    value = kind.equals("HTML") ? 0 : 1;
+                    break;
+                case CRITICAL:
+                    value = kind.equals("HTML") || kind.equals("CSS") || kind.equals("JS") ? 0 : 1;
+                    break;
+                case SMALL:
+                    // Size class by power of two; unknown sizes rank with ~64 KiB files
+                    value = sizeHint >= 0 ? 64 - Long.numberOfLeadingZeros(sizeHint) : 17;
+                    value = Math.min(value, 63);
+                    break;
+                default:
+                    value = 0;
+                    break;
+            }
+            rank = (rank << rule.bits) | value;
+        }
+        return rank;
+    }
+}
@@ -0,0 +1,53 @@
+package com.algo.inc.downloader;
+
+import com.algo.inc.model.CanonicalUrl;
+import com.algo.inc.model.FrontierEntry;
+
+import java.util.List;
+
+/**
+ * URLs of a crawl session still to be fetched, deduplicated so every URL is handed out once
+ */
+public interface Frontier {
+    
+    /**
+     * Add a URL unless it was offered before
+     * @param priority rank from the session's FetchPriority; lower is fetched earlier
+     * @return true if the URL is new
+     */
+    boolean offer(CanonicalUrl url, String kind, int depth, long priority) throws Exception;
+    
+    /**
+     * Take up to max entries to fetch, lowest priority first and oldest first among equals
+     * @return an empty list when nothing can be claimed right now
+     */
+    List<FrontierEntry> claim(int max) throws Exception;
+    
+    /**
+     * Extend a claimed entry's lease as work on it begins, since a batch can take longer to
+     * work through than one lease lasts
+     * @return false if the entry has passed to another node and must not be fetched here
+     */
+    boolean renew(FrontierEntry entry) throws Exception;
+    
+    /**
+     * Extend the leases of every entry renewed and not yet completed or released, so a fetch
+     * that outlasts one lease is not handed to another node
+     */
+    void renewInFlight() throws Exception;
+    
+    /**
+     * Record that a claimed entry has been fetched, successfully or not
+     */
+    void complete(FrontierEntry entry, boolean success) throws Exception;
+    
+    /**
+     * Give a claimed entry back unfetched
+     */
+    void release(FrontierEntry entry) throws Exception;
+    
+    /**
+     * Whether nothing is waiting or being fetched, so the session is over
+     */
+    boolean isDrained() throws Exception;
+}
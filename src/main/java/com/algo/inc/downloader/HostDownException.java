@@ -0,0 +1,15 @@
+package com.algo.inc.downloader;
+
+import java.io.IOException;
+
+/**
+ * A fetch not attempted because its host has been failing for longer than the session waits
+ */
+class HostDownException extends IOException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    HostDownException(String host) {
+        super(host + " is not responding");
+    }
+}
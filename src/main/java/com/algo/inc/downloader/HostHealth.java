@@ -0,0 +1,123 @@
+package com.algo.inc.downloader;
+
+import com.algo.inc.metrics.LatencyHistogram;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What this process has seen of one origin host: how fast it answers and whether it is up.
+ *
+ * Timeouts follow the host's response times: once {@value #MIN_SAMPLES} responses have been
+ * seen, a request may wait {@value #TIMEOUT_FACTOR} times the host's p99 time to headers, never
+ * less than {@value #MIN_TIMEOUT_MS} ms nor more than the session's timeout. Each retry doubles it.
+ *
+ * The circuit breaker opens after {@value #FAILURE_THRESHOLD} failures in a row. While open,
+ * requests wait for the cooldown, then one probe request goes through: success closes the
+ * breaker, failure reopens it for twice as long, up to {@value #MAX_COOLDOWN_MS} ms. A host
+ * that keeps failing past the give-up time is not waited for any more; its requests fail at
+ * once, apart from one probe per cooldown in case it comes back.
+ *
+ * State is shared by every session in the process, so concurrent sites on one host see the
+ * same breaker.
+ */
+class HostHealth {
+    
+    static final int FAILURE_THRESHOLD = 5;
+    static final long MIN_COOLDOWN_MS = 2000;
+    static final long MAX_COOLDOWN_MS = 60000;
+    static final int MIN_SAMPLES = 20;
+    static final int TIMEOUT_FACTOR = 4;
+    static final int MIN_TIMEOUT_MS = 2000;
+    
+    private static final ConcurrentHashMap<String, HostHealth> HOSTS = new ConcurrentHashMap<>();
+    
+    private final LatencyHistogram responseTimes = new LatencyHistogram();
+    
+    // Breaker state, guarded by this
+    private int consecutiveFailures;
+    private long failingSince;
+    private long holdUntil;
+    private long cooldown = MIN_COOLDOWN_MS;
+    private boolean open;
+    private boolean probing;
+    
+    static HostHealth of(String host) {
+        return HOSTS.computeIfAbsent(host, h -> new HostHealth());
+    }
+    
+    /**
+     * Record the time from starting a request to its response headers
+     */
+    void recordResponseTime(long nanos) {
+        responseTimes.record(nanos);
+    }
+    
+    /**
+     * Connect and read timeout for a request to this host
+     * @param retry 0 for the first attempt
+     * @param maxMillis the session's timeout, used until enough responses have been seen
+     */
+    int timeoutMillis(int retry, int maxMillis) {
+        long base = maxMillis;
+        if (responseTimes.getCount() >= MIN_SAMPLES) {
+            long p99 = responseTimes.snapshot().percentile(0.99) / 1_000_000;
+            base = Math.max(MIN_TIMEOUT_MS, p99 * TIMEOUT_FACTOR);
+        }
+        return (int) Math.min(maxMillis, base << Math.min(retry, 16));
+    }
+    
+    /**
+     * Ask to send a request
+     * @param giveUpMillis how long the host may keep failing before requests stop waiting for it
+     * @return 0 to go ahead, the time to wait before asking again, or -1 if the request should fail now
+     */
+    synchronized long permit(long now, long giveUpMillis) {
+        if (open) {
+            if (!probing && now >= holdUntil) {
+                probing = true;
+                return 0;
+            }
+            if (now - failingSince >= giveUpMillis) {
+                return -1;
+            }
+            // Someone else's probe is out; check again shortly
+            return probing ? 250 : holdUntil - now;
+        }
+        // The host may have asked to be left alone with Retry-After
+        return now < holdUntil ? holdUntil - now : 0;
+    }
+    
+    /**
+     * A request got an answer from the host, whatever its status
+     */
+    synchronized void success() {
+        consecutiveFailures = 0;
+        open = false;
+        probing = false;
+        cooldown = MIN_COOLDOWN_MS;
+    }
+    
+    /**
+     * A request failed in a way that says the host is unwell
+     */
+    synchronized void failure(long now) {
+        if (consecutiveFailures++ == 0) {
+            failingSince = now;
+        }
+        if (probing) {
+            probing = false;
+            cooldown = Math.min(cooldown * 2, MAX_COOLDOWN_MS);
+            holdUntil = now + cooldown;
+        } else if (!open && consecutiveFailures >= FAILURE_THRESHOLD) {
+            open = true;
+            holdUntil = now + cooldown;
+        }
+    }
+    
+    /**
+     * Hold every request to the host until the given time, as asked by Retry-After
+     */
+    synchronized void backOffUntil(long until) {
+        holdUntil = Math.max(holdUntil, until);
+    }
+}
@@ -0,0 +1,114 @@
+package com.algo.inc.downloader;
+
+import com.algo.inc.metrics.MetricsRegistry;
+import com.algo.inc.model.CanonicalUrl;
+import com.algo.inc.model.FrontierEntry;
+import com.algo.inc.util.UrlDictionary;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory frontier for a session crawled by this process alone.
+ *
+ * Every URL ever offered is kept, so the frontier is the part of a session that grows with
+ * the site. URLs live front-coded in a UrlDictionary, and queued entries hold only their
+ * URL's ID; a FrontierEntry with a parsed URL is built when the entry is claimed.
+ */
+class LocalFrontier implements Frontier {
+    
+    private static final Comparator<Queued> FETCH_ORDER = 
+        Comparator.comparingLong((Queued queued) -> queued.priority).thenComparingLong(queued -> queued.id);
+    
+    private final MetricsRegistry metrics = MetricsRegistry.get();
+    private final UrlDictionary seen = new UrlDictionary();
+    private final PriorityQueue<Queued> pending = new PriorityQueue<>(FETCH_ORDER);
+    private long nextId;
+    private int leased;
+    
+    @Override
+    public synchronized boolean offer(CanonicalUrl url, String kind, int depth, long priority) {
+        int known = seen.size();
+        int urlId = seen.add(url.toString());
+        if (seen.size() == known) {
+            return false;
+        }
+        pending.add(new Queued(++nextId, urlId, kind, depth, priority));
+        metrics.queueDepth().increment();
+        return true;
+    }
+    
+    @Override
+    public synchronized List<FrontierEntry> claim(int max) {
+        List<FrontierEntry> batch = new ArrayList<>(Math.min(max, pending.size()));
+        while (batch.size() < max && !pending.isEmpty()) {
+            Queued queued = pending.poll();
+            // Canonical URLs parse back to themselves
+            FrontierEntry entry = new FrontierEntry(queued.id, CanonicalUrl.parse(seen.get(queued.urlId)), 
+                                                    queued.kind, queued.depth);
+            entry.setPriority(queued.priority);
+            batch.add(entry);
+        }
+        leased += batch.size();
+        metrics.queueDepth().add(-batch.size());
+        return batch;
+    }
+    
+    @Override
+    public boolean renew(FrontierEntry entry) {
+        return true;
+    }
+    
+    @Override
+    public void renewInFlight() {
+        // Nothing is leased to other nodes
+    }
+    
+    @Override
+    public synchronized void complete(FrontierEntry entry, boolean success) {
+        leased--;
+    }
+    
+    @Override
+    public synchronized void release(FrontierEntry entry) {
+        leased--;
+        // Keeps its rank and ID, so it goes back to where it was
+        pending.add(new Queued(entry.getId(), seen.find(entry.getUrl().toString()), entry.getKind(), 
+                               entry.getDepth(), entry.getPriority()));
+        metrics.queueDepth().increment();
+    }
+    
+    @Override
+    public synchronized boolean isDrained() {
+        return pending.isEmpty() && leased == 0;
+    }
+    
+    /**
+     * Drop whatever is still queued, e.g. when the session is cancelled
+     */
+    synchronized void clear() {
+        metrics.queueDepth().add(-pending.size());
+        pending.clear();
+    }
+    
+    /**
+     * A queued URL, as small as it can be while waiting
+     */
+    private static class Queued {
+        private final long id;
+        private final int urlId;
+        private final String kind;
+        private final int depth;
+        private final long priority;
+        
+        Queued(long id, int urlId, String kind, int depth, long priority) {
+            this.id = id;
+            this.urlId = urlId;
+            this.kind = kind;
+            this.depth = depth;
+            this.priority = priority;
+        }
+    }
+}
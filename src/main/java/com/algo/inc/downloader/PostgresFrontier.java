@@ -0,0 +1,104 @@
+package com.algo.inc.downloader;
+
+import com.algo.inc.database.DatabaseManager;
+import com.algo.inc.model.CanonicalUrl;
+import com.algo.inc.model.FrontierEntry;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Frontier kept in the shared frontier table, so any number of nodes can work on one session.
+ *
+ * Each node leases a batch at a time and renews an entry's lease when it starts on it, then
+ * every RENEW_INTERVAL_MS while the fetch runs; a lease that runs out (-Dfrontier.lease.seconds,
+ * default 120) because its node died is picked up by another node, up to {@value #MAX_ATTEMPTS}
+ * attempts.
+ * URLs are deduplicated by a 64-bit fingerprint under a unique constraint.
+ */
+class PostgresFrontier implements Frontier {
+    
+    private static final int LEASE_SECONDS = Integer.getInteger("frontier.lease.seconds", 120);
+    private static final int MAX_ATTEMPTS = 3;
+    // A third of a lease, so two renewals can fail before another node may take the entry
+    static final long RENEW_INTERVAL_MS = LEASE_SECONDS * 1000L / 3;
+    private static final String NODE_ID = ManagementFactory.getRuntimeMXBean().getName();
+    
+    private final DatabaseManager dbManager;
+    private final int websiteId;
+    // Workers of one process share NODE_ID, so each frontier leases under its own name
+    private final String owner = NODE_ID + "/" + UUID.randomUUID();
+    // Entries being fetched, whose leases the session's renewal ticker extends
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    
+    PostgresFrontier(DatabaseManager dbManager, int websiteId) {
+        this.dbManager = dbManager;
+        this.websiteId = websiteId;
+    }
+    
+    @Override
+    public boolean offer(CanonicalUrl url, String kind, int depth, long priority) throws SQLException {
+        String text = url.toString();
+        return dbManager.insertFrontierEntry(websiteId, fingerprint(text), text, kind, depth, priority);
+    }
+    
+    @Override
+    public List<FrontierEntry> claim(int max) throws SQLException {
+        return dbManager.claimFrontierEntries(websiteId, owner, max, LEASE_SECONDS, MAX_ATTEMPTS);
+    }
+    
+    @Override
+    public boolean renew(FrontierEntry entry) throws SQLException {
+        if (!dbManager.renewFrontierEntry(entry.getId(), owner, LEASE_SECONDS)) {
+            return false;
+        }
+        inFlight.add(entry.getId());
+        return true;
+    }
+    
+    @Override
+    public void renewInFlight() throws SQLException {
+        List<Long> ids = new ArrayList<>(inFlight);
+        if (!ids.isEmpty()) {
+            dbManager.renewFrontierEntries(ids, owner, LEASE_SECONDS);
+        }
+    }
+    
+    @Override
+    public void complete(FrontierEntry entry, boolean success) throws SQLException {
+        inFlight.remove(entry.getId());
+        dbManager.completeFrontierEntry(entry.getId(), owner, success);
+    }
+    
+    @Override
+    public void release(FrontierEntry entry) throws SQLException {
+        inFlight.remove(entry.getId());
+        dbManager.releaseFrontierEntry(entry.getId(), owner);
+    }
+    
+    @Override
+    public boolean isDrained() throws SQLException {
+        return dbManager.countOpenFrontierEntries(websiteId) == 0;
+    }
+    
+    /**
+     * First 8 bytes of the URL's SHA-256
+     */
+    static long fingerprint(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
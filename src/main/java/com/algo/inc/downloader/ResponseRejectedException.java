@@ -0,0 +1,15 @@
+package com.algo.inc.downloader;
+
+import java.io.IOException;
+
+/**
+ * A response the session's Content-Type or size limits rule out; its body is not downloaded
+ */
+class ResponseRejectedException extends IOException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    ResponseRejectedException(String message) {
+        super(message);
+    }
+}
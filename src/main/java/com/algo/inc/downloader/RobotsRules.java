@@ -0,0 +1,245 @@
+package com.algo.inc.downloader;
+
+import com.algo.inc.model.CanonicalUrl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Rules from a site's robots.txt that apply to this crawler.
+ *
+ * The group naming {@value #AGENT} is used if there is one, otherwise the "*" group.
+ * Path rules are compiled once: plain paths become prefix checks and only rules with
+ * "*" or a trailing "$" become regular expressions. As in RFC 9309 the longest matching
+ * rule decides, and Allow wins a tie.
+ */
+class RobotsRules {
+    
+    static final String AGENT = "link-local";
+    
+    // RFC 9309 lets crawlers stop reading after 500 KiB
+    private static final int MAX_BYTES = 500 * 1024;
+    
+    private static final RobotsRules ALLOW_ALL = new RobotsRules(Collections.emptyList(), 0, Collections.emptyList());
+    
+    private final List<Rule> rules;
+    private final long crawlDelayMillis;
+    private final List<CanonicalUrl> sitemaps;
+    
+    private RobotsRules(List<Rule> rules, long crawlDelayMillis, List<CanonicalUrl> sitemaps) {
+        this.rules = rules;
+        this.crawlDelayMillis = crawlDelayMillis;
+        this.sitemaps = sitemaps;
+    }
+    
+    static RobotsRules allowAll() {
+        return ALLOW_ALL;
+    }
+    
+    /**
+     * Fetch and parse robots.txt for the site; a missing or unreadable file allows everything
+     */
+    static RobotsRules fetch(CanonicalUrl site, String userAgent) {
+        CanonicalUrl robotsUrl = site.resolve("/robots.txt");
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(robotsUrl.toString()).openConnection();
+            connection.setRequestProperty("User-Agent", userAgent);
+            connection.setConnectTimeout(10000);
+            connection.setReadTimeout(10000);
+            if (connection.getResponseCode() / 100 != 2) {
+                connection.disconnect();
+                return ALLOW_ALL;
+            }
+            try (InputStream in = connection.getInputStream()) {
+                return parse(new String(in.readNBytes(MAX_BYTES), StandardCharsets.UTF_8), robotsUrl);
+            }
+        } catch (IOException e) {
+            return ALLOW_ALL;
+        }
+    }
+    
+    /**
+     * Parse robots.txt content
+     * @param robotsUrl where it came from, to resolve relative Sitemap lines
+     */
+    static RobotsRules parse(String content, CanonicalUrl robotsUrl) {
+        List<Rule> ownRules = new ArrayList<>();
+        List<Rule> defaultRules = new ArrayList<>();
+        long ownDelay = -1;
+        long defaultDelay = -1;
+        boolean ownGroupFound = false;
+        List<CanonicalUrl> sitemaps = new ArrayList<>();
+        
+        // Agents of the group being read; a user-agent line after rules starts a new group
+        boolean inOwnGroup = false;
+        boolean inDefaultGroup = false;
+        boolean readingAgents = false;
+        
+        try (BufferedReader reader = new BufferedReader(new StringReader(content))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comment = line.indexOf('#');
+                if (comment >= 0) {
+                    line = line.substring(0, comment);
+                }
+                int colon = line.indexOf(':');
+                if (colon < 0) {
+                    continue;
+                }
+                String key = line.substring(0, colon).trim().toLowerCase();
+                String value = line.substring(colon + 1).trim();
+                
+                switch (key) {
+                    case "user-agent":
+                        if (!readingAgents) {
+                            inOwnGroup = false;
+                            inDefaultGroup = false;
+                            readingAgents = true;
+                        }
+                        String agent = value.toLowerCase();
+                        if (agent.equals("*")) {
+                            inDefaultGroup = true;
+                        } else if (AGENT.startsWith(agent) || agent.startsWith(AGENT)) {
+                            inOwnGroup = true;
+                            ownGroupFound = true;
+                        }
+                        break;
+                    case "allow":
+                    case "disallow":
+                        readingAgents = false;
+                        if (value.isEmpty()) {
+                            // "Disallow:" with no path allows everything
+                            break;
+                        }
+                        Rule rule = new Rule(key.equals("allow"), value);
+                        if (inOwnGroup) {
+                            ownRules.add(rule);
+                        }
+                        if (inDefaultGroup) {
+                            defaultRules.add(rule);
+                        }
+                        break;
+                    case "crawl-delay":
+                        readingAgents = false;
+                        long delay = parseDelay(value);
+                        if (inOwnGroup) {
+                            ownDelay = delay;
+                        }
+                        if (inDefaultGroup) {
+                            defaultDelay = delay;
+                        }
+                        break;
+                    case "sitemap":
+                        CanonicalUrl sitemap = robotsUrl.resolve(value);
+                        if (sitemap != null) {
+                            sitemaps.add(sitemap);
+                        }
+                        break;
+                    default:
+                        readingAgents = false;
+                        break;
+                }
+            }
+        } catch (IOException e) {
+            // Reading from a string does not fail
+        }
+        
+        List<Rule> rules = ownGroupFound ? ownRules : defaultRules;
+        // Longest rule first and Allow before Disallow, so the first match decides
+        rules.sort((a, b) -> a.length != b.length ? Integer.compare(b.length, a.length) : Boolean.compare(b.allow, a.allow));
+        long delay = ownGroupFound ? ownDelay : defaultDelay;
+        return new RobotsRules(rules, Math.max(delay, 0), sitemaps);
+    }
+    
+    private static long parseDelay(String value) {
+        try {
+            return (long) (Double.parseDouble(value) * 1000);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * Whether the crawler may fetch the URL
+     */
+    boolean isAllowed(CanonicalUrl url) {
+        if (rules.isEmpty()) {
+            return true;
+        }
+        String path = url.getPath();
+        if (path.equals("/robots.txt")) {
+            return true;
+        }
+        String target = url.getQuery() != null ? path + "?" + url.getQuery() : path;
+        for (Rule rule : rules) {
+            if (rule.matches(target)) {
+                return rule.allow;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Minimum time between requests asked for by Crawl-delay, 0 if none
+     */
+    long getCrawlDelayMillis() {
+        return crawlDelayMillis;
+    }
+    
+    /**
+     * Sitemaps listed in the file, in order
+     */
+    List<CanonicalUrl> getSitemaps() {
+        return sitemaps;
+    }
+    
+    /**
+     * One Allow or Disallow line
+     */
+    private static final class Rule {
+        final boolean allow;
+        final int length;
+        final String prefix;
+        final Pattern pattern;
+        
+        Rule(boolean allow, String path) {
+            this.allow = allow;
+            this.length = path.length();
+            if (path.indexOf('*') < 0 && !path.endsWith("$")) {
+                this.prefix = path;
+                this.pattern = null;
+            } else {
+                boolean anchored = path.endsWith("$");
+                String body = anchored ? path.substring(0, path.length() - 1) : path;
+                StringBuilder regex = new StringBuilder();
+                String[] literals = body.split("\\*", -1);
+                for (int i = 0; i < literals.length; i++) {
+                    if (i > 0) {
+                        regex.append(".*");
+                    }
+                    if (!literals[i].isEmpty()) {
+                        regex.append(Pattern.quote(literals[i]));
+                    }
+                }
+                if (anchored) {
+                    regex.append('$');
+                }
+                this.prefix = null;
+                this.pattern = Pattern.compile(regex.toString(), Pattern.DOTALL);
+            }
+        }
+        
+        boolean matches(String target) {
+            return prefix != null ? target.startsWith(prefix) : pattern.matcher(target).lookingAt();
+        }
+    }
+}
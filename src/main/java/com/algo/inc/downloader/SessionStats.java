@@ -0,0 +1,150 @@
+package com.algo.inc.downloader;
+
+import com.algo.inc.metrics.LatencyHistogram;
+import com.algo.inc.model.ErrorClass;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one download session, updated from its crawl thread and large-transfer lane
+ * and read by whoever reports progress.
+ *
+ * Every counter is a striped LongAdder, so fetch threads never contend on a shared cache line
+ * and a reader costs them nothing. A snapshot reads the counters in the reverse of the order
+ * a file moves through them (failed, completed, discovered), so however it interleaves with
+ * updates it never shows more failed than completed files or more completed than discovered.
+ */
+public class SessionStats {
+    
+    private final LongAdder discovered = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder unchanged = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    // Index 0 counts fetches without a response, 1 to 5 the status classes
+    private final LongAdder[] responsesByStatusClass = new LongAdder[6];
+    private final Map<ErrorClass, LongAdder> errorsByClass = new EnumMap<>(ErrorClass.class);
+    private final LatencyHistogram fetchLatency = new LatencyHistogram();
+    
+    public SessionStats() {
+        for (int i = 0; i < responsesByStatusClass.length; i++) {
+            responsesByStatusClass[i] = new LongAdder();
+        }
+        for (ErrorClass errorClass : ErrorClass.values()) {
+            errorsByClass.put(errorClass, new LongAdder());
+        }
+    }
+    
+    void fileDiscovered() {
+        discovered.increment();
+    }
+    
+    /**
+     * A sitemap page left out because it has not changed since its last download
+     */
+    void fileUnchanged() {
+        unchanged.increment();
+    }
+    
+    /**
+     * A queued file is done, saved or not
+     */
+    void fileCompleted(boolean failure) {
+        // Completed before failed, so a snapshot reading failed first never sees more failures
+        completed.increment();
+        if (failure) {
+            failed.increment();
+        }
+    }
+    
+    void addBytes(long count) {
+        bytes.add(count);
+    }
+    
+    void retried() {
+        retries.increment();
+    }
+    
+    /**
+     * Record the outcome of a finished fetch
+     * @param statusCode HTTP status received, or 0 if none
+     */
+    void recordFetch(int statusCode, ErrorClass errorClass, long elapsedNanos) {
+        responsesByStatusClass[statusCode >= 100 && statusCode < 600 ? statusCode / 100 : 0].increment();
+        if (errorClass != ErrorClass.NONE) {
+            errorsByClass.get(errorClass).increment();
+        }
+        fetchLatency.record(elapsedNanos);
+    }
+    
+    /**
+     * Copy the counters; cheap enough to call on every progress poll
+     */
+    public Snapshot snapshot() {
+        long failedFiles = failed.sum();
+        long completedFiles = completed.sum();
+        long discoveredFiles = discovered.sum();
+        long[] responses = new long[responsesByStatusClass.length];
+        for (int i = 0; i < responses.length; i++) {
+            responses[i] = responsesByStatusClass[i].sum();
+        }
+        Map<ErrorClass, Long> errors = new EnumMap<>(ErrorClass.class);
+        for (Map.Entry<ErrorClass, LongAdder> entry : errorsByClass.entrySet()) {
+            errors.put(entry.getKey(), entry.getValue().sum());
+        }
+        return new Snapshot(discoveredFiles, completedFiles, failedFiles, unchanged.sum(), bytes.sum(),
+            retries.sum(), responses, errors, fetchLatency.snapshot());
+    }
+    
+    /**
+     * Point-in-time copy of a session's counters
+     */
+    public static class Snapshot {
+        private final long files;
+        private final long completedFiles;
+        private final long failedFiles;
+        private final long unchangedFiles;
+        private final long bytes;
+        private final long retries;
+        private final long[] responses;
+        private final Map<ErrorClass, Long> errors;
+        private final LatencyHistogram.Snapshot fetchLatency;
+        
+        Snapshot(long files, long completedFiles, long failedFiles, long unchangedFiles, long bytes, long retries,
+                 long[] responses, Map<ErrorClass, Long> errors, LatencyHistogram.Snapshot fetchLatency) {
+            this.files = files;
+            this.completedFiles = completedFiles;
+            this.failedFiles = failedFiles;
+            this.unchangedFiles = unchangedFiles;
+            this.bytes = bytes;
+            this.retries = retries;
+            this.responses = responses;
+            this.errors = errors;
+            this.fetchLatency = fetchLatency;
+        }
+        
+        // Getters
+        public long getFiles() { return files; }
+        public long getCompletedFiles() { return completedFiles; }
+        public long getFailedFiles() { return failedFiles; }
+        public long getUnchangedFiles() { return unchangedFiles; }
+        public long getBytes() { return bytes; }
+        public long getRetries() { return retries; }
+        public LatencyHistogram.Snapshot getFetchLatency() { return fetchLatency; }
+        
+        /**
+         * Fetches answered with a status of the given class
+         * @param statusClass 1 to 5, or 0 for fetches that got no response
+         */
+        public long getResponses(int statusClass) {
+            return responses[statusClass];
+        }
+        
+        public long getErrors(ErrorClass errorClass) {
+            return errors.get(errorClass);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.algo.inc.downloader;
+
+import com.algo.inc.model.CanonicalUrl;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams sitemap.xml files with StAX, so sitemaps of any size are read in constant memory.
+ *
+ * Sitemap index files are followed and gzipped sitemaps are detected by their magic bytes,
+ * whatever the file name or Content-Encoding says. At most {@value #MAX_SITEMAPS} sitemaps
+ * and, if a limit is given, that many URLs are read per site.
+ */
+class SitemapReader {
+    
+    private static final int MAX_SITEMAPS = 50;
+    
+    private static final XMLInputFactory XML = XMLInputFactory.newFactory();
+    static {
+        // Sitemaps come from the network; never resolve entities or DTDs
+        XML.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+    
+    /**
+     * Receives each page URL listed in a sitemap
+     */
+    interface Handler {
+        /**
+         * @param lastmod when the page last changed, or null if the sitemap does not say
+         */
+        void url(CanonicalUrl url, Instant lastmod) throws Exception;
+    }
+    
+    private final String userAgent;
+    private final int maxUrls;
+    private boolean truncated;
+    
+    /**
+     * @param maxUrls most URLs to read, or 0 for no limit
+     */
+    SitemapReader(String userAgent, int maxUrls) {
+        this.userAgent = userAgent;
+        this.maxUrls = maxUrls > 0 ? maxUrls : Integer.MAX_VALUE;
+    }
+    
+    /**
+     * Read the sitemaps and the sitemaps their indexes point to, breadth first
+     * @return the number of URLs passed to the handler
+     */
+    int read(List<CanonicalUrl> sitemaps, Handler handler) throws Exception {
+        ArrayDeque<CanonicalUrl> pending = new ArrayDeque<>(sitemaps);
+        Set<CanonicalUrl> visited = new HashSet<>();
+        int[] count = new int[1];
+        while (!pending.isEmpty() && visited.size() < MAX_SITEMAPS && !truncated) {
+            CanonicalUrl sitemap = pending.poll();
+            if (!visited.add(sitemap)) {
+                continue;
+            }
+            try (InputStream in = open(sitemap)) {
+                if (in == null) {
+                    continue;
+                }
+                parse(in, sitemap, (url, lastmod) -> {
+                    if (count[0] < maxUrls) {
+                        count[0]++;
+                        handler.url(url, lastmod);
+                    } else {
+                        truncated = true;
+                    }
+                }, pending::add);
+            } catch (IOException | XMLStreamException e) {
+                System.err.println("Skipping sitemap " + sitemap + ": " + e.getMessage());
+            }
+        }
+        for (CanonicalUrl sitemap : pending) {
+            truncated |= !visited.contains(sitemap);
+        }
+        return count[0];
+    }
+    
+    /**
+     * Whether the last read stopped at the URL or sitemap limit with URLs left unread
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+    
+    /**
+     * Open a sitemap, gunzipping it if needed
+     * @return null if the server has no such file
+     */
+    private InputStream open(CanonicalUrl sitemap) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(sitemap.toString()).openConnection();
+        connection.setRequestProperty("User-Agent", userAgent);
+        connection.setConnectTimeout(30000);
+        connection.setReadTimeout(30000);
+        if (connection.getResponseCode() / 100 != 2) {
+            connection.disconnect();
+            return null;
+        }
+        return gunzipIfNeeded(connection.getInputStream());
+    }
+    
+    static InputStream gunzipIfNeeded(InputStream raw) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(raw);
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        if (first == 0x1f && second == 0x8b) {
+            return new GZIPInputStream(in, 64 * 1024);
+        }
+        return in;
+    }
+    
+    /**
+     * Stream one urlset or sitemapindex document
+     * @param source the sitemap's own URL, to resolve relative locations
+     * @param nested receives the sitemaps listed by an index
+     */
+    static void parse(InputStream in, CanonicalUrl source, Handler urls,
+                      Consumer<CanonicalUrl> nested) throws Exception {
+        XMLStreamReader reader = XML.createXMLStreamReader(in);
+        try {
+            String loc = null;
+            String lastmod = null;
+            StringBuilder text = new StringBuilder();
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        text.setLength(0);
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                        text.append(reader.getText());
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        switch (reader.getLocalName()) {
+                            case "loc":
+                                loc = text.toString().trim();
+                                break;
+                            case "lastmod":
+                                lastmod = text.toString().trim();
+                                break;
+                            case "url":
+                                CanonicalUrl page = loc != null ? source.resolve(loc) : null;
+                                if (page != null) {
+                                    urls.url(page, parseLastmod(lastmod));
+                                }
+                                loc = null;
+                                lastmod = null;
+                                break;
+                            case "sitemap":
+                                CanonicalUrl child = loc != null ? source.resolve(loc) : null;
+                                if (child != null) {
+                                    nested.accept(child);
+                                }
+                                loc = null;
+                                lastmod = null;
+                                break;
+                            default:
+                                break;
+                        }
+                        text.setLength(0);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+    
+    /**
+     * Parse a W3C datetime as used by sitemaps: a date, or a date and time with a zone
+     * @return null if missing or unreadable
+     */
+    static Instant parseLastmod(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            if (value.length() == 10) {
+                return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant();
+            }
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
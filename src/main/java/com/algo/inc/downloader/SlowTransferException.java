@@ -0,0 +1,15 @@
+package com.algo.inc.downloader;
+
+import java.io.IOException;
+
+/**
+ * A body arriving slower than the session's minimum throughput
+ */
+class SlowTransferException extends IOException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    SlowTransferException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,47 @@
+package com.algo.inc.downloader;
+
+import com.algo.inc.util.TerminalUI;
+
+/**
+ * Aborts a transfer whose throughput stays below a minimum for a whole window.
+ *
+ * A peer that sends a few bytes now and then never trips the read timeout, so the body loop
+ * checks in with the guard after every read. Each window is measured on its own, so a
+ * transfer that stalls after a fast start is caught as well.
+ */
+class ThroughputGuard {
+    
+    private final long minBytesPerSecond;
+    private final long windowNanos;
+    private long windowStart;
+    private long windowStartBytes;
+    
+    /**
+     * @param minBytesPerSecond slowest acceptable rate; 0 turns the guard off
+     * @param windowMillis how long the rate may stay below the minimum
+     */
+    ThroughputGuard(long minBytesPerSecond, long windowMillis, long startNanos) {
+        this.minBytesPerSecond = minBytesPerSecond;
+        this.windowNanos = windowMillis * 1_000_000;
+        this.windowStart = startNanos;
+    }
+    
+    /**
+     * Check the transfer after a read
+     * @param totalBytes bytes received so far
+     * @throws SlowTransferException if the last full window was below the minimum
+     */
+    void update(long totalBytes, long nowNanos) throws SlowTransferException {
+        if (minBytesPerSecond <= 0 || nowNanos - windowStart < windowNanos) {
+            return;
+        }
+        long bytes = totalBytes - windowStartBytes;
+        double seconds = (nowNanos - windowStart) / 1e9;
+        if (bytes < minBytesPerSecond * seconds) {
+            throw new SlowTransferException(String.format("%s/s over %.0f s, below %s/s",
+                TerminalUI.formatBytes(bytes / seconds), seconds, TerminalUI.formatBytes(minBytesPerSecond)));
+        }
+        windowStart = nowNanos;
+        windowStartBytes = totalBytes;
+    }
+}
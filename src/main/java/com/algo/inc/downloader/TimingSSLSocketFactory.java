@@ -0,0 +1,82 @@
+package com.algo.inc.downloader;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * SSL socket factory that remembers when the TCP connection of the current thread was
+ * handed over for the TLS handshake, so connect and handshake time can be told apart.
+ *
+ * Unconnected sockets are deliberately not supported: HttpsURLConnection then opens a
+ * plain socket first and layers TLS on top of it through this factory.
+ * A single shared instance is used so keep-alive connections are still reused.
+ */
+class TimingSSLSocketFactory extends SSLSocketFactory {
+    
+    private static final TimingSSLSocketFactory INSTANCE =
+        new TimingSSLSocketFactory(HttpsURLConnection.getDefaultSSLSocketFactory());
+    private static final ThreadLocal<long[]> TCP_CONNECTED_AT = ThreadLocal.withInitial(() -> new long[1]);
+    
+    private final SSLSocketFactory delegate;
+    
+    private TimingSSLSocketFactory(SSLSocketFactory delegate) {
+        this.delegate = delegate;
+    }
+    
+    static TimingSSLSocketFactory getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Forget the timestamp of the previous connection made by this thread
+     */
+    static void reset() {
+        TCP_CONNECTED_AT.get()[0] = 0;
+    }
+    
+    /**
+     * @return System.nanoTime() at which TCP was connected, or 0 if no new socket was layered
+     */
+    static long tcpConnectedAt() {
+        return TCP_CONNECTED_AT.get()[0];
+    }
+    
+    @Override
+    public Socket createSocket(Socket s, String host, int port, boolean autoClose) throws IOException {
+        TCP_CONNECTED_AT.get()[0] = System.nanoTime();
+        return delegate.createSocket(s, host, port, autoClose);
+    }
+    
+    @Override
+    public String[] getDefaultCipherSuites() {
+        return delegate.getDefaultCipherSuites();
+    }
+    
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return delegate.getSupportedCipherSuites();
+    }
+    
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return delegate.createSocket(host, port);
+    }
+    
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+        return delegate.createSocket(host, port, localHost, localPort);
+    }
+    
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        return delegate.createSocket(host, port);
+    }
+    
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+        return delegate.createSocket(address, port, localAddress, localPort);
+    }
+}
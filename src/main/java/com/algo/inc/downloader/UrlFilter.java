@@ -0,0 +1,164 @@
+package com.algo.inc.downloader;
+
+import com.algo.inc.model.CanonicalUrl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which discovered URLs are worth queueing.
+ *
+ * Path patterns are globs ("*" within a segment, "**" across segments, "?" one character;
+ * a glob without a leading "/" may match after any "/") or, prefixed with "re:", regular
+ * expressions searched anywhere in the path. All include patterns are compiled into one
+ * alternation, as are all excludes and all query patterns, so a check costs at most three
+ * regex runs and a set lookup however many rules there are.
+ *
+ * Includes and the path depth limit only restrict pages; excludes, extensions and query
+ * patterns apply to every URL, so included pages keep their stylesheets and images.
+ */
+public class UrlFilter {
+    
+    private static final UrlFilter ACCEPT_ALL = new UrlFilter(Collections.emptyList(), Collections.emptyList(),
+        Collections.emptyList(), Collections.emptyList(), -1);
+    
+    private final Pattern include;
+    private final Pattern exclude;
+    private final Pattern query;
+    private final Set<String> extensions;
+    private final int maxPathDepth;
+    
+    /**
+     * @param includes path patterns pages must match; empty allows all pages
+     * @param excludes path patterns no URL may match
+     * @param extensions file extensions never fetched, with or without the dot
+     * @param queryPatterns regular expressions searched in the query string; a match excludes the URL
+     * @param maxPathDepth most path segments a page may have, or -1 for no limit
+     * @throws IllegalArgumentException if a regular expression does not compile
+     */
+    public UrlFilter(List<String> includes, List<String> excludes, Collection<String> extensions,
+                     List<String> queryPatterns, int maxPathDepth) {
+        this.include = combinePaths(includes);
+        this.exclude = combinePaths(excludes);
+        this.query = combine(queryPatterns);
+        this.extensions = new HashSet<>();
+        for (String extension : extensions) {
+            String normalized = extension.trim().toLowerCase();
+            if (normalized.startsWith(".")) {
+                normalized = normalized.substring(1);
+            }
+            if (!normalized.isEmpty()) {
+                this.extensions.add(normalized);
+            }
+        }
+        this.maxPathDepth = maxPathDepth;
+    }
+    
+    public static UrlFilter acceptAll() {
+        return ACCEPT_ALL;
+    }
+    
+    /**
+     * Whether a URL of the given kind (HTML for pages) should be queued
+     */
+    public boolean accepts(CanonicalUrl url, String kind) {
+        String path = url.getPath();
+        
+        if (!extensions.isEmpty()) {
+            String filename = url.getFilename();
+            int dot = filename.lastIndexOf('.');
+            if (dot >= 0 && extensions.contains(filename.substring(dot + 1).toLowerCase())) {
+                return false;
+            }
+        }
+        if (exclude != null && exclude.matcher(path).find()) {
+            return false;
+        }
+        if (query != null && url.getQuery() != null && query.matcher(url.getQuery()).find()) {
+            return false;
+        }
+        
+        if (!kind.equals("HTML")) {
+            return true;
+        }
+        if (maxPathDepth >= 0 && segments(path) > maxPathDepth) {
+            return false;
+        }
+        return include == null || include.matcher(path).find();
+    }
+    
+    private static int segments(String path) {
+        int count = 0;
+        for (int i = 1; i < path.length(); i++) {
+            if (path.charAt(i - 1) == '/' && path.charAt(i) != '/') {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    private static Pattern combinePaths(List<String> patterns) {
+        if (patterns.isEmpty()) {
+            return null;
+        }
+        StringBuilder regex = new StringBuilder();
+        for (String pattern : patterns) {
+            if (regex.length() > 0) {
+                regex.append('|');
+            }
+            regex.append("(?:")
+                 .append(pattern.startsWith("re:") ? pattern.substring(3) : globToRegex(pattern))
+                 .append(')');
+        }
+        return Pattern.compile(regex.toString());
+    }
+    
+    private static Pattern combine(List<String> patterns) {
+        if (patterns.isEmpty()) {
+            return null;
+        }
+        StringBuilder regex = new StringBuilder();
+        for (String pattern : patterns) {
+            if (regex.length() > 0) {
+                regex.append('|');
+            }
+            regex.append("(?:").append(pattern).append(')');
+        }
+        return Pattern.compile(regex.toString());
+    }
+    
+    /**
+     * Anchored regex for a glob; one without a leading "/" may start after any "/"
+     */
+    static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder(glob.startsWith("/") ? "^" : "(?:^|/)");
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c != '*' && c != '?') {
+                literal.append(c);
+                continue;
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+                literal.setLength(0);
+            }
+            if (c == '?') {
+                regex.append("[^/]");
+            } else if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                regex.append(".*");
+                i++;
+            } else {
+                regex.append("[^/]*");
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return regex.append('$').toString();
+    }
+}
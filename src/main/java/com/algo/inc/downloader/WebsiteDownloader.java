@@ -1,100 +1,197 @@
 package com.algo.inc.downloader;
 
 import com.algo.inc.database.DatabaseManager;
+import com.algo.inc.metrics.MetricsRegistry;
+import com.algo.inc.model.CanonicalUrl;
+import com.algo.inc.model.ErrorClass;
+import com.algo.inc.model.FrontierEntry;
+import com.algo.inc.model.LinkEdge;
+import com.algo.inc.model.LinkRecord;
+import com.algo.inc.profiling.FetchEvent;
+import com.algo.inc.profiling.FileWriteEvent;
+import com.algo.inc.profiling.LinkExtractionEvent;
+import com.algo.inc.profiling.ParseEvent;
+import com.algo.inc.search.MirrorIndex;
+import com.algo.inc.search.SegmentWriter;
+import com.algo.inc.util.DashboardRenderer;
 import com.algo.inc.util.TerminalUI;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
+import javax.net.ssl.HttpsURLConnection;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.InetAddress;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 public class WebsiteDownloader {
     
     private final DatabaseManager dbManager;
+    private final CrawlOptions options;
+    private final MetricsRegistry metrics = MetricsRegistry.get();
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    private Set<String> downloadedUrls;
-    private String baseUrl;
-    private int websiteId;
-    private long totalDownloadedBytes;
-    private long downloadStartTime;
-    private AtomicInteger totalFiles;
-    private AtomicInteger completedFiles;
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36";
+    private static final int CLAIM_BATCH = 16;
+    private static final int EDGE_BATCH = 500;
+    private static final long IDLE_WAIT_MS = 500;
+    // A site asking for more than this between requests would take days to mirror
+    private static final long MAX_CRAWL_DELAY_MS = 30000;
+    private static final long BASE_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 30000;
+    private static final long MAX_RETRY_AFTER_MS = 120000;
     
     public WebsiteDownloader(DatabaseManager dbManager) {
+        this(dbManager, new CrawlOptions());
+    }
+    
+    public WebsiteDownloader(DatabaseManager dbManager, CrawlOptions options) {
         this.dbManager = dbManager;
-        this.downloadedUrls = new HashSet<>();
-        this.totalFiles = new AtomicInteger(0);
-        this.completedFiles = new AtomicInteger(0);
+        this.options = options;
     }
     
     /**
-     * Download a website and all its resources
+     * Download a website and all its resources in a new session
      * @param url the website URL to download
      * @param downloadDir the directory to save downloaded files
+     * @return the finished session
+     */
+    public CrawlSession downloadWebsite(String url, String downloadDir) throws Exception {
+        CrawlSession session = new CrawlSession();
+        downloadWebsite(session, url, downloadDir);
+        return session;
+    }
+    
+    /**
+     * Download a website and all its resources in the given session, which other threads
+     * may control and poll while it runs
      */
-    public void downloadWebsite(String url, String downloadDir) throws Exception {
-        this.baseUrl = url;
-        this.downloadStartTime = System.currentTimeMillis();
-        this.totalDownloadedBytes = 0;
-        this.downloadedUrls.clear();
-        this.totalFiles.set(0);
-        this.completedFiles.set(0);
+    public void downloadWebsite(CrawlSession session, String url, String downloadDir) throws Exception {
+        CanonicalUrl startUrl = canonical(CanonicalUrl.parse(url));
+        session.start(startUrl);
+        long downloadStartTime = System.currentTimeMillis();
         
         // Create download directory
         Path dirPath = Paths.get(downloadDir);
         Files.createDirectories(dirPath);
         
         // Extract website name from URL
-        String websiteName = extractWebsiteName(url);
+        String websiteName = extractWebsiteName(startUrl);
         
         // Record start time
         String startDateTime = LocalDateTime.now().format(DATETIME_FORMATTER);
-        this.websiteId = dbManager.insertWebsite(websiteName, startDateTime);
+        int websiteId = dbManager.insertWebsite(websiteName, startDateTime);
+        session.setWebsiteId(websiteId);
+        if (options.isSearchIndex()) {
+            session.searchIndex = new SegmentWriter(websiteId);
+        }
+        session.frontier = options.isDistributed() ? new PostgresFrontier(dbManager, websiteId) : new LocalFrontier();
+        
+        // robots.txt also lists the sitemaps, so it is read for those even when its rules are ignored
+        RobotsRules siteRobots = options.isRespectRobots() || options.isSitemaps() 
+            ? RobotsRules.fetch(startUrl, USER_AGENT) : RobotsRules.allowAll();
+        session.robots = options.isRespectRobots() ? siteRobots : RobotsRules.allowAll();
+        loadHistory(session, websiteName);
         
         // Display download info
-        System.out.println();
-        TerminalUI.sectionHeader("DOWNLOAD SESSION");
-        TerminalUI.status("│  Target", url, TerminalUI.BRIGHT_WHITE);
-        TerminalUI.status("│  Directory", downloadDir, TerminalUI.BRIGHT_CYAN);
-        TerminalUI.status("│  Session ID", String.valueOf(websiteId), TerminalUI.BRIGHT_YELLOW);
-        TerminalUI.status("│  Started", startDateTime, TerminalUI.BRIGHT_GREEN);
-        System.out.println(TerminalUI.color("│", TerminalUI.BRIGHT_CYAN));
-        System.out.println(TerminalUI.color("├─ " + TerminalUI.bold("DOWNLOAD PROGRESS"), TerminalUI.BRIGHT_CYAN));
-        System.out.println();
+        if (!options.isQuiet()) {
+            System.out.println();
+            TerminalUI.sectionHeader("DOWNLOAD SESSION");
+            TerminalUI.status("│  Target", url, TerminalUI.BRIGHT_WHITE);
+            TerminalUI.status("│  Directory", downloadDir, TerminalUI.BRIGHT_CYAN);
+            TerminalUI.status("│  Session ID", String.valueOf(websiteId), TerminalUI.BRIGHT_YELLOW);
+            TerminalUI.status("│  Started", startDateTime, TerminalUI.BRIGHT_GREEN);
+            if (options.isDistributed()) {
+                TerminalUI.status("│  Join with", "--join " + websiteId, TerminalUI.BRIGHT_MAGENTA);
+            }
+            System.out.println(TerminalUI.color("│", TerminalUI.BRIGHT_CYAN));
+            System.out.println(TerminalUI.color("├─ " + TerminalUI.bold("DOWNLOAD PROGRESS"), TerminalUI.BRIGHT_CYAN));
+            System.out.println();
+        }
         
+        metrics.activeSessions().increment();
+        DashboardRenderer renderer = new DashboardRenderer();
+        session.renderer = renderer;
         try {
-            // Download the main page
-            downloadPage(url, dirPath);
+            // Crawl from the start page while the dashboard redraws on its own thread;
+            // in quiet mode the renderer only counts and is never started
+            if (!options.isQuiet()) {
+                renderer.start();
+            }
+            try {
+                if (session.robots.isAllowed(startUrl)) {
+                    enqueue(session, startUrl, "HTML", 0);
+                } else {
+                    session.markStartPageFailed();
+                    renderer.error("robots.txt disallows " + startUrl);
+                }
+                if (options.isSitemaps()) {
+                    seedFromSitemaps(session, websiteName, siteRobots.getSitemaps());
+                }
+                crawl(session, dirPath);
+                flushEdges(session);
+                writeSearchIndex(session, dirPath);
+            } finally {
+                renderer.stop();
+                discardLocalFrontier(session);
+            }
             
-            // Record end time and statistics
+            // Record end time and statistics; other nodes' bytes are only known to the database
+            SessionStats.Snapshot stats = session.getStats().snapshot();
             String endDateTime = LocalDateTime.now().format(DATETIME_FORMATTER);
             long totalElapsedTime = System.currentTimeMillis() - downloadStartTime;
-            double totalDownloadedKilobytes = totalDownloadedBytes / 1024.0;
+            double totalDownloadedKilobytes = options.isDistributed() 
+                ? dbManager.sumLinkKilobytes(websiteId) : stats.getBytes() / 1024.0;
             
             dbManager.updateWebsite(websiteId, endDateTime, totalElapsedTime, totalDownloadedKilobytes);
             
+            if (options.isQuiet()) {
+                return;
+            }
+            
             // Display summary
             System.out.println();
             TerminalUI.separator();
             TerminalUI.sectionHeader("DOWNLOAD SUMMARY");
             TerminalUI.status("│  Status", "COMPLETED", TerminalUI.BRIGHT_GREEN);
-            TerminalUI.status("│  Files", String.format("%d/%d", completedFiles.get(), totalFiles.get()), TerminalUI.BRIGHT_CYAN);
-            TerminalUI.status("│  Size", TerminalUI.formatBytes(totalDownloadedBytes), TerminalUI.BRIGHT_GREEN);
+            TerminalUI.status("│  Files", String.format("%d/%d", stats.getCompletedFiles(), stats.getFiles()), TerminalUI.BRIGHT_CYAN);
+            if (session.isSitemapTruncated()) {
+                TerminalUI.status("│  Sitemaps", "limit reached, not every listed page was queued", TerminalUI.BRIGHT_YELLOW);
+            }
+            if (stats.getUnchangedFiles() > 0) {
+                TerminalUI.status("│  Unchanged", stats.getUnchangedFiles() + " not downloaded again", TerminalUI.BRIGHT_CYAN);
+            }
+            TerminalUI.status("│  Size", TerminalUI.formatBytes(stats.getBytes()), TerminalUI.BRIGHT_GREEN);
             TerminalUI.status("│  Duration", TerminalUI.formatDuration(totalElapsedTime), TerminalUI.BRIGHT_YELLOW);
             TerminalUI.status("│  Speed", 
-                             String.format("%s/s", TerminalUI.formatBytes(totalDownloadedBytes * 1000.0 / totalElapsedTime)), 
+                             String.format("%s/s", TerminalUI.formatBytes(stats.getBytes() * 1000.0 / totalElapsedTime)), 
                              TerminalUI.BRIGHT_MAGENTA);
             TerminalUI.status("│  Ended", endDateTime, TerminalUI.BRIGHT_GREEN);
             TerminalUI.sectionFooter();
@@ -102,309 +199,1149 @@ public class WebsiteDownloader {
         } catch (Exception e) {
             String endDateTime = LocalDateTime.now().format(DATETIME_FORMATTER);
             long totalElapsedTime = System.currentTimeMillis() - downloadStartTime;
-            double totalDownloadedKilobytes = totalDownloadedBytes / 1024.0;
+            double totalDownloadedKilobytes = session.getStats().snapshot().getBytes() / 1024.0;
             dbManager.updateWebsite(websiteId, endDateTime, totalElapsedTime, totalDownloadedKilobytes);
             
-            System.out.println();
-            TerminalUI.error("Download failed: " + e.getMessage());
+            if (!options.isQuiet()) {
+                System.out.println();
+                TerminalUI.error("Download failed: " + e.getMessage());
+            }
             throw e;
+        } finally {
+            metrics.activeSessions().decrement();
         }
     }
     
     /**
-     * Download a single page and its resources
+     * Help crawl a distributed session started on another node, until its shared frontier is drained.
+     * The node that started the session records its end time and totals.
+     * @param session this node's part of the session; its statistics cover only this node's fetches
+     * @param sessionId the website ID printed by the starting node
      */
-    private void downloadPage(String url, Path basePath) throws Exception {
-        if (downloadedUrls.contains(url)) {
-            return;
+    public void joinSession(CrawlSession session, int sessionId, String downloadDir) throws Exception {
+        String startUrl = dbManager.getFrontierRoot(sessionId);
+        if (startUrl == null) {
+            throw new IllegalArgumentException("Session " + sessionId + " has no shared frontier to join");
         }
+        CanonicalUrl baseUrl = canonical(CanonicalUrl.parse(startUrl));
+        session.start(baseUrl);
+        session.setWebsiteId(sessionId);
+        if (options.isSearchIndex()) {
+            session.searchIndex = new SegmentWriter(sessionId);
+        }
+        session.frontier = new PostgresFrontier(dbManager, sessionId);
+        session.robots = options.isRespectRobots() ? RobotsRules.fetch(baseUrl, USER_AGENT) : RobotsRules.allowAll();
+        loadHistory(session, extractWebsiteName(baseUrl));
         
-        downloadedUrls.add(url);
-        totalFiles.incrementAndGet();
-        
-        long linkStartTime = System.currentTimeMillis();
-        long linkBytes = 0;
-        int statusCode = 0;
+        Path dirPath = Paths.get(downloadDir);
+        Files.createDirectories(dirPath);
         
+        metrics.activeSessions().increment();
+        DashboardRenderer renderer = new DashboardRenderer();
+        session.renderer = renderer;
         try {
-            // Download the HTML content
-            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-            connection.setRequestProperty("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36");
-            connection.setConnectTimeout(30000);
-            connection.setReadTimeout(30000);
-            statusCode = connection.getResponseCode();
-            
-            Document doc = Jsoup.connect(url)
-                .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
-                .timeout(30000)
-                .get();
-            
-            // Determine file path
-            URL urlObj = new URL(url);
-            String path = urlObj.getPath();
-            if (path.isEmpty() || path.equals("/")) {
-                path = "/index.html";
+            if (!options.isQuiet()) {
+                renderer.start();
+            }
+            try {
+                crawl(session, dirPath);
+                flushEdges(session);
+                writeSearchIndex(session, dirPath);
+            } finally {
+                renderer.stop();
+            }
+        } finally {
+            metrics.activeSessions().decrement();
+        }
+    }
+    
+    /**
+     * Load what earlier sessions of the site recorded: size hints for the fetch order and, for an
+     * incremental session, cache validators and the link graph
+     */
+    private void loadHistory(CrawlSession session, String websiteName) {
+        if (options.getFetchPriority().usesSize()) {
+            session.sizeHints = dbManager.getKnownSizes(websiteName);
+        }
+        if (options.isIncremental()) {
+            session.validators = dbManager.getCacheValidators(websiteName);
+            session.previousGraph = dbManager.getLinkGraph(websiteName);
+        }
+    }
+    
+    /**
+     * Fetch frontier entries in batches until the frontier is drained or the session is cancelled
+     */
+    private void crawl(CrawlSession session, Path basePath) throws Exception {
+        ThreadPoolExecutor largeLane = options.getLargeTransferBytes() > 0 ? newLargeLane() : null;
+        session.largeLane = largeLane;
+        session.diskWriter = new DiskWriter(options.getDiskThreads(), options.getDurability());
+        ScheduledExecutorService renewal = session.frontier instanceof PostgresFrontier ? startLeaseRenewal(session) : null;
+        try {
+            crawlFrontier(session, basePath);
+        } finally {
+            if (largeLane != null) {
+                // Entries on the lane are still leased, so normally it is idle by now
+                largeLane.shutdown();
+                largeLane.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+            // Likewise the files still being saved, so every fetch is recorded before the session ends
+            session.diskWriter.finish();
+            if (renewal != null) {
+                renewal.shutdownNow();
+            }
+        }
+        session.checkFailure();
+    }
+    
+    /**
+     * Keep extending the shared frontier leases of entries still being fetched, so a long
+     * transfer, retry chain or disk write is not handed to another node while it runs
+     */
+    private static ScheduledExecutorService startLeaseRenewal(CrawlSession session) {
+        ScheduledExecutorService renewal = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lease-renewal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = PostgresFrontier.RENEW_INTERVAL_MS;
+        renewal.scheduleWithFixedDelay(() -> {
+            try {
+                session.frontier.renewInFlight();
+            } catch (Exception e) {
+                session.renderer.error("Renewing frontier leases: " + e.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        return renewal;
+    }
+    
+    /**
+     * One thread for large bodies and no queue: when it is busy, the crawl thread streams the
+     * next large body itself, so no connection sits idle waiting for its turn
+     */
+    private static ThreadPoolExecutor newLargeLane() {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "large-transfer");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+    
+    private void crawlFrontier(CrawlSession session, Path basePath) throws Exception {
+        Frontier frontier = session.frontier;
+        CrawlControl control = session.getControl();
+        while (control.proceed()) {
+            session.checkFailure();
+            List<FrontierEntry> batch = frontier.claim(CLAIM_BATCH);
+            if (batch.isEmpty()) {
+                if (frontier.isDrained()) {
+                    return;
+                }
+                // Other nodes still hold leases whose pages may add more URLs
+                Thread.sleep(IDLE_WAIT_MS);
+                continue;
             }
             
-            // Create directory structure
-            Path filePath = basePath.resolve(path.substring(1));
-            Files.createDirectories(filePath.getParent());
+            for (int i = 0; i < batch.size(); i++) {
+                FrontierEntry entry = batch.get(i);
+                if (!frontier.renew(entry)) {
+                    // Its lease ran out while earlier entries of the batch were fetched, and another node took it
+                    continue;
+                }
+                awaitCrawlDelay(session);
+                if (!control.proceed()) {
+                    for (int j = i; j < batch.size(); j++) {
+                        frontier.release(batch.get(j));
+                    }
+                    return;
+                }
+                // Both complete their entries themselves, possibly later on the large-transfer
+                // lane or once the disk stage has saved the file
+                if (entry.getKind().equals("HTML")) {
+                    downloadPage(session, entry, basePath);
+                } else {
+                    downloadResource(session, entry, basePath);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Space requests by the site's Crawl-delay
+     */
+    private static void awaitCrawlDelay(CrawlSession session) throws InterruptedException {
+        long delay = Math.min(session.robots.getCrawlDelayMillis(), MAX_CRAWL_DELAY_MS);
+        if (delay > 0) {
+            long wait = session.lastFetchAt + delay - System.currentTimeMillis();
+            if (wait > 0) {
+                session.getControl().sleep(wait);
+            }
+            session.lastFetchAt = System.currentTimeMillis();
+        }
+    }
+    
+    /**
+     * Queue every same-site page the sitemaps list, so the whole known site is in the frontier
+     * before the first fetch. With the incremental option, pages whose lastmod is not newer
+     * than their last successful download are left out without being requested; the pages
+     * they linked to last time are queued instead.
+     * @param sitemaps from robots.txt; /sitemap.xml is tried when there are none
+     */
+    private void seedFromSitemaps(CrawlSession session, String websiteName, List<CanonicalUrl> sitemaps) throws Exception {
+        CanonicalUrl baseUrl = session.baseUrl;
+        Map<String, Instant> previous = options.isIncremental() 
+            ? dbManager.getLastSuccessfulFetches(websiteName) : Collections.emptyMap();
+        if (sitemaps.isEmpty()) {
+            sitemaps = Collections.singletonList(baseUrl.resolve("/sitemap.xml"));
+        }
+        
+        SitemapReader reader = new SitemapReader(USER_AGENT, options.getMaxSitemapUrls());
+        reader.read(sitemaps, (url, lastmod) -> {
+            CanonicalUrl page = canonical(url);
+            if (!page.isSameHost(baseUrl)) {
+                return;
+            }
+            Instant fetched = lastmod != null ? previous.get(page.toString()) : null;
+            if (fetched != null && !lastmod.isAfter(fetched)) {
+                // Also keeps links to the page from queueing it later
+                int known = session.unchanged.size();
+                session.unchanged.add(page.toString());
+                if (session.unchanged.size() > known) {
+                    session.getStats().fileUnchanged();
+                }
+                return;
+            }
+            enqueue(session, page, "HTML", 0);
+        });
+        if (reader.isTruncated()) {
+            session.markSitemapTruncated();
+            session.renderer.error("Sitemap limit reached; not every listed page was queued");
+        }
+        for (int id = 0; id < session.unchanged.size(); id++) {
+            carryForward(session, CanonicalUrl.parse(session.unchanged.get(id)), 0);
+        }
+    }
+    
+    /**
+     * Add a URL to the frontier and count it if it has not been seen in this session;
+     * URLs robots.txt disallows, URLs the session's filter rejects and unchanged sitemap pages are dropped
+     */
+    private void enqueue(CrawlSession session, CanonicalUrl url, String kind, int depth) throws Exception {
+        if (!session.robots.isAllowed(url) || session.unchanged.contains(url.toString())
+            || (!url.equals(session.baseUrl) && !options.getUrlFilter().accepts(url, kind))) {
+            return;
+        }
+        Long sizeHint = session.sizeHints.get(url.toString());
+        long priority = options.getFetchPriority().rank(kind, depth, sizeHint != null ? sizeHint : -1);
+        if (session.frontier.offer(url, kind, depth, priority)) {
+            session.getStats().fileDiscovered();
+            session.renderer.fileDiscovered();
+        }
+    }
+    
+    /**
+     * Keep what an unchanged page linked to in the last session: its edges go into this session's
+     * graph and its page links are queued, while its resources, unchanged with it, are not fetched
+     */
+    private void carryForward(CrawlSession session, CanonicalUrl page, int depth) throws Exception {
+        List<LinkEdge> edges = session.previousGraph.get(page.toString());
+        if (edges == null) {
+            return;
+        }
+        for (LinkEdge edge : edges) {
+            CanonicalUrl target = CanonicalUrl.parse(edge.getTargetUrl());
+            addEdge(session, page, target, edge.getKind());
+            if (edge.getKind().equals("HTML") && depth < options.getMaxDepth()) {
+                enqueue(session, target, "HTML", depth + 1);
+            }
+        }
+    }
+    
+    /**
+     * Record that a page references a URL; edges are written in batches
+     */
+    private void addEdge(CrawlSession session, CanonicalUrl source, CanonicalUrl target, String kind) throws SQLException {
+        session.pendingEdges.add(new LinkEdge(session.getWebsiteId(), source.toString(), target.toString(), kind));
+        if (session.pendingEdges.size() >= EDGE_BATCH) {
+            flushEdges(session);
+        }
+    }
+    
+    private void flushEdges(CrawlSession session) throws SQLException {
+        dbManager.insertEdges(session.pendingEdges);
+        session.pendingEdges.clear();
+    }
+    
+    /**
+     * Write the session's search index segment and delete segments later sessions replaced;
+     * a failure only costs the index, not the download
+     */
+    private static void writeSearchIndex(CrawlSession session, Path basePath) {
+        if (session.searchIndex == null) {
+            return;
+        }
+        try {
+            session.searchIndex.write(basePath.resolve(MirrorIndex.DIRECTORY));
+            MirrorIndex.prune(basePath);
+        } catch (IOException e) {
+            System.err.println("Error writing search index: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Validators to revalidate a URL with, when an incremental session has them and the copy
+     * they describe is still on disk
+     * @return null to fetch the URL in full
+     */
+    private static LinkRecord cachedCopy(CrawlSession session, String location, Path filePath) {
+        LinkRecord previous = session.validators.get(location);
+        return previous != null && Files.isRegularFile(filePath) ? previous : null;
+    }
+    
+    /**
+     * Whether a conditional request was answered with 304 Not Modified
+     */
+    private static boolean isNotModified(LinkRecord record, LinkRecord previous) {
+        return previous != null && record.getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED;
+    }
+    
+    /**
+     * Forget what is left in a local frontier, so a cancelled session does not leave the queue gauge raised
+     */
+    private static void discardLocalFrontier(CrawlSession session) {
+        if (session.frontier instanceof LocalFrontier) {
+            ((LocalFrontier) session.frontier).clear();
+        }
+    }
+    
+    /**
+     * Download a single page, then queue its resources and, while below the maximum depth, its page links.
+     * The page counts as failed if it could not be fetched or saved; a response skipped for its headers counts as done.
+     */
+    private void downloadPage(CrawlSession session, FrontierEntry entry, Path basePath) throws Exception {
+        CanonicalUrl url = entry.getUrl();
+        String location = url.toString();
+        SessionStats stats = session.getStats();
+        DashboardRenderer renderer = session.renderer;
+        
+        // Determine file path; canonical paths are never empty and have no dot segments
+        String path = url.getPath();
+        if (path.endsWith("/")) {
+            path += "index.html";
+        }
+        FileFetch fetch = new FileFetch(session, entry, new LinkRecord(location, session.getWebsiteId()),
+            renderer.startTransfer(url.getFilename(), "HTML"), basePath.resolve(path.substring(1)));
+        LinkRecord record = fetch.record;
+        LinkRecord previous = cachedCopy(session, location, fetch.filePath);
+        boolean pageReceived = false;
+        Exception failure = null;
+        Document doc = null;
+        metrics.inFlight().increment();
+        fetch.fetchEvent.begin();
+        
+        try {
+            // Download the HTML content once and parse it from memory
+            byte[][] received = new byte[1][];
+            HttpURLConnection connection = withRetries(session, url, record, timeout -> {
+                HttpURLConnection attempt = openConnection(url, record, timeout, previous);
+                if (!isNotModified(record, previous)) {
+                    checkResponse(attempt, record);
+                    received[0] = readBody(attempt, record);
+                }
+                return attempt;
+            });
+            byte[] body = received[0];
+            fetch.fetchEvent.end();
             
-            // Save HTML content
-            String htmlContent = doc.html();
-            byte[] htmlBytes = htmlContent.getBytes("UTF-8");
-            Files.write(filePath, htmlBytes);
-            linkBytes += htmlBytes.length;
+            if (body == null) {
+                // The copy saved by an earlier session is current
+                stats.fileUnchanged();
+            } else {
+                // Followed links can point at non-HTML files; those are saved as received
+                byte[] htmlBytes = body;
+                if (isHtml(record.getContentType())) {
+                    ParseEvent parseEvent = new ParseEvent();
+                    parseEvent.begin();
+                    doc = Jsoup.parse(new ByteArrayInputStream(body), null, connection.getURL().toString());
+                    if (parseEvent.shouldCommit()) {
+                        parseEvent.url = location;
+                        parseEvent.bytes = body.length;
+                        parseEvent.commit();
+                    }
+                    htmlBytes = doc.html().getBytes("UTF-8");
+                    if (session.searchIndex != null) {
+                        session.searchIndex.add(location, path.substring(1), doc.title(), 
+                                                doc.body() != null ? doc.body().text() : "");
+                    }
+                }
+                
+                // Saved on the disk stage while the links are queued
+                fetch.body = htmlBytes;
+                fetch.bytes = htmlBytes.length;
+            }
             
             // Show progress
-            long elapsed = System.currentTimeMillis() - linkStartTime;
-            completedFiles.incrementAndGet();
-            printDownloadStatus(url, statusCode, linkBytes, elapsed, true);
+            fetch.transfer.add(fetch.bytes);
+            pageReceived = true;
             
-            // Download linked resources (CSS, JS, images)
-            downloadResources(doc, basePath, url);
+            // Queue linked resources (CSS, JS, images) and same-site pages one level deeper;
+            // an unchanged page keeps the links it had in the last session
+            if (doc != null) {
+                enqueueResources(session, doc, url, entry.getDepth());
+                if (entry.getDepth() < options.getMaxDepth()) {
+                    for (CanonicalUrl pageUrl : extractPageLinks(doc, url, session.baseUrl)) {
+                        addEdge(session, url, pageUrl, "HTML");
+                        enqueue(session, pageUrl, "HTML", entry.getDepth() + 1);
+                    }
+                }
+            } else if (body == null) {
+                carryForward(session, url, entry.getDepth());
+            }
             
         } catch (Exception e) {
-            completedFiles.incrementAndGet();
-            long elapsed = System.currentTimeMillis() - linkStartTime;
-            printDownloadStatus(url, statusCode > 0 ? statusCode : 0, linkBytes, elapsed, false);
-            TerminalUI.error("  Failed: " + e.getMessage());
+            // A page that is gone must stop matching searches; other failures keep the indexed copy
+            if (session.searchIndex != null && (record.getStatusCode() == 404 || record.getStatusCode() == 410)) {
+                session.searchIndex.remove(location);
+            }
+            if (pageReceived) {
+                // The page itself is fine; only queueing its links went wrong
+                record.setErrorClass(classify(e, record.getStatusCode()));
+                renderer.error(url.getFilename() + ": " + e.getMessage());
+            } else {
+                failure = e;
+            }
         }
         
-        long linkElapsedTime = System.currentTimeMillis() - linkStartTime;
-        totalDownloadedBytes += linkBytes;
-        double linkKilobytes = linkBytes / 1024.0;
-        
-        // Record link in database
-        dbManager.insertLink(url, websiteId, linkElapsedTime, linkKilobytes);
+        finishBody(fetch, failure);
     }
     
     /**
-     * Download resources linked from the HTML document
+     * Same-site page links of a document, without fragments, in document order
      */
-    private void downloadResources(Document doc, Path basePath, String pageUrl) throws Exception {
-        // Download CSS files
-        Elements cssLinks = doc.select("link[rel=stylesheet]");
-        for (Element link : cssLinks) {
-            String href = link.attr("href");
-            if (!href.isEmpty()) {
-                String absoluteUrl = resolveUrl(pageUrl, href);
-                if (isSameDomain(absoluteUrl)) {
-                    downloadResource(absoluteUrl, basePath, "CSS");
-                }
+    private Set<CanonicalUrl> extractPageLinks(Document doc, CanonicalUrl pageUrl, CanonicalUrl baseUrl) {
+        Set<CanonicalUrl> pages = new LinkedHashSet<>();
+        for (Element anchor : doc.select("a[href]")) {
+            String href = anchor.attr("href");
+            if (href.isEmpty() || href.startsWith("#")) {
+                continue;
+            }
+            // mailto:, javascript: and malformed links do not resolve
+            CanonicalUrl target = resolve(pageUrl, href);
+            if (target != null && target.isSameHost(baseUrl)) {
+                pages.add(target);
             }
         }
-        
-        // Download JavaScript files
+        return pages;
+    }
+    
+    /**
+     * Queue same-site resources linked from the HTML document at the page's depth
+     */
+    private void enqueueResources(CrawlSession session, Document doc, CanonicalUrl pageUrl, int depth) throws Exception {
+        LinkExtractionEvent extractionEvent = new LinkExtractionEvent();
+        extractionEvent.begin();
+        Elements cssLinks = doc.select("link[rel=stylesheet]");
         Elements jsScripts = doc.select("script[src]");
-        for (Element script : jsScripts) {
-            String src = script.attr("src");
-            if (!src.isEmpty()) {
-                String absoluteUrl = resolveUrl(pageUrl, src);
-                if (isSameDomain(absoluteUrl)) {
-                    downloadResource(absoluteUrl, basePath, "JS");
-                }
-            }
+        Elements images = doc.select("img[src]");
+        if (extractionEvent.shouldCommit()) {
+            extractionEvent.url = pageUrl.toString();
+            extractionEvent.linksFound = cssLinks.size() + jsScripts.size() + images.size();
+            extractionEvent.commit();
         }
         
-        // Download images
-        Elements images = doc.select("img[src]");
-        for (Element img : images) {
-            String src = img.attr("src");
-            if (!src.isEmpty()) {
-                String absoluteUrl = resolveUrl(pageUrl, src);
-                if (isSameDomain(absoluteUrl)) {
-                    downloadResource(absoluteUrl, basePath, "IMG");
+        enqueueResources(session, cssLinks, "href", pageUrl, "CSS", depth);
+        enqueueResources(session, jsScripts, "src", pageUrl, "JS", depth);
+        enqueueResources(session, images, "src", pageUrl, "IMG", depth);
+    }
+    
+    private void enqueueResources(CrawlSession session, Elements elements, String attribute, CanonicalUrl pageUrl, 
+                                  String type, int depth) throws Exception {
+        for (Element element : elements) {
+            String link = element.attr(attribute);
+            if (!link.isEmpty()) {
+                CanonicalUrl target = resolve(pageUrl, link);
+                if (target != null && target.isSameHost(session.baseUrl)) {
+                    addEdge(session, pageUrl, target, type);
+                    enqueue(session, target, type, depth);
                 }
             }
         }
     }
     
     /**
-     * Download a resource file
+     * Download a resource file and complete its frontier entry. Once the headers show a body of
+     * at least the large-transfer size, the body is streamed on the large-transfer lane so this
+     * thread can go on with smaller files; when the lane is busy it is streamed here as before.
+     * Small bodies are read into memory and saved by the disk stage.
      */
-    private void downloadResource(String url, Path basePath, String type) throws Exception {
-        if (downloadedUrls.contains(url)) {
+    private void downloadResource(CrawlSession session, FrontierEntry entry, Path basePath) throws Exception {
+        CanonicalUrl url = entry.getUrl();
+        String location = url.toString();
+        String type = entry.getKind();
+        DashboardRenderer renderer = session.renderer;
+        
+        String path = url.getPath();
+        if (path.equals("/")) {
+            session.getStats().fileCompleted(false);
+            renderer.finishTransfer(renderer.startTransfer(location, type), null);
+            session.frontier.complete(entry, true);
             return;
         }
         
-        downloadedUrls.add(url);
-        totalFiles.incrementAndGet();
-        
-        String filename = extractFilename(url);
-        long linkStartTime = System.currentTimeMillis();
-        long linkBytes = 0;
-        int statusCode = 0;
+        FileFetch fetch = new FileFetch(session, entry, new LinkRecord(location, session.getWebsiteId()),
+            renderer.startTransfer(url.getFilename(), type), basePath.resolve(path.substring(1)));
+        LinkRecord previous = cachedCopy(session, location, fetch.filePath);
+        metrics.inFlight().increment();
+        fetch.fetchEvent.begin();
         
+        HttpURLConnection connection;
         try {
-            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-            connection.setRequestProperty("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36");
-            connection.setConnectTimeout(30000);
-            connection.setReadTimeout(30000);
-            statusCode = connection.getResponseCode();
-            
-            URL urlObj = new URL(url);
-            String path = urlObj.getPath();
-            if (path.isEmpty() || path.equals("/")) {
-                completedFiles.incrementAndGet();
-                return;
+            connection = withRetries(session, url, fetch.record, 
+                timeout -> openChecked(url, fetch.record, timeout, previous));
+        } catch (Exception e) {
+            finishFetch(fetch, e);
+            return;
+        }
+        
+        if (isNotModified(fetch.record, previous)) {
+            // The copy saved by an earlier session is current
+            fetch.fetchEvent.end();
+            session.getStats().fileUnchanged();
+            finishFetch(fetch, null);
+            return;
+        }
+        
+        long largeBytes = options.getLargeTransferBytes();
+        ThreadPoolExecutor largeLane = session.largeLane;
+        if (largeLane != null && largeBytes > 0 && connection.getContentLengthLong() >= largeBytes) {
+            largeLane.execute(() -> {
+                try {
+                    finishBody(fetch, streamBody(fetch, connection));
+                } catch (Exception e) {
+                    abortFetch(fetch, e);
+                }
+            });
+        } else {
+            finishBody(fetch, streamBody(fetch, connection));
+        }
+    }
+    
+    private HttpURLConnection openChecked(CanonicalUrl url, LinkRecord record, int timeout, 
+                                          LinkRecord previous) throws IOException {
+        HttpURLConnection connection = openConnection(url, record, timeout, previous);
+        checkResponse(connection, record);
+        return connection;
+    }
+    
+    /**
+     * Receive a resource body; a transfer that breaks off with a transient error
+     * is started over on a new connection while retries are left
+     * @return null on success, otherwise what went wrong
+     */
+    private Exception streamBody(FileFetch fetch, HttpURLConnection connection) {
+        CanonicalUrl url = fetch.entry.getUrl();
+        HostHealth health = HostHealth.of(url.getHost());
+        HttpURLConnection current = connection;
+        while (true) {
+            try {
+                transferBody(fetch, current);
+                return null;
+            } catch (Exception e) {
+                try {
+                    if (!retryAfter(fetch.session, health, fetch.record, e)) {
+                        return e;
+                    }
+                    fetch.bytes = 0;
+                    fetch.transfer.restart();
+                    // The copy on disk may be partly overwritten by now, so no conditional request
+                    current = withRetries(fetch.session, url, fetch.record, 
+                        timeout -> openChecked(url, fetch.record, timeout, null));
+                } catch (Exception retryFailure) {
+                    return retryFailure;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Read a resource body with progress. A body below the disk stage's limit is kept in memory
+     * for it to save; a larger one, or one that turns out larger than it announced, is streamed
+     * to the file on this thread.
+     */
+    private void transferBody(FileFetch fetch, HttpURLConnection connection) throws Exception {
+        long transferStart = System.nanoTime();
+        CrawlControl control = fetch.session.getControl();
+        FileWriteEvent writeEvent = new FileWriteEvent();
+        long length = connection.getContentLengthLong();
+        ByteArrayOutputStream held = length < DiskWriter.MAX_BODY_BYTES 
+            ? new ByteArrayOutputStream(length > 0 ? (int) length : 8192) : null;
+        OutputStream out = null;
+        fetch.body = null;
+        writeEvent.begin();
+        try (InputStream in = connection.getInputStream()) {
+            if (held == null) {
+                out = openPartialFile(fetch);
             }
             
-            // Create directory structure
-            Path filePath = basePath.resolve(path.substring(1));
-            Files.createDirectories(filePath.getParent());
+            byte[] buffer = new byte[8192];
+            int bytesRead;
+            long maxBytes = options.getMaxContentLength();
+            ThroughputGuard guard = newThroughputGuard(transferStart);
+            MessageDigest digest = newContentDigest();
             
-            // Download file with progress
-            try (InputStream in = connection.getInputStream();
-                 FileOutputStream out = new FileOutputStream(filePath.toFile())) {
-                
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                long lastUpdate = System.currentTimeMillis();
-                
-                while ((bytesRead = in.read(buffer)) != -1) {
+            while ((bytesRead = in.read(buffer)) != -1) {
+                if (control.isCancelled()) {
+                    throw new IOException("Cancelled");
+                }
+                if (maxBytes >= 0 && fetch.bytes + bytesRead > maxBytes) {
+                    // No usable Content-Length up front; stop once the body proves too large
+                    throw new ResponseRejectedException("Body larger than " + TerminalUI.formatBytes(maxBytes));
+                }
+                if (held != null && held.size() + bytesRead > DiskWriter.MAX_BODY_BYTES) {
+                    // Too large to keep after all; what arrived so far goes to the file first
+                    out = openPartialFile(fetch);
+                    held.writeTo(out);
+                    held = null;
+                }
+                if (held != null) {
+                    held.write(buffer, 0, bytesRead);
+                } else {
+                    long writeStart = System.nanoTime();
                     out.write(buffer, 0, bytesRead);
-                    linkBytes += bytesRead;
-                    
-                    // Update progress every 100ms
-                    long now = System.currentTimeMillis();
-                    if (now - lastUpdate > 100) {
-                        long elapsed = now - linkStartTime;
-                        printResourceProgress(type, filename, linkBytes, elapsed, statusCode);
-                        lastUpdate = now;
-                    }
+                    writeEvent.diskTime += System.nanoTime() - writeStart;
                 }
+                digest.update(buffer, 0, bytesRead);
+                fetch.bytes += bytesRead;
+                
+                // The dashboard picks this up on its next frame
+                fetch.transfer.add(bytesRead);
+                guard.update(fetch.bytes, System.nanoTime());
             }
-            
-            long elapsed = System.currentTimeMillis() - linkStartTime;
-            completedFiles.incrementAndGet();
-            printDownloadStatus(url, statusCode, linkBytes, elapsed, true);
-            
-        } catch (Exception e) {
-            completedFiles.incrementAndGet();
-            long elapsed = System.currentTimeMillis() - linkStartTime;
-            printDownloadStatus(url, statusCode > 0 ? statusCode : 0, linkBytes, elapsed, false);
-            // Don't print error for resources to avoid clutter
+            fetch.record.setContentHash(HexFormat.of().formatHex(digest.digest()));
+            if (held != null) {
+                fetch.body = held.toByteArray();
+            }
+        } finally {
+            if (out != null) {
+                out.close();
+            }
+            fetch.record.setTransferTime(millisSince(transferStart));
+            fetch.record.setWireBytes(fetch.bytes);
+            fetch.fetchEvent.end();
+            // Bodies saved by the disk stage are recorded there
+            if (fetch.partial && writeEvent.shouldCommit()) {
+                writeEvent.url = fetch.record.getLinkName();
+                writeEvent.path = fetch.filePath.toString();
+                writeEvent.bytes = fetch.bytes;
+                writeEvent.commit();
+            }
+        }
+    }
+    
+    private static OutputStream openPartialFile(FileFetch fetch) throws IOException {
+        fetch.session.diskWriter.createDirectories(fetch.filePath.getParent());
+        fetch.partial = true;
+        return new FileOutputStream(fetch.filePath.toFile());
+    }
+    
+    /**
+     * Finish a fetch whose body has been received: a body held in memory is handed to the
+     * disk stage, and the fetch is recorded once the file is saved
+     * @param failure null if the body was received
+     */
+    private void finishBody(FileFetch fetch, Exception failure) throws Exception {
+        if (failure != null || fetch.body == null) {
+            finishFetch(fetch, failure);
+            return;
+        }
+        byte[] body = fetch.body;
+        fetch.body = null;
+        fetch.session.diskWriter.write(fetch.filePath, body, fetch.record.getLinkName(), saveFailure -> {
+            try {
+                finishFetch(fetch, saveFailure);
+            } catch (Exception e) {
+                abortFetch(fetch, e);
+            }
+        });
+    }
+    
+    /**
+     * Handle an error thrown while finishing a fetch on the large-transfer lane or the disk
+     * stage as the crawl thread would have: a fetch not yet finished is recorded as failed and
+     * its entry completed, so the frontier still drains, and the session ends with the error
+     */
+    private void abortFetch(FileFetch fetch, Exception failure) {
+        fetch.session.renderer.error(fetch.entry.getUrl().getFilename() + ": " + failure.getMessage());
+        if (!fetch.finished) {
+            try {
+                finishFetch(fetch, failure);
+            } catch (Exception e) {
+                failure.addSuppressed(e);
+            }
+        }
+        fetch.session.fail(failure);
+    }
+    
+    /**
+     * Count, record and complete a page or resource fetch. The entry is completed even if
+     * recording fails, so the frontier still drains; the error is thrown after that.
+     * @param failure null if the body was saved or the saved copy is current
+     */
+    private void finishFetch(FileFetch fetch, Exception failure) throws Exception {
+        fetch.finished = true;
+        boolean success = failure == null || failure instanceof ResponseRejectedException;
+        try {
+            recordFetch(fetch, failure, success);
+        } finally {
+            fetch.session.frontier.complete(fetch.entry, success);
+        }
+    }
+    
+    private void recordFetch(FileFetch fetch, Exception failure, boolean success) throws Exception {
+        LinkRecord record = fetch.record;
+        SessionStats stats = fetch.session.getStats();
+        DashboardRenderer renderer = fetch.session.renderer;
+        stats.fileCompleted(!success);
+        if (failure == null) {
+            renderer.finishTransfer(fetch.transfer, null);
+        } else if (failure instanceof ResponseRejectedException) {
+            record.setErrorClass(ErrorClass.FILTERED);
+            renderer.finishTransfer(fetch.transfer, null);
+            if (fetch.partial) {
+                deletePartialFile(fetch.filePath);
+            }
+        } else {
+            record.setErrorClass(classify(failure, record.getStatusCode()));
+            renderer.finishTransfer(fetch.transfer, describeFailure(record, failure));
+        }
+        if (failure != null && fetch.entry.getUrl().equals(fetch.session.baseUrl)) {
+            fetch.session.markStartPageFailed();
         }
         
-        long linkElapsedTime = System.currentTimeMillis() - linkStartTime;
-        totalDownloadedBytes += linkBytes;
-        double linkKilobytes = linkBytes / 1024.0;
+        long linkElapsedTime = System.currentTimeMillis() - fetch.linkStartTime;
+        long fetchNanos = System.nanoTime() - fetch.fetchStart;
+        stats.addBytes(fetch.bytes);
+        stats.recordFetch(record.getStatusCode(), record.getErrorClass(), fetchNanos);
+        metrics.inFlight().decrement();
+        metrics.recordFetch(record.getLinkName(), record.getStatusCode(), record.getErrorClass(), record.getWireBytes(), 
+                            fetchNanos);
+        commitFetchEvent(fetch.fetchEvent, record);
         
         // Record link in database
-        dbManager.insertLink(url, websiteId, linkElapsedTime, linkKilobytes);
+        record.setTotalElapsedTime(linkElapsedTime);
+        record.setTotalDownloadedKilobytes(fetch.bytes / 1024.0);
+        dbManager.insertLink(record);
     }
     
     /**
-     * Print download status
+     * State of one page or resource fetch, which may finish on another thread: a large body
+     * moves to the large-transfer lane after its headers arrive, and a body held in memory is
+     * recorded once the disk stage has saved it
      */
-    private void printDownloadStatus(String url, int statusCode, long bytes, long elapsedMs, boolean success) {
-        String statusColor = success ? TerminalUI.BRIGHT_GREEN : TerminalUI.BRIGHT_RED;
-        String statusIcon = success ? TerminalUI.CHECK : TerminalUI.CROSS;
-        
-        String statusCodeStr = statusCode > 0 ? 
-            TerminalUI.color(String.valueOf(statusCode), statusColor) : 
-            TerminalUI.dim("---");
-        
-        String sizeStr = TerminalUI.color(TerminalUI.formatBytes(bytes), TerminalUI.BRIGHT_CYAN);
-        String timeStr = TerminalUI.color(TerminalUI.formatDuration(elapsedMs), TerminalUI.BRIGHT_YELLOW);
-        String filename = TerminalUI.dim(truncate(extractFilename(url), 35));
+    private static final class FileFetch {
+        final CrawlSession session;
+        final FrontierEntry entry;
+        final LinkRecord record;
+        final DashboardRenderer.Transfer transfer;
+        final Path filePath;
+        final FetchEvent fetchEvent = new FetchEvent();
+        final long linkStartTime = System.currentTimeMillis();
+        final long fetchStart = System.nanoTime();
+        long bytes;
+        // The body to save, if it was read into memory rather than streamed to the file
+        byte[] body;
+        // Set once the fetch thread has opened the file itself, so a rejected body leaves a partial file
+        boolean partial;
+        // Set once the fetch is being recorded and its entry completed
+        boolean finished;
         
-        String progress = String.format("[%s/%s] %s %s %s %s %s",
-            TerminalUI.color(String.valueOf(completedFiles.get()), TerminalUI.BRIGHT_CYAN),
-            TerminalUI.color(String.valueOf(totalFiles.get()), TerminalUI.DIM),
-            TerminalUI.color(statusIcon, statusColor),
-            statusCodeStr,
-            sizeStr,
-            timeStr,
-            filename
-        );
+        FileFetch(CrawlSession session, FrontierEntry entry, LinkRecord record, 
+                      DashboardRenderer.Transfer transfer, Path filePath) {
+            this.session = session;
+            this.entry = entry;
+            this.record = record;
+            this.transfer = transfer;
+            this.filePath = filePath;
+        }
+    }
+    
+    /**
+     * One try at a fetch
+     */
+    private interface Attempt<T> {
+        /**
+         * @param timeout connect and read timeout for this try, in milliseconds
+         */
+        T run(int timeout) throws Exception;
+    }
+    
+    /**
+     * Run a fetch, trying it again after timeouts, resets, 5xx and 429 with jittered exponential
+     * backoff. Each try waits for the host's circuit breaker first and uses a timeout fitted to
+     * the host's response times; retries share one budget per record.
+     */
+    private <T> T withRetries(CrawlSession session, CanonicalUrl url, LinkRecord record, 
+                              Attempt<T> attempt) throws Exception {
+        HostHealth health = HostHealth.of(url.getHost());
+        while (true) {
+            awaitHost(session.getControl(), health, url);
+            try {
+                T result = attempt.run(health.timeoutMillis(record.getRetries(), options.getTimeoutMillis()));
+                health.success();
+                return result;
+            } catch (Exception e) {
+                if (!retryAfter(session, health, record, e)) {
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Wait until the host's circuit breaker lets a request through
+     * @throws HostDownException if the host has been failing for longer than the session waits
+     */
+    private void awaitHost(CrawlControl control, HostHealth health, CanonicalUrl url) throws IOException, InterruptedException {
+        long wait;
+        while ((wait = health.permit(System.currentTimeMillis(), options.getHostGiveUpMillis())) != 0) {
+            if (wait < 0) {
+                throw new HostDownException(url.getHost());
+            }
+            control.sleep(wait);
+            if (control.isCancelled()) {
+                throw new IOException("Cancelled");
+            }
+        }
+    }
+    
+    /**
+     * Tell the host's breaker how a try went and, if the failure is transient and retries
+     * are left, wait out the backoff
+     * @return true if the fetch should be tried again
+     */
+    private boolean retryAfter(CrawlSession session, HostHealth health, LinkRecord record, 
+                               Exception e) throws InterruptedException {
+        CrawlControl control = session.getControl();
+        int statusCode = record.getStatusCode();
+        ErrorClass errorClass = classify(e, statusCode);
+        if (isHostFailure(errorClass, statusCode)) {
+            health.failure(System.currentTimeMillis());
+        } else {
+            health.success();
+        }
+        if (!isTransient(errorClass, statusCode) || record.getRetries() >= options.getMaxRetries() 
+            || control.isCancelled()) {
+            return false;
+        }
+        record.setRetries(record.getRetries() + 1);
+        metrics.retries().increment();
+        session.getStats().retried();
+        control.sleep(backoffMillis(record.getRetries()));
         
-        System.out.println("  " + progress);
+        // The next try records its own response
+        record.setStatusCode(0);
+        record.setContentType(null);
+        return !control.isCancelled();
+    }
+    
+    /**
+     * Failures worth another try: timeouts, refused or reset connections, trickling bodies,
+     * overload and throttling
+     */
+    private static boolean isTransient(ErrorClass errorClass, int statusCode) {
+        switch (errorClass) {
+            case TIMEOUT:
+            case SLOW_TRANSFER:
+            case CONNECT:
+            case IO:
+                return true;
+            case HTTP_5XX:
+                return statusCode == 500 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+            case HTTP_4XX:
+                return statusCode == 408 || statusCode == 429;
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * Failures that count against the host's circuit breaker. Filtered responses and other
+     * 4xx answers show the host is up.
+     */
+    private static boolean isHostFailure(ErrorClass errorClass, int statusCode) {
+        switch (errorClass) {
+            case DNS:
+            case TIMEOUT:
+            case SLOW_TRANSFER:
+            case CONNECT:
+            case IO:
+            case HTTP_5XX:
+                return true;
+            case HTTP_4XX:
+                return statusCode == 429;
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * Exponential backoff with equal jitter: half the step is fixed, half random, so
+     * retries from many fetches spread out instead of arriving together
+     */
+    private static long backoffMillis(int retry) {
+        long step = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(retry - 1, 16));
+        return step / 2 + ThreadLocalRandom.current().nextLong(step / 2 + 1);
+    }
+    
+    private static ErrorClass classify(Exception e, int statusCode) {
+        if (e instanceof ResponseRejectedException) {
+            return ErrorClass.FILTERED;
+        }
+        if (e instanceof HostDownException) {
+            return ErrorClass.HOST_DOWN;
+        }
+        if (e instanceof SlowTransferException) {
+            return ErrorClass.SLOW_TRANSFER;
+        }
+        return ErrorClass.classify(e, statusCode);
     }
     
     /**
-     * Print resource download progress
+     * Open a connection and wait for the response headers, recording the DNS, connect,
+     * TLS and time-to-first-byte phases plus status code, content type, validators and redirect
+     * target on the record
+     * @param timeout connect and read timeout in milliseconds
+     * @param previous validators of a saved copy to revalidate, or null for a plain request
      */
-    private void printResourceProgress(String type, String filename, long bytes, long elapsedMs, int statusCode) {
-        TerminalUI.clearLine();
-        String typeColor = type.equals("CSS") ? TerminalUI.BRIGHT_BLUE : 
-                          type.equals("JS") ? TerminalUI.BRIGHT_YELLOW : 
-                          TerminalUI.BRIGHT_MAGENTA;
+    private HttpURLConnection openConnection(CanonicalUrl url, LinkRecord record, int timeout, 
+                                             LinkRecord previous) throws IOException {
+        URL urlObj = new URL(url.toString());
         
-        String typeLabel = TerminalUI.color("[" + type + "]", typeColor);
-        String sizeStr = TerminalUI.color(TerminalUI.formatBytes(bytes), TerminalUI.BRIGHT_CYAN);
-        String speed = elapsedMs > 0 ? 
-            TerminalUI.color(TerminalUI.formatBytes(bytes * 1000.0 / elapsedMs) + "/s", TerminalUI.BRIGHT_GREEN) : 
-            TerminalUI.dim("---");
-        String fileStr = TerminalUI.dim(truncate(filename, 30));
+        // Resolve up front so the lookup is timed on its own; the connection then hits the JVM's DNS cache
+        long dnsStart = System.nanoTime();
+        InetAddress.getAllByName(url.getHost());
+        record.setDnsTime(millisSince(dnsStart));
+        
+        HttpURLConnection connection = (HttpURLConnection) urlObj.openConnection();
+        connection.setRequestProperty("User-Agent", USER_AGENT);
+        connection.setConnectTimeout(timeout);
+        connection.setReadTimeout(timeout);
+        if (previous != null) {
+            if (previous.getEtag() != null) {
+                connection.setRequestProperty("If-None-Match", previous.getEtag());
+            }
+            if (previous.getLastModified() != null) {
+                connection.setRequestProperty("If-Modified-Since", previous.getLastModified());
+            }
+        }
+        if (connection instanceof HttpsURLConnection) {
+            ((HttpsURLConnection) connection).setSSLSocketFactory(TimingSSLSocketFactory.getInstance());
+        }
+        
+        TimingSSLSocketFactory.reset();
+        long connectStart = System.nanoTime();
+        connection.connect();
+        long connected = System.nanoTime();
+        
+        // For HTTPS the handshake starts as soon as TCP is up; reused keep-alive connections report neither
+        long tcpConnected = TimingSSLSocketFactory.tcpConnectedAt();
+        if (tcpConnected >= connectStart) {
+            record.setConnectTime((tcpConnected - connectStart) / 1_000_000);
+            record.setTlsTime((connected - tcpConnected) / 1_000_000);
+        } else {
+            record.setConnectTime((connected - connectStart) / 1_000_000);
+        }
         
-        System.out.print("  " + typeLabel + " " + sizeStr + " @ " + speed + " " + fileStr);
+        record.setStatusCode(connection.getResponseCode());
+        record.setTimeToFirstByte(millisSince(connected));
+        record.setContentType(connection.getContentType());
+        record.setEtag(connection.getHeaderField("ETag"));
+        record.setLastModified(connection.getHeaderField("Last-Modified"));
+        if (isNotModified(record, previous)) {
+            // The copy on disk is confirmed: it keeps its hash, and is revalidated the same way next time
+            record.setContentHash(previous.getContentHash());
+            if (!record.hasValidators()) {
+                record.setEtag(previous.getEtag());
+                record.setLastModified(previous.getLastModified());
+            }
+        }
+        CanonicalUrl finalUrl = canonical(CanonicalUrl.parse(connection.getURL().toString()));
+        if (!finalUrl.equals(url)) {
+            record.setFinalUrl(finalUrl.toString());
+        }
+        
+        HostHealth health = HostHealth.of(url.getHost());
+        health.recordResponseTime(System.nanoTime() - connectStart);
+        if (record.getStatusCode() == 429 || record.getStatusCode() == 503) {
+            long retryAfter = retryAfterMillis(connection);
+            if (retryAfter > 0) {
+                health.backOffUntil(System.currentTimeMillis() + Math.min(retryAfter, MAX_RETRY_AFTER_MS));
+            }
+        }
+        return connection;
     }
     
     /**
-     * Extract filename from URL
+     * Delay asked for by a Retry-After header, in seconds or as an HTTP date
+     * @return 0 if there is none
      */
-    private String extractFilename(String url) {
+    private static long retryAfterMillis(HttpURLConnection connection) {
+        String value = connection.getHeaderField("Retry-After");
+        if (value == null) {
+            return 0;
+        }
         try {
-            URL urlObj = new URL(url);
-            String path = urlObj.getPath();
-            if (path.isEmpty() || path.equals("/")) {
-                return "index.html";
-            }
-            String[] parts = path.split("/");
-            return parts[parts.length - 1];
-        } catch (Exception e) {
-            return url;
+            return Long.parseLong(value.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            long date = connection.getHeaderFieldDate("Retry-After", 0);
+            return date > 0 ? date - System.currentTimeMillis() : 0;
         }
     }
     
     /**
-     * Truncate string
+     * Abort a successful response whose headers are outside the session's Content-Type or size
+     * limits before any of its body is read. Error responses are left to fail as usual.
      */
-    private String truncate(String str, int maxLength) {
-        if (str == null || str.length() <= maxLength) {
-            return str != null ? str : "";
+    private void checkResponse(HttpURLConnection connection, LinkRecord record) throws ResponseRejectedException {
+        if (record.getStatusCode() / 100 != 2) {
+            return;
+        }
+        String contentType = record.getContentType();
+        if (contentType != null && !isAcceptedType(contentType)) {
+            connection.disconnect();
+            throw new ResponseRejectedException("Content-Type " + contentType + " not accepted");
+        }
+        long maxBytes = options.getMaxContentLength();
+        long length = connection.getContentLengthLong();
+        if (maxBytes >= 0 && length > maxBytes) {
+            connection.disconnect();
+            throw new ResponseRejectedException("Content-Length " + TerminalUI.formatBytes(length) + " over the limit");
+        }
+    }
+    
+    private boolean isAcceptedType(String contentType) {
+        List<String> accepted = options.getAcceptedContentTypes();
+        if (accepted.isEmpty()) {
+            return true;
+        }
+        int semicolon = contentType.indexOf(';');
+        String mimeType = (semicolon >= 0 ? contentType.substring(0, semicolon) : contentType).trim().toLowerCase();
+        for (String type : accepted) {
+            if (type.endsWith("/*") ? mimeType.startsWith(type.substring(0, type.length() - 1)) : mimeType.equals(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static void deletePartialFile(Path filePath) {
+        try {
+            Files.deleteIfExists(filePath);
+        } catch (IOException e) {
+            // Left for the next session to overwrite
         }
-        return str.substring(0, maxLength - 3) + "...";
     }
     
     /**
-     * Resolve a relative URL to an absolute URL
+     * Read the whole response body into memory, recording the transfer phase;
+     * stops early if it grows past the session's size limit or arrives too slowly
      */
-    private String resolveUrl(String baseUrl, String relativeUrl) throws Exception {
-        URL base = new URL(baseUrl);
-        URL resolved = new URL(base, relativeUrl);
-        return resolved.toString();
+    private byte[] readBody(HttpURLConnection connection, LinkRecord record) throws IOException {
+        long transferStart = System.nanoTime();
+        long maxBytes = options.getMaxContentLength();
+        ThroughputGuard guard = newThroughputGuard(transferStart);
+        // Sized from Content-Length, within reason, so a typical page is read without regrowing
+        ByteArrayOutputStream body = new ByteArrayOutputStream(Math.min(Math.max(connection.getContentLength(), 8192), 4 << 20));
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int bytesRead;
+            MessageDigest digest = newContentDigest();
+            while ((bytesRead = in.read(buffer)) != -1) {
+                if (maxBytes >= 0 && body.size() + bytesRead > maxBytes) {
+                    throw new ResponseRejectedException("Body larger than " + TerminalUI.formatBytes(maxBytes));
+                }
+                body.write(buffer, 0, bytesRead);
+                digest.update(buffer, 0, bytesRead);
+                guard.update(body.size(), System.nanoTime());
+            }
+            record.setContentHash(HexFormat.of().formatHex(digest.digest()));
+            return body.toByteArray();
+        } finally {
+            record.setWireBytes(body.size());
+            record.setTransferTime(millisSince(transferStart));
+        }
     }
     
     /**
-     * Check if URL is from the same domain
+     * Digest for content hashes, fed while the body streams in so the saved files are never read back
      */
-    private boolean isSameDomain(String url) {
+    private static MessageDigest newContentDigest() {
         try {
-            URL urlObj = new URL(url);
-            URL baseObj = new URL(baseUrl);
-            return urlObj.getHost().equals(baseObj.getHost());
-        } catch (Exception e) {
-            return false;
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to have it
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private ThroughputGuard newThroughputGuard(long startNanos) {
+        return new ThroughputGuard(options.getMinThroughput(), options.getThroughputWindowMillis(), startNanos);
+    }
+    
+    private static void commitFetchEvent(FetchEvent event, LinkRecord record) {
+        if (event.shouldCommit()) {
+            event.url = record.getLinkName();
+            event.statusCode = record.getStatusCode();
+            event.bytes = record.getWireBytes();
+            event.errorClass = record.getErrorClass().name();
+            event.commit();
         }
     }
     
+    /**
+     * Treat a missing Content-Type as HTML, as browsers do for pages
+     */
+    private static boolean isHtml(String contentType) {
+        return contentType == null || contentType.toLowerCase().contains("html");
+    }
+    
+    private static long millisSince(long nanoStart) {
+        return (System.nanoTime() - nanoStart) / 1_000_000;
+    }
+    
+    /**
+     * Short failure description for the dashboard's error panel
+     */
+    private static String describeFailure(LinkRecord record, Exception e) {
+        if (record.getStatusCode() >= 400) {
+            return "HTTP " + record.getStatusCode();
+        }
+        return record.getErrorClass().name() + (e.getMessage() != null ? " - " + e.getMessage() : "");
+    }
+    
+    /**
+     * Resolve a link found on a page, applying the session's query normalization
+     * @return null if the link is not an http(s) URL
+     */
+    private CanonicalUrl resolve(CanonicalUrl pageUrl, String link) {
+        CanonicalUrl target = pageUrl.resolve(link);
+        return target != null ? canonical(target) : null;
+    }
+    
+    private CanonicalUrl canonical(CanonicalUrl url) {
+        return options.isSortQuery() ? url.withSortedQuery() : url;
+    }
+    
     /**
      * Extract website name from URL
      */
-    private String extractWebsiteName(String url) {
-        try {
-            URL urlObj = new URL(url);
-            String host = urlObj.getHost();
-            // Remove www. if present
-            if (host.startsWith("www.")) {
-                host = host.substring(4);
-            }
-            return host;
-        } catch (Exception e) {
-            return url;
+    private static String extractWebsiteName(CanonicalUrl url) {
+        String host = url.getHost();
+        // Remove www. if present
+        if (host.startsWith("www.")) {
+            host = host.substring(4);
         }
+        return host;
     }
+    
 }
@@ -0,0 +1,146 @@
+package com.algo.inc.export;
+
+import com.algo.inc.model.LinkRecord;
+import com.algo.inc.model.WebsiteReport;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary column blocks, so a reader can load one field of every link without parsing the rest.
+ * All numbers are big-endian.
+ *
+ * <pre>
+ * header  magic "LLCOLS01", column count, then per column its name (modified UTF-8, as
+ *         DataOutput.writeUTF) and type: 0 int64, 1 float64, 2 string
+ * block   row count, then per column the chunk's byte length and the chunk: rowCount values
+ *         for a number column; for a string column rowCount int32 byte lengths, -1 for null,
+ *         followed by the UTF-8 bytes of all values
+ * end     a block with row count 0
+ * </pre>
+ *
+ * Rows are buffered one block at a time, BLOCK_ROWS rows at most.
+ */
+class ColumnarReportWriter implements ReportWriter {
+    
+    static final byte[] MAGIC = "LLCOLS01".getBytes(StandardCharsets.US_ASCII);
+    static final byte INT64 = 0;
+    static final byte FLOAT64 = 1;
+    static final byte STRING = 2;
+    static final int BLOCK_ROWS = 16384;
+    
+    // Type of each of COLUMNS
+    static final byte[] TYPES = {
+        INT64, STRING, INT64, STRING, INT64, STRING, STRING, INT64,
+        INT64, FLOAT64, INT64, INT64, INT64, INT64, INT64, INT64,
+        STRING, STRING, STRING, STRING
+    };
+    
+    private final DataOutputStream out;
+    // Per column: the fixed-width values, or the lengths of a string column
+    private final ByteArrayOutputStream[] chunks = new ByteArrayOutputStream[COLUMNS.length];
+    private final DataOutputStream[] values = new DataOutputStream[COLUMNS.length];
+    // Per string column: the bytes of its values
+    private final ByteArrayOutputStream[] strings = new ByteArrayOutputStream[COLUMNS.length];
+    private WebsiteReport session;
+    private int rows;
+    private boolean started;
+    
+    ColumnarReportWriter(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        for (int c = 0; c < COLUMNS.length; c++) {
+            chunks[c] = new ByteArrayOutputStream();
+            values[c] = new DataOutputStream(chunks[c]);
+            if (TYPES[c] == STRING) {
+                strings[c] = new ByteArrayOutputStream();
+            }
+        }
+    }
+    
+    @Override
+    public void beginSession(WebsiteReport session) {
+        this.session = session;
+    }
+    
+    @Override
+    public void writeLink(LinkRecord link) throws IOException {
+        int c = 0;
+        values[c++].writeLong(session.getId());
+        putString(c++, session.getWebsiteName());
+        values[c++].writeLong(link.getId());
+        putString(c++, link.getLinkName());
+        values[c++].writeLong(link.getStatusCode());
+        putString(c++, link.getContentType());
+        putString(c++, link.getErrorClass().name());
+        values[c++].writeLong(link.getRetries());
+        values[c++].writeLong(link.getWireBytes());
+        values[c++].writeDouble(link.getTotalDownloadedKilobytes());
+        values[c++].writeLong(link.getTotalElapsedTime());
+        values[c++].writeLong(link.getDnsTime());
+        values[c++].writeLong(link.getConnectTime());
+        values[c++].writeLong(link.getTlsTime());
+        values[c++].writeLong(link.getTimeToFirstByte());
+        values[c++].writeLong(link.getTransferTime());
+        putString(c++, link.getEtag());
+        putString(c++, link.getLastModified());
+        putString(c++, link.getFinalUrl());
+        putString(c, link.getContentHash());
+        
+        if (++rows == BLOCK_ROWS) {
+            writeBlock();
+        }
+    }
+    
+    private void putString(int column, String value) throws IOException {
+        if (value == null) {
+            values[column].writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        values[column].writeInt(bytes.length);
+        strings[column].write(bytes);
+    }
+    
+    @Override
+    public void finish() throws IOException {
+        if (rows > 0) {
+            writeBlock();
+        }
+        writeHeader();
+        out.writeInt(0);
+        out.flush();
+    }
+    
+    private void writeHeader() throws IOException {
+        if (started) {
+            return;
+        }
+        started = true;
+        out.write(MAGIC);
+        out.writeInt(COLUMNS.length);
+        for (int c = 0; c < COLUMNS.length; c++) {
+            out.writeUTF(COLUMNS[c]);
+            out.writeByte(TYPES[c]);
+        }
+    }
+    
+    private void writeBlock() throws IOException {
+        writeHeader();
+        out.writeInt(rows);
+        for (int c = 0; c < COLUMNS.length; c++) {
+            int stringBytes = strings[c] != null ? strings[c].size() : 0;
+            out.writeInt(chunks[c].size() + stringBytes);
+            chunks[c].writeTo(out);
+            chunks[c].reset();
+            if (strings[c] != null) {
+                strings[c].writeTo(out);
+                strings[c].reset();
+            }
+        }
+        rows = 0;
+    }
+}
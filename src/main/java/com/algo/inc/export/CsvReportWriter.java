@@ -0,0 +1,95 @@
+package com.algo.inc.export;
+
+import com.algo.inc.model.LinkRecord;
+import com.algo.inc.model.WebsiteReport;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RFC 4180 CSV: a header row, then one row per link with CRLF line ends. Fields holding a
+ * comma, quote or line break are quoted; a missing value is an empty field.
+ */
+class CsvReportWriter implements ReportWriter {
+    
+    private final Writer out;
+    private final StringBuilder row = new StringBuilder(512);
+    private WebsiteReport session;
+    
+    CsvReportWriter(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        row.append(String.join(",", COLUMNS)).append("\r\n");
+    }
+    
+    @Override
+    public void beginSession(WebsiteReport session) {
+        this.session = session;
+    }
+    
+    @Override
+    public void writeLink(LinkRecord link) throws IOException {
+        row.append(session.getId()).append(',');
+        field(session.getWebsiteName());
+        row.append(link.getId()).append(',');
+        field(link.getLinkName());
+        if (link.getStatusCode() > 0) {
+            row.append(link.getStatusCode());
+        }
+        row.append(',');
+        field(link.getContentType());
+        field(link.getErrorClass().name());
+        row.append(link.getRetries()).append(',')
+           .append(link.getWireBytes()).append(',')
+           .append(link.getTotalDownloadedKilobytes()).append(',')
+           .append(link.getTotalElapsedTime()).append(',')
+           .append(link.getDnsTime()).append(',')
+           .append(link.getConnectTime()).append(',')
+           .append(link.getTlsTime()).append(',')
+           .append(link.getTimeToFirstByte()).append(',')
+           .append(link.getTransferTime()).append(',');
+        field(link.getEtag());
+        field(link.getLastModified());
+        field(link.getFinalUrl());
+        field(link.getContentHash());
+        // Replace the trailing comma with the line end
+        row.setLength(row.length() - 1);
+        row.append("\r\n");
+        out.append(row);
+        row.setLength(0);
+    }
+    
+    @Override
+    public void finish() throws IOException {
+        out.append(row);
+        row.setLength(0);
+        out.flush();
+    }
+    
+    /**
+     * Append a text field and its separator
+     */
+    private void field(String value) {
+        if (value != null) {
+            if (needsQuotes(value)) {
+                row.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                row.append(value);
+            }
+        }
+        row.append(',');
+    }
+    
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
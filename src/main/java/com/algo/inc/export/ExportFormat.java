@@ -0,0 +1,45 @@
+package com.algo.inc.export;
+
+import java.io.OutputStream;
+
+/**
+ * File formats a report can be exported in
+ *
+ * <pre>
+ * csv       one row per link under a header row
+ * ndjson    a line per session, a line per link and a closing total line
+ * columnar  binary column blocks, for loading whole columns at once
+ * </pre>
+ */
+public enum ExportFormat {
+    CSV,
+    NDJSON,
+    COLUMNAR;
+    
+    /**
+     * @param name "csv", "ndjson" or "columnar", in any case
+     * @throws IllegalArgumentException for any other name
+     */
+    public static ExportFormat parse(String name) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name.trim())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown export format: " + name + " (use csv, ndjson or columnar)");
+    }
+    
+    /**
+     * A writer of this format over the stream; the writer buffers, so the stream need not
+     */
+    public ReportWriter newWriter(OutputStream out) {
+        switch (this) {
+            case CSV:
+                return new CsvReportWriter(out);
+            case NDJSON:
+                return new NdjsonReportWriter(out);
+            default:
+                return new ColumnarReportWriter(out);
+        }
+    }
+}
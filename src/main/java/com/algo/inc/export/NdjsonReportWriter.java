@@ -0,0 +1,81 @@
+package com.algo.inc.export;
+
+import com.algo.inc.model.LinkRecord;
+import com.algo.inc.model.WebsiteReport;
+import com.algo.inc.util.Json;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One JSON object per line, like the batch summary: a "session" line with the session's totals
+ * before its links, a "link" line per link and a "total" line at the end.
+ */
+class NdjsonReportWriter implements ReportWriter {
+    
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(512);
+    private WebsiteReport session;
+    // The session's name, quoted once for all its links
+    private String website;
+    private int sessions;
+    private long links;
+    
+    NdjsonReportWriter(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+    }
+    
+    @Override
+    public void beginSession(WebsiteReport session) throws IOException {
+        this.session = session;
+        this.website = Json.quote(session.getWebsiteName());
+        sessions++;
+        out.write("{\"type\":\"session\",\"session_id\":" + session.getId()
+            + ",\"website\":" + website
+            + ",\"start\":" + Json.quote(session.getDownloadStartDateTime())
+            + ",\"end\":" + Json.quote(session.getDownloadEndDateTime())
+            + ",\"total_ms\":" + session.getTotalElapsedTime()
+            + ",\"kilobytes\":" + session.getTotalDownloadedKilobytes() + "}\n");
+    }
+    
+    @Override
+    public void writeLink(LinkRecord link) throws IOException {
+        links++;
+        // Strings are quoted straight into the line, not through a string per value
+        line.append("{\"type\":\"link\",\"session_id\":").append(session.getId())
+            .append(",\"website\":").append(website)
+            .append(",\"link_id\":").append(link.getId())
+            .append(",\"url\":");
+        Json.appendQuoted(line, link.getLinkName())
+            .append(",\"status\":").append(Json.number(link.getStatusCode() > 0 ? link.getStatusCode() : null))
+            .append(",\"content_type\":");
+        Json.appendQuoted(line, link.getContentType())
+            .append(",\"error_class\":\"").append(link.getErrorClass().name()).append('"')
+            .append(",\"retries\":").append(link.getRetries())
+            .append(",\"wire_bytes\":").append(link.getWireBytes())
+            .append(",\"kilobytes\":").append(link.getTotalDownloadedKilobytes())
+            .append(",\"total_ms\":").append(link.getTotalElapsedTime())
+            .append(",\"dns_ms\":").append(link.getDnsTime())
+            .append(",\"connect_ms\":").append(link.getConnectTime())
+            .append(",\"tls_ms\":").append(link.getTlsTime())
+            .append(",\"ttfb_ms\":").append(link.getTimeToFirstByte())
+            .append(",\"transfer_ms\":").append(link.getTransferTime())
+            .append(",\"etag\":");
+        Json.appendQuoted(line, link.getEtag()).append(",\"last_modified\":");
+        Json.appendQuoted(line, link.getLastModified()).append(",\"final_url\":");
+        Json.appendQuoted(line, link.getFinalUrl()).append(",\"content_hash\":");
+        Json.appendQuoted(line, link.getContentHash()).append("}\n");
+        out.append(line);
+        line.setLength(0);
+    }
+    
+    @Override
+    public void finish() throws IOException {
+        out.write("{\"type\":\"total\",\"sessions\":" + sessions + ",\"links\":" + links + "}\n");
+        out.flush();
+    }
+}
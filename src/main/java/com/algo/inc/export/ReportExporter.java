@@ -0,0 +1,65 @@
+package com.algo.inc.export;
+
+import com.algo.inc.database.DatabaseManager;
+import com.algo.inc.model.WebsiteReport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exports recorded sessions and their links from the database to a stream. Links go from
+ * the database cursor straight to the format's writer, so memory stays flat however many
+ * links a session has.
+ */
+public class ReportExporter {
+    
+    private final DatabaseManager dbManager;
+    private long links;
+    
+    public ReportExporter(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+    
+    /**
+     * Write sessions of a website, oldest first, each followed by its links
+     * @param sessionId the session to export, or 0 for every session of the website
+     * @return the sessions written
+     * @throws IllegalArgumentException if the website has no such session
+     */
+    public List<WebsiteReport> export(String websiteName, int sessionId, ExportFormat format, 
+                                      OutputStream out) throws SQLException, IOException {
+        List<WebsiteReport> sessions = new ArrayList<>();
+        for (WebsiteReport session : dbManager.getSessions(websiteName)) {
+            if (sessionId == 0 || session.getId() == sessionId) {
+                sessions.add(session);
+            }
+        }
+        if (sessions.isEmpty()) {
+            throw new IllegalArgumentException(sessionId == 0 
+                ? websiteName + " has no recorded sessions" 
+                : websiteName + " has no session " + sessionId);
+        }
+        
+        ReportWriter writer = format.newWriter(out);
+        links = 0;
+        for (WebsiteReport session : sessions) {
+            writer.beginSession(session);
+            dbManager.streamLinks(session.getId(), link -> {
+                writer.writeLink(link);
+                links++;
+            });
+        }
+        writer.finish();
+        return sessions;
+    }
+    
+    /**
+     * Links written by the last export
+     */
+    public long getLinkCount() {
+        return links;
+    }
+}
@@ -0,0 +1,35 @@
+package com.algo.inc.export;
+
+import com.algo.inc.model.LinkRecord;
+import com.algo.inc.model.WebsiteReport;
+
+import java.io.IOException;
+
+/**
+ * Writes sessions and their links to a stream as they are read, so an export holds at most
+ * one block of rows in memory whatever the size of the session.
+ *
+ * Every format has one record per link with the fields in COLUMNS, in that order. Times are
+ * in milliseconds; a status of 0, meaning no response, is written as empty or null where the
+ * format allows it.
+ */
+public interface ReportWriter {
+    
+    String[] COLUMNS = {
+        "session_id", "website", "link_id", "url", "status", "content_type", "error_class", "retries",
+        "wire_bytes", "kilobytes", "total_ms", "dns_ms", "connect_ms", "tls_ms", "ttfb_ms", "transfer_ms",
+        "etag", "last_modified", "final_url", "content_hash"
+    };
+    
+    /**
+     * Start a session; the links written next belong to it
+     */
+    void beginSession(WebsiteReport session) throws IOException;
+    
+    void writeLink(LinkRecord link) throws IOException;
+    
+    /**
+     * Write whatever the format ends with and flush; the stream is left open
+     */
+    void finish() throws IOException;
+}
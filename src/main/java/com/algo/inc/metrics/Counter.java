@@ -0,0 +1,23 @@
+package com.algo.inc.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter backed by a LongAdder, so concurrent updates never contend on one cache line
+ */
+public class Counter {
+    
+    private final LongAdder value = new LongAdder();
+    
+    public void increment() {
+        value.increment();
+    }
+    
+    public void add(long amount) {
+        value.add(amount);
+    }
+    
+    public long get() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,116 @@
+package com.algo.inc.metrics;
+
+import com.algo.inc.model.ErrorClass;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * MXBean implementation reading straight from the registry's instruments
+ */
+class CrawlMetrics implements CrawlMetricsMXBean {
+    
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    
+    private final MetricsRegistry registry;
+    
+    CrawlMetrics(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+    
+    @Override
+    public long getRequests() {
+        return registry.requests().get();
+    }
+    
+    @Override
+    public long getBytes() {
+        return registry.bytes().get();
+    }
+    
+    @Override
+    public long getInFlight() {
+        return registry.inFlight().get();
+    }
+    
+    @Override
+    public long getActiveSessions() {
+        return registry.activeSessions().get();
+    }
+    
+    @Override
+    public long getQueueDepth() {
+        return registry.queueDepth().get();
+    }
+    
+    @Override
+    public Map<String, Long> getResponsesByStatusClass() {
+        Map<String, Long> responses = new LinkedHashMap<>();
+        responses.put("none", registry.responses(0).get());
+        for (int statusClass = 1; statusClass <= 5; statusClass++) {
+            responses.put(statusClass + "xx", registry.responses(statusClass).get());
+        }
+        return responses;
+    }
+    
+    @Override
+    public Map<String, Long> getErrorsByClass() {
+        Map<String, Long> errors = new LinkedHashMap<>();
+        for (ErrorClass errorClass : ErrorClass.values()) {
+            if (errorClass != ErrorClass.NONE) {
+                errors.put(errorClass.name(), registry.errors(errorClass).get());
+            }
+        }
+        return errors;
+    }
+    
+    @Override
+    public double getFetchLatencyMeanMillis() {
+        return registry.fetchLatency().snapshot().getMean() / NANOS_PER_MILLI;
+    }
+    
+    @Override
+    public double getFetchLatencyP50Millis() {
+        return registry.fetchLatency().snapshot().percentile(0.5) / NANOS_PER_MILLI;
+    }
+    
+    @Override
+    public double getFetchLatencyP95Millis() {
+        return registry.fetchLatency().snapshot().percentile(0.95) / NANOS_PER_MILLI;
+    }
+    
+    @Override
+    public double getFetchLatencyP99Millis() {
+        return registry.fetchLatency().snapshot().percentile(0.99) / NANOS_PER_MILLI;
+    }
+    
+    @Override
+    public double getFetchLatencyMaxMillis() {
+        return registry.fetchLatency().snapshot().getMax() / NANOS_PER_MILLI;
+    }
+    
+    @Override
+    public long getDbPendingWrites() {
+        return registry.dbPendingWrites().get();
+    }
+    
+    @Override
+    public long getDbWrites() {
+        return registry.dbWrites().get();
+    }
+    
+    @Override
+    public long getDbErrors() {
+        return registry.dbErrors().get();
+    }
+    
+    @Override
+    public double getDbFlushLatencyP50Millis() {
+        return registry.dbFlushLatency().snapshot().percentile(0.5) / NANOS_PER_MILLI;
+    }
+    
+    @Override
+    public double getDbFlushLatencyP99Millis() {
+        return registry.dbFlushLatency().snapshot().percentile(0.99) / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,49 @@
+package com.algo.inc.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the crawl metrics. Latencies are reported in milliseconds.
+ */
+public interface CrawlMetricsMXBean {
+    
+    long getRequests();
+    
+    long getBytes();
+    
+    long getInFlight();
+    
+    long getActiveSessions();
+    
+    long getQueueDepth();
+    
+    /**
+     * Responses per status class, e.g. "2xx"; "none" counts fetches without a response
+     */
+    Map<String, Long> getResponsesByStatusClass();
+    
+    /**
+     * Failed fetches per error class, e.g. "TIMEOUT"
+     */
+    Map<String, Long> getErrorsByClass();
+    
+    double getFetchLatencyMeanMillis();
+    
+    double getFetchLatencyP50Millis();
+    
+    double getFetchLatencyP95Millis();
+    
+    double getFetchLatencyP99Millis();
+    
+    double getFetchLatencyMaxMillis();
+    
+    long getDbPendingWrites();
+    
+    long getDbWrites();
+    
+    long getDbErrors();
+    
+    double getDbFlushLatencyP50Millis();
+    
+    double getDbFlushLatencyP99Millis();
+}
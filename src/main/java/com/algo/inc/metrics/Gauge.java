@@ -0,0 +1,31 @@
+package com.algo.inc.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Value that can go up and down, such as the number of fetches in flight
+ */
+public class Gauge {
+    
+    private final AtomicLong value = new AtomicLong();
+    
+    public void increment() {
+        value.incrementAndGet();
+    }
+    
+    public void decrement() {
+        value.decrementAndGet();
+    }
+    
+    public void add(long delta) {
+        value.addAndGet(delta);
+    }
+    
+    public void set(long newValue) {
+        value.set(newValue);
+    }
+    
+    public long get() {
+        return value.get();
+    }
+}
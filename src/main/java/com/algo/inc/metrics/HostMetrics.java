@@ -0,0 +1,32 @@
+package com.algo.inc.metrics;
+
+/**
+ * Fetch metrics for a single origin host
+ */
+public class HostMetrics {
+    
+    private final String host;
+    private final Counter requests = new Counter();
+    private final Counter bytes = new Counter();
+    private final Counter errors = new Counter();
+    private final LatencyHistogram fetchLatency = new LatencyHistogram();
+    
+    HostMetrics(String host) {
+        this.host = host;
+    }
+    
+    void record(boolean failed, long byteCount, long elapsedNanos) {
+        requests.increment();
+        bytes.add(byteCount);
+        if (failed) {
+            errors.increment();
+        }
+        fetchLatency.record(elapsedNanos);
+    }
+    
+    public String getHost() { return host; }
+    public Counter requests() { return requests; }
+    public Counter bytes() { return bytes; }
+    public Counter errors() { return errors; }
+    public LatencyHistogram fetchLatency() { return fetchLatency; }
+}
@@ -0,0 +1,145 @@
+package com.algo.inc.metrics;
+
+import com.algo.inc.model.ErrorClass;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide crawl metrics, updated by the downloader and the database layer.
+ *
+ * All instruments are lock-free, so recording from fetch threads is cheap.
+ * The registry is published as an MXBean under {@value #OBJECT_NAME}; point
+ * JConsole or VisualVM at the running process to watch a session live.
+ */
+public class MetricsRegistry {
+    
+    public static final String OBJECT_NAME = "com.algo.inc:type=CrawlMetrics";
+    
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+    
+    // Fetches
+    private final Counter requests = new Counter();
+    private final Counter bytes = new Counter();
+    private final Counter[] responsesByStatusClass = new Counter[6];
+    private final Map<ErrorClass, Counter> errorsByClass = new EnumMap<>(ErrorClass.class);
+    private final Gauge inFlight = new Gauge();
+    private final Counter retries = new Counter();
+    private final LatencyHistogram fetchLatency = new LatencyHistogram();
+    
+    // Sessions and queues
+    private final Gauge activeSessions = new Gauge();
+    private final Gauge queueDepth = new Gauge();
+    
+    // Per origin host, only tracked while an exporter needs them
+    private final ConcurrentHashMap<String, HostMetrics> hosts = new ConcurrentHashMap<>();
+    private volatile boolean perHostEnabled;
+    
+    // Database
+    private final Gauge dbPendingWrites = new Gauge();
+    private final Counter dbWrites = new Counter();
+    private final Counter dbErrors = new Counter();
+    private final LatencyHistogram dbFlushLatency = new LatencyHistogram();
+    
+    private MetricsRegistry() {
+        for (int i = 0; i < responsesByStatusClass.length; i++) {
+            responsesByStatusClass[i] = new Counter();
+        }
+        for (ErrorClass errorClass : ErrorClass.values()) {
+            errorsByClass.put(errorClass, new Counter());
+        }
+        registerMBean();
+    }
+    
+    public static MetricsRegistry get() {
+        return INSTANCE;
+    }
+    
+    private void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new CrawlMetrics(this), name);
+            }
+        } catch (JMException e) {
+            System.err.println("Could not register metrics MBean: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Record the outcome of a finished fetch
+     * @param url the fetched URL; its host is only looked at when per-host metrics are enabled
+     * @param statusCode HTTP status received, or 0 if none
+     * @param errorClass how the fetch ended
+     * @param byteCount bytes received
+     * @param elapsedNanos total fetch time
+     */
+    public void recordFetch(String url, int statusCode, ErrorClass errorClass, long byteCount, long elapsedNanos) {
+        if (perHostEnabled) {
+            host(url).record(errorClass != ErrorClass.NONE, byteCount, elapsedNanos);
+        }
+        requests.increment();
+        bytes.add(byteCount);
+        if (statusCode >= 100 && statusCode < 600) {
+            responsesByStatusClass[statusCode / 100].increment();
+        } else {
+            responsesByStatusClass[0].increment();
+        }
+        if (errorClass != ErrorClass.NONE) {
+            errorsByClass.get(errorClass).increment();
+        }
+        fetchLatency.record(elapsedNanos);
+    }
+    
+    /**
+     * Start breaking fetches down by origin host. Off by default so the fetch path skips the host lookup.
+     */
+    public void enablePerHostMetrics() {
+        perHostEnabled = true;
+    }
+    
+    public Collection<HostMetrics> hosts() {
+        return hosts.values();
+    }
+    
+    private HostMetrics host(String url) {
+        String host;
+        try {
+            host = URI.create(url).getHost();
+        } catch (IllegalArgumentException e) {
+            host = null;
+        }
+        return hosts.computeIfAbsent(host != null ? host : "unknown", HostMetrics::new);
+    }
+    
+    public Counter requests() { return requests; }
+    public Counter bytes() { return bytes; }
+    public Gauge inFlight() { return inFlight; }
+    public Counter retries() { return retries; }
+    public LatencyHistogram fetchLatency() { return fetchLatency; }
+    public Gauge activeSessions() { return activeSessions; }
+    public Gauge queueDepth() { return queueDepth; }
+    public Gauge dbPendingWrites() { return dbPendingWrites; }
+    public Counter dbWrites() { return dbWrites; }
+    public Counter dbErrors() { return dbErrors; }
+    public LatencyHistogram dbFlushLatency() { return dbFlushLatency; }
+    
+    /**
+     * Responses with the given status class (1-5); class 0 counts fetches that got no response
+     */
+    public Counter responses(int statusClass) {
+        return responsesByStatusClass[statusClass];
+    }
+    
+    public Counter errors(ErrorClass errorClass) {
+        return errorsByClass.get(errorClass);
+    }
+}
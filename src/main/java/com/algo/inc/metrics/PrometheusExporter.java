@@ -0,0 +1,193 @@
+package com.algo.inc.metrics;
+
+import com.algo.inc.model.ErrorClass;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Embedded HTTP endpoint serving the crawl metrics in the Prometheus text format.
+ *
+ * Disabled unless a port is configured with -Dmetrics.port=&lt;port&gt;.
+ * Per-host metrics are only collected once an exporter has been started.
+ */
+public class PrometheusExporter {
+    
+    public static final String PORT_PROPERTY = "metrics.port";
+    
+    // Histogram bucket bounds in seconds
+    private static final double[] LATENCY_BUCKETS = {
+        0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60
+    };
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    
+    private final MetricsRegistry registry;
+    private final HttpServer server;
+    
+    private PrometheusExporter(MetricsRegistry registry, int port) throws IOException {
+        this.registry = registry;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.createContext("/metrics", this::handle);
+    }
+    
+    /**
+     * Start an exporter on the given port
+     */
+    public static PrometheusExporter start(int port) throws IOException {
+        MetricsRegistry registry = MetricsRegistry.get();
+        registry.enablePerHostMetrics();
+        PrometheusExporter exporter = new PrometheusExporter(registry, port);
+        exporter.server.start();
+        return exporter;
+    }
+    
+    /**
+     * Start an exporter if -Dmetrics.port is set
+     * @return the running exporter or null when disabled
+     */
+    public static PrometheusExporter startIfConfigured() throws IOException {
+        String port = System.getProperty(PORT_PROPERTY);
+        if (port == null || port.isBlank()) {
+            return null;
+        }
+        return start(Integer.parseInt(port.trim()));
+    }
+    
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    public void stop() {
+        server.stop(0);
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Render all metrics in the Prometheus text exposition format
+     */
+    String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        
+        header(out, "crawler_requests_total", "counter", "Fetches completed, successful or not.");
+        sample(out, "crawler_requests_total", "", registry.requests().get());
+        header(out, "crawler_bytes_total", "counter", "Body bytes received.");
+        sample(out, "crawler_bytes_total", "", registry.bytes().get());
+        
+        header(out, "crawler_responses_total", "counter", "Fetches by HTTP status class; none means no response was received.");
+        sample(out, "crawler_responses_total", "{status_class=\"none\"}", registry.responses(0).get());
+        for (int statusClass = 1; statusClass <= 5; statusClass++) {
+            sample(out, "crawler_responses_total", "{status_class=\"" + statusClass + "xx\"}",
+                   registry.responses(statusClass).get());
+        }
+        
+        header(out, "crawler_errors_total", "counter", "Failed fetches by error class.");
+        for (ErrorClass errorClass : ErrorClass.values()) {
+            if (errorClass != ErrorClass.NONE) {
+                sample(out, "crawler_errors_total", "{class=\"" + errorClass.name() + "\"}",
+                       registry.errors(errorClass).get());
+            }
+        }
+        
+        header(out, "crawler_retries_total", "counter", "Fetch attempts repeated after a transient failure.");
+        sample(out, "crawler_retries_total", "", registry.retries().get());
+        
+        header(out, "crawler_fetch_duration_seconds", "histogram", "Total time per fetch.");
+        histogram(out, "crawler_fetch_duration_seconds", "", registry.fetchLatency().snapshot());
+        
+        header(out, "crawler_in_flight", "gauge", "Fetches currently in progress.");
+        sample(out, "crawler_in_flight", "", registry.inFlight().get());
+        header(out, "crawler_active_sessions", "gauge", "Download sessions currently running.");
+        sample(out, "crawler_active_sessions", "", registry.activeSessions().get());
+        header(out, "crawler_queue_depth", "gauge", "Discovered resources waiting to be fetched.");
+        sample(out, "crawler_queue_depth", "", registry.queueDepth().get());
+        
+        // Per host
+        header(out, "crawler_host_requests_total", "counter", "Fetches completed per origin host.");
+        for (HostMetrics host : registry.hosts()) {
+            sample(out, "crawler_host_requests_total", hostLabel(host), host.requests().get());
+        }
+        header(out, "crawler_host_bytes_total", "counter", "Body bytes received per origin host.");
+        for (HostMetrics host : registry.hosts()) {
+            sample(out, "crawler_host_bytes_total", hostLabel(host), host.bytes().get());
+        }
+        header(out, "crawler_host_errors_total", "counter", "Failed fetches per origin host.");
+        for (HostMetrics host : registry.hosts()) {
+            sample(out, "crawler_host_errors_total", hostLabel(host), host.errors().get());
+        }
+        header(out, "crawler_host_fetch_duration_seconds", "histogram", "Total time per fetch, per origin host.");
+        for (HostMetrics host : registry.hosts()) {
+            histogram(out, "crawler_host_fetch_duration_seconds", hostLabel(host), host.fetchLatency().snapshot());
+        }
+        
+        // Database
+        header(out, "crawler_db_pending_writes", "gauge", "Database writes issued but not yet completed.");
+        sample(out, "crawler_db_pending_writes", "", registry.dbPendingWrites().get());
+        header(out, "crawler_db_writes_total", "counter", "Database writes completed.");
+        sample(out, "crawler_db_writes_total", "", registry.dbWrites().get());
+        header(out, "crawler_db_errors_total", "counter", "Database writes that failed.");
+        sample(out, "crawler_db_errors_total", "", registry.dbErrors().get());
+        header(out, "crawler_db_write_duration_seconds", "histogram", "Time per database write.");
+        histogram(out, "crawler_db_write_duration_seconds", "", registry.dbFlushLatency().snapshot());
+        
+        return out.toString();
+    }
+    
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+    
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+    
+    /**
+     * Write cumulative le-buckets, _sum and _count. Extra labels are given as {a="b"} or empty.
+     */
+    private static void histogram(StringBuilder out, String name, String labels, LatencyHistogram.Snapshot snapshot) {
+        String labelPrefix = labels.isEmpty() ? "{" : labels.substring(0, labels.length() - 1) + ",";
+        for (double bound : LATENCY_BUCKETS) {
+            long count = snapshot.countAtOrBelow((long) (bound * NANOS_PER_SECOND));
+            out.append(name).append("_bucket").append(labelPrefix)
+               .append("le=\"").append(formatDouble(bound)).append("\"} ").append(count).append('\n');
+        }
+        out.append(name).append("_bucket").append(labelPrefix)
+           .append("le=\"+Inf\"} ").append(snapshot.getCount()).append('\n');
+        out.append(name).append("_sum").append(labels).append(' ')
+           .append(formatDouble(snapshot.getSum() / NANOS_PER_SECOND)).append('\n');
+        out.append(name).append("_count").append(labels).append(' ').append(snapshot.getCount()).append('\n');
+    }
+    
+    private static String hostLabel(HostMetrics host) {
+        return "{host=\"" + escape(host.getHost()) + "\"}";
+    }
+    
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+    
+    private static String formatDouble(double value) {
+        return Double.toString(value);
+    }
+}
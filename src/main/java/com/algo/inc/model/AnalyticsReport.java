@@ -0,0 +1,54 @@
+package com.algo.inc.model;
+
+import java.util.List;
+
+/**
+ * AnalyticsReport - Aggregate performance report for a download session,
+ * computed by the database
+ */
+public class AnalyticsReport {
+    private final SessionAnalytics session;
+    private final List<ThroughputBucket> throughput;
+    private final List<LinkRecord> slowestLinks;
+    private final List<LinkRecord> largestLinks;
+    private final List<ContentTypeTotal> contentTypes;
+    private final List<SessionAnalytics> history;
+    
+    public AnalyticsReport(SessionAnalytics session, List<ThroughputBucket> throughput,
+                           List<LinkRecord> slowestLinks, List<LinkRecord> largestLinks,
+                           List<ContentTypeTotal> contentTypes, List<SessionAnalytics> history) {
+        this.session = session;
+        this.throughput = throughput;
+        this.slowestLinks = slowestLinks;
+        this.largestLinks = largestLinks;
+        this.contentTypes = contentTypes;
+        this.history = history;
+    }
+    
+    public SessionAnalytics getSession() {
+        return session;
+    }
+    
+    public List<ThroughputBucket> getThroughput() {
+        return throughput;
+    }
+    
+    public List<LinkRecord> getSlowestLinks() {
+        return slowestLinks;
+    }
+    
+    public List<LinkRecord> getLargestLinks() {
+        return largestLinks;
+    }
+    
+    public List<ContentTypeTotal> getContentTypes() {
+        return contentTypes;
+    }
+    
+    /**
+     * Other sessions of the same website, newest first, for comparison
+     */
+    public List<SessionAnalytics> getHistory() {
+        return history;
+    }
+}
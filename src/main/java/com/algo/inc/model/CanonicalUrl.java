@@ -0,0 +1,430 @@
+package com.algo.inc.model;
+
+import java.net.IDN;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * CanonicalUrl - An http(s) URL parsed once and normalized, usable as a map or set key.
+ *
+ * Normalization follows RFC 3986 section 6: lowercase scheme and host, no default port,
+ * no fragment, dot segments removed, percent-encodings uppercased, unreserved characters
+ * decoded and characters that are not allowed percent-encoded. Two URLs that name the
+ * same resource this way compare equal. The string form and its hash are computed once.
+ */
+public final class CanonicalUrl {
+    
+    private final String scheme;
+    private final String userInfo;
+    private final String host;
+    private final int port;
+    private final String path;
+    private final String query;
+    private final String text;
+    private final int hash;
+    
+    private CanonicalUrl(String scheme, String userInfo, String host, int port, String path, String query) {
+        this.scheme = scheme;
+        this.userInfo = userInfo;
+        this.host = host;
+        this.port = port;
+        this.path = path;
+        this.query = query;
+        
+        StringBuilder builder = new StringBuilder(scheme.length() + host.length() + path.length() + 16
+            + (query != null ? query.length() : 0));
+        builder.append(scheme).append("://");
+        if (userInfo != null) {
+            builder.append(userInfo).append('@');
+        }
+        builder.append(host);
+        if (port != -1) {
+            builder.append(':').append(port);
+        }
+        builder.append(path);
+        if (query != null) {
+            builder.append('?').append(query);
+        }
+        this.text = builder.toString();
+        this.hash = text.hashCode();
+    }
+    
+    /**
+     * Parse an absolute http or https URL
+     * @throws IllegalArgumentException if the string is not one
+     */
+    public static CanonicalUrl parse(String url) {
+        CanonicalUrl parsed = build(split(url), null);
+        if (parsed == null) {
+            throw new IllegalArgumentException("Not an absolute http(s) URL: " + url);
+        }
+        return parsed;
+    }
+    
+    /**
+     * Resolve a reference found in a page at this URL (RFC 3986 section 5.2)
+     * @return the target, or null if it is not an http(s) URL or cannot be parsed
+     */
+    public CanonicalUrl resolve(String reference) {
+        if (reference == null) {
+            return null;
+        }
+        return build(split(reference), this);
+    }
+    
+    /**
+     * Same URL with its query parameters sorted, so differently ordered parameters compare equal
+     */
+    public CanonicalUrl withSortedQuery() {
+        if (query == null || query.indexOf('&') < 0) {
+            return this;
+        }
+        String[] parameters = query.split("&");
+        Arrays.sort(parameters);
+        return new CanonicalUrl(scheme, userInfo, host, port, path, String.join("&", parameters));
+    }
+    
+    public String getScheme() { return scheme; }
+    public String getHost() { return host; }
+    
+    /**
+     * Explicit port, or -1 for the scheme's default
+     */
+    public int getPort() { return port; }
+    
+    /**
+     * Normalized, still percent-encoded path; never empty
+     */
+    public String getPath() { return path; }
+    
+    /**
+     * Query without the '?', or null if there is none
+     */
+    public String getQuery() { return query; }
+    
+    /**
+     * Last path segment, or index.html for a directory
+     */
+    public String getFilename() {
+        int slash = path.lastIndexOf('/');
+        String name = path.substring(slash + 1);
+        return name.isEmpty() ? "index.html" : name;
+    }
+    
+    public boolean isSameHost(CanonicalUrl other) {
+        return host.equals(other.host);
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof CanonicalUrl)) {
+            return false;
+        }
+        CanonicalUrl that = (CanonicalUrl) other;
+        return hash == that.hash && text.equals(that.text);
+    }
+    
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+    
+    @Override
+    public String toString() {
+        return text;
+    }
+    
+    /**
+     * Raw components of a URI reference; null means the component is absent
+     */
+    private static final class Parts {
+        String scheme;
+        String authority;
+        String path;
+        String query;
+    }
+    
+    /**
+     * Split a reference into scheme, authority, path and query (RFC 3986 appendix B), dropping the fragment.
+     * Like browsers, tabs and newlines are removed and backslashes read as slashes.
+     */
+    private static Parts split(String reference) {
+        String s = reference.trim();
+        if (s.indexOf('\t') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+            s = s.replace("\t", "").replace("\n", "").replace("\r", "");
+        }
+        
+        Parts parts = new Parts();
+        int end = s.indexOf('#');
+        if (end < 0) {
+            end = s.length();
+        }
+        int i = 0;
+        
+        // Scheme
+        int colon = s.indexOf(':');
+        if (colon > 0 && colon < end && isScheme(s, colon)) {
+            parts.scheme = s.substring(0, colon).toLowerCase();
+            i = colon + 1;
+        }
+        if (s.indexOf('\\') >= 0 && (parts.scheme == null || parts.scheme.startsWith("http"))) {
+            s = s.replace('\\', '/');
+        }
+        
+        // Authority
+        if (s.startsWith("//", i)) {
+            int authorityEnd = i + 2;
+            while (authorityEnd < end && s.charAt(authorityEnd) != '/' && s.charAt(authorityEnd) != '?') {
+                authorityEnd++;
+            }
+            parts.authority = s.substring(i + 2, authorityEnd);
+            i = authorityEnd;
+        }
+        
+        // Path and query
+        int question = s.indexOf('?', i);
+        if (question >= 0 && question < end) {
+            parts.path = s.substring(i, question);
+            parts.query = s.substring(question + 1, end);
+        } else {
+            parts.path = s.substring(i, end);
+        }
+        return parts;
+    }
+    
+    private static boolean isScheme(String s, int colon) {
+        if (!isAlpha(s.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < colon; i++) {
+            char c = s.charAt(i);
+            if (!isAlpha(c) && !(c >= '0' && c <= '9') && c != '+' && c != '-' && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Resolve the parts against a base (or treat them as absolute when base is null) and normalize
+     */
+    private static CanonicalUrl build(Parts ref, CanonicalUrl base) {
+        String scheme;
+        String userInfo;
+        String host;
+        int port;
+        String path;
+        String query;
+        
+        if (ref.scheme != null || base == null) {
+            if (!"http".equals(ref.scheme) && !"https".equals(ref.scheme)) {
+                return null;
+            }
+            scheme = ref.scheme;
+        } else {
+            scheme = base.scheme;
+        }
+        
+        if (ref.scheme != null || ref.authority != null) {
+            // Absolute or network-path reference
+            if (ref.authority == null) {
+                return null;
+            }
+            String authority = ref.authority;
+            int at = authority.lastIndexOf('@');
+            userInfo = at >= 0 ? authority.substring(0, at) : null;
+            String hostPort = authority.substring(at + 1);
+            
+            int portStart = -1;
+            if (hostPort.startsWith("[")) {
+                int close = hostPort.indexOf(']');
+                if (close < 0) {
+                    return null;
+                }
+                host = hostPort.substring(0, close + 1).toLowerCase();
+                if (close + 1 < hostPort.length()) {
+                    if (hostPort.charAt(close + 1) != ':') {
+                        return null;
+                    }
+                    portStart = close + 2;
+                }
+            } else {
+                int portColon = hostPort.indexOf(':');
+                host = normalizeHost(portColon >= 0 ? hostPort.substring(0, portColon) : hostPort);
+                if (host == null) {
+                    return null;
+                }
+                portStart = portColon >= 0 ? portColon + 1 : -1;
+            }
+            if (host.isEmpty()) {
+                return null;
+            }
+            
+            port = -1;
+            if (portStart >= 0 && portStart < hostPort.length()) {
+                try {
+                    port = Integer.parseInt(hostPort.substring(portStart));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                if (port < 0 || port > 65535) {
+                    return null;
+                }
+                if ((scheme.equals("http") && port == 80) || (scheme.equals("https") && port == 443)) {
+                    port = -1;
+                }
+            }
+            path = ref.path;
+            query = ref.query;
+        } else {
+            userInfo = base.userInfo;
+            host = base.host;
+            port = base.port;
+            if (ref.path.isEmpty()) {
+                path = base.path;
+                query = ref.query != null ? ref.query : base.query;
+            } else {
+                path = ref.path.startsWith("/") ? ref.path : base.path.substring(0, base.path.lastIndexOf('/') + 1) + ref.path;
+                query = ref.query;
+            }
+        }
+        
+        path = removeDotSegments(normalizeEncoding(path, false));
+        if (path.isEmpty()) {
+            path = "/";
+        }
+        query = query == null || query.isEmpty() ? null : normalizeEncoding(query, true);
+        return new CanonicalUrl(scheme, userInfo, host, port, path, query);
+    }
+    
+    private static String normalizeHost(String host) {
+        for (int i = 0; i < host.length(); i++) {
+            if (host.charAt(i) >= 0x80) {
+                try {
+                    return IDN.toASCII(host).toLowerCase();
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+        return host.toLowerCase();
+    }
+    
+    /**
+     * RFC 3986 section 5.2.4, on an already merged path
+     */
+    static String removeDotSegments(String path) {
+        if (path.indexOf('.') < 0) {
+            return path;
+        }
+        String[] segments = path.split("/", -1);
+        String[] output = new String[segments.length];
+        int size = 0;
+        boolean absolute = path.startsWith("/");
+        
+        for (int i = absolute ? 1 : 0; i < segments.length; i++) {
+            String segment = segments[i];
+            boolean last = i == segments.length - 1;
+            if (segment.equals(".") || segment.equals("..")) {
+                if (segment.equals("..") && size > 0) {
+                    size--;
+                }
+                if (last) {
+                    // "a/b/.." keeps its trailing slash
+                    output[size++] = "";
+                }
+                continue;
+            }
+            output[size++] = segment;
+        }
+        
+        StringBuilder result = new StringBuilder(path.length());
+        for (int i = 0; i < size; i++) {
+            if (i > 0 || absolute) {
+                result.append('/');
+            }
+            result.append(output[i]);
+        }
+        return result.toString();
+    }
+    
+    /**
+     * Uppercase percent-encodings, decode unreserved characters and encode anything not allowed.
+     * Returns the input itself when nothing changes, which is the common case.
+     */
+    static String normalizeEncoding(String value, boolean inQuery) {
+        StringBuilder out = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' && i + 2 < value.length() && isHex(value.charAt(i + 1)) && isHex(value.charAt(i + 2))) {
+                int decoded = Character.digit(value.charAt(i + 1), 16) * 16 + Character.digit(value.charAt(i + 2), 16);
+                boolean unreserved = isUnreserved((char) decoded);
+                boolean upper = !Character.isLowerCase(value.charAt(i + 1)) && !Character.isLowerCase(value.charAt(i + 2));
+                if (unreserved || !upper) {
+                    if (out == null) {
+                        out = new StringBuilder(value.length() + 8).append(value, 0, i);
+                    }
+                    if (unreserved) {
+                        out.append((char) decoded);
+                    } else {
+                        appendEscaped(out, decoded);
+                    }
+                } else if (out != null) {
+                    out.append(value, i, i + 3);
+                }
+                i += 2;
+            } else if (isAllowed(c, inQuery)) {
+                if (out != null) {
+                    out.append(c);
+                }
+            } else {
+                if (out == null) {
+                    out = new StringBuilder(value.length() + 16).append(value, 0, i);
+                }
+                int codePoint = value.codePointAt(i);
+                for (byte b : new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8)) {
+                    appendEscaped(out, b & 0xFF);
+                }
+                i += Character.charCount(codePoint) - 1;
+            }
+        }
+        return out != null ? out.toString() : value;
+    }
+    
+    private static void appendEscaped(StringBuilder out, int octet) {
+        out.append('%')
+           .append(Character.toUpperCase(Character.forDigit(octet >> 4, 16)))
+           .append(Character.toUpperCase(Character.forDigit(octet & 0xF, 16)));
+    }
+    
+    private static boolean isAllowed(char c, boolean inQuery) {
+        if (isUnreserved(c)) {
+            return true;
+        }
+        switch (c) {
+            // sub-delims, plus the characters pchar adds
+            case '!': case '$': case '&': case '\'': case '(': case ')':
+            case '*': case '+': case ',': case ';': case '=': case ':': case '@': case '/':
+                return true;
+            case '?':
+                return inQuery;
+            default:
+                return false;
+        }
+    }
+    
+    private static boolean isUnreserved(char c) {
+        return isAlpha(c) || (c >= '0' && c <= '9') || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+    
+    private static boolean isAlpha(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+    
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
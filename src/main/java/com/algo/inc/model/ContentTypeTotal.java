@@ -0,0 +1,43 @@
+package com.algo.inc.model;
+
+/**
+ * ContentTypeTotal - Totals for all resources of one content type in a session
+ */
+public class ContentTypeTotal {
+    private String contentType;
+    private int linkCount;
+    private double totalDownloadedKilobytes;
+    private long totalElapsedTime;
+    private double averageElapsedTime;
+    
+    public ContentTypeTotal(String contentType, int linkCount, double totalDownloadedKilobytes,
+                            long totalElapsedTime, double averageElapsedTime) {
+        this.contentType = contentType;
+        this.linkCount = linkCount;
+        this.totalDownloadedKilobytes = totalDownloadedKilobytes;
+        this.totalElapsedTime = totalElapsedTime;
+        this.averageElapsedTime = averageElapsedTime;
+    }
+    
+    // Getters and Setters
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+    
+    public int getLinkCount() { return linkCount; }
+    public void setLinkCount(int linkCount) { this.linkCount = linkCount; }
+    
+    public double getTotalDownloadedKilobytes() { return totalDownloadedKilobytes; }
+    public void setTotalDownloadedKilobytes(double totalDownloadedKilobytes) {
+        this.totalDownloadedKilobytes = totalDownloadedKilobytes;
+    }
+    
+    public long getTotalElapsedTime() { return totalElapsedTime; }
+    public void setTotalElapsedTime(long totalElapsedTime) {
+        this.totalElapsedTime = totalElapsedTime;
+    }
+    
+    public double getAverageElapsedTime() { return averageElapsedTime; }
+    public void setAverageElapsedTime(double averageElapsedTime) {
+        this.averageElapsedTime = averageElapsedTime;
+    }
+}
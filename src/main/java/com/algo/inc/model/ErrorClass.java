@@ -0,0 +1,54 @@
+package com.algo.inc.model;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import javax.net.ssl.SSLException;
+
+/**
+ * ErrorClass - Coarse classification of why a fetch failed
+ */
+public enum ErrorClass {
+    NONE,
+    DNS,
+    CONNECT,
+    TLS,
+    TIMEOUT,
+    HTTP_4XX,
+    HTTP_5XX,
+    IO,
+    // Not a failure: the response headers were outside the session's Content-Type or size limits
+    FILTERED,
+    // Not attempted: the host kept failing and its circuit breaker was open
+    HOST_DOWN,
+    // The body arrived slower than the session's minimum throughput
+    SLOW_TRANSFER;
+    
+    /**
+     * Classify a failed fetch from the exception thrown and the HTTP status received (0 if none)
+     */
+    public static ErrorClass classify(Throwable error, int statusCode) {
+        if (statusCode >= 500) return HTTP_5XX;
+        if (statusCode >= 400) return HTTP_4XX;
+        if (error instanceof UnknownHostException) return DNS;
+        if (error instanceof SocketTimeoutException) return TIMEOUT;
+        if (error instanceof ConnectException || error instanceof NoRouteToHostException) return CONNECT;
+        if (error instanceof SSLException) return TLS;
+        return IO;
+    }
+    
+    /**
+     * Parse a stored value, treating unknown or missing values as NONE
+     */
+    public static ErrorClass fromString(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        try {
+            return valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return NONE;
+        }
+    }
+}
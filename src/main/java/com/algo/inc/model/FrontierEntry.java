@@ -0,0 +1,53 @@
+package com.algo.inc.model;
+
+import java.util.Comparator;
+
+/**
+ * FrontierEntry - A URL waiting to be fetched in a crawl session
+ */
+public class FrontierEntry {
+    
+    /**
+     * Lowest priority value first, then in the order the URLs were queued
+     */
+    public static final Comparator<FrontierEntry> FETCH_ORDER = 
+        Comparator.comparingLong(FrontierEntry::getPriority).thenComparingLong(FrontierEntry::getId);
+    
+    private long id;
+    private CanonicalUrl url;
+    private String kind;
+    private int depth;
+    private long priority;
+    
+    public FrontierEntry(long id, CanonicalUrl url, String kind, int depth) {
+        this.id = id;
+        this.url = url;
+        this.kind = kind;
+        this.depth = depth;
+    }
+    
+    // Getters and Setters
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+    
+    public CanonicalUrl getUrl() { return url; }
+    public void setUrl(CanonicalUrl url) { this.url = url; }
+    
+    /**
+     * HTML for pages, otherwise the resource type (CSS, JS, IMG)
+     */
+    public String getKind() { return kind; }
+    public void setKind(String kind) { this.kind = kind; }
+    
+    /**
+     * Page links followed to reach this URL; resources share the depth of their page
+     */
+    public int getDepth() { return depth; }
+    public void setDepth(int depth) { this.depth = depth; }
+    
+    /**
+     * Scheduling rank from the session's FetchPriority; lower is fetched earlier
+     */
+    public long getPriority() { return priority; }
+    public void setPriority(long priority) { this.priority = priority; }
+}
@@ -0,0 +1,59 @@
+package com.algo.inc.model;
+
+/**
+ * Job - A download queued with the daemon
+ */
+public class Job {
+    private int id;
+    private String url;
+    private String outputDir;
+    private int maxDepth;
+    private JobStatus status;
+    private Integer websiteId;
+    private String error;
+    private String createdAt;
+    private String startedAt;
+    private String finishedAt;
+    
+    public Job(int id, String url, String outputDir, int maxDepth, JobStatus status) {
+        this.id = id;
+        this.url = url;
+        this.outputDir = outputDir;
+        this.maxDepth = maxDepth;
+        this.status = status;
+    }
+    
+    // Getters and Setters
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+    
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+    
+    public String getOutputDir() { return outputDir; }
+    public void setOutputDir(String outputDir) { this.outputDir = outputDir; }
+    
+    public int getMaxDepth() { return maxDepth; }
+    public void setMaxDepth(int maxDepth) { this.maxDepth = maxDepth; }
+    
+    public JobStatus getStatus() { return status; }
+    public void setStatus(JobStatus status) { this.status = status; }
+    
+    /**
+     * Session recorded for the job, or null until it has started
+     */
+    public Integer getWebsiteId() { return websiteId; }
+    public void setWebsiteId(Integer websiteId) { this.websiteId = websiteId; }
+    
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+    
+    public String getStartedAt() { return startedAt; }
+    public void setStartedAt(String startedAt) { this.startedAt = startedAt; }
+    
+    public String getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(String finishedAt) { this.finishedAt = finishedAt; }
+}
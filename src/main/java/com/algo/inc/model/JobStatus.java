@@ -0,0 +1,20 @@
+package com.algo.inc.model;
+
+/**
+ * JobStatus - Lifecycle of a queued download job
+ */
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    PAUSED,
+    CANCELLED,
+    DONE,
+    FAILED;
+    
+    /**
+     * Whether the job will not run again
+     */
+    public boolean isFinal() {
+        return this == CANCELLED || this == DONE || this == FAILED;
+    }
+}
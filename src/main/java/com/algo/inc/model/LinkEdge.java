@@ -0,0 +1,37 @@
+package com.algo.inc.model;
+
+/**
+ * LinkEdge - One reference from a downloaded page to a page or resource of the same site
+ */
+public class LinkEdge {
+    private int websiteId;
+    private String sourceUrl;
+    private String targetUrl;
+    private String kind;
+    
+    public LinkEdge(int websiteId, String sourceUrl, String targetUrl, String kind) {
+        this.websiteId = websiteId;
+        this.sourceUrl = sourceUrl;
+        this.targetUrl = targetUrl;
+        this.kind = kind;
+    }
+    
+    // Getters and Setters
+    public int getWebsiteId() { return websiteId; }
+    public void setWebsiteId(int websiteId) { this.websiteId = websiteId; }
+    
+    public String getSourceUrl() { return sourceUrl; }
+    public void setSourceUrl(String sourceUrl) { this.sourceUrl = sourceUrl; }
+    
+    /**
+     * Target as referenced, or where it redirected to when read back as a graph
+     */
+    public String getTargetUrl() { return targetUrl; }
+    public void setTargetUrl(String targetUrl) { this.targetUrl = targetUrl; }
+    
+    /**
+     * HTML, CSS, JS or IMG
+     */
+    public String getKind() { return kind; }
+    public void setKind(String kind) { this.kind = kind; }
+}
@@ -2,6 +2,9 @@ package com.algo.inc.model;
 
 /**
  * LinkRecord - Represents a downloaded link/resource
+ *
+ * Besides the totals, each record carries the phase breakdown of its fetch
+ * (all times in milliseconds) and how the fetch ended.
  */
 public class LinkRecord {
     private int id;
@@ -10,6 +13,27 @@ public class LinkRecord {
     private long totalElapsedTime;
     private double totalDownloadedKilobytes;
     
+    // Fetch phases
+    private long dnsTime;
+    private long connectTime;
+    private long tlsTime;
+    private long timeToFirstByte;
+    private long transferTime;
+    
+    // Response details
+    private int statusCode;
+    private String contentType;
+    private long wireBytes;
+    private ErrorClass errorClass = ErrorClass.NONE;
+    private int retries;
+    
+    // Validators and redirect target, for revalidating the URL in a later session
+    private String etag;
+    private String lastModified;
+    private String finalUrl;
+    // SHA-256 of the body as received, in hex; a 304 keeps the hash of the copy it confirmed
+    private String contentHash;
+    
     public LinkRecord(int id, String linkName, int websiteId,
                      long totalElapsedTime, double totalDownloadedKilobytes) {
         this.id = id;
@@ -19,6 +43,13 @@ public class LinkRecord {
         this.totalDownloadedKilobytes = totalDownloadedKilobytes;
     }
     
+    /**
+     * Create an empty record for a fetch that is about to start
+     */
+    public LinkRecord(String linkName, int websiteId) {
+        this(0, linkName, websiteId, 0, 0);
+    }
+    
     // Getters and Setters
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
@@ -38,5 +69,62 @@ public class LinkRecord {
     public void setTotalDownloadedKilobytes(double totalDownloadedKilobytes) {
         this.totalDownloadedKilobytes = totalDownloadedKilobytes;
     }
+    
+    public long getDnsTime() { return dnsTime; }
+    public void setDnsTime(long dnsTime) { this.dnsTime = dnsTime; }
+    
+    public long getConnectTime() { return connectTime; }
+    public void setConnectTime(long connectTime) { this.connectTime = connectTime; }
+    
+    public long getTlsTime() { return tlsTime; }
+    public void setTlsTime(long tlsTime) { this.tlsTime = tlsTime; }
+    
+    public long getTimeToFirstByte() { return timeToFirstByte; }
+    public void setTimeToFirstByte(long timeToFirstByte) { this.timeToFirstByte = timeToFirstByte; }
+    
+    public long getTransferTime() { return transferTime; }
+    public void setTransferTime(long transferTime) { this.transferTime = transferTime; }
+    
+    public int getStatusCode() { return statusCode; }
+    public void setStatusCode(int statusCode) { this.statusCode = statusCode; }
+    
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+    
+    public long getWireBytes() { return wireBytes; }
+    public void setWireBytes(long wireBytes) { this.wireBytes = wireBytes; }
+    
+    public ErrorClass getErrorClass() { return errorClass; }
+    public void setErrorClass(ErrorClass errorClass) {
+        this.errorClass = errorClass != null ? errorClass : ErrorClass.NONE;
+    }
+    
+    public boolean isSuccess() {
+        return errorClass == ErrorClass.NONE;
+    }
+    
+    /**
+     * Attempts made after the first one
+     */
+    public int getRetries() { return retries; }
+    public void setRetries(int retries) { this.retries = retries; }
+    
+    public String getEtag() { return etag; }
+    public void setEtag(String etag) { this.etag = etag; }
+    
+    public String getLastModified() { return lastModified; }
+    public void setLastModified(String lastModified) { this.lastModified = lastModified; }
+    
+    /**
+     * Where the URL redirected to, or null if it answered itself
+     */
+    public String getFinalUrl() { return finalUrl; }
+    public void setFinalUrl(String finalUrl) { this.finalUrl = finalUrl; }
+    
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    
+    public boolean hasValidators() {
+        return etag != null || lastModified != null;
+    }
 }
-
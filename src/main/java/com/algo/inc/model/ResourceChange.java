@@ -0,0 +1,94 @@
+package com.algo.inc.model;
+
+/**
+ * ResourceChange - How one URL differs between two sessions of a website
+ *
+ * Sides a URL is missing from have status code 0, no bytes and no hash.
+ */
+public class ResourceChange {
+    
+    public enum Change {
+        ADDED,
+        REMOVED,
+        CHANGED
+    }
+    
+    private String url;
+    private Change change;
+    private int oldStatusCode;
+    private int newStatusCode;
+    private long oldBytes;
+    private long newBytes;
+    private String oldHash;
+    private String newHash;
+    
+    public ResourceChange(String url, Change change, int oldStatusCode, int newStatusCode,
+                          long oldBytes, long newBytes, String oldHash, String newHash) {
+        this.url = url;
+        this.change = change;
+        this.oldStatusCode = oldStatusCode;
+        this.newStatusCode = newStatusCode;
+        this.oldBytes = oldBytes;
+        this.newBytes = newBytes;
+        this.oldHash = oldHash;
+        this.newHash = newHash;
+    }
+    
+    /**
+     * Compare one URL's latest fetch in two sessions.
+     *
+     * A 304 answer confirmed the copy from before, so it counts as a 200 with that copy's hash.
+     * Bodies are compared by content hash when both sides have one, otherwise by size; sessions
+     * recorded before content hashes existed fall back to sizes.
+     * @param inOld whether the older session has the URL
+     * @param inNew whether the newer session has the URL
+     * @return the kind of change, or null if the URL is unchanged
+     */
+    public static Change classify(boolean inOld, boolean inNew, int oldStatusCode, int newStatusCode,
+                                  long oldBytes, long newBytes, String oldHash, String newHash) {
+        if (!inOld) {
+            return inNew ? Change.ADDED : null;
+        }
+        if (!inNew) {
+            return Change.REMOVED;
+        }
+        if (effectiveStatus(oldStatusCode) != effectiveStatus(newStatusCode)) {
+            return Change.CHANGED;
+        }
+        if (oldHash != null && newHash != null) {
+            return oldHash.equals(newHash) ? null : Change.CHANGED;
+        }
+        // A 304 received no body, so its size says nothing
+        boolean revalidated = oldStatusCode == 304 || newStatusCode == 304;
+        return !revalidated && oldBytes != newBytes ? Change.CHANGED : null;
+    }
+    
+    private static int effectiveStatus(int statusCode) {
+        return statusCode == 304 ? 200 : statusCode;
+    }
+    
+    // Getters and Setters
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+    
+    public Change getChange() { return change; }
+    public void setChange(Change change) { this.change = change; }
+    
+    public int getOldStatusCode() { return oldStatusCode; }
+    public void setOldStatusCode(int oldStatusCode) { this.oldStatusCode = oldStatusCode; }
+    
+    public int getNewStatusCode() { return newStatusCode; }
+    public void setNewStatusCode(int newStatusCode) { this.newStatusCode = newStatusCode; }
+    
+    public long getOldBytes() { return oldBytes; }
+    public void setOldBytes(long oldBytes) { this.oldBytes = oldBytes; }
+    
+    public long getNewBytes() { return newBytes; }
+    public void setNewBytes(long newBytes) { this.newBytes = newBytes; }
+    
+    public String getOldHash() { return oldHash; }
+    public void setOldHash(String oldHash) { this.oldHash = oldHash; }
+    
+    public String getNewHash() { return newHash; }
+    public void setNewHash(String newHash) { this.newHash = newHash; }
+}
@@ -0,0 +1,76 @@
+package com.algo.inc.model;
+
+/**
+ * SessionAnalytics - Aggregated fetch statistics for one download session
+ */
+public class SessionAnalytics {
+    private int websiteId;
+    private String websiteName;
+    private String downloadStartDateTime;
+    private long totalElapsedTime;
+    private double totalDownloadedKilobytes;
+    private int linkCount;
+    private double p50Latency;
+    private double p95Latency;
+    private double p99Latency;
+    private long maxLatency;
+    
+    public SessionAnalytics(int websiteId, String websiteName, String downloadStartDateTime,
+                            long totalElapsedTime, double totalDownloadedKilobytes, int linkCount,
+                            double p50Latency, double p95Latency, double p99Latency, long maxLatency) {
+        this.websiteId = websiteId;
+        this.websiteName = websiteName;
+        this.downloadStartDateTime = downloadStartDateTime;
+        this.totalElapsedTime = totalElapsedTime;
+        this.totalDownloadedKilobytes = totalDownloadedKilobytes;
+        this.linkCount = linkCount;
+        this.p50Latency = p50Latency;
+        this.p95Latency = p95Latency;
+        this.p99Latency = p99Latency;
+        this.maxLatency = maxLatency;
+    }
+    
+    // Getters and Setters
+    public int getWebsiteId() { return websiteId; }
+    public void setWebsiteId(int websiteId) { this.websiteId = websiteId; }
+    
+    public String getWebsiteName() { return websiteName; }
+    public void setWebsiteName(String websiteName) { this.websiteName = websiteName; }
+    
+    public String getDownloadStartDateTime() { return downloadStartDateTime; }
+    public void setDownloadStartDateTime(String downloadStartDateTime) {
+        this.downloadStartDateTime = downloadStartDateTime;
+    }
+    
+    public long getTotalElapsedTime() { return totalElapsedTime; }
+    public void setTotalElapsedTime(long totalElapsedTime) {
+        this.totalElapsedTime = totalElapsedTime;
+    }
+    
+    public double getTotalDownloadedKilobytes() { return totalDownloadedKilobytes; }
+    public void setTotalDownloadedKilobytes(double totalDownloadedKilobytes) {
+        this.totalDownloadedKilobytes = totalDownloadedKilobytes;
+    }
+    
+    public int getLinkCount() { return linkCount; }
+    public void setLinkCount(int linkCount) { this.linkCount = linkCount; }
+    
+    public double getP50Latency() { return p50Latency; }
+    public void setP50Latency(double p50Latency) { this.p50Latency = p50Latency; }
+    
+    public double getP95Latency() { return p95Latency; }
+    public void setP95Latency(double p95Latency) { this.p95Latency = p95Latency; }
+    
+    public double getP99Latency() { return p99Latency; }
+    public void setP99Latency(double p99Latency) { this.p99Latency = p99Latency; }
+    
+    public long getMaxLatency() { return maxLatency; }
+    public void setMaxLatency(long maxLatency) { this.maxLatency = maxLatency; }
+    
+    /**
+     * Average throughput of the whole session in KB/s
+     */
+    public double getKilobytesPerSecond() {
+        return totalElapsedTime > 0 ? totalDownloadedKilobytes * 1000.0 / totalElapsedTime : 0;
+    }
+}
@@ -0,0 +1,60 @@
+package com.algo.inc.model;
+
+import java.util.List;
+
+/**
+ * SessionDiff - What changed between two sessions of the same website, computed by the
+ * database from the content hashes, sizes and status codes recorded during the crawls
+ */
+public class SessionDiff {
+    private final String websiteName;
+    private final int oldWebsiteId;
+    private final int newWebsiteId;
+    private final List<ResourceChange> changes;
+    private final int unchangedCount;
+    
+    public SessionDiff(String websiteName, int oldWebsiteId, int newWebsiteId,
+                       List<ResourceChange> changes, int unchangedCount) {
+        this.websiteName = websiteName;
+        this.oldWebsiteId = oldWebsiteId;
+        this.newWebsiteId = newWebsiteId;
+        this.changes = changes;
+        this.unchangedCount = unchangedCount;
+    }
+    
+    public String getWebsiteName() {
+        return websiteName;
+    }
+    
+    public int getOldWebsiteId() {
+        return oldWebsiteId;
+    }
+    
+    public int getNewWebsiteId() {
+        return newWebsiteId;
+    }
+    
+    /**
+     * Added, removed and changed URLs in URL order
+     */
+    public List<ResourceChange> getChanges() {
+        return changes;
+    }
+    
+    /**
+     * URLs of the older session that the newer one has unchanged, fetched or carried over
+     */
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+    
+    public int count(ResourceChange.Change change) {
+        int count = 0;
+        for (ResourceChange resourceChange : changes) {
+            if (resourceChange.getChange() == change) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
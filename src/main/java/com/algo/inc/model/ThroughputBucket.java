@@ -0,0 +1,35 @@
+package com.algo.inc.model;
+
+/**
+ * ThroughputBucket - Fetches completed within one time slice of a session
+ */
+public class ThroughputBucket {
+    private long offsetSeconds;
+    private int bucketSeconds;
+    private int fetchCount;
+    private double kilobytes;
+    
+    public ThroughputBucket(long offsetSeconds, int bucketSeconds, int fetchCount, double kilobytes) {
+        this.offsetSeconds = offsetSeconds;
+        this.bucketSeconds = bucketSeconds;
+        this.fetchCount = fetchCount;
+        this.kilobytes = kilobytes;
+    }
+    
+    // Getters and Setters
+    public long getOffsetSeconds() { return offsetSeconds; }
+    public void setOffsetSeconds(long offsetSeconds) { this.offsetSeconds = offsetSeconds; }
+    
+    public int getBucketSeconds() { return bucketSeconds; }
+    public void setBucketSeconds(int bucketSeconds) { this.bucketSeconds = bucketSeconds; }
+    
+    public int getFetchCount() { return fetchCount; }
+    public void setFetchCount(int fetchCount) { this.fetchCount = fetchCount; }
+    
+    public double getKilobytes() { return kilobytes; }
+    public void setKilobytes(double kilobytes) { this.kilobytes = kilobytes; }
+    
+    public double getKilobytesPerSecond() {
+        return bucketSeconds > 0 ? kilobytes / bucketSeconds : kilobytes;
+    }
+}
@@ -0,0 +1,27 @@
+package com.algo.inc.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One database insert or update
+ */
+@Name("com.algo.inc.DbWrite")
+@Label("Database Write")
+@Category({"Link-local", "Database"})
+@Description("INSERT or UPDATE issued by the DatabaseManager")
+@StackTrace(false)
+public class DbWriteEvent extends jdk.jfr.Event {
+    
+    @Label("Operation")
+    public String operation;
+    
+    @Label("Rows")
+    public long rows;
+    
+    @Label("Succeeded")
+    public boolean succeeded;
+}
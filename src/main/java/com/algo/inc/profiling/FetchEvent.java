@@ -0,0 +1,32 @@
+package com.algo.inc.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One HTTP fetch, from DNS lookup until the body has been read
+ */
+@Name("com.algo.inc.Fetch")
+@Label("Fetch")
+@Category({"Link-local", "Crawler"})
+@Description("HTTP request of a page or resource, including reading the body")
+@StackTrace(false)
+public class FetchEvent extends jdk.jfr.Event {
+    
+    @Label("URL")
+    public String url;
+    
+    @Label("Status Code")
+    public int statusCode;
+    
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+    
+    @Label("Error Class")
+    public String errorClass;
+}
@@ -0,0 +1,38 @@
+package com.algo.inc.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Saving a page or resource to disk.
+ *
+ * Most bodies are saved by the disk stage once received. Large resources are streamed to
+ * disk while they are received, so for them the event duration overlaps the fetch;
+ * diskTime holds the time spent in the writes alone.
+ */
+@Name("com.algo.inc.FileWrite")
+@Label("File Write")
+@Category({"Link-local", "Crawler"})
+@Description("Writing a downloaded page or resource to the mirror directory")
+@StackTrace(false)
+public class FileWriteEvent extends jdk.jfr.Event {
+    
+    @Label("URL")
+    public String url;
+    
+    @Label("Path")
+    public String path;
+    
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+    
+    @Label("Disk Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long diskTime;
+}
@@ -0,0 +1,24 @@
+package com.algo.inc.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Selecting the stylesheets, scripts and images referenced by a page
+ */
+@Name("com.algo.inc.LinkExtraction")
+@Label("Link Extraction")
+@Category({"Link-local", "Crawler"})
+@Description("Selecting the resources referenced by a parsed page")
+@StackTrace(false)
+public class LinkExtractionEvent extends jdk.jfr.Event {
+    
+    @Label("URL")
+    public String url;
+    
+    @Label("Links Found")
+    public int linksFound;
+}
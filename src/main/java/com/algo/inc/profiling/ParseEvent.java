@@ -0,0 +1,26 @@
+package com.algo.inc.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Parsing a downloaded HTML page into a document
+ */
+@Name("com.algo.inc.HtmlParse")
+@Label("HTML Parse")
+@Category({"Link-local", "Crawler"})
+@Description("Jsoup parse of a downloaded page")
+@StackTrace(false)
+public class ParseEvent extends jdk.jfr.Event {
+    
+    @Label("URL")
+    public String url;
+    
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,67 @@
+package com.algo.inc.profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Flight Recorder recording started from the command line with --jfr[=file].
+ *
+ * Uses the JDK's "profile" settings plus every crawler event, so the resulting file
+ * shows fetch, parse, write, extraction and database stages next to CPU and allocation samples.
+ */
+public class SessionRecording {
+    
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    private static final List<Class<? extends Event>> CRAWLER_EVENTS = List.of(
+        FetchEvent.class, ParseEvent.class, FileWriteEvent.class, LinkExtractionEvent.class, DbWriteEvent.class
+    );
+    
+    private final Recording recording;
+    private final Path destination;
+    
+    private SessionRecording(Recording recording, Path destination) {
+        this.recording = recording;
+        this.destination = destination;
+    }
+    
+    /**
+     * Start recording to the given file, or to link-local-&lt;timestamp&gt;.jfr when null
+     */
+    public static SessionRecording start(String file) throws IOException, ParseException {
+        Path destination = file != null && !file.isEmpty() 
+            ? Paths.get(file) 
+            : Paths.get("link-local-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr");
+        
+        Recording recording = new Recording(Configuration.getConfiguration("profile"));
+        recording.setName("link-local session");
+        for (Class<? extends Event> event : CRAWLER_EVENTS) {
+            recording.enable(event).withoutThreshold();
+        }
+        recording.setToDisk(true);
+        recording.setDestination(destination);
+        recording.start();
+        return new SessionRecording(recording, destination);
+    }
+    
+    public Path getDestination() {
+        return destination;
+    }
+    
+    /**
+     * Stop the recording; it is written to its destination file
+     */
+    public void stop() {
+        recording.stop();
+        recording.close();
+    }
+}
@@ -0,0 +1,376 @@
+package com.algo.inc.search;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Full-text search over a mirror directory, answered from the segments its sessions wrote
+ * to &lt;mirror&gt;/.search.
+ *
+ * A page's newest segment wins: an incremental session only indexes the pages it downloaded
+ * again, and the copies earlier segments hold are hidden, while unchanged pages stay
+ * searchable through the segment that indexed them. Queries match documents that contain
+ * every word and every "quoted phrase", ranked by BM25.
+ */
+public class MirrorIndex {
+    
+    public static final String DIRECTORY = ".search";
+    
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    
+    // Oldest first, so later segments shadow earlier ones
+    private final List<Segment> segments;
+    private final List<boolean[]> live;
+    private final int liveDocuments;
+    private final double averageLength;
+    
+    private MirrorIndex(List<Segment> segments) {
+        this.segments = segments;
+        this.live = computeLiveness(segments, null);
+        int count = 0;
+        long tokens = 0;
+        int documents = 0;
+        for (int s = 0; s < segments.size(); s++) {
+            for (boolean alive : live.get(s)) {
+                count += alive ? 1 : 0;
+            }
+            tokens += segments.get(s).getTotalTokens();
+            documents += segments.get(s).getDocumentCount();
+        }
+        this.liveDocuments = count;
+        this.averageLength = documents > 0 ? Math.max(1.0, (double) tokens / documents) : 1.0;
+    }
+    
+    /**
+     * Map every segment of a mirror
+     * @param mirrorDir the directory the sessions downloaded into
+     * @return the index, or null if no session indexed this mirror
+     */
+    public static MirrorIndex open(Path mirrorDir) throws IOException {
+        List<Path> files = listSegments(mirrorDir.resolve(DIRECTORY));
+        if (files.isEmpty()) {
+            return null;
+        }
+        List<Segment> segments = new ArrayList<>();
+        for (Path file : files) {
+            segments.add(Segment.open(file));
+        }
+        return new MirrorIndex(segments);
+    }
+    
+    /**
+     * Delete segments that no longer contribute: every document in them has been indexed
+     * again or removed by a later session, and none of their deletions still hides an
+     * older copy. Only the document tables are read, so this is cheap after every session.
+     * @return the number of segments deleted
+     */
+    public static int prune(Path mirrorDir) throws IOException {
+        List<Path> files = listSegments(mirrorDir.resolve(DIRECTORY));
+        List<Segment> segments = new ArrayList<>();
+        for (Path file : files) {
+            segments.add(Segment.openDocuments(file));
+        }
+        // A deletion is only needed while the copy it hides exists, so repeat until nothing goes
+        int deleted = 0;
+        boolean changed = true;
+        while (changed) {
+            boolean[] needed = new boolean[segments.size()];
+            computeLiveness(segments, needed);
+            changed = false;
+            for (int s = segments.size() - 1; s >= 0; s--) {
+                if (!needed[s]) {
+                    Files.deleteIfExists(segments.remove(s).getFile());
+                    deleted++;
+                    changed = true;
+                }
+            }
+        }
+        return deleted;
+    }
+    
+    /**
+     * Segment files ordered by session, oldest first; the names start with the zero-padded session ID
+     */
+    private static List<Path> listSegments(Path indexDir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(indexDir)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(indexDir, "*" + SegmentWriter.EXTENSION)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(Comparator.comparing(file -> file.getFileName().toString()));
+        return files;
+    }
+    
+    /**
+     * Walk the segments newest first; a document is live if it is not deleted and no newer
+     * segment has its URL
+     * @param needed if given, set for segments with a live document or a deletion that hides one
+     */
+    private static List<boolean[]> computeLiveness(List<Segment> segments, boolean[] needed) {
+        List<boolean[]> live = new ArrayList<>(Collections.nCopies(segments.size(), (boolean[]) null));
+        // URL to the newest segment that has it
+        Map<String, Integer> newest = new HashMap<>();
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            Segment segment = segments.get(s);
+            boolean[] alive = new boolean[segment.getDocumentCount()];
+            for (int doc = 0; doc < alive.length; doc++) {
+                String url = segment.getUrl(doc);
+                Integer shadowing = newest.putIfAbsent(url, s);
+                if (shadowing == null) {
+                    alive[doc] = !segment.isDeleted(doc);
+                    if (alive[doc] && needed != null) {
+                        needed[s] = true;
+                    }
+                } else if (needed != null && !segment.isDeleted(doc)) {
+                    // Whatever shadows this copy must stay, deletion or not
+                    needed[shadowing] = true;
+                }
+            }
+            live.set(s, alive);
+        }
+        return live;
+    }
+    
+    /**
+     * Pages the index can return
+     */
+    public int getDocumentCount() {
+        return liveDocuments;
+    }
+    
+    public int getSegmentCount() {
+        return segments.size();
+    }
+    
+    /**
+     * Split a query into clauses that must all match. A quoted phrase is one clause, and so is
+     * each other word; a word the tokenizer splits, like "e-mail", becomes a phrase.
+     */
+    static List<List<String>> parseQuery(String query) {
+        List<List<String>> clauses = new ArrayList<>();
+        String[] parts = query.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (i % 2 == 1) {
+                List<String> phrase = Tokenizer.tokenize(parts[i]);
+                if (!phrase.isEmpty()) {
+                    clauses.add(phrase);
+                }
+                continue;
+            }
+            for (String word : parts[i].trim().split("\\s+")) {
+                List<String> terms = Tokenizer.tokenize(word);
+                if (!terms.isEmpty()) {
+                    clauses.add(terms);
+                }
+            }
+        }
+        return clauses;
+    }
+    
+    /**
+     * Find the pages matching a query
+     * @param limit how many of the best matches to return
+     */
+    public Results search(String query, int limit) {
+        List<List<String>> clauses = parseQuery(query);
+        Set<String> unique = new HashSet<>();
+        for (List<String> clause : clauses) {
+            unique.addAll(clause);
+        }
+        String[] terms = unique.toArray(new String[0]);
+        if (terms.length == 0) {
+            return new Results(Collections.emptyList(), 0);
+        }
+        
+        byte[][] termBytes = new byte[terms.length][];
+        double[] idf = new double[terms.length];
+        for (int t = 0; t < terms.length; t++) {
+            termBytes[t] = terms[t].getBytes(StandardCharsets.UTF_8);
+            int docFreq = 0;
+            for (Segment segment : segments) {
+                int termNumber = segment.findTerm(termBytes[t]);
+                docFreq += termNumber >= 0 ? segment.getDocFreq(termNumber) : 0;
+            }
+            idf[t] = Math.log(1 + (liveDocuments - docFreq + 0.5) / (docFreq + 0.5));
+        }
+        
+        PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::getScore));
+        int matches = 0;
+        for (int s = 0; s < segments.size(); s++) {
+            matches += searchSegment(s, clauses, terms, termBytes, idf, limit, best);
+        }
+        
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(Comparator.comparingDouble(Hit::getScore).reversed());
+        return new Results(hits, matches);
+    }
+    
+    /**
+     * Intersect the terms' posting lists, rarest first, leaping each list to the highest
+     * document another list is on
+     * @return the number of live documents that matched
+     */
+    private int searchSegment(int s, List<List<String>> clauses, String[] terms, byte[][] termBytes,
+                              double[] idf, int limit, PriorityQueue<Hit> best) {
+        Segment segment = segments.get(s);
+        boolean[] alive = live.get(s);
+        Segment.Postings[] cursors = new Segment.Postings[terms.length];
+        int[] docFreqs = new int[terms.length];
+        Map<String, Segment.Postings> byTerm = new HashMap<>();
+        for (int t = 0; t < terms.length; t++) {
+            int termNumber = segment.findTerm(termBytes[t]);
+            if (termNumber < 0) {
+                return 0;
+            }
+            cursors[t] = segment.postings(termNumber);
+            docFreqs[t] = segment.getDocFreq(termNumber);
+            byTerm.put(terms[t], cursors[t]);
+        }
+        Integer[] order = new Integer[terms.length];
+        for (int t = 0; t < order.length; t++) {
+            order[t] = t;
+        }
+        Arrays.sort(order, Comparator.comparingInt(t -> docFreqs[t]));
+        
+        int matches = 0;
+        int target = 0;
+        outer:
+        while (cursors[order[0]].advance(target)) {
+            target = cursors[order[0]].doc();
+            for (int i = 1; i < order.length; i++) {
+                Segment.Postings cursor = cursors[order[i]];
+                if (!cursor.advance(target)) {
+                    break outer;
+                }
+                if (cursor.doc() > target) {
+                    target = cursor.doc();
+                    continue outer;
+                }
+            }
+            
+            if (alive[target] && phrasesMatch(clauses, byTerm)) {
+                matches++;
+                double score = score(segment, target, cursors, idf);
+                if (best.size() < limit) {
+                    best.add(newHit(segment, target, score));
+                } else if (limit > 0 && score > best.peek().getScore()) {
+                    best.poll();
+                    best.add(newHit(segment, target, score));
+                }
+            }
+            target++;
+        }
+        return matches;
+    }
+    
+    private static boolean phrasesMatch(List<List<String>> clauses, Map<String, Segment.Postings> byTerm) {
+        for (List<String> clause : clauses) {
+            if (clause.size() < 2) {
+                continue;
+            }
+            int[][] positions = new int[clause.size()][];
+            for (int i = 0; i < clause.size(); i++) {
+                positions[i] = byTerm.get(clause.get(i)).positions();
+            }
+            boolean found = false;
+            for (int start : positions[0]) {
+                boolean all = true;
+                for (int i = 1; i < positions.length && all; i++) {
+                    all = Arrays.binarySearch(positions[i], start + i) >= 0;
+                }
+                if (all) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private double score(Segment segment, int doc, Segment.Postings[] cursors, double[] idf) {
+        double norm = K1 * (1 - B + B * segment.getTokenCount(doc) / averageLength);
+        double score = 0;
+        for (int t = 0; t < cursors.length; t++) {
+            int freq = cursors[t].freq();
+            score += idf[t] * freq * (K1 + 1) / (freq + norm);
+        }
+        return score;
+    }
+    
+    private static Hit newHit(Segment segment, int doc, double score) {
+        return new Hit(segment.getUrl(doc), segment.getPath(doc), segment.getTitle(doc),
+                       segment.getWebsiteId(), score);
+    }
+    
+    /**
+     * One matching page
+     */
+    public static class Hit {
+        private final String url;
+        private final String path;
+        private final String title;
+        private final int websiteId;
+        private final double score;
+        
+        Hit(String url, String path, String title, int websiteId, double score) {
+            this.url = url;
+            this.path = path;
+            this.title = title;
+            this.websiteId = websiteId;
+            this.score = score;
+        }
+        
+        // Getters
+        public String getUrl() { return url; }
+        
+        /**
+         * Where the page is saved, relative to the mirror directory
+         */
+        public String getPath() { return path; }
+        public String getTitle() { return title; }
+        
+        /**
+         * Session that downloaded this copy of the page
+         */
+        public int getWebsiteId() { return websiteId; }
+        public double getScore() { return score; }
+    }
+    
+    /**
+     * The best matches of a query and how many pages matched in all
+     */
+    public static class Results {
+        private final List<Hit> hits;
+        private final int totalMatches;
+        
+        Results(List<Hit> hits, int totalMatches) {
+            this.hits = hits;
+            this.totalMatches = totalMatches;
+        }
+        
+        // Getters
+        public List<Hit> getHits() { return hits; }
+        public int getTotalMatches() { return totalMatches; }
+    }
+}
@@ -0,0 +1,251 @@
+package com.algo.inc.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read side of a segment written by SegmentWriter. The file is memory-mapped and read with
+ * absolute gets only, so opening it costs one header read and any number of queries can
+ * share it; the operating system pages in just the parts a query touches.
+ */
+class Segment {
+    
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final int websiteId;
+    private final int docCount;
+    private final int termCount;
+    private final int docIndexOffset;
+    private final int docsOffset;
+    private final int termIndexOffset;
+    private final int termsOffset;
+    private final int postingsOffset;
+    private final long totalTokens;
+    
+    private Segment(Path file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.limit() < SegmentWriter.HEADER_BYTES || buffer.getInt(0) != SegmentWriter.MAGIC) {
+            throw new IOException(file + " is not a search index segment");
+        }
+        if (buffer.getInt(4) != SegmentWriter.VERSION) {
+            throw new IOException(file + " has unsupported index version " + buffer.getInt(4));
+        }
+        this.websiteId = buffer.getInt(8);
+        this.docCount = buffer.getInt(12);
+        this.termCount = buffer.getInt(16);
+        this.docIndexOffset = buffer.getInt(20);
+        this.docsOffset = buffer.getInt(24);
+        this.termIndexOffset = buffer.getInt(28);
+        this.termsOffset = buffer.getInt(32);
+        this.postingsOffset = buffer.getInt(36);
+        this.totalTokens = buffer.getLong(44);
+    }
+    
+    /**
+     * Map a whole segment for queries
+     */
+    static Segment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new Segment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+    
+    /**
+     * Read only the header and document table into memory. Unlike a mapped segment, the file
+     * can be deleted afterwards on every platform.
+     */
+    static Segment openDocuments(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(SegmentWriter.HEADER_BYTES);
+            readFully(channel, header, 0);
+            int termIndexOffset = header.getInt(28);
+            if (termIndexOffset < SegmentWriter.HEADER_BYTES || termIndexOffset > channel.size()) {
+                throw new IOException(file + " is not a search index segment");
+            }
+            ByteBuffer documents = ByteBuffer.allocate(termIndexOffset);
+            readFully(channel, documents, 0);
+            return new Segment(file, documents);
+        }
+    }
+    
+    private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) {
+                throw new IOException("Search index segment is truncated");
+            }
+        }
+    }
+    
+    Path getFile() { return file; }
+    int getWebsiteId() { return websiteId; }
+    int getDocumentCount() { return docCount; }
+    long getTotalTokens() { return totalTokens; }
+    
+    boolean isDeleted(int doc) {
+        return (buffer.get(documentStart(doc)) & SegmentWriter.FLAG_DELETED) != 0;
+    }
+    
+    int getTokenCount(int doc) {
+        return readVarInt(new int[] {documentStart(doc) + 1});
+    }
+    
+    String getUrl(int doc) {
+        return readDocumentField(doc, 0);
+    }
+    
+    String getPath(int doc) {
+        return readDocumentField(doc, 1);
+    }
+    
+    String getTitle(int doc) {
+        return readDocumentField(doc, 2);
+    }
+    
+    private int documentStart(int doc) {
+        return docsOffset + buffer.getInt(docIndexOffset + 4 * doc);
+    }
+    
+    /**
+     * @param field 0 for the URL, 1 for the path, 2 for the title
+     */
+    private String readDocumentField(int doc, int field) {
+        int[] position = {documentStart(doc) + 1};
+        readVarInt(position);
+        for (int i = 0; i < field; i++) {
+            int length = readVarInt(position);
+            position[0] += length;
+        }
+        int length = readVarInt(position);
+        byte[] bytes = new byte[length];
+        buffer.get(position[0], bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Binary search of the term dictionary
+     * @param term UTF-8 bytes of a term
+     * @return the term's number, or -1 if no document of the segment has it
+     */
+    int findTerm(byte[] term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareTerm(mid, term);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+    
+    private int compareTerm(int termNumber, byte[] term) {
+        int[] position = {termsOffset + buffer.getInt(termIndexOffset + 12 * termNumber)};
+        int length = readVarInt(position);
+        int common = Math.min(length, term.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Integer.compare(buffer.get(position[0] + i) & 0xFF, term[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, term.length);
+    }
+    
+    int getDocFreq(int termNumber) {
+        return buffer.getInt(termIndexOffset + 12 * termNumber + 4);
+    }
+    
+    Postings postings(int termNumber) {
+        int start = postingsOffset + buffer.getInt(termIndexOffset + 12 * termNumber + 8);
+        return new Postings(start, getDocFreq(termNumber));
+    }
+    
+    /**
+     * Reads the variable-length integer at position[0] and moves the position past it
+     */
+    private int readVarInt(int[] position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(position[0]++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+    
+    /**
+     * Cursor over one term's documents in increasing order
+     */
+    class Postings {
+        private final int[] position;
+        private int remaining;
+        private int doc = -1;
+        private int freq;
+        private int positionsStart;
+        
+        private Postings(int start, int docFreq) {
+            this.position = new int[] {start};
+            this.remaining = docFreq;
+        }
+        
+        /**
+         * Move to the next document
+         * @return false when there is none
+         */
+        boolean next() {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            doc += readVarInt(position);
+            freq = readVarInt(position);
+            int positionBytes = readVarInt(position);
+            positionsStart = position[0];
+            position[0] += positionBytes;
+            return true;
+        }
+        
+        /**
+         * Move to the first document at or after the target, staying put if already there
+         * @return false when there is none
+         */
+        boolean advance(int target) {
+            while (doc < target) {
+                if (!next()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        int doc() { return doc; }
+        int freq() { return freq; }
+        
+        /**
+         * Positions of the term in the current document, in increasing order
+         */
+        int[] positions() {
+            int[] positions = new int[freq];
+            int[] at = {positionsStart};
+            int last = 0;
+            for (int i = 0; i < freq; i++) {
+                last += readVarInt(at);
+                positions[i] = last;
+            }
+            return positions;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.algo.inc.search;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Builds the search index segment of one session from the pages it saves, and writes it to
+ * the mirror's index directory when the session ends. Used by the session's crawl thread only.
+ *
+ * A segment is one file: a header, a table of documents, a term dictionary sorted by UTF-8
+ * bytes and one posting list per term. Each posting is the document's number as a gap from
+ * the one before, the term's frequency, the byte length of its positions and the positions
+ * as gaps, all as variable-length integers; the length lets a query skip positions it does
+ * not need. A page that is gone is written as a deleted document, which hides the copies
+ * that earlier segments hold.
+ */
+public class SegmentWriter {
+    
+    static final int MAGIC = 0x4C4C4958;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 52;
+    static final String EXTENSION = ".seg";
+    static final byte FLAG_DELETED = 1;
+    
+    private final int websiteId;
+    private final ByteArrayOutputStream documents = new ByteArrayOutputStream();
+    private final List<Integer> documentOffsets = new ArrayList<>();
+    private final Map<String, TermPostings> postings = new HashMap<>();
+    private long totalTokens;
+    
+    public SegmentWriter(int websiteId) {
+        this.websiteId = websiteId;
+    }
+    
+    /**
+     * Index a saved page
+     * @param path where the page was saved, relative to the mirror directory
+     */
+    public void add(String url, String path, String title, String text) {
+        int doc = documentOffsets.size();
+        List<String> terms = Tokenizer.tokenize(title + "\n" + text);
+        appendDocument((byte) 0, terms.size(), url, path, title);
+        totalTokens += terms.size();
+        
+        // Group positions by term in first-occurrence order, then append one posting per term
+        Map<String, IntList> positions = new LinkedHashMap<>();
+        for (int i = 0; i < terms.size(); i++) {
+            positions.computeIfAbsent(terms.get(i), k -> new IntList()).add(i);
+        }
+        for (Map.Entry<String, IntList> entry : positions.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new TermPostings()).add(doc, entry.getValue());
+        }
+    }
+    
+    /**
+     * Record that a page earlier sessions indexed no longer exists
+     */
+    public void remove(String url) {
+        appendDocument(FLAG_DELETED, 0, url, "", "");
+    }
+    
+    public int getDocumentCount() {
+        return documentOffsets.size();
+    }
+    
+    /**
+     * Write the segment under a new name, so segments of other nodes of the same session
+     * never collide, and move it into place only once it is complete
+     * @return the segment file, or null if nothing was indexed
+     */
+    public Path write(Path indexDir) throws IOException {
+        if (documentOffsets.isEmpty()) {
+            return null;
+        }
+        Files.createDirectories(indexDir);
+        
+        // The dictionary is searched by comparing UTF-8 bytes, so it is sorted that way
+        byte[][] terms = new byte[postings.size()][];
+        int count = 0;
+        for (String term : postings.keySet()) {
+            terms[count++] = term.getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(terms, Arrays::compareUnsigned);
+        
+        ByteArrayOutputStream termBlob = new ByteArrayOutputStream();
+        ByteArrayOutputStream termIndex = new ByteArrayOutputStream();
+        DataOutputStream termIndexData = new DataOutputStream(termIndex);
+        long postingsLength = 0;
+        for (byte[] term : terms) {
+            TermPostings termPostings = postings.get(new String(term, StandardCharsets.UTF_8));
+            termIndexData.writeInt(termBlob.size());
+            termIndexData.writeInt(termPostings.docFreq);
+            termIndexData.writeInt((int) postingsLength);
+            writeVarInt(termBlob, term.length);
+            termBlob.write(term);
+            postingsLength += termPostings.bytes.size();
+        }
+        
+        long docIndexOffset = HEADER_BYTES;
+        long docsOffset = docIndexOffset + 4L * documentOffsets.size();
+        long termIndexOffset = docsOffset + documents.size();
+        long termsOffset = termIndexOffset + termIndex.size();
+        long postingsOffset = termsOffset + termBlob.size();
+        long fileLength = postingsOffset + postingsLength;
+        if (fileLength > Integer.MAX_VALUE) {
+            throw new IOException("Search index segment of session " + websiteId + " is larger than 2 GB");
+        }
+        
+        String name = String.format("%08d-%s%s", websiteId, UUID.randomUUID().toString().substring(0, 8), EXTENSION);
+        Path target = indexDir.resolve(name);
+        Path temp = indexDir.resolve(name + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 65536))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(websiteId);
+            out.writeInt(documentOffsets.size());
+            out.writeInt(terms.length);
+            out.writeInt((int) docIndexOffset);
+            out.writeInt((int) docsOffset);
+            out.writeInt((int) termIndexOffset);
+            out.writeInt((int) termsOffset);
+            out.writeInt((int) postingsOffset);
+            out.writeInt((int) fileLength);
+            out.writeLong(totalTokens);
+            for (int offset : documentOffsets) {
+                out.writeInt(offset);
+            }
+            documents.writeTo(out);
+            termIndex.writeTo(out);
+            termBlob.writeTo(out);
+            for (byte[] term : terms) {
+                postings.get(new String(term, StandardCharsets.UTF_8)).bytes.writeTo(out);
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        return target;
+    }
+    
+    private void appendDocument(byte flags, int tokenCount, String url, String path, String title) {
+        documentOffsets.add(documents.size());
+        documents.write(flags);
+        writeVarInt(documents, tokenCount);
+        writeString(documents, url);
+        writeString(documents, path);
+        writeString(documents, title != null ? title : "");
+    }
+    
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+    
+    /**
+     * Seven bits per byte, low bits first; the high bit marks that more bytes follow
+     */
+    static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+    
+    static int varIntLength(int value) {
+        int length = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+    
+    /**
+     * Encoded posting list of one term, appended to as documents are added
+     */
+    private static class TermPostings {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+        private int docFreq;
+        private int lastDoc = -1;
+        
+        void add(int doc, IntList positions) {
+            writeVarInt(bytes, doc - lastDoc);
+            writeVarInt(bytes, positions.size);
+            int positionBytes = 0;
+            int last = 0;
+            for (int i = 0; i < positions.size; i++) {
+                positionBytes += varIntLength(positions.values[i] - last);
+                last = positions.values[i];
+            }
+            writeVarInt(bytes, positionBytes);
+            last = 0;
+            for (int i = 0; i < positions.size; i++) {
+                writeVarInt(bytes, positions.values[i] - last);
+                last = positions.values[i];
+            }
+            lastDoc = doc;
+            docFreq++;
+        }
+    }
+    
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+        
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
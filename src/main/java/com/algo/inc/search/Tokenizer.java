@@ -0,0 +1,38 @@
+package com.algo.inc.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits text into lower-case terms: runs of letters and digits in any script.
+ * Indexing and queries use the same rules, so a query matches what was indexed.
+ */
+public class Tokenizer {
+    
+    /**
+     * Longer runs are dropped, since they are almost always encoded data rather than words
+     */
+    static final int MAX_TERM_LENGTH = 64;
+    
+    /**
+     * Terms of the text in order; a term's position is its index in the list
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        StringBuilder term = new StringBuilder();
+        int i = 0;
+        while (i <= text.length()) {
+            int codePoint = i < text.length() ? text.codePointAt(i) : ' ';
+            if (Character.isLetterOrDigit(codePoint)) {
+                term.appendCodePoint(Character.toLowerCase(codePoint));
+            } else if (term.length() > 0) {
+                if (term.length() <= MAX_TERM_LENGTH) {
+                    terms.add(term.toString());
+                }
+                term.setLength(0);
+            }
+            i += Character.charCount(codePoint);
+        }
+        return terms;
+    }
+}
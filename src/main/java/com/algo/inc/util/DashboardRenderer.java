@@ -0,0 +1,292 @@
+package com.algo.inc.util;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live download dashboard redrawn by its own ticker thread.
+ *
+ * Fetch threads only update lock-free counters through {@link #startTransfer},
+ * {@link Transfer#add} and {@link #finishTransfer}; they never format strings or touch
+ * the console. The ticker takes a snapshot at a fixed frame rate (-Dui.fps, default 10)
+ * and redraws a fixed-size block in place. When stdout is not a terminal it prints a plain
+ * status line every few seconds instead of using cursor movement.
+ */
+public class DashboardRenderer {
+    
+    private static final int IN_FLIGHT_ROWS = 5;
+    private static final int ERROR_ROWS = 3;
+    private static final int FRAME_HEIGHT = 2 + 1 + IN_FLIGHT_ROWS + 1 + ERROR_ROWS;
+    private static final long PLAIN_INTERVAL_MS = 5000;
+    
+    private final PrintStream out;
+    private final boolean interactive;
+    private final int framesPerSecond;
+    
+    // Written by fetch threads
+    private final LongAdder discoveredFiles = new LongAdder();
+    private final LongAdder completedFiles = new LongAdder();
+    private final LongAdder failedFiles = new LongAdder();
+    private final LongAdder finishedBytes = new LongAdder();
+    private final ConcurrentHashMap<Transfer, Boolean> inFlight = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String> recentErrors = new AtomicReferenceArray<>(ERROR_ROWS);
+    private final AtomicLong errorSequence = new AtomicLong();
+    
+    // Owned by the ticker thread
+    private ScheduledExecutorService ticker;
+    private final StringBuilder frame = new StringBuilder(2048);
+    private boolean drawn;
+    private long startedAt;
+    private long lastFrameAt;
+    private long lastFrameBytes;
+    private double smoothedRate;
+    private long lastPlainAt;
+    
+    public DashboardRenderer() {
+        this(System.out, System.console() != null, Integer.getInteger("ui.fps", 10));
+    }
+    
+    public DashboardRenderer(PrintStream out, boolean interactive, int framesPerSecond) {
+        this.out = out;
+        this.interactive = interactive;
+        this.framesPerSecond = Math.max(1, framesPerSecond);
+    }
+    
+    /**
+     * Start the ticker thread
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        startedAt = System.nanoTime();
+        lastFrameAt = startedAt;
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "dashboard-renderer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = 1_000_000L / framesPerSecond;
+        ticker.scheduleAtFixedRate(this::tick, 0, period, TimeUnit.MICROSECONDS);
+    }
+    
+    /**
+     * Stop the ticker and draw the final frame
+     */
+    public synchronized void stop() {
+        if (ticker == null) {
+            return;
+        }
+        ticker.shutdown();
+        try {
+            ticker.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ticker = null;
+        lastPlainAt = 0;
+        tick();
+        out.flush();
+    }
+    
+    /**
+     * A file was found and will be fetched
+     */
+    public void fileDiscovered() {
+        discoveredFiles.increment();
+    }
+    
+    /**
+     * A fetch is starting; the returned handle is only updated by the calling thread
+     */
+    public Transfer startTransfer(String name, String type) {
+        Transfer transfer = new Transfer(name, type, System.nanoTime());
+        inFlight.put(transfer, Boolean.TRUE);
+        return transfer;
+    }
+    
+    /**
+     * A fetch is over
+     * @param error short description when it failed, or null on success
+     */
+    public void finishTransfer(Transfer transfer, String error) {
+        inFlight.remove(transfer);
+        completedFiles.increment();
+        finishedBytes.add(transfer.bytes);
+        if (error != null) {
+            failedFiles.increment();
+            this.error(transfer.name + ": " + error);
+        }
+    }
+    
+    /**
+     * Add a line to the recent errors panel
+     */
+    public void error(String message) {
+        long slot = errorSequence.getAndIncrement();
+        recentErrors.set((int) (slot % ERROR_ROWS), message);
+    }
+    
+    /**
+     * One frame: snapshot the counters and redraw
+     */
+    private void tick() {
+        try {
+            long now = System.nanoTime();
+            
+            // Snapshot
+            long discovered = discoveredFiles.sum();
+            long completed = completedFiles.sum();
+            long failed = failedFiles.sum();
+            List<Transfer> transfers = new ArrayList<>(inFlight.keySet());
+            long bytes = finishedBytes.sum();
+            for (Transfer transfer : transfers) {
+                bytes += transfer.bytes;
+            }
+            
+            // Exponentially smoothed transfer rate
+            double seconds = (now - lastFrameAt) / 1e9;
+            if (seconds > 0) {
+                double instant = Math.max(0, bytes - lastFrameBytes) / seconds;
+                smoothedRate = smoothedRate == 0 ? instant : smoothedRate * 0.8 + instant * 0.2;
+            }
+            lastFrameAt = now;
+            lastFrameBytes = bytes;
+            
+            if (interactive) {
+                drawFrame(now, discovered, completed, failed, bytes, transfers);
+            } else {
+                drawPlain(now, discovered, completed, failed, bytes, transfers.size());
+            }
+        } catch (RuntimeException e) {
+            // Never let a rendering problem kill the ticker
+        }
+    }
+    
+    private void drawFrame(long now, long discovered, long completed, long failed, long bytes, List<Transfer> transfers) {
+        frame.setLength(0);
+        if (drawn) {
+            frame.append("\033[").append(FRAME_HEIGHT).append('A');
+        }
+        
+        long elapsedMs = (now - startedAt) / 1_000_000;
+        line(TerminalUI.color("  Files ", TerminalUI.DIM)
+            + TerminalUI.color(completed + "/" + discovered, TerminalUI.BRIGHT_CYAN)
+            + TerminalUI.color("  Failed ", TerminalUI.DIM)
+            + TerminalUI.color(String.valueOf(failed), failed > 0 ? TerminalUI.BRIGHT_RED : TerminalUI.BRIGHT_GREEN)
+            + TerminalUI.color("  Size ", TerminalUI.DIM)
+            + TerminalUI.color(TerminalUI.formatBytes(bytes), TerminalUI.BRIGHT_GREEN)
+            + TerminalUI.color("  Elapsed ", TerminalUI.DIM)
+            + TerminalUI.color(TerminalUI.formatDuration(elapsedMs), TerminalUI.BRIGHT_YELLOW));
+        line(TerminalUI.color("  Rate  ", TerminalUI.DIM)
+            + TerminalUI.color(TerminalUI.formatBytes(smoothedRate) + "/s", TerminalUI.BRIGHT_MAGENTA)
+            + "  " + bar(completed, discovered, 30));
+        
+        line(TerminalUI.color("  In flight (" + transfers.size() + ")", TerminalUI.DIM));
+        for (int i = 0; i < IN_FLIGHT_ROWS; i++) {
+            if (i < transfers.size()) {
+                Transfer transfer = transfers.get(i);
+                long transferMs = (now - transfer.startedAt) / 1_000_000;
+                line("  " + TerminalUI.color(String.format("[%-3s]", transfer.type), typeColor(transfer.type)) + " "
+                    + TerminalUI.color(String.format("%10s", TerminalUI.formatBytes(transfer.bytes)), TerminalUI.BRIGHT_CYAN) + " "
+                    + TerminalUI.color(String.format("%8s", TerminalUI.formatDuration(transferMs)), TerminalUI.BRIGHT_YELLOW) + " "
+                    + TerminalUI.dim(truncate(transfer.name, 40)));
+            } else {
+                line("");
+            }
+        }
+        
+        line(TerminalUI.color("  Recent errors", TerminalUI.DIM));
+        long sequence = errorSequence.get();
+        for (int i = 0; i < ERROR_ROWS; i++) {
+            long slot = sequence - ERROR_ROWS + i;
+            String message = slot >= 0 ? recentErrors.get((int) (slot % ERROR_ROWS)) : null;
+            line(message != null ? "  " + TerminalUI.color(TerminalUI.CROSS + " " + truncate(message, 70), TerminalUI.BRIGHT_RED) : "");
+        }
+        
+        out.print(frame);
+        out.flush();
+        drawn = true;
+    }
+    
+    private void drawPlain(long now, long discovered, long completed, long failed, long bytes, int active) {
+        long nowMs = now / 1_000_000;
+        if (lastPlainAt != 0 && nowMs - lastPlainAt < PLAIN_INTERVAL_MS) {
+            return;
+        }
+        lastPlainAt = nowMs;
+        out.println(String.format("  files %d/%d failed %d size %s rate %s/s in-flight %d",
+            completed, discovered, failed, TerminalUI.formatBytes(bytes),
+            TerminalUI.formatBytes(smoothedRate), active));
+    }
+    
+    private void line(String text) {
+        frame.append("\033[2K").append(text).append('\n');
+    }
+    
+    private static String bar(long current, long total, int width) {
+        int filled = total > 0 ? (int) Math.min(width, width * current / total) : 0;
+        return TerminalUI.color("[", TerminalUI.DIM)
+            + TerminalUI.color("=".repeat(filled), TerminalUI.BRIGHT_GREEN)
+            + TerminalUI.color("-".repeat(width - filled), TerminalUI.DIM)
+            + TerminalUI.color("]", TerminalUI.DIM);
+    }
+    
+    private static String typeColor(String type) {
+        switch (type) {
+            case "CSS": return TerminalUI.BRIGHT_BLUE;
+            case "JS": return TerminalUI.BRIGHT_YELLOW;
+            case "IMG": return TerminalUI.BRIGHT_MAGENTA;
+            default: return TerminalUI.BRIGHT_WHITE;
+        }
+    }
+    
+    private static String truncate(String str, int maxLength) {
+        if (str == null || str.length() <= maxLength) {
+            return str != null ? str : "";
+        }
+        return str.substring(0, maxLength - 3) + "...";
+    }
+    
+    /**
+     * Progress of one fetch. Written only by the fetching thread, read by the ticker.
+     */
+    public static class Transfer {
+        private final String name;
+        private final String type;
+        private final long startedAt;
+        private volatile long bytes;
+        
+        Transfer(String name, String type, long startedAt) {
+            this.name = name;
+            this.type = type;
+            this.startedAt = startedAt;
+        }
+        
+        /**
+         * Count received bytes; single writer, so a plain volatile update is enough
+         */
+        public void add(long count) {
+            bytes = bytes + count;
+        }
+        
+        public long getBytes() {
+            return bytes;
+        }
+        
+        /**
+         * Count from zero again when a fetch is retried
+         */
+        public void restart() {
+            bytes = 0;
+        }
+    }
+}
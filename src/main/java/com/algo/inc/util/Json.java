@@ -0,0 +1,51 @@
+package com.algo.inc.util;
+
+/**
+ * Minimal helpers for writing JSON by hand
+ */
+public class Json {
+    
+    /**
+     * Quote and escape a string value; null becomes the JSON literal null
+     */
+    public static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        return appendQuoted(new StringBuilder(value.length() + 2), value).toString();
+    }
+    
+    /**
+     * Append a quoted and escaped string value, or null, without building it on its own first
+     */
+    public static StringBuilder appendQuoted(StringBuilder out, String value) {
+        if (value == null) {
+            return out.append("null");
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+    
+    /**
+     * A number, or null when absent
+     */
+    public static String number(Integer value) {
+        return value != null ? String.valueOf(value) : "null";
+    }
+}
@@ -373,6 +373,15 @@ public class TerminalUI {
             color("View Website Report", WHITE));
         System.out.println(color("│", BRIGHT_CYAN) + "  " + 
             color("4", BRIGHT_GREEN) + ". " + 
+            color("Performance Analytics", WHITE));
+        System.out.println(color("│", BRIGHT_CYAN) + "  " + 
+            color("5", BRIGHT_GREEN) + ". " + 
+            color("Compare Sessions", WHITE));
+        System.out.println(color("│", BRIGHT_CYAN) + "  " + 
+            color("6", BRIGHT_GREEN) + ". " + 
+            color("Search Mirror", WHITE));
+        System.out.println(color("│", BRIGHT_CYAN) + "  " + 
+            color("7", BRIGHT_GREEN) + ". " + 
             color("Exit", WHITE));
         System.out.println(color("│", BRIGHT_CYAN));
         System.out.print(color("└─ ", BRIGHT_CYAN) + 
@@ -0,0 +1,208 @@
+package com.algo.inc.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * UrlDictionary - Gives every distinct URL a dense int ID and keeps the URLs front-coded in
+ * one byte array, so millions of URLs of a session cost tens of bytes each instead of the
+ * objects a set of strings or CanonicalUrls needs.
+ *
+ * URLs are stored in blocks of 16 in the order they are added. The first URL of a block is
+ * stored whole; each other one as the length of the prefix it shares with the URL before it
+ * and the rest of its UTF-8 bytes. Links of one page share long prefixes, so discovery order
+ * compresses well. Looking up a URL's ID goes through an open-addressing hash table of IDs;
+ * an ID's URL is decoded from the start of its block.
+ *
+ * Not thread-safe; lookups reuse a scratch buffer.
+ */
+public class UrlDictionary {
+    
+    private static final int BLOCK_SIZE = 16;
+    
+    private byte[] data = new byte[4096];
+    private int length;
+    private int[] blockOffsets = new int[64];
+    // Hash of each ID's URL, so probing rarely has to decode a URL
+    private int[] hashes = new int[256];
+    // ID + 1 per slot, 0 for empty; never more than half full
+    private int[] slots = new int[512];
+    private int size;
+    private byte[] previous = new byte[256];
+    private int previousLength;
+    private byte[] scratch = new byte[256];
+    
+    /**
+     * ID of the URL, adding it if it is new; IDs count up from 0 in the order URLs are added
+     */
+    public int add(String url) {
+        byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+        int hash = spread(url.hashCode());
+        int slot = findSlot(bytes, hash);
+        if (slots[slot] != 0) {
+            return slots[slot] - 1;
+        }
+        
+        int id = size++;
+        append(id, bytes);
+        if (id == hashes.length) {
+            hashes = Arrays.copyOf(hashes, id * 2);
+        }
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+    
+    /**
+     * @return the URL's ID, or -1 if it was never added
+     */
+    public int find(String url) {
+        if (size == 0) {
+            return -1;
+        }
+        int slot = findSlot(url.getBytes(StandardCharsets.UTF_8), spread(url.hashCode()));
+        return slots[slot] - 1;
+    }
+    
+    public boolean contains(String url) {
+        return find(url) >= 0;
+    }
+    
+    /**
+     * @throws IndexOutOfBoundsException if no URL has the ID
+     */
+    public String get(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No URL with ID " + id);
+        }
+        int urlLength = decode(id);
+        return new String(scratch, 0, urlLength, StandardCharsets.UTF_8);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Bytes held by the dictionary's arrays
+     */
+    public long getMemoryBytes() {
+        return data.length + 4L * (blockOffsets.length + hashes.length + slots.length)
+            + previous.length + scratch.length;
+    }
+    
+    private int findSlot(byte[] bytes, int hash) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && decode(id) == bytes.length
+                && Arrays.equals(scratch, 0, bytes.length, bytes, 0, bytes.length)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    private void rehash() {
+        int[] grown = new int[slots.length * 2];
+        int mask = grown.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (grown[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            grown[slot] = id + 1;
+        }
+        slots = grown;
+    }
+    
+    private void append(int id, byte[] bytes) {
+        int shared = 0;
+        if (id % BLOCK_SIZE == 0) {
+            int block = id / BLOCK_SIZE;
+            if (block == blockOffsets.length) {
+                blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+            }
+            blockOffsets[block] = length;
+        } else {
+            int limit = Math.min(previousLength, bytes.length);
+            while (shared < limit && previous[shared] == bytes[shared]) {
+                shared++;
+            }
+        }
+        
+        int suffix = bytes.length - shared;
+        ensureCapacity(10 + suffix);
+        writeVarInt(shared);
+        writeVarInt(suffix);
+        System.arraycopy(bytes, shared, data, length, suffix);
+        length += suffix;
+        
+        if (bytes.length > previous.length) {
+            previous = new byte[Math.max(bytes.length, previous.length * 2)];
+        }
+        System.arraycopy(bytes, 0, previous, 0, bytes.length);
+        previousLength = bytes.length;
+    }
+    
+    /**
+     * Rebuild the ID's URL in the scratch buffer from the start of its block
+     * @return the URL's length in bytes
+     */
+    private int decode(int id) {
+        int position = blockOffsets[id / BLOCK_SIZE];
+        int urlLength = 0;
+        for (int i = id - id % BLOCK_SIZE; i <= id; i++) {
+            int shared = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                shared |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            int suffix = 0;
+            shift = 0;
+            do {
+                b = data[position++];
+                suffix |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            
+            urlLength = shared + suffix;
+            if (urlLength > scratch.length) {
+                scratch = Arrays.copyOf(scratch, Math.max(urlLength, scratch.length * 2));
+            }
+            System.arraycopy(data, position, scratch, shared, suffix);
+            position += suffix;
+        }
+        return urlLength;
+    }
+    
+    private void ensureCapacity(int extra) {
+        if (length + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(length + extra, data.length * 2));
+        }
+    }
+    
+    private void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+    
+    /**
+     * Mix the high bits in, since the table uses only the low ones
+     */
+    private static int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,50 @@
+package com.algo.inc.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for batch command line parsing.
+ */
+public class BatchOptionsTest 
+{
+    @Test
+    public void parsesBothOptionForms()
+    {
+        BatchOptions options = BatchOptions.parse(new String[] {
+            "--input", "urls.txt", "--concurrency=8", "--depth", "2", "--jfr", "--output=/tmp/mirrors"
+        });
+        assertEquals("urls.txt", options.getInput());
+        assertEquals(8, options.getConcurrency());
+        assertEquals(2, options.getDepth());
+        assertEquals("/tmp/mirrors", options.getOutputDir());
+        assertEquals("-", options.getSummary());
+        assertEquals(-1, options.getMetricsPort());
+    }
+    
+    @Test
+    public void rejectsBadArguments()
+    {
+        String[][] invalid = {
+            {"--depth", "1"},
+            {"--input", "urls.txt", "--concurrency", "0"},
+            {"--input", "urls.txt", "--depth", "deep"},
+            {"--input"},
+            {"--input", "urls.txt", "--unknown"},
+            {"--input", "urls.txt", "--diff", "example.com"},
+            {"--input", "urls.txt", "--from", "3"},
+            {"--input", "urls.txt", "--session", "3"},
+            {"--export", "example.com", "--format", "xml"}
+        };
+        for (String[] args : invalid) {
+            try {
+                BatchOptions.parse(args);
+                throw new AssertionError("Accepted " + String.join(" ", args));
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage() != null && !e.getMessage().isEmpty());
+            }
+        }
+    }
+}
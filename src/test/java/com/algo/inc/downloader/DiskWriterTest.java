@@ -0,0 +1,110 @@
+package com.algo.inc.downloader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for saving files on the disk stage in each durability mode.
+ */
+public class DiskWriterTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void savesEveryFileBeforeFinishing() throws Exception
+    {
+        for (Durability durability : Durability.values()) {
+            Path root = folder.newFolder(durability.name()).toPath();
+            DiskWriter writer = new DiskWriter(3, durability);
+            Map<Path, IOException> reported = new ConcurrentHashMap<>();
+            Map<Path, Boolean> succeeded = new ConcurrentHashMap<>();
+            for (int i = 0; i < 200; i++) {
+                Path file = root.resolve("dir" + i % 7).resolve("sub").resolve("file" + i + ".txt");
+                writer.write(file, ("body " + i).getBytes(StandardCharsets.UTF_8), "http://a/" + i, failure -> {
+                    if (failure != null) {
+                        reported.put(file, failure);
+                    }
+                    succeeded.put(file, failure == null);
+                });
+            }
+            writer.finish();
+            
+            assertEquals(durability.name(), 200, succeeded.size());
+            assertEquals(durability.name(), 0, reported.size());
+            assertArrayEquals("body 42".getBytes(StandardCharsets.UTF_8),
+                Files.readAllBytes(root.resolve("dir0/sub/file42.txt")));
+        }
+    }
+    
+    @Test
+    public void reportsFilesThatCannotBeWritten() throws Exception
+    {
+        Path blocker = folder.newFile("blocker").toPath();
+        DiskWriter writer = new DiskWriter(1, Durability.BATCH);
+        IOException[] failure = new IOException[1];
+        boolean[] called = new boolean[1];
+        writer.write(blocker.resolve("page.html"), new byte[10], "http://a/page.html", e -> {
+            failure[0] = e;
+            called[0] = true;
+        });
+        writer.finish();
+        
+        assertNotNull(failure[0]);
+        assertTrue(called[0]);
+    }
+    
+    @Test
+    public void forcesHeldFilesWhenTheLastWriteOfABatchFails() throws Exception
+    {
+        Path root = folder.getRoot().toPath();
+        Path blocker = folder.newFile("blocker").toPath();
+        DiskWriter writer = new DiskWriter(1, Durability.BATCH);
+        // The failing first write keeps the only disk thread busy until the rest are queued
+        CountDownLatch queued = new CountDownLatch(1);
+        writer.write(blocker.resolve("first.html"), new byte[10], "http://a/first.html", e -> {
+            try {
+                queued.await();
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CountDownLatch saved = new CountDownLatch(1);
+        IOException[] failure = new IOException[1];
+        writer.write(root.resolve("page.html"), new byte[10], "http://a/page.html", e -> saved.countDown());
+        writer.write(blocker.resolve("last.html"), new byte[10], "http://a/last.html", e -> failure[0] = e);
+        queued.countDown();
+        
+        // Held behind the failed write, the saved file is still forced without waiting for finish
+        assertTrue(saved.await(10, TimeUnit.SECONDS));
+        writer.finish();
+        assertNotNull(failure[0]);
+    }
+    
+    @Test
+    public void parsesDurabilityModes()
+    {
+        assertEquals(Durability.BATCH, Durability.parse(" Batch"));
+        assertEquals(Durability.SYNC, Durability.parse("sync"));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownDurabilityModes()
+    {
+        Durability.parse("fsync");
+    }
+}
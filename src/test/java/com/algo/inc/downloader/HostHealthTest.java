@@ -0,0 +1,52 @@
+package com.algo.inc.downloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for per-host timeouts and the circuit breaker.
+ */
+public class HostHealthTest 
+{
+    @Test
+    public void opensAfterRepeatedFailuresAndProbesOnce()
+    {
+        HostHealth health = new HostHealth();
+        long now = 1_000_000;
+        for (int i = 0; i < HostHealth.FAILURE_THRESHOLD; i++) {
+            assertEquals(0, health.permit(now, 60000));
+            health.failure(now);
+        }
+        assertEquals(HostHealth.MIN_COOLDOWN_MS, health.permit(now, 60000));
+        
+        // After the cooldown one probe goes out while others wait for it
+        now += HostHealth.MIN_COOLDOWN_MS;
+        assertEquals(0, health.permit(now, 60000));
+        assertTrue(health.permit(now, 60000) > 0);
+        health.failure(now);
+        assertEquals(2 * HostHealth.MIN_COOLDOWN_MS, health.permit(now, 60000));
+        
+        // Past the give-up time requests fail at once, except for the next probe
+        assertEquals(-1, health.permit(now + 1, 1));
+        now += 2 * HostHealth.MIN_COOLDOWN_MS;
+        assertEquals(0, health.permit(now, 1));
+        health.success();
+        assertEquals(0, health.permit(now, 1));
+    }
+    
+    @Test
+    public void fitsTimeoutToResponseTimes()
+    {
+        HostHealth health = new HostHealth();
+        assertEquals(30000, health.timeoutMillis(0, 30000));
+        for (int i = 0; i < HostHealth.MIN_SAMPLES; i++) {
+            health.recordResponseTime(1_000_000_000L);
+        }
+        int timeout = health.timeoutMillis(0, 30000);
+        assertTrue(timeout >= 4000 && timeout < 5000);
+        assertEquals(2 * timeout, health.timeoutMillis(1, 30000));
+        assertEquals(30000, health.timeoutMillis(5, 30000));
+    }
+}
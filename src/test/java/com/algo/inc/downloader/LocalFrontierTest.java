@@ -0,0 +1,57 @@
+package com.algo.inc.downloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.algo.inc.model.CanonicalUrl;
+import com.algo.inc.model.FrontierEntry;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Unit tests for the in-memory frontier.
+ */
+public class LocalFrontierTest 
+{
+    @Test
+    public void handsOutEachUrlOnceAndDrains()
+    {
+        LocalFrontier frontier = new LocalFrontier();
+        CanonicalUrl page = CanonicalUrl.parse("https://example.com");
+        assertTrue(frontier.offer(page, "HTML", 0, 0));
+        assertTrue(frontier.offer(CanonicalUrl.parse("https://example.com/style.css"), "CSS", 0, 0));
+        assertFalse(frontier.offer(page.resolve("/#top"), "HTML", 1, 0));
+        
+        List<FrontierEntry> batch = frontier.claim(10);
+        assertEquals(2, batch.size());
+        assertEquals(page, batch.get(0).getUrl());
+        assertFalse(frontier.isDrained());
+        
+        frontier.complete(batch.get(0), true);
+        frontier.release(batch.get(1));
+        assertEquals("https://example.com/style.css", frontier.claim(10).get(0).getUrl().toString());
+        frontier.complete(batch.get(1), false);
+        assertTrue(frontier.isDrained());
+    }
+    
+    @Test
+    public void handsOutLowestRankFirst()
+    {
+        FetchPriority priority = FetchPriority.defaults();
+        LocalFrontier frontier = new LocalFrontier();
+        CanonicalUrl site = CanonicalUrl.parse("https://example.com/");
+        frontier.offer(site.resolve("hero.jpg"), "IMG", 0, priority.rank("IMG", 0, -1));
+        frontier.offer(site.resolve("deep.html"), "HTML", 1, priority.rank("HTML", 1, -1));
+        frontier.offer(site.resolve("app.js"), "JS", 0, priority.rank("JS", 0, -1));
+        
+        List<FrontierEntry> batch = frontier.claim(10);
+        assertEquals("https://example.com/app.js", batch.get(0).getUrl().toString());
+        assertEquals("https://example.com/hero.jpg", batch.get(1).getUrl().toString());
+        assertEquals("https://example.com/deep.html", batch.get(2).getUrl().toString());
+        
+        FetchPriority small = FetchPriority.parse("pages,small");
+        assertTrue(small.rank("IMG", 0, 2048) < small.rank("IMG", 0, 4 * 1024 * 1024));
+        assertTrue(small.rank("HTML", 5, 1 << 30) < small.rank("CSS", 0, 10));
+    }
+}
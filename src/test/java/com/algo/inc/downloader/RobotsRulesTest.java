@@ -0,0 +1,56 @@
+package com.algo.inc.downloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.algo.inc.model.CanonicalUrl;
+import org.junit.Test;
+
+/**
+ * Unit tests for robots.txt parsing and rule precedence.
+ */
+public class RobotsRulesTest 
+{
+    private static final CanonicalUrl SITE = CanonicalUrl.parse("https://example.com/robots.txt");
+    
+    @Test
+    public void longestMatchWinsAndAllowWinsTies()
+    {
+        RobotsRules robots = RobotsRules.parse(String.join("\n",
+            "User-agent: *",
+            "Disallow: /private",
+            "Allow: /private/press",
+            "Disallow: /*.pdf$",
+            "Disallow: /search?",
+            "Allow: /search?",
+            "Crawl-delay: 1.5",
+            "",
+            "Sitemap: /sitemap_index.xml"), SITE);
+        
+        assertFalse(robots.isAllowed(SITE.resolve("/private/notes.html")));
+        assertTrue(robots.isAllowed(SITE.resolve("/private/press/2024.html")));
+        assertFalse(robots.isAllowed(SITE.resolve("/files/report.pdf")));
+        assertTrue(robots.isAllowed(SITE.resolve("/files/report.pdf?download=1")));
+        assertTrue(robots.isAllowed(SITE.resolve("/search?q=x")));
+        assertTrue(robots.isAllowed(SITE.resolve("/")));
+        assertEquals(1500, robots.getCrawlDelayMillis());
+        assertEquals("https://example.com/sitemap_index.xml", robots.getSitemaps().get(0).toString());
+    }
+    
+    @Test
+    public void ownGroupReplacesTheDefaultGroup()
+    {
+        RobotsRules robots = RobotsRules.parse(String.join("\n",
+            "User-agent: *",
+            "Disallow: /",
+            "",
+            "User-agent: othercrawler",
+            "User-agent: link-local",
+            "Disallow: /tmp/ # scratch space"), SITE);
+        
+        assertTrue(robots.isAllowed(SITE.resolve("/index.html")));
+        assertFalse(robots.isAllowed(SITE.resolve("/tmp/a")));
+        assertEquals(0, robots.getCrawlDelayMillis());
+    }
+}
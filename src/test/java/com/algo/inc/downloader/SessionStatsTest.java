@@ -0,0 +1,67 @@
+package com.algo.inc.downloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.algo.inc.model.ErrorClass;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Unit tests for per-session statistics.
+ */
+public class SessionStatsTest
+{
+    @Test
+    public void snapshotsCountFetchesByOutcome()
+    {
+        SessionStats stats = new SessionStats();
+        stats.fileDiscovered();
+        stats.fileDiscovered();
+        stats.fileCompleted(false);
+        stats.addBytes(2048);
+        stats.recordFetch(200, ErrorClass.NONE, 5_000_000);
+        stats.fileCompleted(true);
+        stats.recordFetch(503, ErrorClass.HTTP_5XX, 20_000_000);
+        stats.recordFetch(0, ErrorClass.TIMEOUT, 30_000_000);
+        
+        SessionStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(2, snapshot.getFiles());
+        assertEquals(2, snapshot.getCompletedFiles());
+        assertEquals(1, snapshot.getFailedFiles());
+        assertEquals(2048, snapshot.getBytes());
+        assertEquals(1, snapshot.getResponses(2));
+        assertEquals(1, snapshot.getResponses(5));
+        assertEquals(1, snapshot.getResponses(0));
+        assertEquals(1, snapshot.getErrors(ErrorClass.TIMEOUT));
+        assertEquals(0, snapshot.getErrors(ErrorClass.NONE));
+        assertEquals(3, snapshot.getFetchLatency().getCount());
+    }
+    
+    @Test
+    public void snapshotsStayOrderedUnderConcurrentUpdates() throws Exception
+    {
+        SessionStats stats = new SessionStats();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 50000; i++) {
+                    stats.fileDiscovered();
+                    stats.fileCompleted(i % 2 == 0);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        while (threads.get(0).isAlive()) {
+            SessionStats.Snapshot snapshot = stats.snapshot();
+            assertTrue(snapshot.getFailedFiles() <= snapshot.getCompletedFiles());
+            assertTrue(snapshot.getCompletedFiles() <= snapshot.getFiles());
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(200000, stats.snapshot().getCompletedFiles());
+    }
+}
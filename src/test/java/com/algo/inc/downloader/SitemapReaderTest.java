@@ -0,0 +1,94 @@
+package com.algo.inc.downloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.algo.inc.model.CanonicalUrl;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Test;
+
+/**
+ * Unit tests for streaming sitemap and sitemap index documents.
+ */
+public class SitemapReaderTest 
+{
+    private static final CanonicalUrl SOURCE = CanonicalUrl.parse("https://example.com/sitemap.xml.gz");
+    
+    @Test
+    public void readsGzippedUrlsetAndIndex() throws Exception
+    {
+        String urlset = "<?xml version=\"1.0\"?>"
+            + "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">"
+            + "<url><loc>https://example.com/a</loc><lastmod>2024-03-01</lastmod></url>"
+            + "<url><loc> /b#x </loc><lastmod>2024-03-01T10:15:00+02:00</lastmod></url>"
+            + "<url><loc>mailto:nobody@example.com</loc></url>"
+            + "</urlset>";
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(urlset.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        List<String> urls = new ArrayList<>();
+        List<Instant> lastmods = new ArrayList<>();
+        InputStream in = SitemapReader.gunzipIfNeeded(new ByteArrayInputStream(gzipped.toByteArray()));
+        SitemapReader.parse(in, SOURCE, (url, lastmod) -> {
+            urls.add(url.toString());
+            lastmods.add(lastmod);
+        }, sitemap -> { });
+        
+        assertEquals(List.of("https://example.com/a", "https://example.com/b"), urls);
+        assertEquals(Instant.parse("2024-03-01T00:00:00Z"), lastmods.get(0));
+        assertEquals(Instant.parse("2024-03-01T08:15:00Z"), lastmods.get(1));
+        
+        String index = "<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">"
+            + "<sitemap><loc>https://example.com/posts.xml</loc></sitemap></sitemapindex>";
+        List<String> nested = new ArrayList<>();
+        SitemapReader.parse(SitemapReader.gunzipIfNeeded(new ByteArrayInputStream(index.getBytes(StandardCharsets.UTF_8))),
+            SOURCE, (url, lastmod) -> urls.add(url.toString()), sitemap -> nested.add(sitemap.toString()));
+        assertEquals(List.of("https://example.com/posts.xml"), nested);
+        assertNull(SitemapReader.parseLastmod("yesterday"));
+    }
+    
+    @Test
+    public void reportsWhenTheUrlLimitCutsTheSitemapsShort() throws Exception
+    {
+        StringBuilder urlset = new StringBuilder("<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">");
+        for (int i = 0; i < 10; i++) {
+            urlset.append("<url><loc>/page").append(i).append("</loc></url>");
+        }
+        byte[] body = urlset.append("</urlset>").toString().getBytes(StandardCharsets.UTF_8);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/sitemap.xml", exchange -> {
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        try {
+            List<CanonicalUrl> sitemaps = List.of(CanonicalUrl.parse(
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/sitemap.xml"));
+            SitemapReader capped = new SitemapReader("test", 4);
+            assertEquals(4, capped.read(sitemaps, (url, lastmod) -> { }));
+            assertTrue(capped.isTruncated());
+            
+            SitemapReader unlimited = new SitemapReader("test", 0);
+            assertEquals(10, unlimited.read(sitemaps, (url, lastmod) -> { }));
+            assertFalse(unlimited.isTruncated());
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.algo.inc.downloader;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the minimum-throughput guard.
+ */
+public class ThroughputGuardTest 
+{
+    private static final long SECOND = 1_000_000_000L;
+    
+    @Test
+    public void abortsOnlyAfterAFullSlowWindow() throws Exception
+    {
+        ThroughputGuard guard = new ThroughputGuard(1024, 10000, 0);
+        // A fast first window passes, and nothing is judged before a window is complete
+        guard.update(64 * 1024, 10 * SECOND);
+        guard.update(64 * 1024 + 100, 19 * SECOND);
+        try {
+            guard.update(64 * 1024 + 200, 20 * SECOND);
+            throw new AssertionError("Slow window accepted");
+        } catch (SlowTransferException e) {
+            assertTrue(e.getMessage().contains("below"));
+        }
+        
+        ThroughputGuard off = new ThroughputGuard(0, 10000, 0);
+        off.update(1, 3600 * SECOND);
+    }
+}
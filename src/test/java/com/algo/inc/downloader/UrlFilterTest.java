@@ -0,0 +1,49 @@
+package com.algo.inc.downloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.algo.inc.model.CanonicalUrl;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+/**
+ * Unit tests for compiled URL filter rules.
+ */
+public class UrlFilterTest 
+{
+    private static final CanonicalUrl SITE = CanonicalUrl.parse("https://example.com/");
+    
+    @Test
+    public void combinesIncludeExcludeExtensionQueryAndDepthRules()
+    {
+        UrlFilter filter = new UrlFilter(
+            Arrays.asList("/docs/**", "re:^/blog/\\d{4}/"),
+            Arrays.asList("**/drafts/**", "*.bak"),
+            Arrays.asList("MP4", ".zip"),
+            Collections.singletonList("(^|&)sessionid="),
+            3);
+        
+        assertTrue(filter.accepts(SITE.resolve("/docs/guide/intro.html"), "HTML"));
+        assertTrue(filter.accepts(SITE.resolve("/blog/2024/post"), "HTML"));
+        assertFalse(filter.accepts(SITE.resolve("/about"), "HTML"));
+        assertFalse(filter.accepts(SITE.resolve("/docs/a/b/c/deep.html"), "HTML"));
+        assertFalse(filter.accepts(SITE.resolve("/docs/drafts/x.html"), "HTML"));
+        assertFalse(filter.accepts(SITE.resolve("/docs/old/page.bak"), "HTML"));
+        assertFalse(filter.accepts(SITE.resolve("/docs/intro?sessionid=42"), "HTML"));
+        
+        // Includes and depth only restrict pages; resources keep their excludes
+        assertTrue(filter.accepts(SITE.resolve("/static/css/site.css"), "CSS"));
+        assertFalse(filter.accepts(SITE.resolve("/media/clip.mp4"), "IMG"));
+        assertFalse(filter.accepts(SITE.resolve("/files/all.ZIP"), "JS"));
+    }
+    
+    @Test
+    public void globsStayWithinSegments()
+    {
+        assertEquals("^\\Q/a/\\E[^/]*\\Q.html\\E$", UrlFilter.globToRegex("/a/*.html"));
+        assertTrue(UrlFilter.acceptAll().accepts(SITE.resolve("/anything.iso"), "HTML"));
+    }
+}
@@ -0,0 +1,119 @@
+package com.algo.inc.export;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.algo.inc.model.ErrorClass;
+import com.algo.inc.model.LinkRecord;
+import com.algo.inc.model.WebsiteReport;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+/**
+ * Unit tests for the export formats.
+ */
+public class ReportWriterTest
+{
+    private static final WebsiteReport SESSION = new WebsiteReport(7, "example.com", "2026-01-02 03:04:05", null, 1500, 12.5);
+    
+    @Test
+    public void writesQuotedCsvRows()
+    {
+        String csv = export(ExportFormat.CSV);
+        String[] lines = csv.split("\r\n");
+        assertEquals(3, lines.length);
+        assertEquals(String.join(",", ReportWriter.COLUMNS), lines[0]);
+        assertEquals("7,example.com,1,http://example.com/,200,text/html,NONE,0,2048,2.0,40,1,2,3,4,5,\"\"\"v1\"\"\",,,", lines[1]);
+        assertEquals("7,example.com,2,\"http://example.com/a,b\",,,TIMEOUT,2,0,0.0,30000,0,0,0,0,0,,,,", lines[2]);
+    }
+    
+    @Test
+    public void writesSessionLinkAndTotalLines()
+    {
+        String[] lines = export(ExportFormat.NDJSON).split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("{\"type\":\"session\",\"session_id\":7,\"website\":\"example.com\",\"start\":\"2026-01-02 03:04:05\","
+            + "\"end\":null,\"total_ms\":1500,\"kilobytes\":12.5}", lines[0]);
+        assertEquals("{\"type\":\"link\",\"session_id\":7,\"website\":\"example.com\",\"link_id\":2,"
+            + "\"url\":\"http://example.com/a,b\",\"status\":null,\"content_type\":null,\"error_class\":\"TIMEOUT\","
+            + "\"retries\":2,\"wire_bytes\":0,\"kilobytes\":0.0,\"total_ms\":30000,\"dns_ms\":0,\"connect_ms\":0,"
+            + "\"tls_ms\":0,\"ttfb_ms\":0,\"transfer_ms\":0,\"etag\":null,\"last_modified\":null,\"final_url\":null,"
+            + "\"content_hash\":null}", lines[2]);
+        assertEquals("{\"type\":\"total\",\"sessions\":1,\"links\":2}", lines[3]);
+    }
+    
+    @Test
+    public void writesColumnBlocks() throws Exception
+    {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(exportBytes(ExportFormat.COLUMNAR)));
+        byte[] magic = new byte[8];
+        in.readFully(magic);
+        assertArrayEquals(ColumnarReportWriter.MAGIC, magic);
+        assertEquals(ReportWriter.COLUMNS.length, in.readInt());
+        for (int c = 0; c < ReportWriter.COLUMNS.length; c++) {
+            assertEquals(ReportWriter.COLUMNS[c], in.readUTF());
+            assertEquals(ColumnarReportWriter.TYPES[c], in.readByte());
+        }
+        
+        assertEquals(2, in.readInt());
+        // session_id, then the website names
+        assertEquals(16, in.readInt());
+        assertEquals(7, in.readLong());
+        assertEquals(7, in.readLong());
+        assertEquals(8 + 22, in.readInt());
+        assertEquals(11, in.readInt());
+        assertEquals(11, in.readInt());
+        in.skipBytes(22);
+        // link_id, then the URLs
+        in.skipBytes(4 + 16);
+        assertEquals(8 + 19 + 22, in.readInt());
+        assertEquals(19, in.readInt());
+        assertEquals(22, in.readInt());
+        byte[] urls = new byte[41];
+        in.readFully(urls);
+        assertEquals("http://example.com/http://example.com/a,b", new String(urls, StandardCharsets.UTF_8));
+        for (int c = 4; c < ReportWriter.COLUMNS.length; c++) {
+            in.skipBytes(in.readInt());
+        }
+        assertEquals(0, in.readInt());
+        assertEquals(-1, in.read());
+    }
+    
+    private static String export(ExportFormat format)
+    {
+        return new String(exportBytes(format), StandardCharsets.UTF_8);
+    }
+    
+    private static byte[] exportBytes(ExportFormat format)
+    {
+        LinkRecord page = new LinkRecord(1, "http://example.com/", 7, 40, 2.0);
+        page.setStatusCode(200);
+        page.setContentType("text/html");
+        page.setWireBytes(2048);
+        page.setDnsTime(1);
+        page.setConnectTime(2);
+        page.setTlsTime(3);
+        page.setTimeToFirstByte(4);
+        page.setTransferTime(5);
+        page.setEtag("\"v1\"");
+        LinkRecord failed = new LinkRecord(2, "http://example.com/a,b", 7, 30000, 0);
+        failed.setErrorClass(ErrorClass.TIMEOUT);
+        failed.setRetries(2);
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ReportWriter writer = format.newWriter(out);
+            writer.beginSession(SESSION);
+            writer.writeLink(page);
+            writer.writeLink(failed);
+            writer.finish();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return out.toByteArray();
+    }
+}
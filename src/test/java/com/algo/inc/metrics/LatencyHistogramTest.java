@@ -0,0 +1,41 @@
+package com.algo.inc.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for LatencyHistogram bucketing and percentiles.
+ */
+public class LatencyHistogramTest 
+{
+    @Test
+    public void bucketBoundsContainTheirValues()
+    {
+        long[] values = {0, 1, 15, 16, 17, 31, 32, 1000, 123_456_789L, Long.MAX_VALUE / 4};
+        for (long value : values) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(value + " above its bucket", value <= LatencyHistogram.bucketUpperBound(index));
+            if (index > 0) {
+                assertTrue(value + " below its bucket", value > LatencyHistogram.bucketUpperBound(index - 1));
+            }
+        }
+    }
+    
+    @Test
+    public void percentilesStayWithinBucketPrecision()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long millis = 1; millis <= 1000; millis++) {
+            histogram.record(millis * 1_000_000);
+        }
+        
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1_000_000_000L, snapshot.getMax());
+        assertEquals(500e6, snapshot.percentile(0.5), 500e6 * 0.07);
+        assertEquals(990e6, snapshot.percentile(0.99), 990e6 * 0.07);
+        assertEquals(1000, snapshot.countAtOrBelow(Long.MAX_VALUE / 2));
+    }
+}
@@ -0,0 +1,70 @@
+package com.algo.inc.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for CanonicalUrl resolution and normalization.
+ */
+public class CanonicalUrlTest
+{
+    @Test
+    public void resolvesRfc3986Examples()
+    {
+        // RFC 3986 section 5.4, with fragments dropped and "//g" given its "/" path
+        CanonicalUrl base = CanonicalUrl.parse("http://a/b/c/d;p?q");
+        String[][] cases = {
+            {"g", "http://a/b/c/g"},
+            {"./g", "http://a/b/c/g"},
+            {"g/", "http://a/b/c/g/"},
+            {"/g", "http://a/g"},
+            {"//g", "http://g/"},
+            {"?y", "http://a/b/c/d;p?y"},
+            {"g?y", "http://a/b/c/g?y"},
+            {"#s", "http://a/b/c/d;p?q"},
+            {"g?y#s", "http://a/b/c/g?y"},
+            {";x", "http://a/b/c/;x"},
+            {"", "http://a/b/c/d;p?q"},
+            {".", "http://a/b/c/"},
+            {"..", "http://a/b/"},
+            {"../g", "http://a/b/g"},
+            {"../..", "http://a/"},
+            {"../../../g", "http://a/g"},
+            {"/./g", "http://a/g"},
+            {"g.", "http://a/b/c/g."},
+            {"..g", "http://a/b/c/..g"},
+            {"./g/.", "http://a/b/c/g/"},
+            {"g;x=1/../y", "http://a/b/c/y"},
+        };
+        for (String[] c : cases) {
+            assertEquals(c[0], c[1], base.resolve(c[0]).toString());
+        }
+    }
+    
+    @Test
+    public void normalizesEquivalentSpellings()
+    {
+        CanonicalUrl url = CanonicalUrl.parse("HTTP://Example.COM:80/a/%7euser/./x%2f#top");
+        assertEquals("http://example.com/a/~user/x%2F", url.toString());
+        assertEquals("example.com", url.getHost());
+        assertEquals(url, CanonicalUrl.parse("http://example.com/a/~user/x%2F"));
+        assertEquals("https://example.com:8443/my%20file.png",
+                     CanonicalUrl.parse("https://example.com:8443/my file.png").toString());
+        assertEquals("http://example.com/", CanonicalUrl.parse("http://example.com").toString());
+        assertEquals("http://example.com/?a=1&b=2",
+                     CanonicalUrl.parse("http://example.com/?b=2&a=1").withSortedQuery().toString());
+    }
+    
+    @Test
+    public void rejectsNonHttpReferences()
+    {
+        CanonicalUrl base = CanonicalUrl.parse("https://example.com/");
+        assertNull(base.resolve("mailto:someone@example.com"));
+        assertNull(base.resolve("javascript:void(0)"));
+        assertNull(base.resolve("http://example.com:port/"));
+        assertEquals("index.html", base.getFilename());
+        assertEquals("logo.png", base.resolve("img/logo.png?v=2").getFilename());
+    }
+}
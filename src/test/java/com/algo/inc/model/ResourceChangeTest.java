@@ -0,0 +1,48 @@
+package com.algo.inc.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for classifying a URL's difference between two sessions.
+ */
+public class ResourceChangeTest
+{
+    private static final String HASH_A = "a".repeat(64);
+    private static final String HASH_B = "b".repeat(64);
+    
+    @Test
+    public void classifiesPresenceAndContent()
+    {
+        assertEquals(ResourceChange.Change.ADDED,
+            ResourceChange.classify(false, true, 0, 200, 0, 10, null, HASH_A));
+        assertEquals(ResourceChange.Change.REMOVED,
+            ResourceChange.classify(true, false, 200, 0, 10, 0, HASH_A, null));
+        assertEquals(ResourceChange.Change.CHANGED,
+            ResourceChange.classify(true, true, 200, 200, 10, 10, HASH_A, HASH_B));
+        assertEquals(ResourceChange.Change.CHANGED,
+            ResourceChange.classify(true, true, 200, 404, 10, 10, HASH_A, null));
+        assertNull(ResourceChange.classify(true, true, 200, 200, 10, 12, HASH_A, HASH_A));
+    }
+    
+    @Test
+    public void revalidatedCopiesAreUnchanged()
+    {
+        // A 304 carries no body but keeps the confirmed copy's hash
+        assertNull(ResourceChange.classify(true, true, 200, 304, 10, 0, HASH_A, HASH_A));
+        assertNull(ResourceChange.classify(true, true, 304, 200, 0, 10, HASH_A, HASH_A));
+        assertNull(ResourceChange.classify(true, true, 200, 304, 10, 0, null, null));
+        assertEquals(ResourceChange.Change.CHANGED,
+            ResourceChange.classify(true, true, 404, 304, 0, 0, null, null));
+    }
+    
+    @Test
+    public void fallsBackToSizesWithoutHashes()
+    {
+        assertNull(ResourceChange.classify(true, true, 200, 200, 10, 10, null, HASH_A));
+        assertEquals(ResourceChange.Change.CHANGED,
+            ResourceChange.classify(true, true, 200, 200, 10, 11, null, HASH_A));
+    }
+}
@@ -0,0 +1,89 @@
+package com.algo.inc.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for writing search index segments and querying a mirror's index.
+ */
+public class MirrorIndexTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void tokenizesWordsInAnyScript()
+    {
+        assertEquals(Arrays.asList("e", "mail", "straße", "東京", "42"), Tokenizer.tokenize("E-mail, Straße: 東京 42!"));
+        assertEquals(Arrays.asList(Arrays.asList("fast"), Arrays.asList("e", "mail"), Arrays.asList("web", "server")),
+            MirrorIndex.parseQuery("fast e-mail \"Web  server\""));
+    }
+    
+    @Test
+    public void answersKeywordAndPhraseQueries() throws Exception
+    {
+        Path mirror = folder.getRoot().toPath();
+        SegmentWriter writer = new SegmentWriter(1);
+        writer.add("http://a/", "index.html", "Home", "A fast web server written in Java");
+        writer.add("http://a/docs", "docs/index.html", "Docs", "Configure the server. The web is fast");
+        writer.add("http://a/blog", "blog/index.html", "Blog", "Nothing relevant here");
+        writer.write(mirror.resolve(MirrorIndex.DIRECTORY));
+        
+        MirrorIndex index = MirrorIndex.open(mirror);
+        assertEquals(3, index.getDocumentCount());
+        assertEquals(2, index.search("server fast", 10).getTotalMatches());
+        assertEquals(Arrays.asList("http://a/"), urls(index.search("\"web server\"", 10)));
+        assertEquals(Arrays.asList("http://a/docs"), urls(index.search("configure", 10)));
+        assertEquals(0, index.search("server missing", 10).getTotalMatches());
+        assertEquals(1, index.search("server", 1).getHits().size());
+    }
+    
+    @Test
+    public void newerSessionsShadowOlderCopies() throws Exception
+    {
+        Path mirror = folder.getRoot().toPath();
+        assertNull(MirrorIndex.open(mirror));
+        
+        SegmentWriter first = new SegmentWriter(1);
+        first.add("http://a/", "index.html", "Home", "old text");
+        first.add("http://a/kept", "kept.html", "Kept", "unchanged text");
+        first.add("http://a/gone", "gone.html", "Gone", "old text");
+        first.write(mirror.resolve(MirrorIndex.DIRECTORY));
+        
+        // The second session downloads the home page again, finds one page gone and leaves the other alone
+        SegmentWriter second = new SegmentWriter(2);
+        second.add("http://a/", "index.html", "Home", "new text");
+        second.remove("http://a/gone");
+        second.write(mirror.resolve(MirrorIndex.DIRECTORY));
+        
+        MirrorIndex index = MirrorIndex.open(mirror);
+        assertEquals(2, index.getDocumentCount());
+        assertEquals(0, index.search("old", 10).getTotalMatches());
+        assertEquals(Arrays.asList("http://a/"), urls(index.search("new", 10)));
+        assertEquals(Arrays.asList("http://a/kept"), urls(index.search("unchanged", 10)));
+        
+        // Both segments still contribute; a full third session replaces them
+        assertEquals(0, MirrorIndex.prune(mirror));
+        SegmentWriter third = new SegmentWriter(3);
+        third.add("http://a/", "index.html", "Home", "newest text");
+        third.add("http://a/kept", "kept.html", "Kept", "unchanged text");
+        third.write(mirror.resolve(MirrorIndex.DIRECTORY));
+        assertEquals(2, MirrorIndex.prune(mirror));
+        
+        index = MirrorIndex.open(mirror);
+        assertEquals(1, index.getSegmentCount());
+        assertEquals(2, index.search("text", 10).getTotalMatches());
+    }
+    
+    private static List<String> urls(MirrorIndex.Results results)
+    {
+        return results.getHits().stream().map(MirrorIndex.Hit::getUrl).toList();
+    }
+}
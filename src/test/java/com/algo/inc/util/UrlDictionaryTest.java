@@ -0,0 +1,50 @@
+package com.algo.inc.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Unit tests for the front-coded URL dictionary.
+ */
+public class UrlDictionaryTest
+{
+    @Test
+    public void mapsUrlsToDenseIdsAndBack()
+    {
+        UrlDictionary dictionary = new UrlDictionary();
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            // Shared prefixes, a shorter URL after a longer one, and non-ASCII paths
+            urls.add("https://example.com/docs/section-" + (i / 100) + "/page-" + i + ".html");
+            urls.add("https://example.com/" + i);
+            urls.add("https://example.com/wiki/Straße_" + i);
+        }
+        for (int i = 0; i < urls.size(); i++) {
+            assertEquals(i, dictionary.add(urls.get(i)));
+        }
+        
+        assertEquals(urls.size(), dictionary.size());
+        for (int i = 0; i < urls.size(); i++) {
+            assertEquals(urls.get(i), dictionary.get(i));
+            assertEquals(i, dictionary.add(urls.get(i)));
+            assertEquals(i, dictionary.find(urls.get(i)));
+        }
+        assertEquals(urls.size(), dictionary.size());
+        assertFalse(dictionary.contains("https://example.com/docs/section-0/page-0.htm"));
+        assertTrue(dictionary.contains("https://example.com/4999"));
+    }
+    
+    @Test
+    public void emptyDictionaryFindsNothing()
+    {
+        UrlDictionary dictionary = new UrlDictionary();
+        assertEquals(-1, dictionary.find("https://example.com/"));
+        assertEquals(0, dictionary.add(""));
+        assertEquals("", dictionary.get(0));
+    }
+}